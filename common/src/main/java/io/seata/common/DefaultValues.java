@@ -44,6 +44,16 @@ public class DefaultValues {
     public static final String DEFAULT_SELECTOR_THREAD_PREFIX = "NettyClientSelector";
     public static final String DEFAULT_WORKER_THREAD_PREFIX = "NettyClientWorkerThread";
     public static final boolean DEFAULT_ENABLE_CLIENT_BATCH_SEND_REQUEST = true;
+    public static final int DEFAULT_CLIENT_BATCH_MAX_COUNT = 256;
+    public static final int DEFAULT_CLIENT_BATCH_MAX_WAIT = 0;
+    public static final int DEFAULT_CLIENT_CONNECTIONS_PER_SERVER = 1;
+    public static final String DEFAULT_CLIENT_CHANNEL_SELECTOR = "leastPending";
+    public static final boolean DEFAULT_ENABLE_TC_SERVER_PARALLEL_BATCH_REQUEST = false;
+    public static final int DEFAULT_REQUEST_TRACE_SAMPLE_PERCENT = 1;
+    public static final int DEFAULT_REQUEST_TRACE_BUFFER_SIZE = 4096;
+    public static final boolean DEFAULT_SERVER_EXECUTOR_ISOLATION = false;
+    public static final int DEFAULT_SERVER_EXECUTOR_MAX_THREADS = 200;
+    public static final int DEFAULT_SERVER_EXECUTOR_QUEUE_SIZE = 5000;
 
 
     public static final String DEFAULT_BOSS_THREAD_PREFIX = "NettyBoss";
@@ -73,9 +83,23 @@ public class DefaultValues {
      */
     public static final String DEFAULT_LOCK_DB_TABLE = "lock_table";
 
+    public static final boolean DEFAULT_STORE_DB_GROUP_COMMIT = false;
+    public static final int DEFAULT_STORE_DB_GROUP_COMMIT_SIZE = 128;
+    public static final int DEFAULT_STORE_DB_GROUP_COMMIT_WAIT = 0;
+
+    public static final boolean DEFAULT_STORE_SESSION_CACHE_ENABLE = false;
+    public static final int DEFAULT_STORE_SESSION_CACHE_MAX_SIZE = 10000;
+    public static final long DEFAULT_STORE_SESSION_CACHE_EXPIRE_TIME = 3000L;
+
     public static final int DEFAULT_TM_COMMIT_RETRY_COUNT = 5;
     public static final int DEFAULT_TM_ROLLBACK_RETRY_COUNT = 5;
 
+    public static final boolean DEFAULT_ENABLE_PARALLEL_PHASE_TWO = false;
+
+    public static final int DEFAULT_RECOVERY_PARALLELISM = 4;
+    public static final int DEFAULT_RECOVERY_SHARD_CAPACITY = 1000;
+    public static final long DEFAULT_RECOVERY_MAX_RETRY_BACKOFF = 60 * 1000L;
+
     public static final String DEFAULT_TX_GROUP = "my_test_tx_group";
     public static final String DEFAULT_TC_CLUSTER = "default";
     public static final String DEFAULT_GROUPLIST = "127.0.0.1:8091";
@@ -86,6 +110,11 @@ public class DefaultValues {
 
     public static final int SERVER_DEFAULT_PORT = 8091;
     public static final String SERVER_DEFAULT_STORE_MODE = "file";
+    public static final String DEFAULT_STORE_REDIS_TYPE = "pipeline";
+    public static final String DEFAULT_STORE_REDIS_CODEC = "json";
+    public static final String DEFAULT_STORE_ROCKSDB_DIR = "rocksdbStore";
+    public static final int DEFAULT_STORE_ROCKSDB_QUERY_LIMIT = 100;
+    public static final boolean DEFAULT_STORE_ROCKSDB_SYNC_WRITE = true;
     public static final long SERVER_DEFAULT_NODE = ThreadLocalRandom.current().nextLong(1024);
 
     public static final String DEFAULT_SAGA_JSON_PARSER = "fastjson";
@@ -16,6 +16,7 @@
 package io.seata.common.util;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * @author funkye
@@ -61,19 +62,27 @@ public class IdWorker {
     private final long sequenceMask = -1L ^ (-1L << sequenceBits);
 
     /**
-     * Machine ID (0 ~ 1023)
+     * The milliseconds the clock may move backwards before ids are refused, the ids of that while continue from the
+     * last timestamp
      */
-    private long workerId;
+    private final long maxBackwardMillis = 1000L;
 
     /**
-     * Sequence in milliseconds (0 ~ 4095)
+     * The milliseconds a sequence overflow may borrow ahead of the clock before the generation waits for the clock
      */
-    private long sequence = 0L;
+    private final long maxBorrowMillis = 5L;
+
+    /**
+     * Machine ID (0 ~ 1023)
+     */
+    private long workerId;
 
     /**
-     * Time of last ID generation
+     * Time of last ID generation (since the start time cut) and the sequence in it (0 ~ 4095), kept in one value so
+     * that both advance with a single CAS. A sequence overflow carries into the timestamp, which borrows the next
+     * millisecond instead of waiting for it, as long as it stays within {@link #maxBorrowMillis} of the clock.
      */
-    private long lastTimestamp = -1L;
+    private final AtomicLong timestampAndSequence = new AtomicLong(0L);
 
     /**
      * Constructor
@@ -90,29 +99,35 @@ public class IdWorker {
     }
 
     /**
-     * Get the next ID (the method is thread-safe)
+     * Get the next ID (the method is thread-safe and lock-free)
      *
      * @return SnowflakeId
      */
-    public synchronized long nextId() {
-        long timestamp = timeGen();
-
-        if (timestamp < lastTimestamp) {
-            throw new RuntimeException(String.format(
-                "clock moved backwards.  Refusing to generate id for %d milliseconds", lastTimestamp - timestamp));
-        }
-
-        if (lastTimestamp == timestamp) {
-            sequence = (sequence + 1) & sequenceMask;
-            if (sequence == 0) {
-                timestamp = tilNextMillis(lastTimestamp);
+    public long nextId() {
+        for (;;) {
+            long current = timestampAndSequence.get();
+            long lastTimestamp = current >>> sequenceBits;
+            long timestamp = timeGen() - twepoch;
+            long next;
+            if (timestamp > lastTimestamp) {
+                next = timestamp << sequenceBits;
+            } else if (lastTimestamp - timestamp <= maxBackwardMillis) {
+                next = current + 1;
+                long nextTimestamp = next >>> sequenceBits;
+                if ((next & sequenceMask) == 0 && nextTimestamp - timestamp > maxBorrowMillis) {
+                    // no lock is held while waiting, the other threads wait for the clock as well
+                    tilNextMillis(twepoch + nextTimestamp - maxBorrowMillis - 1);
+                    continue;
+                }
+            } else {
+                throw new RuntimeException(String.format(
+                    "clock moved backwards.  Refusing to generate id for %d milliseconds", lastTimestamp - timestamp));
+            }
+            if (timestampAndSequence.compareAndSet(current, next)) {
+                return ((next >>> sequenceBits) << timestampLeftShift) | (workerId << workerIdShift)
+                    | (next & sequenceMask);
             }
-        } else {
-            sequence = 0L;
         }
-        lastTimestamp = timestamp;
-
-        return ((timestamp - twepoch) << timestampLeftShift) | (workerId << workerIdShift) | sequence;
     }
 
     /**
@@ -125,6 +140,7 @@ public class IdWorker {
     protected long tilNextMillis(long lastTimestamp) {
         long timestamp = timeGen();
         while (timestamp <= lastTimestamp) {
+            Thread.yield();
             timestamp = timeGen();
         }
         return timestamp;
@@ -0,0 +1,120 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.seata.common.util;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The type Id worker test.
+ */
+public class IdWorkerTest {
+
+    @Test
+    public void testUniqueAcrossThreads() throws InterruptedException {
+        IdWorker idWorker = new IdWorker(1023L);
+        int threads = 16;
+        int idsPerThread = 20000;
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        AtomicBoolean ordered = new AtomicBoolean(true);
+        CountDownLatch done = new CountDownLatch(threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int i = 0; i < threads; i++) {
+            executor.execute(() -> {
+                long last = -1L;
+                for (int j = 0; j < idsPerThread; j++) {
+                    long id = idWorker.nextId();
+                    if (id <= last) {
+                        ordered.set(false);
+                    }
+                    last = id;
+                    ids.add(id);
+                }
+                done.countDown();
+            });
+        }
+        Assertions.assertTrue(done.await(30, TimeUnit.SECONDS));
+        executor.shutdown();
+        Assertions.assertEquals(threads * idsPerThread, ids.size());
+        Assertions.assertTrue(ordered.get());
+    }
+
+    @Test
+    public void testSequenceOverflowAndClockBackwards() {
+        ManualClockIdWorker idWorker = new ManualClockIdWorker();
+        idWorker.now = 1588435200000L + 10L;
+        long last = idWorker.nextId();
+        // more ids than the sequence holds within one millisecond borrow the next one
+        for (int i = 0; i < 5000; i++) {
+            long id = idWorker.nextId();
+            Assertions.assertTrue(id > last);
+            last = id;
+        }
+        // a small step back continues from the last timestamp
+        idWorker.now -= 500L;
+        long id = idWorker.nextId();
+        Assertions.assertTrue(id > last);
+
+        idWorker.now -= 2000L;
+        Assertions.assertThrows(RuntimeException.class, idWorker::nextId);
+    }
+
+    @Test
+    public void testBorrowingIsBounded() {
+        ManualClockIdWorker idWorker = new ManualClockIdWorker();
+        idWorker.now = 1588435200000L + 10L;
+        long last = idWorker.nextId();
+        // a stopped clock lets the sequence borrow a few milliseconds, then the generation waits for the clock
+        for (int i = 0; i < 4096 * 10; i++) {
+            long id = idWorker.nextId();
+            Assertions.assertTrue(id > last);
+            last = id;
+        }
+        Assertions.assertTrue(idWorker.waits > 0);
+        Assertions.assertTrue((last >>> 22) - (idWorker.now - 1588435200000L) <= 5L);
+    }
+
+    private static class ManualClockIdWorker extends IdWorker {
+
+        private volatile long now;
+
+        private int waits;
+
+        ManualClockIdWorker() {
+            super(1L);
+        }
+
+        @Override
+        protected long timeGen() {
+            return now;
+        }
+
+        @Override
+        protected long tilNextMillis(long lastTimestamp) {
+            waits++;
+            now = lastTimestamp + 1;
+            return now;
+        }
+    }
+}
@@ -37,6 +37,26 @@ public class ConfigurationKeys {
      */
     public static final String STORE_MODE = STORE_PREFIX + "mode";
 
+    /**
+     * The constant STORE_SESSION_CACHE_PREFIX.
+     */
+    public static final String STORE_SESSION_CACHE_PREFIX = STORE_PREFIX + "sessionCache.";
+
+    /**
+     * The constant STORE_SESSION_CACHE_ENABLE.
+     */
+    public static final String STORE_SESSION_CACHE_ENABLE = STORE_SESSION_CACHE_PREFIX + "enable";
+
+    /**
+     * The constant STORE_SESSION_CACHE_MAX_SIZE.
+     */
+    public static final String STORE_SESSION_CACHE_MAX_SIZE = STORE_SESSION_CACHE_PREFIX + "maxSize";
+
+    /**
+     * The constant STORE_SESSION_CACHE_EXPIRE_TIME.
+     */
+    public static final String STORE_SESSION_CACHE_EXPIRE_TIME = STORE_SESSION_CACHE_PREFIX + "expireTime";
+
     /**
      * The constant STORE_FILE_PREFIX
      */
@@ -234,6 +254,21 @@ public class ConfigurationKeys {
      */
     public static final String STORE_DB_LOG_QUERY_LIMIT = STORE_DB_PREFIX + "queryLimit";
 
+    /**
+     * The constant STORE_DB_GROUP_COMMIT.
+     */
+    public static final String STORE_DB_GROUP_COMMIT = STORE_DB_PREFIX + "groupCommit";
+
+    /**
+     * The constant STORE_DB_GROUP_COMMIT_SIZE.
+     */
+    public static final String STORE_DB_GROUP_COMMIT_SIZE = STORE_DB_PREFIX + "groupCommitSize";
+
+    /**
+     * The constant STORE_DB_GROUP_COMMIT_WAIT.
+     */
+    public static final String STORE_DB_GROUP_COMMIT_WAIT = STORE_DB_PREFIX + "groupCommitWait";
+
     /**
      * The constant LOCK_DB_TABLE.
      */
@@ -268,6 +303,21 @@ public class ConfigurationKeys {
      */
     public static final String TIMEOUT_RETRY_PERIOD = RECOVERY_PREFIX + "timeoutRetryPeriod";
 
+    /**
+     * The constant RECOVERY_PARALLELISM.
+     */
+    public static final String RECOVERY_PARALLELISM = RECOVERY_PREFIX + "parallelism";
+
+    /**
+     * The constant RECOVERY_SHARD_CAPACITY.
+     */
+    public static final String RECOVERY_SHARD_CAPACITY = RECOVERY_PREFIX + "shardCapacity";
+
+    /**
+     * The constant RECOVERY_MAX_RETRY_BACKOFF.
+     */
+    public static final String RECOVERY_MAX_RETRY_BACKOFF = RECOVERY_PREFIX + "maxRetryBackoff";
+
     /**
      * The constant CLIENT_UNDO_PREFIX.
      */
@@ -355,6 +405,11 @@ public class ConfigurationKeys {
      */
     public static final String ROLLBACK_RETRY_TIMEOUT_UNLOCK_ENABLE = SERVER_PREFIX + "rollbackRetryTimeoutUnlockEnable";
 
+    /**
+     * The constant ENABLE_PARALLEL_PHASE_TWO.
+     */
+    public static final String ENABLE_PARALLEL_PHASE_TWO = SERVER_PREFIX + "enableParallelPhaseTwo";
+
     /**
      * The constant TRANSPORT_TYPE
      */
@@ -435,6 +490,71 @@ public class ConfigurationKeys {
      */
     public static final String ENABLE_CLIENT_BATCH_SEND_REQUEST = TRANSPORT_PREFIX + "enableClientBatchSendRequest";
 
+    /**
+     * The constant CLIENT_BATCH_MAX_COUNT
+     */
+    public static final String CLIENT_BATCH_MAX_COUNT = TRANSPORT_PREFIX + "clientBatchMaxCount";
+
+    /**
+     * The constant CLIENT_BATCH_MAX_WAIT
+     */
+    public static final String CLIENT_BATCH_MAX_WAIT = TRANSPORT_PREFIX + "clientBatchMaxWait";
+
+    /**
+     * The constant CLIENT_CONNECTIONS_PER_SERVER
+     */
+    public static final String CLIENT_CONNECTIONS_PER_SERVER = TRANSPORT_PREFIX + "clientConnectionsPerServer";
+
+    /**
+     * The constant CLIENT_CHANNEL_SELECTOR
+     */
+    public static final String CLIENT_CHANNEL_SELECTOR = TRANSPORT_PREFIX + "clientChannelSelector";
+
+    /**
+     * The constant ENABLE_TC_SERVER_PARALLEL_BATCH_REQUEST
+     */
+    public static final String ENABLE_TC_SERVER_PARALLEL_BATCH_REQUEST = TRANSPORT_PREFIX + "enableTcServerParallelBatchRequest";
+
+    /**
+     * The constant REQUEST_TRACE_PREFIX
+     */
+    public static final String REQUEST_TRACE_PREFIX = TRANSPORT_PREFIX + "requestTrace.";
+
+    /**
+     * The constant REQUEST_TRACE_SAMPLE_PERCENT
+     */
+    public static final String REQUEST_TRACE_SAMPLE_PERCENT = REQUEST_TRACE_PREFIX + "samplePercent";
+
+    /**
+     * The constant REQUEST_TRACE_BUFFER_SIZE
+     */
+    public static final String REQUEST_TRACE_BUFFER_SIZE = REQUEST_TRACE_PREFIX + "bufferSize";
+
+    /**
+     * The constant SERVER_EXECUTOR_PREFIX
+     */
+    public static final String SERVER_EXECUTOR_PREFIX = TRANSPORT_PREFIX + "serverExecutor.";
+
+    /**
+     * The constant SERVER_EXECUTOR_ISOLATION
+     */
+    public static final String SERVER_EXECUTOR_ISOLATION = SERVER_EXECUTOR_PREFIX + "isolation";
+
+    /**
+     * The constant SERVER_EXECUTOR_MAX_THREADS, after the message class
+     */
+    public static final String SERVER_EXECUTOR_MAX_THREADS = "maxThreads";
+
+    /**
+     * The constant SERVER_EXECUTOR_QUEUE_SIZE, after the message class
+     */
+    public static final String SERVER_EXECUTOR_QUEUE_SIZE = "queueSize";
+
+    /**
+     * The constant SERVER_EXECUTOR_PRIORITY, after the message class
+     */
+    public static final String SERVER_EXECUTOR_PRIORITY = "priority";
+
     /**
      * The constant DISABLE_GLOBAL_TRANSACTION.
      */
@@ -485,6 +605,36 @@ public class ConfigurationKeys {
      */
     public static final String STORE_REDIS_QUERY_LIMIT = STORE_REDIS_PREFIX + "queryLimit";
 
+    /**
+     * The constant STORE_REDIS_TYPE.
+     */
+    public static final String STORE_REDIS_TYPE = STORE_REDIS_PREFIX + "type";
+
+    /**
+     * The constant STORE_REDIS_CODEC.
+     */
+    public static final String STORE_REDIS_CODEC = STORE_REDIS_PREFIX + "codec";
+
+    /**
+     * The constant STORE_ROCKSDB_PREFIX.
+     */
+    public static final String STORE_ROCKSDB_PREFIX = STORE_PREFIX + "rocksdb.";
+
+    /**
+     * The constant STORE_ROCKSDB_DIR.
+     */
+    public static final String STORE_ROCKSDB_DIR = STORE_ROCKSDB_PREFIX + "dir";
+
+    /**
+     * The constant STORE_ROCKSDB_QUERY_LIMIT.
+     */
+    public static final String STORE_ROCKSDB_QUERY_LIMIT = STORE_ROCKSDB_PREFIX + "queryLimit";
+
+    /**
+     * The constant STORE_ROCKSDB_SYNC_WRITE.
+     */
+    public static final String STORE_ROCKSDB_SYNC_WRITE = STORE_ROCKSDB_PREFIX + "syncWrite";
+
     /**
      * The constant CLIENT_DEGRADE_CHECK_PERIOD.
      */
@@ -15,6 +15,7 @@
  */
 package io.seata.core.protocol;
 
+import io.netty.util.Timeout;
 import io.seata.common.exception.ShouldNeverHappenException;
 
 import java.util.concurrent.CompletableFuture;
@@ -32,6 +33,7 @@ public class MessageFuture {
     private long timeout;
     private long start = System.currentTimeMillis();
     private transient CompletableFuture<Object> origin = new CompletableFuture<>();
+    private volatile Timeout timeoutHandle;
 
     /**
      * Is timeout boolean.
@@ -57,6 +59,9 @@ public class MessageFuture {
         try {
             result = origin.get(timeout, unit);
         } catch (ExecutionException e) {
+            if (e.getCause() instanceof TimeoutException) {
+                throw (TimeoutException)e.getCause();
+            }
             throw new ShouldNeverHappenException("Should not get results in a multi-threaded environment", e);
         } catch (TimeoutException e) {
             throw new TimeoutException("cost " + (System.currentTimeMillis() - start) + " ms");
@@ -71,6 +76,29 @@ public class MessageFuture {
         return result;
     }
 
+    /**
+     * Gets the result without blocking, the returned future completes exceptionally when the request
+     * fails or times out.
+     *
+     * @return the completable future of the result
+     */
+    public CompletableFuture<Object> toCompletableFuture() {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        origin.whenComplete((result, e) -> {
+            if (e != null) {
+                future.completeExceptionally(e);
+            } else if (result == null) {
+                future.completeExceptionally(
+                    new TimeoutException("cost " + (System.currentTimeMillis() - start) + " ms"));
+            } else if (result instanceof Throwable) {
+                future.completeExceptionally((Throwable)result);
+            } else {
+                future.complete(result);
+            }
+        });
+        return future;
+    }
+
     /**
      * Sets result message.
      *
@@ -78,6 +106,33 @@ public class MessageFuture {
      */
     public void setResultMessage(Object obj) {
         origin.complete(obj);
+        cancelTimeout();
+    }
+
+    /**
+     * Fail the future with a timeout exception, when its timeout passed before a result was set.
+     */
+    public void completeTimeout() {
+        origin.completeExceptionally(new TimeoutException("cost " + (System.currentTimeMillis() - start) + " ms"));
+    }
+
+    /**
+     * Sets the scheduled timeout of the future, cancelled once the result is set.
+     *
+     * @param timeoutHandle the timeout handle
+     */
+    public void setTimeoutHandle(Timeout timeoutHandle) {
+        this.timeoutHandle = timeoutHandle;
+        if (origin.isDone()) {
+            cancelTimeout();
+        }
+    }
+
+    private void cancelTimeout() {
+        Timeout handle = timeoutHandle;
+        if (handle != null) {
+            handle.cancel();
+        }
     }
 
     /**
@@ -98,6 +153,15 @@ public class MessageFuture {
         this.requestMessage = requestMessage;
     }
 
+    /**
+     * The milliseconds passed since the request was sent.
+     *
+     * @return the elapsed millis
+     */
+    public long elapsedMillis() {
+        return System.currentTimeMillis() - start;
+    }
+
     /**
      * Gets timeout.
      *
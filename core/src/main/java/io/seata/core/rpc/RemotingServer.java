@@ -19,6 +19,7 @@ import io.netty.channel.Channel;
 import io.seata.core.protocol.RpcMessage;
 import io.seata.core.rpc.processor.RemotingProcessor;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeoutException;
 
@@ -42,6 +43,16 @@ public interface RemotingServer {
      */
     Object sendSyncRequest(String resourceId, String clientId, Object msg) throws TimeoutException;
 
+    /**
+     * server send request and receive the result without blocking.
+     *
+     * @param resourceId rm client resourceId
+     * @param clientId   rm client id
+     * @param msg        transaction message {@link io.seata.core.protocol}
+     * @return the future of client result message, completed exceptionally on failure or timeout
+     */
+    CompletableFuture<Object> sendAsyncRequest(String resourceId, String clientId, Object msg);
+
     /**
      * server send sync request.
      *
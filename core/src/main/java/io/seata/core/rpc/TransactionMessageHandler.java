@@ -15,6 +15,8 @@
  */
 package io.seata.core.rpc;
 
+import java.util.concurrent.CompletableFuture;
+
 import io.seata.core.protocol.AbstractMessage;
 import io.seata.core.protocol.AbstractResultMessage;
 
@@ -34,6 +36,19 @@ public interface TransactionMessageHandler {
      */
     AbstractResultMessage onRequest(AbstractMessage request, RpcContext context);
 
+    /**
+     * On a request received, the response is completed once the request is done. A handler that answers some
+     * requests later, without holding the caller thread, overrides it; by default the request is handled on the
+     * caller thread.
+     *
+     * @param request received request message
+     * @param context context of the RPC
+     * @return the future of the response to the request
+     */
+    default CompletableFuture<AbstractResultMessage> onRequestAsync(AbstractMessage request, RpcContext context) {
+        return CompletableFuture.completedFuture(onRequest(request, context));
+    }
+
     /**
      * On a response received.
      *
@@ -18,6 +18,7 @@ package io.seata.core.rpc.netty;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.util.HashedWheelTimer;
 import io.seata.common.exception.FrameworkErrorCode;
 import io.seata.common.exception.FrameworkException;
 import io.seata.common.thread.NamedThreadFactory;
@@ -39,6 +40,7 @@ import java.net.SocketAddress;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.RejectedExecutionException;
@@ -47,6 +49,7 @@ import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * The abstract netty remoting.
@@ -57,6 +60,15 @@ import java.util.concurrent.TimeoutException;
 public abstract class AbstractNettyRemoting implements Disposable {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(AbstractNettyRemoting.class);
+
+    private static final long TIMEOUT_TICK_MILLS = 10L;
+
+    /**
+     * Fails the futures of the requests that got no response in time, shared by all remotings so that one thread
+     * tracks every in-flight request whatever their number.
+     */
+    private static final HashedWheelTimer TIMEOUT_TIMER = new HashedWheelTimer(
+        new NamedThreadFactory("timeoutChecker", 1, true), TIMEOUT_TICK_MILLS, TimeUnit.MILLISECONDS, 512);
     /**
      * The Timer executor.
      */
@@ -81,16 +93,21 @@ public abstract class AbstractNettyRemoting implements Disposable {
 
     private static final long NOT_WRITEABLE_CHECK_MILLS = 10L;
 
-    /**
-     * The Now mills.
-     */
-    protected volatile long nowMills = 0;
-    private static final int TIMEOUT_CHECK_INTERNAL = 3000;
     protected final Object lock = new Object();
+
     /**
      * The Is sending.
+     *
+     * @deprecated no longer set, the merged requests are sent by a {@link MergedSender} per server, it will be
+     * removed
      */
+    @Deprecated
     protected volatile boolean isSending = false;
+
+    /**
+     * The timed out requests by message type.
+     */
+    private final ConcurrentHashMap<String/*messageType*/, LongAdder> timeoutCounts = new ConcurrentHashMap<>();
     private String group = "DEFAULT";
 
     /**
@@ -100,22 +117,7 @@ public abstract class AbstractNettyRemoting implements Disposable {
     protected final HashMap<Integer/*MessageType*/, Pair<RemotingProcessor, ExecutorService>> processorTable = new HashMap<>(32);
 
     public void init() {
-        timerExecutor.scheduleAtFixedRate(new Runnable() {
-            @Override
-            public void run() {
-                for (Map.Entry<Integer, MessageFuture> entry : futures.entrySet()) {
-                    if (entry.getValue().isTimeout()) {
-                        futures.remove(entry.getKey());
-                        entry.getValue().setResultMessage(null);
-                        if (LOGGER.isDebugEnabled()) {
-                            LOGGER.debug("timeout clear future: {}", entry.getValue().getRequestMessage().getBody());
-                        }
-                    }
-                }
-
-                nowMills = System.currentTimeMillis();
-            }
-        }, TIMEOUT_CHECK_INTERNAL, TIMEOUT_CHECK_INTERNAL, TimeUnit.MILLISECONDS);
+        // the futures time out one by one, see addFuture
     }
 
     public AbstractNettyRemoting(ThreadPoolExecutor messageExecutor) {
@@ -130,6 +132,17 @@ public abstract class AbstractNettyRemoting implements Disposable {
         return futures;
     }
 
+    /**
+     * Gets the number of requests of a message type that timed out so far.
+     *
+     * @param messageType the message type
+     * @return the timeout count
+     */
+    public long getTimeoutCount(Class<?> messageType) {
+        LongAdder count = timeoutCounts.get(messageType.getSimpleName());
+        return count == null ? 0L : count.sum();
+    }
+
     public String getGroup() {
         return group;
     }
@@ -167,10 +180,55 @@ public abstract class AbstractNettyRemoting implements Disposable {
             return null;
         }
 
+        MessageFuture messageFuture = writeWithFuture(channel, rpcMessage, timeoutMillis);
+
+        try {
+            return messageFuture.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (Exception exx) {
+            LOGGER.error("wait response error:{},ip:{},request:{}", exx.getMessage(), channel.remoteAddress(),
+                rpcMessage.getBody());
+            if (exx instanceof TimeoutException) {
+                throw (TimeoutException) exx;
+            } else {
+                throw new RuntimeException(exx);
+            }
+        }
+    }
+
+    /**
+     * rpc async request with response.
+     * Obtain the return result through the returned future without blocking.
+     *
+     * @param channel       netty channel
+     * @param rpcMessage    rpc message
+     * @param timeoutMillis rpc communication timeout
+     * @return the future of response message, completed exceptionally on failure or timeout
+     */
+    protected CompletableFuture<Object> sendAsyncWithResponse(Channel channel, RpcMessage rpcMessage,
+                                                              long timeoutMillis) {
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        if (timeoutMillis <= 0) {
+            result.completeExceptionally(new FrameworkException("timeout should more than 0ms"));
+            return result;
+        }
+        if (channel == null) {
+            result.completeExceptionally(new FrameworkException("client is not connected"));
+            return result;
+        }
+        try {
+            return writeWithFuture(channel, rpcMessage, timeoutMillis).toCompletableFuture();
+        } catch (RuntimeException e) {
+            futures.remove(rpcMessage.getId());
+            result.completeExceptionally(e);
+            return result;
+        }
+    }
+
+    private MessageFuture writeWithFuture(Channel channel, RpcMessage rpcMessage, long timeoutMillis) {
         MessageFuture messageFuture = new MessageFuture();
         messageFuture.setRequestMessage(rpcMessage);
         messageFuture.setTimeout(timeoutMillis);
-        futures.put(rpcMessage.getId(), messageFuture);
+        addFuture(rpcMessage.getId(), messageFuture);
 
         channelWritableCheck(channel, rpcMessage.getBody());
 
@@ -183,18 +241,31 @@ public abstract class AbstractNettyRemoting implements Disposable {
                 destroyChannel(future.channel());
             }
         });
+        return messageFuture;
+    }
 
-        try {
-            return messageFuture.get(timeoutMillis, TimeUnit.MILLISECONDS);
-        } catch (Exception exx) {
-            LOGGER.error("wait response error:{},ip:{},request:{}", exx.getMessage(), channel.remoteAddress(),
-                rpcMessage.getBody());
-            if (exx instanceof TimeoutException) {
-                throw (TimeoutException) exx;
-            } else {
-                throw new RuntimeException(exx);
+    /**
+     * Put the future of a request into futures and schedule its timeout, it is removed and completed with a
+     * {@link TimeoutException} when no response arrived within {@link MessageFuture#getTimeout()}.
+     *
+     * @param msgId         the message id of the request
+     * @param messageFuture the message future
+     */
+    protected void addFuture(int msgId, MessageFuture messageFuture) {
+        futures.put(msgId, messageFuture);
+        messageFuture.setTimeoutHandle(TIMEOUT_TIMER.newTimeout(timeout -> {
+            if (!futures.remove(msgId, messageFuture)) {
+                return;
             }
-        }
+            messageFuture.completeTimeout();
+            Object body = messageFuture.getRequestMessage() == null ? null
+                : messageFuture.getRequestMessage().getBody();
+            String messageType = body == null ? "unknown" : body.getClass().getSimpleName();
+            timeoutCounts.computeIfAbsent(messageType, key -> new LongAdder()).increment();
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("timeout clear future: {}", body);
+            }
+        }, messageFuture.getTimeout(), TimeUnit.MILLISECONDS));
     }
 
     /**
@@ -22,7 +22,7 @@ import java.util.Map;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -77,14 +77,19 @@ public abstract class AbstractNettyRemotingClient extends AbstractNettyRemoting
     private static final String MSG_ID_PREFIX = "msgId:";
     private static final String FUTURES_PREFIX = "futures:";
     private static final String SINGLE_LOG_POSTFIX = ";";
-    private static final int MAX_MERGE_SEND_MILLS = 1;
     private static final String THREAD_PREFIX_SPLIT_CHAR = "_";
 
-    private static final int MAX_MERGE_SEND_THREAD = 1;
-    private static final long KEEP_ALIVE_TIME = Integer.MAX_VALUE;
     private static final long SCHEDULE_DELAY_MILLS = 60 * 1000L;
     private static final long SCHEDULE_INTERVAL_MILLS = 10 * 1000L;
     private static final String MERGE_THREAD_PREFIX = "rpcMergeMessageSend";
+    private static final long MERGE_SENDER_MAX_IDLE_MILLS = 60 * 1000L;
+
+    /**
+     * No longer used, the merged requests are sent by the {@link MergedSender} of their server.
+     *
+     * @deprecated kept for the subclasses that used it, it is never notified and will be removed
+     */
+    @Deprecated
     protected final Object mergeLock = new Object();
 
     /**
@@ -93,10 +98,18 @@ public abstract class AbstractNettyRemotingClient extends AbstractNettyRemoting
     protected final Map<Integer, MergeMessage> mergeMsgMap = new ConcurrentHashMap<>();
 
     /**
-     * When batch sending is enabled, the message will be stored to basketMap
-     * Send via asynchronous thread {@link MergedSendRunnable}
+     * When batch sending is enabled, the message will be stored to the basket of its server
+     * Send via the asynchronous thread of the server {@link MergedSender}
      * {@link NettyClientConfig#isEnableClientBatchSendRequest}
      */
+    private final ConcurrentHashMap<String/*serverAddress*/, MergedSender> mergedSenders = new ConcurrentHashMap<>();
+
+    /**
+     * No longer used, the requests are queued in the basket of the {@link MergedSender} of their server.
+     *
+     * @deprecated kept for the subclasses that used it, the messages put here are not sent and it will be removed
+     */
+    @Deprecated
     protected final ConcurrentHashMap<String/*serverAddress*/, BlockingQueue<RpcMessage>> basketMap = new ConcurrentHashMap<>();
 
     private final NettyClientBootstrap clientBootstrap;
@@ -114,12 +127,12 @@ public abstract class AbstractNettyRemotingClient extends AbstractNettyRemoting
             }
         }, SCHEDULE_DELAY_MILLS, SCHEDULE_INTERVAL_MILLS, TimeUnit.MILLISECONDS);
         if (NettyClientConfig.isEnableClientBatchSendRequest()) {
-            mergeSendExecutorService = new ThreadPoolExecutor(MAX_MERGE_SEND_THREAD,
-                MAX_MERGE_SEND_THREAD,
-                KEEP_ALIVE_TIME, TimeUnit.MILLISECONDS,
-                new LinkedBlockingQueue<>(),
-                new NamedThreadFactory(getThreadPrefix(), MAX_MERGE_SEND_THREAD));
-            mergeSendExecutorService.submit(new MergedSendRunnable());
+            // one sender thread per server, started with the first request to it and ended when it is idle
+            mergeSendExecutorService = new ThreadPoolExecutor(0,
+                Integer.MAX_VALUE,
+                MERGE_SENDER_MAX_IDLE_MILLS, TimeUnit.MILLISECONDS,
+                new SynchronousQueue<>(),
+                new NamedThreadFactory(getThreadPrefix(), true));
         }
         super.init();
         clientBootstrap.start();
@@ -142,31 +155,20 @@ public abstract class AbstractNettyRemotingClient extends AbstractNettyRemoting
         RpcMessage rpcMessage = buildRequestMessage(msg, ProtocolConstants.MSGTYPE_RESQUEST_SYNC);
 
         // send batch message
-        // put message into basketMap, @see MergedSendRunnable
+        // put message into the basket of the server, @see MergedSender
         if (NettyClientConfig.isEnableClientBatchSendRequest()) {
 
             // send batch message is sync request, needs to create messageFuture and put it in futures.
             MessageFuture messageFuture = new MessageFuture();
             messageFuture.setRequestMessage(rpcMessage);
             messageFuture.setTimeout(timeoutMillis);
-            futures.put(rpcMessage.getId(), messageFuture);
-
-            // put message into basketMap
-            ConcurrentHashMap<String, BlockingQueue<RpcMessage>> map = basketMap;
-            BlockingQueue<RpcMessage> basket = map.get(serverAddress);
-            if (basket == null) {
-                map.putIfAbsent(serverAddress, new LinkedBlockingQueue<>());
-                basket = map.get(serverAddress);
-            }
-            basket.offer(rpcMessage);
+            addFuture(rpcMessage.getId(), messageFuture);
+
+            // put message into the basket of the server
+            getMergedSender(serverAddress).offer(rpcMessage);
             if (LOGGER.isDebugEnabled()) {
                 LOGGER.debug("offer message: {}", rpcMessage.getBody());
             }
-            if (!isSending) {
-                synchronized (mergeLock) {
-                    mergeLock.notifyAll();
-                }
-            }
 
             try {
                 return messageFuture.get(timeoutMillis, TimeUnit.MILLISECONDS);
@@ -234,7 +236,8 @@ public abstract class AbstractNettyRemotingClient extends AbstractNettyRemoting
     public void destroy() {
         clientBootstrap.shutdown();
         if (mergeSendExecutorService != null) {
-            mergeSendExecutorService.shutdown();
+            // interrupts the senders parked on an empty basket
+            mergeSendExecutorService.shutdownNow();
         }
         super.destroy();
     }
@@ -286,6 +289,22 @@ public abstract class AbstractNettyRemotingClient extends AbstractNettyRemoting
         return StringUtils.isBlank(xid) ? String.valueOf(ThreadLocalRandom.current().nextLong(Long.MAX_VALUE)) : xid;
     }
 
+    private MergedSender getMergedSender(String serverAddress) {
+        MergedSender sender = mergedSenders.get(serverAddress);
+        if (sender == null) {
+            sender = mergedSenders.computeIfAbsent(serverAddress, address -> {
+                MergedSender newSender = new MergedSender(NettyClientConfig.getClientBatchMaxCount(),
+                    NettyClientConfig.getClientBatchMaxWait(), MERGE_SENDER_MAX_IDLE_MILLS, mergeSendExecutorService,
+                    mergeMessage -> sendMergedMessage(address, mergeMessage),
+                    (mergeMessage, cause) -> failMergedMessage(mergeMessage, cause),
+                    retired -> mergedSenders.remove(address, retired));
+                newSender.start();
+                return newSender;
+            });
+        }
+        return sender;
+    }
+
     private String getThreadPrefix() {
         return AbstractNettyRemotingClient.MERGE_THREAD_PREFIX + THREAD_PREFIX_SPLIT_CHAR + transactionRole.name();
     }
@@ -304,77 +323,57 @@ public abstract class AbstractNettyRemotingClient extends AbstractNettyRemoting
      */
     protected abstract String getTransactionServiceGroup();
 
+    private void sendMergedMessage(String address, MergedWarpMessage mergeMessage) {
+        if (mergeMessage.msgIds.size() > 1) {
+            printMergeMessageLog(mergeMessage);
+        }
+        Channel sendChannel = null;
+        try {
+            // send batch message is sync request, but there is no need to get the return value.
+            // Since the messageFuture has been created before the message is placed in the basket,
+            // the return value will be obtained in ClientOnResponseProcessor.
+            sendChannel = clientChannelManager.acquireChannel(address);
+            sendAsyncRequest(sendChannel, mergeMessage);
+        } catch (FrameworkException e) {
+            if (e.getErrcode() == FrameworkErrorCode.ChannelIsNotWritable && sendChannel != null) {
+                destroyChannel(address, sendChannel);
+            }
+            // fast fail
+            failMergedMessage(mergeMessage, null);
+            LOGGER.error("client merge call failed: {}", e.getMessage(), e);
+        }
+    }
+
     /**
-     * The type Merged send runnable.
+     * Complete the futures of the requests of a batch that was not sent.
+     *
+     * @param mergeMessage the batch
+     * @param result       the result of the futures, the cause of an unexpected error is thrown to the callers
      */
-    private class MergedSendRunnable implements Runnable {
-
-        @Override
-        public void run() {
-            while (true) {
-                synchronized (mergeLock) {
-                    try {
-                        mergeLock.wait(MAX_MERGE_SEND_MILLS);
-                    } catch (InterruptedException e) {
-                    }
-                }
-                isSending = true;
-                for (String address : basketMap.keySet()) {
-                    BlockingQueue<RpcMessage> basket = basketMap.get(address);
-                    if (basket.isEmpty()) {
-                        continue;
-                    }
-
-                    MergedWarpMessage mergeMessage = new MergedWarpMessage();
-                    while (!basket.isEmpty()) {
-                        RpcMessage msg = basket.poll();
-                        mergeMessage.msgs.add((AbstractMessage) msg.getBody());
-                        mergeMessage.msgIds.add(msg.getId());
-                    }
-                    if (mergeMessage.msgIds.size() > 1) {
-                        printMergeMessageLog(mergeMessage);
-                    }
-                    Channel sendChannel = null;
-                    try {
-                        // send batch message is sync request, but there is no need to get the return value.
-                        // Since the messageFuture has been created before the message is placed in basketMap,
-                        // the return value will be obtained in ClientOnResponseProcessor.
-                        sendChannel = clientChannelManager.acquireChannel(address);
-                        AbstractNettyRemotingClient.this.sendAsyncRequest(sendChannel, mergeMessage);
-                    } catch (FrameworkException e) {
-                        if (e.getErrcode() == FrameworkErrorCode.ChannelIsNotWritable && sendChannel != null) {
-                            destroyChannel(address, sendChannel);
-                        }
-                        // fast fail
-                        for (Integer msgId : mergeMessage.msgIds) {
-                            MessageFuture messageFuture = futures.remove(msgId);
-                            if (messageFuture != null) {
-                                messageFuture.setResultMessage(null);
-                            }
-                        }
-                        LOGGER.error("client merge call failed: {}", e.getMessage(), e);
-                    }
-                }
-                isSending = false;
+    private void failMergedMessage(MergedWarpMessage mergeMessage, Object result) {
+        for (Integer msgId : mergeMessage.msgIds) {
+            MessageFuture messageFuture = futures.remove(msgId);
+            if (messageFuture != null) {
+                messageFuture.setResultMessage(result);
             }
         }
+    }
 
-        private void printMergeMessageLog(MergedWarpMessage mergeMessage) {
-            if (LOGGER.isDebugEnabled()) {
-                LOGGER.debug("merge msg size:{}", mergeMessage.msgIds.size());
-                for (AbstractMessage cm : mergeMessage.msgs) {
-                    LOGGER.debug(cm.toString());
-                }
-                StringBuilder sb = new StringBuilder();
-                for (long l : mergeMessage.msgIds) {
-                    sb.append(MSG_ID_PREFIX).append(l).append(SINGLE_LOG_POSTFIX);
-                }
-                sb.append("\n");
-                for (long l : futures.keySet()) {
-                    sb.append(FUTURES_PREFIX).append(l).append(SINGLE_LOG_POSTFIX);
-                }
-                LOGGER.debug(sb.toString());
+    private void printMergeMessageLog(MergedWarpMessage mergeMessage) {
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("merge msg size:{}", mergeMessage.msgIds.size());
+            for (AbstractMessage cm : mergeMessage.msgs) {
+                LOGGER.debug(cm.toString());
+            }
+            StringBuilder sb = new StringBuilder();
+            for (long l : mergeMessage.msgIds) {
+                sb.append(MSG_ID_PREFIX).append(l).append(SINGLE_LOG_POSTFIX);
+            }
+            sb.append("\n");
+            for (long l : futures.keySet()) {
+                sb.append(FUTURES_PREFIX).append(l).append(SINGLE_LOG_POSTFIX);
             }
+            LOGGER.debug(sb.toString());
         }
     }
 
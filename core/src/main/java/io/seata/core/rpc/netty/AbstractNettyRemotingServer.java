@@ -33,6 +33,7 @@ import io.seata.core.rpc.processor.RemotingProcessor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeoutException;
@@ -71,6 +72,19 @@ public abstract class AbstractNettyRemotingServer extends AbstractNettyRemoting
         return super.sendSync(channel, rpcMessage, NettyServerConfig.getRpcRequestTimeout());
     }
 
+    @Override
+    public CompletableFuture<Object> sendAsyncRequest(String resourceId, String clientId, Object msg) {
+        Channel channel = ChannelManager.getChannel(resourceId, clientId);
+        if (channel == null) {
+            CompletableFuture<Object> result = new CompletableFuture<>();
+            result.completeExceptionally(new RuntimeException(
+                "rm client is not connected. dbkey:" + resourceId + ",clientId:" + clientId));
+            return result;
+        }
+        RpcMessage rpcMessage = buildRequestMessage(msg, ProtocolConstants.MSGTYPE_RESQUEST_SYNC);
+        return super.sendAsyncWithResponse(channel, rpcMessage, NettyServerConfig.getRpcRequestTimeout());
+    }
+
     @Override
     public Object sendSyncRequest(Channel channel, Object msg) throws TimeoutException {
         if (channel == null) {
@@ -0,0 +1,231 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.seata.core.rpc.netty;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import io.seata.core.protocol.AbstractMessage;
+import io.seata.core.protocol.MergedWarpMessage;
+import io.seata.core.protocol.RpcMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The sender of the merged messages of one server.
+ * <p>
+ * Requests are queued lock-free in the basket of the server. The sender takes them in batches and ships a batch as
+ * soon as the basket is drained, the batch holds {@code maxCount} requests or {@code maxWait} milliseconds passed since
+ * its first request, whichever comes first. So the requests queued while a batch is on its way go out together, and an
+ * idle client adds no delay.
+ * <p>
+ * A sender that found its basket empty for {@code maxIdle} milliseconds retires: it calls its retire listener, which
+ * forgets it, and its thread goes back to the executor. The next request to the server starts a new sender, so the
+ * senders of the servers that are gone do not pile up.
+ * <p>
+ * A batch whose sending throws is handed to the fail listener, which fails the futures of its requests. A sender
+ * that hits such an unexpected error retires as well, so that the next request starts a fresh one.
+ */
+class MergedSender implements Runnable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MergedSender.class);
+
+    private final Queue<RpcMessage> basket = new ConcurrentLinkedQueue<>();
+
+    private final int maxCount;
+
+    private final long maxWaitNanos;
+
+    private final long maxIdleNanos;
+
+    private final ExecutorService executor;
+
+    private final Consumer<MergedWarpMessage> batchSender;
+
+    private final BiConsumer<MergedWarpMessage, Throwable> failListener;
+
+    private final Consumer<MergedSender> retireListener;
+
+    private volatile Thread sendThread;
+
+    private volatile boolean parked;
+
+    private volatile boolean retired;
+
+    /**
+     * Instantiates a new Merged sender.
+     *
+     * @param maxCount       the max requests of a batch
+     * @param maxWait        the max milliseconds a batch waits for more requests after its first one
+     * @param maxIdle        the milliseconds an empty basket is waited on before the sender retires
+     * @param executor       the executor the sender runs on, it stops once the executor is shut down
+     * @param batchSender    ships a batch
+     * @param failListener   called with a batch whose sending threw and the cause
+     * @param retireListener called once when the sender retires, before it stops taking requests
+     */
+    MergedSender(int maxCount, long maxWait, long maxIdle, ExecutorService executor,
+                 Consumer<MergedWarpMessage> batchSender, BiConsumer<MergedWarpMessage, Throwable> failListener,
+                 Consumer<MergedSender> retireListener) {
+        this.maxCount = Math.max(1, maxCount);
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0L, maxWait));
+        this.maxIdleNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1L, maxIdle));
+        this.executor = executor;
+        this.batchSender = batchSender;
+        this.failListener = failListener;
+        this.retireListener = retireListener;
+    }
+
+    /**
+     * Start the sender on its executor.
+     */
+    void start() {
+        executor.execute(this);
+    }
+
+    /**
+     * Queue a request.
+     *
+     * @param rpcMessage the rpc message
+     */
+    void offer(RpcMessage rpcMessage) {
+        basket.offer(rpcMessage);
+        if (retired) {
+            // raced with the retirement, the sender may be gone already
+            flush();
+        } else if (parked) {
+            LockSupport.unpark(sendThread);
+        }
+    }
+
+    /**
+     * Is retired.
+     *
+     * @return the boolean
+     */
+    boolean isRetired() {
+        return retired;
+    }
+
+    @Override
+    public void run() {
+        sendThread = Thread.currentThread();
+        try {
+            sendLoop();
+        } catch (Throwable t) {
+            LOGGER.error("merged sender stopped on an unexpected error: {}", t.getMessage(), t);
+            if (!retired) {
+                retire();
+            }
+        }
+    }
+
+    private void sendLoop() {
+        long idleSince = 0L;
+        while (!executor.isShutdown()) {
+            RpcMessage first = basket.poll();
+            if (first == null) {
+                long now = System.nanoTime();
+                if (idleSince == 0L) {
+                    idleSince = now;
+                } else if (now - idleSince >= maxIdleNanos) {
+                    retire();
+                    return;
+                }
+                park(maxIdleNanos - (now - idleSince));
+                continue;
+            }
+            idleSince = 0L;
+            MergedWarpMessage mergeMessage = new MergedWarpMessage();
+            add(mergeMessage, first);
+            long deadline = System.nanoTime() + maxWaitNanos;
+            while (mergeMessage.msgIds.size() < maxCount) {
+                RpcMessage msg = basket.poll();
+                if (msg != null) {
+                    add(mergeMessage, msg);
+                    continue;
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0L) {
+                    break;
+                }
+                park(remaining);
+            }
+            if (!send(mergeMessage)) {
+                retire();
+                return;
+            }
+        }
+    }
+
+    private void retire() {
+        retireListener.accept(this);
+        retired = true;
+        // an offer that did not see the flag queued its request before it, so it is sent here
+        flush();
+    }
+
+    /**
+     * Send what is left in the basket of a retired sender on the current thread.
+     */
+    private void flush() {
+        RpcMessage msg;
+        while ((msg = basket.poll()) != null) {
+            MergedWarpMessage mergeMessage = new MergedWarpMessage();
+            do {
+                add(mergeMessage, msg);
+            } while (mergeMessage.msgIds.size() < maxCount && (msg = basket.poll()) != null);
+            send(mergeMessage);
+        }
+    }
+
+    /**
+     * Ship a batch, a batch whose sending throws is handed to the fail listener.
+     *
+     * @return whether the batch was shipped
+     */
+    private boolean send(MergedWarpMessage mergeMessage) {
+        try {
+            batchSender.accept(mergeMessage);
+            return true;
+        } catch (Throwable t) {
+            LOGGER.error("send merged message failed: {}", t.getMessage(), t);
+            failListener.accept(mergeMessage, t);
+            return false;
+        }
+    }
+
+    private static void add(MergedWarpMessage mergeMessage, RpcMessage rpcMessage) {
+        mergeMessage.msgs.add((AbstractMessage) rpcMessage.getBody());
+        mergeMessage.msgIds.add(rpcMessage.getId());
+    }
+
+    /**
+     * Park until a request is offered, the nanos passed or the executor is shut down.
+     */
+    private void park(long nanos) {
+        parked = true;
+        // checked again after the flag is set, so an offer racing with it either is seen here or unparks
+        if (basket.isEmpty()) {
+            LockSupport.parkNanos(this, nanos);
+        }
+        parked = false;
+    }
+}
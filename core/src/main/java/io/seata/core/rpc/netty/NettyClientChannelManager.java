@@ -18,6 +18,7 @@ package io.seata.core.rpc.netty;
 import io.netty.channel.Channel;
 import io.seata.common.exception.FrameworkErrorCode;
 import io.seata.common.exception.FrameworkException;
+import io.seata.common.thread.NamedThreadFactory;
 import io.seata.common.util.CollectionUtils;
 import io.seata.common.util.NetUtil;
 import io.seata.core.protocol.RegisterRMRequest;
@@ -29,8 +30,17 @@ import org.slf4j.LoggerFactory;
 import java.net.InetSocketAddress;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -44,21 +54,46 @@ class NettyClientChannelManager {
     
     private static final Logger LOGGER = LoggerFactory.getLogger(NettyClientChannelManager.class);
     
-    private final ConcurrentMap<String, Object> channelLocks = new ConcurrentHashMap<>();
+    private static final String ROUND_ROBIN_SELECTOR = "roundRobin";
+    
+    private final ConcurrentMap<String, CompletableFuture<Channel>> connectingChannels = new ConcurrentHashMap<>();
     
     private final ConcurrentMap<String, NettyPoolKey> poolKeyMap = new ConcurrentHashMap<>();
     
     private final ConcurrentMap<String, Channel> channels = new ConcurrentHashMap<>();
     
+    /**
+     * the connections kept to a server besides the one in channels
+     */
+    private final ConcurrentMap<String, ChannelGroup> channelGroups = new ConcurrentHashMap<>();
+    
     private final GenericKeyedObjectPool<NettyPoolKey, Channel> nettyClientKeyPool;
     
     private Function<String, NettyPoolKey> poolKeyFunction;
     
+    private final int connectionsPerServer;
+    
+    private final boolean roundRobin;
+    
+    private final long maxAcquireConnMills;
+    
+    private final ThreadPoolExecutor connectExecutor;
+    
     NettyClientChannelManager(final NettyPoolableFactory keyPoolableFactory, final Function<String, NettyPoolKey> poolKeyFunction,
                                      final NettyClientConfig clientConfig) {
         nettyClientKeyPool = new GenericKeyedObjectPool<>(keyPoolableFactory);
         nettyClientKeyPool.setConfig(getNettyPoolConfig(clientConfig));
         this.poolKeyFunction = poolKeyFunction;
+        this.connectionsPerServer = clientConfig.getClientConnectionsPerServer();
+        this.roundRobin = ROUND_ROBIN_SELECTOR.equalsIgnoreCase(clientConfig.getClientChannelSelector());
+        this.maxAcquireConnMills = clientConfig.getMaxAcquireConnMills();
+        if (connectionsPerServer > 1) {
+            // connects in the background, so a caller holding a live connection never waits on a new one
+            connectExecutor = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60L, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), new NamedThreadFactory("nettyClientConnect", true));
+        } else {
+            connectExecutor = null;
+        }
     }
     
     private GenericKeyedObjectPool.Config getNettyPoolConfig(final NettyClientConfig clientConfig) {
@@ -73,7 +108,7 @@ class NettyClientChannelManager {
     }
     
     /**
-     * Get all channels registered on current Rpc Client.
+     * Get all channels registered on current Rpc Client, one for each server.
      *
      * @return channels
      */
@@ -88,6 +123,12 @@ class NettyClientChannelManager {
      * @return netty channel
      */
     Channel acquireChannel(String serverAddress) {
+        if (connectionsPerServer > 1) {
+            Channel selected = selectChannel(serverAddress);
+            if (selected != null) {
+                return selected;
+            }
+        }
         Channel channelToServer = channels.get(serverAddress);
         if (channelToServer != null) {
             channelToServer = getExistAliveChannel(channelToServer, serverAddress);
@@ -98,10 +139,7 @@ class NettyClientChannelManager {
         if (LOGGER.isInfoEnabled()) {
             LOGGER.info("will connect to " + serverAddress);
         }
-        channelLocks.putIfAbsent(serverAddress, new Object());
-        synchronized (channelLocks.get(serverAddress)) {
-            return doConnect(serverAddress);
-        }
+        return connect(serverAddress);
     }
     
     /**
@@ -113,21 +151,14 @@ class NettyClientChannelManager {
     void releaseChannel(Channel channel, String serverAddress) {
         if (channel == null || serverAddress == null) { return; }
         try {
-            synchronized (channelLocks.get(serverAddress)) {
-                Channel ch = channels.get(serverAddress);
-                if (ch == null) {
-                    nettyClientKeyPool.returnObject(poolKeyMap.get(serverAddress), channel);
-                    return;
-                }
-                if (ch.compareTo(channel) == 0) {
-                    if (LOGGER.isInfoEnabled()) {
-                        LOGGER.info("return to pool, rm channel:{}", channel);
-                    }
-                    destroyChannel(serverAddress, channel);
-                } else {
-                    nettyClientKeyPool.returnObject(poolKeyMap.get(serverAddress), channel);
+            if (channels.remove(serverAddress, channel)) {
+                if (LOGGER.isInfoEnabled()) {
+                    LOGGER.info("return to pool, rm channel:{}", channel);
                 }
+            } else {
+                removeFromGroup(serverAddress, channel);
             }
+            nettyClientKeyPool.returnObject(poolKeyMap.get(serverAddress), channel);
         } catch (Exception exx) {
             LOGGER.error(exx.getMessage());
         }
@@ -142,8 +173,8 @@ class NettyClientChannelManager {
     void destroyChannel(String serverAddress, Channel channel) {
         if (channel == null) { return; }
         try {
-            if (channel.equals(channels.get(serverAddress))) {
-                channels.remove(serverAddress);
+            if (!channels.remove(serverAddress, channel)) {
+                removeFromGroup(serverAddress, channel);
             }
             nettyClientKeyPool.returnObject(poolKeyMap.get(serverAddress), channel);
         } catch (Exception exx) {
@@ -190,6 +221,47 @@ class NettyClientChannelManager {
         channels.put(serverAddress, channel);
     }
     
+    /**
+     * Connect the channel kept in channels. Concurrent callers share one connect attempt
+     * and wait on its future rather than queueing on a lock.
+     *
+     * @param serverAddress server address
+     * @return netty channel
+     */
+    private Channel connect(String serverAddress) {
+        CompletableFuture<Channel> future = new CompletableFuture<>();
+        CompletableFuture<Channel> inFlight = connectingChannels.putIfAbsent(serverAddress, future);
+        if (inFlight != null) {
+            return awaitConnect(serverAddress, inFlight);
+        }
+        try {
+            Channel channel = doConnect(serverAddress);
+            future.complete(channel);
+            return channel;
+        } catch (RuntimeException exx) {
+            future.completeExceptionally(exx);
+            throw exx;
+        } finally {
+            connectingChannels.remove(serverAddress, future);
+        }
+    }
+    
+    private Channel awaitConnect(String serverAddress, CompletableFuture<Channel> inFlight) {
+        try {
+            return inFlight.get(maxAcquireConnMills, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException exx) {
+            if (exx.getCause() instanceof FrameworkException) {
+                throw (FrameworkException) exx.getCause();
+            }
+            throw new FrameworkException(exx.getCause(), "can not connect to " + serverAddress);
+        } catch (InterruptedException exx) {
+            Thread.currentThread().interrupt();
+            throw new FrameworkException(exx, "interrupted while connecting to " + serverAddress);
+        } catch (TimeoutException exx) {
+            throw new FrameworkException(exx, "can not connect to " + serverAddress + " in " + maxAcquireConnMills + "ms");
+        }
+    }
+    
     private Channel doConnect(String serverAddress) {
         Channel channelToServer = channels.get(serverAddress);
         if (channelToServer != null && channelToServer.isActive()) {
@@ -197,14 +269,12 @@ class NettyClientChannelManager {
         }
         Channel channelFromPool;
         try {
-            NettyPoolKey currentPoolKey = poolKeyFunction.apply(serverAddress);
-            NettyPoolKey previousPoolKey = poolKeyMap.putIfAbsent(serverAddress, currentPoolKey);
-            if (previousPoolKey != null && previousPoolKey.getMessage() instanceof RegisterRMRequest) {
-                RegisterRMRequest registerRMRequest = (RegisterRMRequest) currentPoolKey.getMessage();
-                ((RegisterRMRequest) previousPoolKey.getMessage()).setResourceIds(registerRMRequest.getResourceIds());
-            }
-            channelFromPool = nettyClientKeyPool.borrowObject(poolKeyMap.get(serverAddress));
-            channels.put(serverAddress, channelFromPool);
+            channelFromPool = borrowChannel(serverAddress);
+            Channel previous = channels.put(serverAddress, channelFromPool);
+            if (previous != null && previous != channelFromPool && previous.isActive()) {
+                // registered by a background connect meanwhile, keep it as one of the other connections
+                keepInGroup(serverAddress, previous);
+            }
         } catch (Exception exx) {
             LOGGER.error("{} register RM failed.",FrameworkErrorCode.RegisterRM.getErrCode(), exx);
             throw new FrameworkException("can not register RM,err:" + exx.getMessage());
@@ -212,6 +282,115 @@ class NettyClientChannelManager {
         return channelFromPool;
     }
     
+    private Channel borrowChannel(String serverAddress) throws Exception {
+        NettyPoolKey currentPoolKey = poolKeyFunction.apply(serverAddress);
+        NettyPoolKey previousPoolKey = poolKeyMap.putIfAbsent(serverAddress, currentPoolKey);
+        if (previousPoolKey != null && previousPoolKey.getMessage() instanceof RegisterRMRequest) {
+            RegisterRMRequest registerRMRequest = (RegisterRMRequest) currentPoolKey.getMessage();
+            ((RegisterRMRequest) previousPoolKey.getMessage()).setResourceIds(registerRMRequest.getResourceIds());
+        }
+        return nettyClientKeyPool.borrowObject(poolKeyMap.get(serverAddress));
+    }
+    
+    /**
+     * Select one of the live connections to the server, and start connecting the missing ones in the background.
+     * Round robin takes the next writable connection, least pending takes the one with the least bytes
+     * waiting to be written, starting from the next one so that idle connections take turns.
+     *
+     * @param serverAddress server address
+     * @return the selected channel, or null if none is alive
+     */
+    private Channel selectChannel(String serverAddress) {
+        ChannelGroup group = channelGroups.computeIfAbsent(serverAddress, address -> new ChannelGroup(connectionsPerServer - 1));
+        Channel primary = channels.get(serverAddress);
+        if (primary == null) {
+            // the others are connected once this one is back, as a new connection takes its place on register
+            connectInBackground(serverAddress, group, 0);
+        }
+        int start = group.nextStart(connectionsPerServer);
+        Channel selected = null;
+        long selectedWritableBytes = -1L;
+        for (int i = 0; i < connectionsPerServer; i++) {
+            int index = (start + i) % connectionsPerServer;
+            Channel channel = index == 0 ? primary : group.slots.get(index - 1);
+            if (channel == null) {
+                if (index > 0 && primary != null) {
+                    connectInBackground(serverAddress, group, index);
+                }
+                continue;
+            }
+            if (!channel.isActive()) {
+                continue;
+            }
+            long writableBytes = channel.isWritable() ? channel.bytesBeforeUnwritable() : 0L;
+            if (roundRobin) {
+                if (selected == null || (selectedWritableBytes == 0L && writableBytes > 0L)) {
+                    selected = channel;
+                    selectedWritableBytes = writableBytes;
+                }
+            } else if (writableBytes > selectedWritableBytes) {
+                selected = channel;
+                selectedWritableBytes = writableBytes;
+            }
+        }
+        return selected;
+    }
+    
+    private void connectInBackground(String serverAddress, ChannelGroup group, int index) {
+        if (index == 0) {
+            if (!connectingChannels.containsKey(serverAddress)) {
+                connectExecutor.execute(() -> {
+                    try {
+                        connect(serverAddress);
+                    } catch (Exception exx) {
+                        LOGGER.error("{} can not connect to {} cause:{}", FrameworkErrorCode.NetConnect.getErrCode(), serverAddress, exx.getMessage());
+                    }
+                });
+            }
+            return;
+        }
+        if (!group.connecting.compareAndSet(index - 1, 0, 1)) {
+            return;
+        }
+        connectExecutor.execute(() -> {
+            try {
+                Channel channel = borrowChannel(serverAddress);
+                // a new connection registers itself in channels when that one is gone
+                if (channel != channels.get(serverAddress) && !group.contains(channel)) {
+                    group.slots.set(index - 1, channel);
+                }
+            } catch (Exception exx) {
+                LOGGER.error("{} can not connect to {} cause:{}", FrameworkErrorCode.NetConnect.getErrCode(), serverAddress, exx.getMessage());
+            } finally {
+                group.connecting.set(index - 1, 0);
+            }
+        });
+    }
+    
+    private void keepInGroup(String serverAddress, Channel channel) throws Exception {
+        ChannelGroup group = channelGroups.get(serverAddress);
+        if (group != null) {
+            if (group.contains(channel)) {
+                return;
+            }
+            for (int i = 0; i < group.slots.length(); i++) {
+                if (group.slots.compareAndSet(i, null, channel)) {
+                    return;
+                }
+            }
+        }
+        nettyClientKeyPool.returnObject(poolKeyMap.get(serverAddress), channel);
+    }
+    
+    private void removeFromGroup(String serverAddress, Channel channel) {
+        ChannelGroup group = channelGroups.get(serverAddress);
+        if (group != null) {
+            for (int i = 0; i < group.slots.length(); i++) {
+                group.slots.compareAndSet(i, channel, null);
+            }
+        }
+    }
+    
     private List<String> getAvailServerList(String transactionServiceGroup) throws Exception {
         List<InetSocketAddress> availInetSocketAddressList = RegistryFactory.getInstance()
                                                                             .lookup(transactionServiceGroup);
@@ -248,5 +427,34 @@ class NettyClientChannelManager {
         }
         return null;
     }
+    
+    /**
+     * The connections kept to one server besides the one in channels.
+     */
+    private static final class ChannelGroup {
+        
+        private final AtomicReferenceArray<Channel> slots;
+        
+        private final AtomicIntegerArray connecting;
+        
+        private final AtomicInteger cursor = new AtomicInteger();
+        
+        ChannelGroup(int size) {
+            slots = new AtomicReferenceArray<>(size);
+            connecting = new AtomicIntegerArray(size);
+        }
+        
+        int nextStart(int connections) {
+            return (cursor.getAndIncrement() & Integer.MAX_VALUE) % connections;
+        }
+        
+        boolean contains(Channel channel) {
+            for (int i = 0; i < slots.length(); i++) {
+                if (slots.get(i) == channel) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
 }
-
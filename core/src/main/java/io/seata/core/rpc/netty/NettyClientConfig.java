@@ -19,6 +19,10 @@ import io.netty.channel.Channel;
 import io.seata.core.constants.ConfigurationKeys;
 import io.seata.core.rpc.TransportServerType;
 
+import static io.seata.common.DefaultValues.DEFAULT_CLIENT_BATCH_MAX_COUNT;
+import static io.seata.common.DefaultValues.DEFAULT_CLIENT_BATCH_MAX_WAIT;
+import static io.seata.common.DefaultValues.DEFAULT_CLIENT_CHANNEL_SELECTOR;
+import static io.seata.common.DefaultValues.DEFAULT_CLIENT_CONNECTIONS_PER_SERVER;
 import static io.seata.common.DefaultValues.DEFAULT_ENABLE_CLIENT_BATCH_SEND_REQUEST;
 import static io.seata.common.DefaultValues.DEFAULT_SELECTOR_THREAD_PREFIX;
 import static io.seata.common.DefaultValues.DEFAULT_SELECTOR_THREAD_SIZE;
@@ -56,6 +60,10 @@ public class NettyClientConfig extends NettyBaseConfig {
     private static final boolean DEFAULT_POOL_TEST_RETURN = true;
     private static final boolean DEFAULT_POOL_LIFO = true;
     private static final boolean ENABLE_CLIENT_BATCH_SEND_REQUEST = CONFIG.getBoolean(ConfigurationKeys.ENABLE_CLIENT_BATCH_SEND_REQUEST, DEFAULT_ENABLE_CLIENT_BATCH_SEND_REQUEST);
+    private static final int CLIENT_BATCH_MAX_COUNT = CONFIG.getInt(ConfigurationKeys.CLIENT_BATCH_MAX_COUNT, DEFAULT_CLIENT_BATCH_MAX_COUNT);
+    private static final int CLIENT_BATCH_MAX_WAIT = CONFIG.getInt(ConfigurationKeys.CLIENT_BATCH_MAX_WAIT, DEFAULT_CLIENT_BATCH_MAX_WAIT);
+    private int clientConnectionsPerServer = CONFIG.getInt(ConfigurationKeys.CLIENT_CONNECTIONS_PER_SERVER, DEFAULT_CLIENT_CONNECTIONS_PER_SERVER);
+    private String clientChannelSelector = CONFIG.getConfig(ConfigurationKeys.CLIENT_CHANNEL_SELECTOR, DEFAULT_CLIENT_CHANNEL_SELECTOR);
 
     /**
      * Gets connect timeout millis.
@@ -377,12 +385,12 @@ public class NettyClientConfig extends NettyBaseConfig {
     }
 
     /**
-     * Gets max pool active.
+     * Gets max pool active, enough for every connection kept to a server.
      *
      * @return the max pool active
      */
     public int getMaxPoolActive() {
-        return DEFAULT_MAX_POOL_ACTIVE;
+        return Math.max(DEFAULT_MAX_POOL_ACTIVE, getClientConnectionsPerServer());
     }
 
     /**
@@ -442,4 +450,58 @@ public class NettyClientConfig extends NettyBaseConfig {
     public static boolean isEnableClientBatchSendRequest() {
         return ENABLE_CLIENT_BATCH_SEND_REQUEST;
     }
+
+    /**
+     * Gets the max requests merged into one batch, at most what a merged message can carry.
+     *
+     * @return the client batch max count
+     */
+    public static int getClientBatchMaxCount() {
+        return Math.max(1, Math.min(CLIENT_BATCH_MAX_COUNT, Short.MAX_VALUE));
+    }
+
+    /**
+     * Gets the max milliseconds a batch waits for more requests after its first one.
+     *
+     * @return the client batch max wait
+     */
+    public static int getClientBatchMaxWait() {
+        return Math.max(0, CLIENT_BATCH_MAX_WAIT);
+    }
+
+    /**
+     * Gets the connections kept to each server.
+     *
+     * @return the client connections per server
+     */
+    public int getClientConnectionsPerServer() {
+        return Math.max(1, clientConnectionsPerServer);
+    }
+
+    /**
+     * Sets the connections kept to each server.
+     *
+     * @param clientConnectionsPerServer the client connections per server
+     */
+    public void setClientConnectionsPerServer(int clientConnectionsPerServer) {
+        this.clientConnectionsPerServer = clientConnectionsPerServer;
+    }
+
+    /**
+     * Gets how a request picks one of the connections to a server, leastPending or roundRobin.
+     *
+     * @return the client channel selector
+     */
+    public String getClientChannelSelector() {
+        return clientChannelSelector;
+    }
+
+    /**
+     * Sets how a request picks one of the connections to a server.
+     *
+     * @param clientChannelSelector the client channel selector
+     */
+    public void setClientChannelSelector(String clientChannelSelector) {
+        this.clientChannelSelector = clientChannelSelector;
+    }
 }
@@ -20,12 +20,17 @@ import io.seata.core.protocol.MessageType;
 import io.seata.core.rpc.TransactionMessageHandler;
 import io.seata.core.rpc.processor.server.RegRmProcessor;
 import io.seata.core.rpc.processor.server.RegTmProcessor;
+import io.seata.core.rpc.processor.server.RequestTracer;
 import io.seata.core.rpc.processor.server.ServerHeartbeatProcessor;
 import io.seata.core.rpc.processor.server.ServerOnRequestProcessor;
 import io.seata.core.rpc.processor.server.ServerOnResponseProcessor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -44,6 +49,11 @@ public class NettyRemotingServer extends AbstractNettyRemotingServer {
 
     private final AtomicBoolean initialized = new AtomicBoolean(false);
 
+    /**
+     * the executors of the message classes handled apart from the message executor
+     */
+    private final Map<ServerMessageClass, ExecutorService> messageClassExecutors = new EnumMap<>(ServerMessageClass.class);
+
     @Override
     public void init() {
         // registry processor
@@ -75,6 +85,32 @@ public class NettyRemotingServer extends AbstractNettyRemotingServer {
         return transactionMessageHandler;
     }
 
+    /**
+     * Handle the messages of a class on an executor of their own, must be set before init.
+     *
+     * @param messageClass the message class
+     * @param executor     the executor
+     */
+    public void setMessageClassExecutor(ServerMessageClass messageClass, ExecutorService executor) {
+        messageClassExecutors.put(messageClass, executor);
+    }
+
+    /**
+     * Gets the executors of the message classes handled apart from the message executor.
+     *
+     * @return the message class executors
+     */
+    public Map<ServerMessageClass, ExecutorService> getMessageClassExecutors() {
+        return Collections.unmodifiableMap(messageClassExecutors);
+    }
+
+    @Override
+    public void destroy() {
+        super.destroy();
+        messageClassExecutors.values().forEach(ExecutorService::shutdown);
+        RequestTracer.INSTANCE.shutdown();
+    }
+
     @Override
     public void destroyChannel(String serverAddress, Channel channel) {
         if (LOGGER.isInfoEnabled()) {
@@ -87,24 +123,26 @@ public class NettyRemotingServer extends AbstractNettyRemotingServer {
     private void registerProcessor() {
         // 1. registry on request message processor
         ServerOnRequestProcessor onRequestProcessor =
-            new ServerOnRequestProcessor(this, getHandler());
-        super.registerProcessor(MessageType.TYPE_BRANCH_REGISTER, onRequestProcessor, messageExecutor);
-        super.registerProcessor(MessageType.TYPE_BRANCH_STATUS_REPORT, onRequestProcessor, messageExecutor);
-        super.registerProcessor(MessageType.TYPE_GLOBAL_BEGIN, onRequestProcessor, messageExecutor);
-        super.registerProcessor(MessageType.TYPE_GLOBAL_COMMIT, onRequestProcessor, messageExecutor);
-        super.registerProcessor(MessageType.TYPE_GLOBAL_LOCK_QUERY, onRequestProcessor, messageExecutor);
-        super.registerProcessor(MessageType.TYPE_GLOBAL_REPORT, onRequestProcessor, messageExecutor);
-        super.registerProcessor(MessageType.TYPE_GLOBAL_ROLLBACK, onRequestProcessor, messageExecutor);
-        super.registerProcessor(MessageType.TYPE_GLOBAL_STATUS, onRequestProcessor, messageExecutor);
+            new ServerOnRequestProcessor(this, getHandler(), messageExecutor, messageClassExecutors);
+        super.registerProcessor(MessageType.TYPE_BRANCH_REGISTER, onRequestProcessor, executorOf(MessageType.TYPE_BRANCH_REGISTER));
+        super.registerProcessor(MessageType.TYPE_BRANCH_STATUS_REPORT, onRequestProcessor, executorOf(MessageType.TYPE_BRANCH_STATUS_REPORT));
+        super.registerProcessor(MessageType.TYPE_GLOBAL_BEGIN, onRequestProcessor, executorOf(MessageType.TYPE_GLOBAL_BEGIN));
+        super.registerProcessor(MessageType.TYPE_GLOBAL_COMMIT, onRequestProcessor, executorOf(MessageType.TYPE_GLOBAL_COMMIT));
+        super.registerProcessor(MessageType.TYPE_GLOBAL_LOCK_QUERY, onRequestProcessor, executorOf(MessageType.TYPE_GLOBAL_LOCK_QUERY));
+        super.registerProcessor(MessageType.TYPE_GLOBAL_REPORT, onRequestProcessor, executorOf(MessageType.TYPE_GLOBAL_REPORT));
+        super.registerProcessor(MessageType.TYPE_GLOBAL_ROLLBACK, onRequestProcessor, executorOf(MessageType.TYPE_GLOBAL_ROLLBACK));
+        super.registerProcessor(MessageType.TYPE_GLOBAL_STATUS, onRequestProcessor, executorOf(MessageType.TYPE_GLOBAL_STATUS));
         super.registerProcessor(MessageType.TYPE_SEATA_MERGE, onRequestProcessor, messageExecutor);
         // 2. registry on response message processor
         ServerOnResponseProcessor onResponseProcessor =
             new ServerOnResponseProcessor(getHandler(), getFutures());
-        super.registerProcessor(MessageType.TYPE_BRANCH_COMMIT_RESULT, onResponseProcessor, messageExecutor);
-        super.registerProcessor(MessageType.TYPE_BRANCH_ROLLBACK_RESULT, onResponseProcessor, messageExecutor);
+        // a response only completes the future of its request, so it is handled on the io thread and never waits
+        // behind the commits and rollbacks that wait for it
+        super.registerProcessor(MessageType.TYPE_BRANCH_COMMIT_RESULT, onResponseProcessor, null);
+        super.registerProcessor(MessageType.TYPE_BRANCH_ROLLBACK_RESULT, onResponseProcessor, null);
         // 3. registry rm message processor
         RegRmProcessor regRmProcessor = new RegRmProcessor(this);
-        super.registerProcessor(MessageType.TYPE_REG_RM, regRmProcessor, messageExecutor);
+        super.registerProcessor(MessageType.TYPE_REG_RM, regRmProcessor, executorOf(MessageType.TYPE_REG_RM));
         // 4. registry tm message processor
         RegTmProcessor regTmProcessor = new RegTmProcessor(this);
         super.registerProcessor(MessageType.TYPE_REG_CLT, regTmProcessor, null);
@@ -113,4 +151,10 @@ public class NettyRemotingServer extends AbstractNettyRemotingServer {
         super.registerProcessor(MessageType.TYPE_HEARTBEAT_MSG, heartbeatMessageProcessor, null);
     }
 
+    private ExecutorService executorOf(int messageType) {
+        ServerMessageClass messageClass = ServerMessageClass.fromTypeCode(messageType);
+        ExecutorService executor = messageClass == null ? null : messageClassExecutors.get(messageClass);
+        return executor != null ? executor : messageExecutor;
+    }
+
 }
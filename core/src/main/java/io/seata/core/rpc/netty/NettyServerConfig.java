@@ -22,8 +22,12 @@ import io.seata.core.constants.ConfigurationKeys;
 
 import static io.seata.common.DefaultValues.DEFAULT_BOSS_THREAD_PREFIX;
 import static io.seata.common.DefaultValues.DEFAULT_BOSS_THREAD_SIZE;
+import static io.seata.common.DefaultValues.DEFAULT_ENABLE_TC_SERVER_PARALLEL_BATCH_REQUEST;
 import static io.seata.common.DefaultValues.DEFAULT_EXECUTOR_THREAD_PREFIX;
 import static io.seata.common.DefaultValues.DEFAULT_NIO_WORKER_THREAD_PREFIX;
+import static io.seata.common.DefaultValues.DEFAULT_SERVER_EXECUTOR_ISOLATION;
+import static io.seata.common.DefaultValues.DEFAULT_SERVER_EXECUTOR_MAX_THREADS;
+import static io.seata.common.DefaultValues.DEFAULT_SERVER_EXECUTOR_QUEUE_SIZE;
 import static io.seata.common.DefaultValues.DEFAULT_SHUTDOWN_TIMEOUT_SEC;
 
 /**
@@ -43,6 +47,8 @@ public class NettyServerConfig extends NettyBaseConfig {
     private static final int DEFAULT_LISTEN_PORT = 8091;
     private static final int RPC_REQUEST_TIMEOUT = 30 * 1000;
     private int serverChannelMaxIdleTimeSeconds = 30;
+    private static final boolean ENABLE_TC_SERVER_PARALLEL_BATCH_REQUEST = CONFIG.getBoolean(
+        ConfigurationKeys.ENABLE_TC_SERVER_PARALLEL_BATCH_REQUEST, DEFAULT_ENABLE_TC_SERVER_PARALLEL_BATCH_REQUEST);
     private static final String EPOLL_WORKER_THREAD_PREFIX = "NettyServerEPollWorker";
 
     /**
@@ -270,4 +276,60 @@ public class NettyServerConfig extends NettyBaseConfig {
     public int getServerShutdownWaitTime() {
         return CONFIG.getInt(ConfigurationKeys.SHUTDOWN_WAIT, DEFAULT_SHUTDOWN_TIMEOUT_SEC);
     }
+
+    /**
+     * Whether the sub-requests of a merged request are handled in parallel.
+     *
+     * @return the boolean
+     */
+    public static boolean isEnableTcServerParallelBatchRequest() {
+        return ENABLE_TC_SERVER_PARALLEL_BATCH_REQUEST;
+    }
+
+    /**
+     * Whether the message classes are handled on executors of their own.
+     *
+     * @return the boolean
+     */
+    public static boolean isServerExecutorIsolation() {
+        return CONFIG.getBoolean(ConfigurationKeys.SERVER_EXECUTOR_ISOLATION, DEFAULT_SERVER_EXECUTOR_ISOLATION);
+    }
+
+    /**
+     * Gets the max threads of the executor of a message class.
+     *
+     * @param messageClass the message class
+     * @return the int
+     */
+    public static int getServerExecutorMaxThreads(ServerMessageClass messageClass) {
+        return Math.max(1, CONFIG.getInt(getServerExecutorKey(messageClass, ConfigurationKeys.SERVER_EXECUTOR_MAX_THREADS),
+            DEFAULT_SERVER_EXECUTOR_MAX_THREADS));
+    }
+
+    /**
+     * Gets the queue size of the executor of a message class.
+     *
+     * @param messageClass the message class
+     * @return the int
+     */
+    public static int getServerExecutorQueueSize(ServerMessageClass messageClass) {
+        return Math.max(1, CONFIG.getInt(getServerExecutorKey(messageClass, ConfigurationKeys.SERVER_EXECUTOR_QUEUE_SIZE),
+            DEFAULT_SERVER_EXECUTOR_QUEUE_SIZE));
+    }
+
+    /**
+     * Whether a message class runs on the caller when its executor is full, rather than being rejected.
+     *
+     * @param messageClass the message class
+     * @return the boolean
+     */
+    public static boolean isServerExecutorHighPriority(ServerMessageClass messageClass) {
+        String priority = CONFIG.getConfig(getServerExecutorKey(messageClass, ConfigurationKeys.SERVER_EXECUTOR_PRIORITY),
+            messageClass.isDefaultHighPriority() ? "high" : "low");
+        return "high".equalsIgnoreCase(priority);
+    }
+
+    private static String getServerExecutorKey(ServerMessageClass messageClass, String key) {
+        return ConfigurationKeys.SERVER_EXECUTOR_PREFIX + messageClass.getName() + "." + key;
+    }
 }
@@ -0,0 +1,96 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.seata.core.rpc.netty;
+
+import io.seata.core.protocol.MessageType;
+
+/**
+ * The classes of the messages a server handles on executors of their own, so that a spike of one class
+ * does not hold up the others.
+ */
+public enum ServerMessageClass {
+
+    /**
+     * Global commits, rollbacks, status queries and reports, which release the locks. The phase two results of
+     * branches are not in it, the commits and rollbacks wait for them.
+     */
+    PHASE_TWO("phaseTwo", true, MessageType.TYPE_GLOBAL_COMMIT, MessageType.TYPE_GLOBAL_ROLLBACK,
+        MessageType.TYPE_GLOBAL_STATUS, MessageType.TYPE_GLOBAL_REPORT),
+
+    /**
+     * Branch registrations and reports and lock queries.
+     */
+    REGISTER("register", false, MessageType.TYPE_BRANCH_REGISTER, MessageType.TYPE_BRANCH_STATUS_REPORT,
+        MessageType.TYPE_GLOBAL_LOCK_QUERY),
+
+    /**
+     * RM registrations. They are rare but a rejected one leaves the RM without a channel to the server, so they run
+     * on the caller rather than being rejected when the executor is full.
+     */
+    RM_REGISTER("rmRegister", true, MessageType.TYPE_REG_RM),
+
+    /**
+     * Global begins.
+     */
+    BEGIN("begin", false, MessageType.TYPE_GLOBAL_BEGIN);
+
+    private final String name;
+
+    private final boolean defaultHighPriority;
+
+    private final short[] typeCodes;
+
+    ServerMessageClass(String name, boolean defaultHighPriority, short... typeCodes) {
+        this.name = name;
+        this.defaultHighPriority = defaultHighPriority;
+        this.typeCodes = typeCodes;
+    }
+
+    /**
+     * Gets the name used in the configuration keys.
+     *
+     * @return the name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Whether the class runs on the caller when its executor is full by default, rather than being rejected.
+     *
+     * @return the boolean
+     */
+    public boolean isDefaultHighPriority() {
+        return defaultHighPriority;
+    }
+
+    /**
+     * Gets the message class of a type code.
+     *
+     * @param typeCode the type code
+     * @return the message class, or null if the type has none
+     */
+    public static ServerMessageClass fromTypeCode(int typeCode) {
+        for (ServerMessageClass messageClass : values()) {
+            for (short code : messageClass.typeCodes) {
+                if (code == typeCode) {
+                    return messageClass;
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -22,6 +22,7 @@ import io.seata.core.serializer.Serializer;
 import io.seata.core.serializer.SerializerFactory;
 import io.seata.core.compressor.Compressor;
 import io.seata.core.compressor.CompressorFactory;
+import io.seata.core.compressor.CompressorType;
 import io.seata.core.protocol.HeartbeatMessage;
 import io.seata.core.protocol.ProtocolConstants;
 import io.seata.core.protocol.RpcMessage;
@@ -133,12 +134,17 @@ public class ProtocolV1Decoder extends LengthFieldBasedFrameDecoder {
         } else {
             int bodyLength = fullLength - headLength;
             if (bodyLength > 0) {
-                byte[] bs = new byte[bodyLength];
-                frame.readBytes(bs);
-                Compressor compressor = CompressorFactory.getCompressor(compressorType);
-                bs = compressor.decompress(bs);
                 Serializer serializer = SerializerFactory.getSerializer(codecType);
-                rpcMessage.setBody(serializer.deserialize(bs));
+                if (compressorType == CompressorType.NONE.getCode()) {
+                    // direct read body with zero-copy
+                    rpcMessage.setBody(serializer.deserialize(frame.readSlice(bodyLength)));
+                } else {
+                    byte[] bs = new byte[bodyLength];
+                    frame.readBytes(bs);
+                    Compressor compressor = CompressorFactory.getCompressor(compressorType);
+                    bs = compressor.decompress(bs);
+                    rpcMessage.setBody(serializer.deserialize(bs));
+                }
             }
         }
 
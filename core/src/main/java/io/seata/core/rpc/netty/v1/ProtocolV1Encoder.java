@@ -22,6 +22,7 @@ import io.seata.core.serializer.Serializer;
 import io.seata.core.serializer.SerializerFactory;
 import io.seata.core.compressor.Compressor;
 import io.seata.core.compressor.CompressorFactory;
+import io.seata.core.compressor.CompressorType;
 import io.seata.core.protocol.ProtocolConstants;
 import io.seata.core.protocol.RpcMessage;
 import org.slf4j.Logger;
@@ -87,19 +88,22 @@ public class ProtocolV1Encoder extends MessageToByteEncoder {
                     fullLength += headMapBytesLength;
                 }
 
-                byte[] bodyBytes = null;
                 if (messageType != ProtocolConstants.MSGTYPE_HEARTBEAT_REQUEST
                         && messageType != ProtocolConstants.MSGTYPE_HEARTBEAT_RESPONSE) {
                     // heartbeat has no body
                     Serializer serializer = SerializerFactory.getSerializer(rpcMessage.getCodec());
-                    bodyBytes = serializer.serialize(rpcMessage.getBody());
-                    Compressor compressor = CompressorFactory.getCompressor(rpcMessage.getCompressor());
-                    bodyBytes = compressor.compress(bodyBytes);
-                    fullLength += bodyBytes.length;
-                }
-
-                if (bodyBytes != null) {
-                    out.writeBytes(bodyBytes);
+                    if (rpcMessage.getCompressor() == CompressorType.NONE.getCode()) {
+                        // direct write body with zero-copy
+                        int bodyStart = out.writerIndex();
+                        serializer.serialize(rpcMessage.getBody(), out);
+                        fullLength += out.writerIndex() - bodyStart;
+                    } else {
+                        byte[] bodyBytes = serializer.serialize(rpcMessage.getBody());
+                        Compressor compressor = CompressorFactory.getCompressor(rpcMessage.getCompressor());
+                        bodyBytes = compressor.compress(bodyBytes);
+                        fullLength += bodyBytes.length;
+                        out.writeBytes(bodyBytes);
+                    }
                 }
 
                 // fix fullLength and headLength
@@ -0,0 +1,362 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.seata.core.rpc.processor.server;
+
+import java.net.SocketAddress;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import io.seata.common.thread.NamedThreadFactory;
+import io.seata.common.util.NetUtil;
+import io.seata.config.ConfigurationFactory;
+import io.seata.core.constants.ConfigurationKeys;
+import io.seata.core.exception.TransactionExceptionCode;
+import io.seata.core.protocol.AbstractMessage;
+import io.seata.core.protocol.AbstractResultMessage;
+import io.seata.core.protocol.ResultCode;
+import io.seata.core.protocol.transaction.AbstractBranchEndRequest;
+import io.seata.core.protocol.transaction.AbstractBranchEndResponse;
+import io.seata.core.protocol.transaction.AbstractGlobalEndRequest;
+import io.seata.core.protocol.transaction.AbstractTransactionResponse;
+import io.seata.core.protocol.transaction.BranchRegisterRequest;
+import io.seata.core.protocol.transaction.BranchReportRequest;
+import io.seata.core.protocol.transaction.GlobalBeginResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static io.seata.common.DefaultValues.DEFAULT_REQUEST_TRACE_BUFFER_SIZE;
+import static io.seata.common.DefaultValues.DEFAULT_REQUEST_TRACE_SAMPLE_PERCENT;
+
+/**
+ * Sampled trace of the messages handled by ServerOnRequestProcessor and ServerOnResponseProcessor.
+ * <p>
+ * The handling thread only copies a few references and numbers into a preallocated slot of a bounded ring buffer,
+ * it never formats a string and never blocks: when the buffer is full the trace is dropped. A single daemon thread
+ * drains the buffer and hands every trace to the registered listeners, the default one prints it to the log and the
+ * server records the cost as a metric when metrics are enabled. Only a small share of the messages is sampled by
+ * default, see {@link io.seata.common.DefaultValues#DEFAULT_REQUEST_TRACE_SAMPLE_PERCENT}. The
+ * drain thread sleeps while the buffer is empty and is woken by the next trace, it is started on the first trace and
+ * stopped by {@link #shutdown()}.
+ */
+public class RequestTracer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RequestTracer.class);
+
+    private static final String THREAD_PREFIX = "requestTracePrint";
+    private static final long SHUTDOWN_WAIT_MILLS = 1000L;
+
+    public static final RequestTracer INSTANCE = new RequestTracer(
+        ConfigurationFactory.getInstance().getInt(ConfigurationKeys.REQUEST_TRACE_SAMPLE_PERCENT,
+            DEFAULT_REQUEST_TRACE_SAMPLE_PERCENT),
+        ConfigurationFactory.getInstance().getInt(ConfigurationKeys.REQUEST_TRACE_BUFFER_SIZE,
+            DEFAULT_REQUEST_TRACE_BUFFER_SIZE));
+
+    private final int samplePercent;
+
+    private final Trace[] ring;
+
+    private final int mask;
+
+    private final AtomicLong tail = new AtomicLong();
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    private final List<TraceListener> listeners = new CopyOnWriteArrayList<>();
+
+    private long head;
+
+    private volatile Thread drainer;
+
+    /**
+     * set by the drain thread before it parks, a producer that sees it wakes the thread up
+     */
+    private volatile boolean waiting;
+
+    RequestTracer(int samplePercent, int bufferSize) {
+        this.samplePercent = Math.max(0, Math.min(100, samplePercent));
+        int capacity = Integer.highestOneBit(Math.max(2, bufferSize) * 2 - 1);
+        this.ring = new Trace[capacity];
+        for (int i = 0; i < capacity; i++) {
+            ring[i] = new Trace(i);
+        }
+        this.mask = capacity - 1;
+        listeners.add(trace -> {
+            if (LOGGER.isInfoEnabled()) {
+                LOGGER.info("{},xid:{},cost:{}us,result:{},code:{},clientIp:{},vgroup:{}", trace.getMessageType()
+                        .getSimpleName(), trace.getXid(), trace.getCostMicros(), trace.getResultCode(),
+                    trace.getExceptionCode(), NetUtil.toIpAddress(trace.getRemoteAddress()), trace.getVgroup());
+            }
+        });
+    }
+
+    /**
+     * Whether this message should be traced, to be asked before any timing is done.
+     *
+     * @return the boolean
+     */
+    public boolean sample() {
+        return samplePercent >= 100 || (samplePercent > 0 && ThreadLocalRandom.current().nextInt(100) < samplePercent);
+    }
+
+    /**
+     * Trace a handled message.
+     *
+     * @param message       the received message
+     * @param result        the result sent back, may be null
+     * @param costNanos     the handling time
+     * @param remoteAddress the remote address of the client
+     * @param vgroup        the transaction service group of the client
+     */
+    public void trace(AbstractMessage message, AbstractResultMessage result, long costNanos,
+                      SocketAddress remoteAddress, String vgroup) {
+        Trace trace = claim();
+        if (trace == null) {
+            dropped.incrementAndGet();
+            return;
+        }
+        trace.messageType = message.getClass();
+        trace.xid = xidOf(message, result);
+        trace.costMicros = TimeUnit.NANOSECONDS.toMicros(costNanos);
+        trace.resultCode = result == null ? null : result.getResultCode();
+        trace.exceptionCode = result instanceof AbstractTransactionResponse
+            ? ((AbstractTransactionResponse) result).getTransactionExceptionCode() : null;
+        trace.remoteAddress = remoteAddress;
+        trace.vgroup = vgroup;
+        trace.publish();
+        Thread thread = ensureDrainer();
+        if (waiting) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * Register a listener that receives every drained trace on the drain thread.
+     *
+     * @param listener the listener
+     */
+    public void addListener(TraceListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Stop the drain thread after it has drained the published traces, a later trace starts a new one.
+     */
+    public void shutdown() {
+        synchronized (this) {
+            Thread thread = drainer;
+            if (thread == null) {
+                return;
+            }
+            drainer = null;
+            LockSupport.unpark(thread);
+            try {
+                // a new drain thread must not run while the old one is still draining
+                thread.join(SHUTDOWN_WAIT_MILLS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Gets the number of traces dropped because the buffer was full.
+     *
+     * @return the dropped count
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    private Trace claim() {
+        while (true) {
+            long pos = tail.get();
+            Trace trace = ring[(int) (pos & mask)];
+            long diff = trace.sequence - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    return trace;
+                }
+            } else if (diff < 0) {
+                // the drain thread has not caught up
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Drain the published traces, called by the drain thread only.
+     *
+     * @return the number of drained traces
+     */
+    int drain() {
+        int count = 0;
+        while (true) {
+            Trace trace = ring[(int) (head & mask)];
+            if (trace.sequence != head + 1) {
+                return count;
+            }
+            for (TraceListener listener : listeners) {
+                try {
+                    listener.onTrace(trace);
+                } catch (Exception e) {
+                    LOGGER.error("request trace listener error: {}", e.getMessage(), e);
+                }
+            }
+            trace.release(head + ring.length);
+            head++;
+            count++;
+        }
+    }
+
+    private Thread ensureDrainer() {
+        Thread thread = drainer;
+        if (thread != null) {
+            return thread;
+        }
+        synchronized (this) {
+            if (drainer == null) {
+                thread = new NamedThreadFactory(THREAD_PREFIX, 1, true).newThread(this::drainLoop);
+                drainer = thread;
+                thread.start();
+            }
+            return drainer;
+        }
+    }
+
+    private void drainLoop() {
+        Thread current = Thread.currentThread();
+        while (drainer == current) {
+            if (drain() > 0) {
+                continue;
+            }
+            waiting = true;
+            // a trace published before the flag was seen is drained here, one published after it unparks
+            if (drain() == 0 && drainer == current) {
+                LockSupport.park(this);
+            }
+            waiting = false;
+        }
+        drain();
+    }
+
+    private static String xidOf(AbstractMessage message, AbstractResultMessage result) {
+        if (message instanceof AbstractGlobalEndRequest) {
+            return ((AbstractGlobalEndRequest) message).getXid();
+        }
+        if (message instanceof BranchRegisterRequest) {
+            return ((BranchRegisterRequest) message).getXid();
+        }
+        if (message instanceof BranchReportRequest) {
+            return ((BranchReportRequest) message).getXid();
+        }
+        if (message instanceof AbstractBranchEndRequest) {
+            return ((AbstractBranchEndRequest) message).getXid();
+        }
+        if (message instanceof AbstractBranchEndResponse) {
+            return ((AbstractBranchEndResponse) message).getXid();
+        }
+        if (result instanceof GlobalBeginResponse) {
+            return ((GlobalBeginResponse) result).getXid();
+        }
+        return null;
+    }
+
+    /**
+     * The listener of drained traces.
+     */
+    @FunctionalInterface
+    public interface TraceListener {
+
+        /**
+         * On trace. The trace is only valid during the call and must not be kept.
+         *
+         * @param trace the trace
+         */
+        void onTrace(Trace trace);
+    }
+
+    /**
+     * A reusable slot of the ring buffer.
+     */
+    public static final class Trace {
+
+        private volatile long sequence;
+
+        private Class<?> messageType;
+
+        private String xid;
+
+        private long costMicros;
+
+        private ResultCode resultCode;
+
+        private TransactionExceptionCode exceptionCode;
+
+        private SocketAddress remoteAddress;
+
+        private String vgroup;
+
+        Trace(long sequence) {
+            this.sequence = sequence;
+        }
+
+        void publish() {
+            sequence = sequence + 1;
+        }
+
+        void release(long nextSequence) {
+            messageType = null;
+            xid = null;
+            resultCode = null;
+            exceptionCode = null;
+            remoteAddress = null;
+            vgroup = null;
+            sequence = nextSequence;
+        }
+
+        public Class<?> getMessageType() {
+            return messageType;
+        }
+
+        public String getXid() {
+            return xid;
+        }
+
+        public long getCostMicros() {
+            return costMicros;
+        }
+
+        public ResultCode getResultCode() {
+            return resultCode;
+        }
+
+        public TransactionExceptionCode getExceptionCode() {
+            return exceptionCode;
+        }
+
+        public SocketAddress getRemoteAddress() {
+            return remoteAddress;
+        }
+
+        public String getVgroup() {
+            return vgroup;
+        }
+    }
+}
@@ -15,22 +15,42 @@
  */
 package io.seata.core.rpc.processor.server;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import io.netty.channel.ChannelHandlerContext;
+import io.seata.common.exception.FrameworkErrorCode;
 import io.seata.common.util.NetUtil;
 import io.seata.core.protocol.AbstractMessage;
 import io.seata.core.protocol.AbstractResultMessage;
 import io.seata.core.protocol.MergeResultMessage;
 import io.seata.core.protocol.MergedWarpMessage;
+import io.seata.core.protocol.ResultCode;
 import io.seata.core.protocol.RpcMessage;
 import io.seata.core.protocol.transaction.BranchRegisterRequest;
+import io.seata.core.protocol.transaction.BranchRegisterResponse;
 import io.seata.core.protocol.transaction.BranchReportRequest;
+import io.seata.core.protocol.transaction.BranchReportResponse;
 import io.seata.core.protocol.transaction.GlobalBeginRequest;
+import io.seata.core.protocol.transaction.GlobalBeginResponse;
 import io.seata.core.protocol.transaction.GlobalCommitRequest;
+import io.seata.core.protocol.transaction.GlobalCommitResponse;
 import io.seata.core.protocol.transaction.GlobalLockQueryRequest;
+import io.seata.core.protocol.transaction.GlobalLockQueryResponse;
 import io.seata.core.protocol.transaction.GlobalReportRequest;
+import io.seata.core.protocol.transaction.GlobalReportResponse;
 import io.seata.core.protocol.transaction.GlobalRollbackRequest;
+import io.seata.core.protocol.transaction.GlobalRollbackResponse;
 import io.seata.core.protocol.transaction.GlobalStatusRequest;
+import io.seata.core.protocol.transaction.GlobalStatusResponse;
 import io.seata.core.rpc.netty.ChannelManager;
+import io.seata.core.rpc.netty.NettyServerConfig;
+import io.seata.core.rpc.netty.ServerMessageClass;
 import io.seata.core.rpc.RemotingServer;
 import io.seata.core.rpc.RpcContext;
 import io.seata.core.rpc.TransactionMessageHandler;
@@ -66,11 +86,36 @@ public class ServerOnRequestProcessor implements RemotingProcessor {
 
     private TransactionMessageHandler transactionMessageHandler;
 
+    /**
+     * the executor of the sub-requests of a merged request, null to handle them one by one
+     */
+    private Executor batchRequestExecutor;
+
+    /**
+     * the executors of the message classes handled apart, the sub-requests of a merged request go to them too
+     */
+    private Map<ServerMessageClass, ? extends Executor> messageClassExecutors = Collections.emptyMap();
+
     public ServerOnRequestProcessor(RemotingServer remotingServer, TransactionMessageHandler transactionMessageHandler) {
         this.remotingServer = remotingServer;
         this.transactionMessageHandler = transactionMessageHandler;
     }
 
+    public ServerOnRequestProcessor(RemotingServer remotingServer, TransactionMessageHandler transactionMessageHandler,
+                                    Executor batchRequestExecutor) {
+        this(remotingServer, transactionMessageHandler);
+        if (NettyServerConfig.isEnableTcServerParallelBatchRequest()) {
+            this.batchRequestExecutor = batchRequestExecutor;
+        }
+    }
+
+    public ServerOnRequestProcessor(RemotingServer remotingServer, TransactionMessageHandler transactionMessageHandler,
+                                    Executor batchRequestExecutor,
+                                    Map<ServerMessageClass, ? extends Executor> messageClassExecutors) {
+        this(remotingServer, transactionMessageHandler, batchRequestExecutor);
+        this.messageClassExecutors = messageClassExecutors;
+    }
+
     @Override
     public void process(ChannelHandlerContext ctx, RpcMessage rpcMessage) throws Exception {
         if (ChannelManager.isRegistered(ctx.channel())) {
@@ -94,36 +139,179 @@ public class ServerOnRequestProcessor implements RemotingProcessor {
     private void onRequestMessage(ChannelHandlerContext ctx, RpcMessage rpcMessage) {
         Object message = rpcMessage.getBody();
         RpcContext rpcContext = ChannelManager.getContextFromIdentified(ctx.channel());
+        boolean traced = false;
         if (LOGGER.isDebugEnabled()) {
             LOGGER.debug("server received:{},clientIp:{},vgroup:{}", message,
                 NetUtil.toIpAddress(ctx.channel().remoteAddress()), rpcContext.getTransactionServiceGroup());
         } else {
-            try {
-                BatchLogHandler.INSTANCE.getLogQueue()
-                    .put(message + ",clientIp:" + NetUtil.toIpAddress(ctx.channel().remoteAddress()) + ",vgroup:"
-                        + rpcContext.getTransactionServiceGroup());
-            } catch (InterruptedException e) {
-                LOGGER.error("put message to logQueue error: {}", e.getMessage(), e);
-            }
+            traced = RequestTracer.INSTANCE.sample();
         }
         if (!(message instanceof AbstractMessage)) {
             return;
         }
         if (message instanceof MergedWarpMessage) {
-            AbstractResultMessage[] results = new AbstractResultMessage[((MergedWarpMessage) message).msgs.size()];
+            List<AbstractMessage> subMessages = ((MergedWarpMessage) message).msgs;
+            AbstractResultMessage[] results = new AbstractResultMessage[subMessages.size()];
+            if (!messageClassExecutors.isEmpty() || (batchRequestExecutor != null && results.length > 1)) {
+                onMergedRequestInParallel(ctx, rpcMessage, rpcContext, subMessages, results, traced);
+                return;
+            }
+            // one by one on the current thread, though a request answered later does not hold up the next one
+            Runnable onDone = mergedResultSender(ctx, rpcMessage, results);
             for (int i = 0; i < results.length; i++) {
-                final AbstractMessage subMessage = ((MergedWarpMessage) message).msgs.get(i);
-                results[i] = transactionMessageHandler.onRequest(subMessage, rpcContext);
+                handleSubRequest(ctx, subMessages.get(i), rpcContext, traced, results, i, onDone);
             }
-            MergeResultMessage resultMessage = new MergeResultMessage();
-            resultMessage.setMsgs(results);
-            remotingServer.sendAsyncResponse(rpcMessage, ctx.channel(), resultMessage);
         } else {
             // the single send request message
             final AbstractMessage msg = (AbstractMessage) message;
-            AbstractResultMessage result = transactionMessageHandler.onRequest(msg, rpcContext);
-            remotingServer.sendAsyncResponse(rpcMessage, ctx.channel(), result);
+            handleRequest(ctx, msg, rpcContext, traced).whenComplete((result, e) -> {
+                if (e != null) {
+                    LOGGER.error("handle request error: {}", e.getMessage(), e);
+                    result = failedResult(msg, e.getMessage());
+                }
+                remotingServer.sendAsyncResponse(rpcMessage, ctx.channel(), result);
+            });
+        }
+    }
+
+    /**
+     * The requests of a client batch come from different client threads and are independent of each other, so they
+     * are handled concurrently and the merged result is sent by whichever finishes last. A slow request no longer
+     * holds up the others beyond its own latency. A request of a class with an executor of its own goes there, and
+     * one that has no executor runs on the current thread. A request rejected by a full executor or failed by an
+     * exception gets a failed result, so the rest of the batch is still answered.
+     */
+    private void onMergedRequestInParallel(ChannelHandlerContext ctx, RpcMessage rpcMessage, RpcContext rpcContext,
+                                           List<AbstractMessage> subMessages, AbstractResultMessage[] results,
+                                           boolean traced) {
+        Runnable onDone = mergedResultSender(ctx, rpcMessage, results);
+        for (int i = 0; i < results.length; i++) {
+            final int index = i;
+            final AbstractMessage subMessage = subMessages.get(i);
+            Runnable task = () -> handleSubRequest(ctx, subMessage, rpcContext, traced, results, index, onDone);
+            Executor executor = getSubRequestExecutor(subMessage);
+            if (executor == null) {
+                task.run();
+                continue;
+            }
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                // rejected like a request that is not merged, it does not take the thread of the whole batch
+                LOGGER.error(FrameworkErrorCode.ThreadPoolFull.getErrCode(),
+                    "thread pool is full, merged sub request " + subMessage.getClass().getSimpleName() + " is rejected");
+                results[index] = failedResult(subMessage, FrameworkErrorCode.ThreadPoolFull.getErrMessage());
+                onDone.run();
+            }
+        }
+    }
+
+    /**
+     * The merged result is sent once every sub-request is answered.
+     */
+    private Runnable mergedResultSender(ChannelHandlerContext ctx, RpcMessage rpcMessage,
+                                        AbstractResultMessage[] results) {
+        AtomicInteger pending = new AtomicInteger(results.length);
+        return () -> {
+            if (pending.decrementAndGet() == 0) {
+                MergeResultMessage resultMessage = new MergeResultMessage();
+                resultMessage.setMsgs(results);
+                remotingServer.sendAsyncResponse(rpcMessage, ctx.channel(), resultMessage);
+            }
+        };
+    }
+
+    /**
+     * Handle a sub-request of a merged request, a failed one gets a failed result so the batch is still answered.
+     */
+    private void handleSubRequest(ChannelHandlerContext ctx, AbstractMessage subMessage, RpcContext rpcContext,
+                                  boolean traced, AbstractResultMessage[] results, int index, Runnable onDone) {
+        handleRequest(ctx, subMessage, rpcContext, traced).whenComplete((result, e) -> {
+            if (e != null) {
+                LOGGER.error("handle merged sub request error: {}", e.getMessage(), e);
+                result = failedResult(subMessage, e.getMessage());
+            }
+            results[index] = result;
+            onDone.run();
+        });
+    }
+
+    /**
+     * Build the failed result of a request, a request without a response type of its own gets a generic one.
+     *
+     * @param request the request
+     * @param msg     the reason
+     * @return the result
+     */
+    static AbstractResultMessage failedResult(AbstractMessage request, String msg) {
+        AbstractResultMessage result;
+        if (request instanceof GlobalBeginRequest) {
+            result = new GlobalBeginResponse();
+        } else if (request instanceof GlobalCommitRequest) {
+            result = new GlobalCommitResponse();
+        } else if (request instanceof GlobalRollbackRequest) {
+            result = new GlobalRollbackResponse();
+        } else if (request instanceof GlobalStatusRequest) {
+            result = new GlobalStatusResponse();
+        } else if (request instanceof GlobalReportRequest) {
+            result = new GlobalReportResponse();
+        } else if (request instanceof BranchRegisterRequest) {
+            result = new BranchRegisterResponse();
+        } else if (request instanceof BranchReportRequest) {
+            result = new BranchReportResponse();
+        } else if (request instanceof GlobalLockQueryRequest) {
+            result = new GlobalLockQueryResponse();
+        } else {
+            result = new FailedResultMessage(request.getTypeCode());
         }
+        result.setResultCode(ResultCode.Failed);
+        result.setMsg(msg);
+        return result;
+    }
+
+    /**
+     * The failed result of a request the processor knows no response type for, it carries the type code of the
+     * request it answers.
+     */
+    static class FailedResultMessage extends AbstractResultMessage {
+
+        private final short typeCode;
+
+        FailedResultMessage(short typeCode) {
+            this.typeCode = typeCode;
+        }
+
+        @Override
+        public short getTypeCode() {
+            return typeCode;
+        }
+    }
+
+    private Executor getSubRequestExecutor(AbstractMessage subMessage) {
+        ServerMessageClass messageClass = ServerMessageClass.fromTypeCode(subMessage.getTypeCode());
+        Executor executor = messageClass == null ? null : messageClassExecutors.get(messageClass);
+        return executor != null ? executor : batchRequestExecutor;
+    }
+
+    private CompletableFuture<AbstractResultMessage> handleRequest(ChannelHandlerContext ctx, AbstractMessage request,
+                                                                   RpcContext rpcContext, boolean traced) {
+        long start = traced ? System.nanoTime() : 0L;
+        CompletableFuture<AbstractResultMessage> future;
+        try {
+            future = transactionMessageHandler.onRequestAsync(request, rpcContext);
+        } catch (RuntimeException e) {
+            future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+        }
+        if (!traced) {
+            return future;
+        }
+        return future.whenComplete((result, e) -> {
+            if (result != null) {
+                RequestTracer.INSTANCE.trace(request, result, System.nanoTime() - start,
+                    ctx.channel().remoteAddress(), rpcContext.getTransactionServiceGroup());
+            }
+        });
     }
 
 }
@@ -17,6 +17,7 @@ package io.seata.core.rpc.processor.server;
 
 import io.netty.channel.ChannelHandlerContext;
 import io.seata.common.util.NetUtil;
+import io.seata.core.protocol.AbstractMessage;
 import io.seata.core.protocol.AbstractResultMessage;
 import io.seata.core.protocol.MessageFuture;
 import io.seata.core.protocol.RpcMessage;
@@ -31,6 +32,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * handle RM/TM response message.
@@ -68,6 +70,13 @@ public class ServerOnResponseProcessor implements RemotingProcessor {
         MessageFuture messageFuture = futures.remove(rpcMessage.getId());
         if (messageFuture != null) {
             messageFuture.setResultMessage(rpcMessage.getBody());
+            if (rpcMessage.getBody() instanceof AbstractMessage && RequestTracer.INSTANCE.sample()) {
+                // the cost of a response the server waited for is the round trip of its request
+                RequestTracer.INSTANCE.trace((AbstractMessage) rpcMessage.getBody(), null,
+                    TimeUnit.MILLISECONDS.toNanos(messageFuture.elapsedMillis()),
+                    ctx.channel().remoteAddress(),
+                    ChannelManager.getContextFromIdentified(ctx.channel()).getTransactionServiceGroup());
+            }
         } else {
             if (ChannelManager.isRegistered(ctx.channel())) {
                 onResponseMessage(ctx, rpcMessage);
@@ -89,22 +98,23 @@ public class ServerOnResponseProcessor implements RemotingProcessor {
     }
 
     private void onResponseMessage(ChannelHandlerContext ctx, RpcMessage rpcMessage) {
+        boolean traced = false;
         if (LOGGER.isDebugEnabled()) {
             LOGGER.debug("server received:{},clientIp:{},vgroup:{}", rpcMessage.getBody(),
                 NetUtil.toIpAddress(ctx.channel().remoteAddress()),
                 ChannelManager.getContextFromIdentified(ctx.channel()).getTransactionServiceGroup());
         } else {
-            try {
-                BatchLogHandler.INSTANCE.getLogQueue()
-                    .put(rpcMessage.getBody() + ",clientIp:" + NetUtil.toIpAddress(ctx.channel().remoteAddress()) + ",vgroup:"
-                        + ChannelManager.getContextFromIdentified(ctx.channel()).getTransactionServiceGroup());
-            } catch (InterruptedException e) {
-                LOGGER.error("put message to logQueue error: {}", e.getMessage(), e);
-            }
+            traced = rpcMessage.getBody() instanceof AbstractMessage && RequestTracer.INSTANCE.sample();
         }
+        long start = traced ? System.nanoTime() : 0L;
         if (rpcMessage.getBody() instanceof AbstractResultMessage) {
             RpcContext rpcContext = ChannelManager.getContextFromIdentified(ctx.channel());
             transactionMessageHandler.onResponse((AbstractResultMessage) rpcMessage.getBody(), rpcContext);
         }
+        if (traced) {
+            RequestTracer.INSTANCE.trace((AbstractMessage) rpcMessage.getBody(), null, System.nanoTime() - start,
+                ctx.channel().remoteAddress(),
+                ChannelManager.getContextFromIdentified(ctx.channel()).getTransactionServiceGroup());
+        }
     }
 }
@@ -16,6 +16,7 @@
 package io.seata.core.store;
 
 
+import java.util.Date;
 import java.util.List;
 
 /**
@@ -50,6 +51,18 @@ public interface LogStore {
      */
     List<GlobalTransactionDO> queryGlobalTransactionDO(int[] status, int limit);
 
+    /**
+     * Query a page of global transaction do list ordered by gmt_modified and transaction_id, starting after a cursor.
+     *
+     * @param status             the status
+     * @param afterGmtModified   the gmt_modified of the last row of the previous page, null for the first page
+     * @param afterTransactionId the transaction_id of the last row of the previous page
+     * @param limit              the limit
+     * @return the list
+     */
+    List<GlobalTransactionDO> queryGlobalTransactionDO(int[] status, Date afterGmtModified, long afterTransactionId,
+                                                       int limit);
+
     /**
      * Insert global transaction do boolean.
      *
@@ -35,7 +35,12 @@ public enum StoreMode {
     /**
      * redis store
      */
-    REDIS("redis");
+    REDIS("redis"),
+
+    /**
+     * rocksdb store
+     */
+    ROCKSDB("rocksdb");
 
     private String name;
 
@@ -15,6 +15,8 @@
  */
 package io.seata.core.store.db.sql.lock;
 
+import java.util.StringJoiner;
+
 import io.seata.common.exception.NotSupportYetException;
 import io.seata.config.Configuration;
 import io.seata.config.ConfigurationFactory;
@@ -44,6 +46,11 @@ public class AbstractLockStoreSql implements LockStoreSql {
      */
     protected static final String IN_PARAMS_PLACE_HOLD = " #in_params# ";
 
+    /**
+     * The constant VALUES_PLACE_HOLD.
+     */
+    protected static final String VALUES_PLACE_HOLD = " #values# ";
+
     /**
      * The constant ALL_COLUMNS.
      * xid, transaction_id, branch_id, resource_id, table_name, pk, row_key, gmt_create, gmt_modified
@@ -131,4 +138,26 @@ public class AbstractLockStoreSql implements LockStoreSql {
         return CHECK_LOCK_SQL.replace(LOCK_TABLE_PLACE_HOLD, lockTable).replace(IN_PARAMS_PLACE_HOLD, paramPlaceHold);
     }
 
+    @Override
+    public String getInsertLockIgnoreDuplicateSQL(String lockTable, int rowCount) {
+        return null;
+    }
+
+    /**
+     * Build the multi-row insert sql.
+     *
+     * @param insertSql the insert sql with the lock table and values place holders
+     * @param lockTable the lock table
+     * @param values    the values of a row
+     * @param rowCount  the row count
+     * @return the string
+     */
+    protected String buildMultiRowInsertSql(String insertSql, String lockTable, String values, int rowCount) {
+        StringJoiner rows = new StringJoiner(", ");
+        for (int i = 0; i < rowCount; i++) {
+            rows.add(values);
+        }
+        return insertSql.replace(LOCK_TABLE_PLACE_HOLD, lockTable).replace(VALUES_PLACE_HOLD, rows.toString());
+    }
+
 }
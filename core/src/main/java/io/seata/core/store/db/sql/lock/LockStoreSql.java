@@ -82,4 +82,24 @@ public interface LockStoreSql {
      */
     String getCheckLockableSql(String lockTable, String paramPlaceHold);
 
+    /**
+     * Get the sql string that inserts several locks in one statement and skips the rows already locked, so that the
+     * affected rows are the newly locked ones.
+     *
+     * @param lockTable the lock table
+     * @param rowCount  the row count
+     * @return the string, null if the database has no such statement
+     */
+    String getInsertLockIgnoreDuplicateSQL(String lockTable, int rowCount);
+
+    /**
+     * Whether the affected rows of the insert ignore duplicate sql are exactly the rows it inserted. Only then does a
+     * full count prove that every lock is newly taken, otherwise the owners of the rows are checked after the insert.
+     *
+     * @return the boolean
+     */
+    default boolean isInsertLockIgnoreDuplicateCountReliable() {
+        return false;
+    }
+
 }
@@ -16,6 +16,7 @@
 package io.seata.core.store.db.sql.lock;
 
 import io.seata.common.loader.LoadLevel;
+import io.seata.core.constants.ServerTableColumnsName;
 
 /**
  * the database lock store oceanbase sql
@@ -32,8 +33,26 @@ public class OceanbaseLockStoreSql extends AbstractLockStoreSql {
     private static final String INSERT_LOCK_SQL_OCEANBASE = "insert into " + LOCK_TABLE_PLACE_HOLD + "(" + ALL_COLUMNS + ")"
         + " values (?, ?, ?, ?, ?, ?, ?, now(), now())";
 
+    /**
+     * The constant INSERT_LOCK_IGNORE_DUPLICATE_SQL_OCEANBASE.
+     */
+    private static final String INSERT_LOCK_IGNORE_DUPLICATE_SQL_OCEANBASE = "insert into " + LOCK_TABLE_PLACE_HOLD + "(" + ALL_COLUMNS + ")"
+        + " values " + VALUES_PLACE_HOLD + " on duplicate key update " + ServerTableColumnsName.LOCK_TABLE_XID + " = "
+        + ServerTableColumnsName.LOCK_TABLE_XID;
+
+    /**
+     * The constant LOCK_VALUES_OCEANBASE.
+     */
+    private static final String LOCK_VALUES_OCEANBASE = "(?, ?, ?, ?, ?, ?, ?, now(), now())";
+
     @Override
     public String getInsertLockSQL(String lockTable) {
         return INSERT_LOCK_SQL_OCEANBASE.replace(LOCK_TABLE_PLACE_HOLD, lockTable);
     }
+
+    @Override
+    public String getInsertLockIgnoreDuplicateSQL(String lockTable, int rowCount) {
+        return buildMultiRowInsertSql(INSERT_LOCK_IGNORE_DUPLICATE_SQL_OCEANBASE, lockTable, LOCK_VALUES_OCEANBASE, rowCount);
+    }
+
 }
@@ -32,9 +32,30 @@ public class PostgresqlLockStoreSql extends AbstractLockStoreSql {
     private static final String INSERT_LOCK_SQL_POSTGRESQL = "insert into " + LOCK_TABLE_PLACE_HOLD + "(" + ALL_COLUMNS + ")"
         + " values (?, ?, ?, ?, ?, ?, ?, now(), now())";
 
+    /**
+     * The constant INSERT_LOCK_IGNORE_DUPLICATE_SQL_POSTGRESQL.
+     */
+    private static final String INSERT_LOCK_IGNORE_DUPLICATE_SQL_POSTGRESQL = "insert into " + LOCK_TABLE_PLACE_HOLD + "(" + ALL_COLUMNS + ")"
+        + " values " + VALUES_PLACE_HOLD + " on conflict do nothing";
+
+    /**
+     * The constant LOCK_VALUES_POSTGRESQL.
+     */
+    private static final String LOCK_VALUES_POSTGRESQL = "(?, ?, ?, ?, ?, ?, ?, now(), now())";
+
     @Override
     public String getInsertLockSQL(String lockTable) {
         return INSERT_LOCK_SQL_POSTGRESQL.replace(LOCK_TABLE_PLACE_HOLD, lockTable);
     }
 
+    @Override
+    public String getInsertLockIgnoreDuplicateSQL(String lockTable, int rowCount) {
+        return buildMultiRowInsertSql(INSERT_LOCK_IGNORE_DUPLICATE_SQL_POSTGRESQL, lockTable, LOCK_VALUES_POSTGRESQL, rowCount);
+    }
+
+    @Override
+    public boolean isInsertLockIgnoreDuplicateCountReliable() {
+        return true;
+    }
+
 }
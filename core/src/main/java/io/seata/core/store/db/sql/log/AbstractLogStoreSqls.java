@@ -40,6 +40,19 @@ public abstract class AbstractLogStoreSqls implements LogStoreSqls {
      */
     public static final String PRAMETER_PLACEHOLD = " #PRAMETER_PLACEHOLD# ";
 
+    /**
+     * The constant GLOBAL_KEYSET_CONDITION, the rows after a (gmt_modified, transaction_id) cursor.
+     */
+    public static final String GLOBAL_KEYSET_CONDITION = " and (" + ServerTableColumnsName.GLOBAL_TABLE_GMT_MODIFIED
+            + " > ? or (" + ServerTableColumnsName.GLOBAL_TABLE_GMT_MODIFIED + " = ? and "
+            + ServerTableColumnsName.GLOBAL_TABLE_TRANSACTION_ID + " > ?))";
+
+    /**
+     * The constant GLOBAL_KEYSET_ORDER.
+     */
+    public static final String GLOBAL_KEYSET_ORDER = ServerTableColumnsName.GLOBAL_TABLE_GMT_MODIFIED + ", "
+            + ServerTableColumnsName.GLOBAL_TABLE_TRANSACTION_ID;
+
     /**
      * The constant ALL_GLOBAL_COLUMNS.
      * xid, transaction_id, status, application_id, transaction_service_group, transaction_name, timeout, begin_time, application_data, gmt_create, gmt_modified
@@ -154,6 +167,9 @@ public abstract class AbstractLogStoreSqls implements LogStoreSqls {
     @Override
     public abstract String getQueryGlobalTransactionSQLByStatus(String globalTable, String paramsPlaceHolder);
 
+    @Override
+    public abstract String getQueryGlobalTransactionSQLByStatusAfter(String globalTable, String paramsPlaceHolder);
+
     @Override
     public abstract String getQueryGlobalTransactionForRecoverySQL(String globalTable);
 
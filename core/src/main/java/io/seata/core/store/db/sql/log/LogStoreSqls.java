@@ -70,6 +70,16 @@ public interface LogStoreSqls {
      */
     String getQueryGlobalTransactionSQLByStatus(String globalTable, String paramsPlaceHolder);
 
+    /**
+     * Get the sql of a page of global transactions by status that starts after a (gmt_modified, transaction_id)
+     * cursor. The parameters are the statuses, the cursor gmt_modified twice, the cursor transaction_id and the limit.
+     *
+     * @param globalTable       the global table
+     * @param paramsPlaceHolder the params place holder
+     * @return the string
+     */
+    String getQueryGlobalTransactionSQLByStatusAfter(String globalTable, String paramsPlaceHolder);
+
     /**
      * Get query global transaction for recovery sql string.
      *
@@ -49,6 +49,16 @@ public class MysqlLogStoreSqls extends AbstractLogStoreSqls {
             + " order by " + ServerTableColumnsName.GLOBAL_TABLE_GMT_MODIFIED
             + " limit ?";
 
+    /**
+     * The constant QUERY_GLOBAL_TRANSACTION_BY_STATUS_AFTER_MYSQL.
+     */
+    public static final String QUERY_GLOBAL_TRANSACTION_BY_STATUS_AFTER_MYSQL = "select " + ALL_GLOBAL_COLUMNS
+            + "  from " + GLOBAL_TABLE_PLACEHOLD
+            + " where " + ServerTableColumnsName.GLOBAL_TABLE_STATUS + " in (" + PRAMETER_PLACEHOLD + ")"
+            + GLOBAL_KEYSET_CONDITION
+            + " order by " + GLOBAL_KEYSET_ORDER
+            + " limit ?";
+
     /**
      * The constant QUERY_GLOBAL_TRANSACTION_FOR_RECOVERY_MYSQL.
      */
@@ -90,6 +100,12 @@ public class MysqlLogStoreSqls extends AbstractLogStoreSqls {
             .replace(PRAMETER_PLACEHOLD, paramsPlaceHolder);
     }
 
+    @Override
+    public String getQueryGlobalTransactionSQLByStatusAfter(String globalTable, String paramsPlaceHolder) {
+        return QUERY_GLOBAL_TRANSACTION_BY_STATUS_AFTER_MYSQL.replace(GLOBAL_TABLE_PLACEHOLD, globalTable)
+            .replace(PRAMETER_PLACEHOLD, paramsPlaceHolder);
+    }
+
     @Override
     public String getQueryGlobalTransactionForRecoverySQL(String globalTable) {
         return QUERY_GLOBAL_TRANSACTION_FOR_RECOVERY_MYSQL.replace(GLOBAL_TABLE_PLACEHOLD, globalTable);
@@ -51,6 +51,18 @@ public class OracleLogStoreSqls extends AbstractLogStoreSqls {
             + " ) A"
             + " where ROWNUM <= ?";
 
+    /**
+     * The constant QUERY_GLOBAL_TRANSACTION_BY_STATUS_AFTER_ORACLE.
+     */
+    public static final String QUERY_GLOBAL_TRANSACTION_BY_STATUS_AFTER_ORACLE = "select A.* from ("
+            + " select " + ALL_GLOBAL_COLUMNS
+            + "   from " + GLOBAL_TABLE_PLACEHOLD
+            + "  where " + ServerTableColumnsName.GLOBAL_TABLE_STATUS + " in (" + PRAMETER_PLACEHOLD + ")"
+            + GLOBAL_KEYSET_CONDITION
+            + "  order by " + GLOBAL_KEYSET_ORDER
+            + " ) A"
+            + " where ROWNUM <= ?";
+
     /**
      * The constant QUERY_GLOBAL_TRANSACTION_FOR_RECOVERY_ORACLE.
      */
@@ -94,6 +106,12 @@ public class OracleLogStoreSqls extends AbstractLogStoreSqls {
             .replace(PRAMETER_PLACEHOLD, paramsPlaceHolder);
     }
 
+    @Override
+    public String getQueryGlobalTransactionSQLByStatusAfter(String globalTable, String paramsPlaceHolder) {
+        return QUERY_GLOBAL_TRANSACTION_BY_STATUS_AFTER_ORACLE.replace(GLOBAL_TABLE_PLACEHOLD, globalTable)
+            .replace(PRAMETER_PLACEHOLD, paramsPlaceHolder);
+    }
+
     @Override
     public String getQueryGlobalTransactionForRecoverySQL(String globalTable) {
         return QUERY_GLOBAL_TRANSACTION_FOR_RECOVERY_ORACLE.replace(GLOBAL_TABLE_PLACEHOLD, globalTable);
@@ -49,6 +49,16 @@ public class PostgresqlLogStoreSqls extends AbstractLogStoreSqls {
             + " order by " + ServerTableColumnsName.GLOBAL_TABLE_GMT_MODIFIED
             + " limit ?";
 
+    /**
+     * The constant QUERY_GLOBAL_TRANSACTION_BY_STATUS_AFTER_POSTGRESQL.
+     */
+    public static final String QUERY_GLOBAL_TRANSACTION_BY_STATUS_AFTER_POSTGRESQL = "select " + ALL_GLOBAL_COLUMNS
+            + "  from " + GLOBAL_TABLE_PLACEHOLD
+            + " where " + ServerTableColumnsName.GLOBAL_TABLE_STATUS + " in (" + PRAMETER_PLACEHOLD + ")"
+            + GLOBAL_KEYSET_CONDITION
+            + " order by " + GLOBAL_KEYSET_ORDER
+            + " limit ?";
+
     /**
      * The constant QUERY_GLOBAL_TRANSACTION_FOR_RECOVERY_POSTGRESQL.
      */
@@ -90,6 +100,12 @@ public class PostgresqlLogStoreSqls extends AbstractLogStoreSqls {
             .replace(PRAMETER_PLACEHOLD, paramsPlaceHolder);
     }
 
+    @Override
+    public String getQueryGlobalTransactionSQLByStatusAfter(String globalTable, String paramsPlaceHolder) {
+        return QUERY_GLOBAL_TRANSACTION_BY_STATUS_AFTER_POSTGRESQL.replace(GLOBAL_TABLE_PLACEHOLD, globalTable)
+            .replace(PRAMETER_PLACEHOLD, paramsPlaceHolder);
+    }
+
     @Override
     public String getQueryGlobalTransactionForRecoverySQL(String globalTable) {
         return QUERY_GLOBAL_TRANSACTION_FOR_RECOVERY_POSTGRESQL.replace(GLOBAL_TABLE_PLACEHOLD, globalTable);
@@ -16,11 +16,15 @@
 package io.seata.core.protocol;
 
 import com.alibaba.fastjson.JSON;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
 import java.util.HashMap;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
@@ -186,6 +190,70 @@ public class MessageFutureTest {
         }
     }
 
+    /**
+     * Test to completable future.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void testToCompletableFuture() throws Exception {
+        MessageFuture messageFuture = new MessageFuture();
+        messageFuture.setRequestMessage(buildRepcMessage());
+        messageFuture.setTimeout(TIME_OUT_FIELD);
+        CompletableFuture<Object> future = messageFuture.toCompletableFuture();
+        assertThat(future.isDone()).isFalse();
+        messageFuture.setResultMessage(BODY_FIELD);
+        assertThat(future.get()).isEqualTo(BODY_FIELD);
+
+        MessageFuture timeoutFuture = new MessageFuture();
+        timeoutFuture.setRequestMessage(buildRepcMessage());
+        timeoutFuture.setTimeout(TIME_OUT_FIELD);
+        CompletableFuture<Object> timeoutResult = timeoutFuture.toCompletableFuture();
+        // a timed out future is cleared with null result
+        timeoutFuture.setResultMessage(null);
+        ExecutionException exception = Assertions.assertThrows(ExecutionException.class, timeoutResult::get);
+        assertThat(exception.getCause()).isInstanceOf(TimeoutException.class);
+    }
+
+    /**
+     * Test complete timeout.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void testCompleteTimeout() throws Exception {
+        MessageFuture messageFuture = new MessageFuture();
+        messageFuture.setRequestMessage(buildRepcMessage());
+        messageFuture.setTimeout(TIME_OUT_FIELD);
+        CompletableFuture<Object> future = messageFuture.toCompletableFuture();
+        messageFuture.completeTimeout();
+        Assertions.assertThrows(TimeoutException.class, () -> messageFuture.get(TIME_OUT_FIELD, TimeUnit.MILLISECONDS));
+        ExecutionException exception = Assertions.assertThrows(ExecutionException.class, future::get);
+        assertThat(exception.getCause()).isInstanceOf(TimeoutException.class);
+    }
+
+    /**
+     * Test the timeout is cancelled by the result.
+     */
+    @Test
+    public void testTimeoutCancelledByResult() {
+        HashedWheelTimer timer = new HashedWheelTimer();
+        try {
+            MessageFuture messageFuture = new MessageFuture();
+            Timeout timeout = timer.newTimeout(t -> messageFuture.completeTimeout(), 1, TimeUnit.MINUTES);
+            messageFuture.setTimeoutHandle(timeout);
+            messageFuture.setResultMessage(BODY_FIELD);
+            assertThat(timeout.isCancelled()).isTrue();
+
+            // a handle set after the result is cancelled at once
+            Timeout late = timer.newTimeout(t -> messageFuture.completeTimeout(), 1, TimeUnit.MINUTES);
+            messageFuture.setTimeoutHandle(late);
+            assertThat(late.isCancelled()).isTrue();
+        } finally {
+            timer.stop();
+        }
+    }
+
     private RpcMessage buildRepcMessage() {
         RpcMessage rpcMessage = new RpcMessage();
         rpcMessage.setId(ID_FIELD);
@@ -0,0 +1,189 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.seata.core.rpc.netty;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiConsumer;
+
+import io.seata.core.protocol.MergedWarpMessage;
+import io.seata.core.protocol.RpcMessage;
+import io.seata.core.protocol.transaction.GlobalBeginRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The type Merged sender test.
+ */
+public class MergedSenderTest {
+
+    private static final long LONG_IDLE = 60000L;
+
+    private static final BiConsumer<MergedWarpMessage, Throwable> IGNORE_FAILURE = (batch, cause) -> { };
+
+    private final AtomicInteger ids = new AtomicInteger();
+
+    private final BlockingQueue<MergedWarpMessage> batches = new LinkedBlockingQueue<>();
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    public void before() {
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    public void after() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testBatchLimitedByCount() throws InterruptedException {
+        MergedSender sender = new MergedSender(3, 0L, LONG_IDLE, executor, batches::offer, IGNORE_FAILURE, retired -> { });
+        // queued before the sender runs, so it finds them all at once
+        for (int i = 0; i < 7; i++) {
+            sender.offer(newMessage());
+        }
+        sender.start();
+        Assertions.assertEquals(3, takeBatch().msgIds.size());
+        Assertions.assertEquals(3, takeBatch().msgIds.size());
+        Assertions.assertEquals(1, takeBatch().msgIds.size());
+        Assertions.assertNull(batches.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testBatchLimitedByWait() throws InterruptedException {
+        MergedSender sender = new MergedSender(100, 300L, LONG_IDLE, executor, batches::offer, IGNORE_FAILURE, retired -> { });
+        sender.start();
+        long start = System.nanoTime();
+        sender.offer(newMessage());
+        TimeUnit.MILLISECONDS.sleep(50);
+        sender.offer(newMessage());
+        // the batch waits for more requests until the max wait passed since its first one
+        MergedWarpMessage batch = takeBatch();
+        Assertions.assertEquals(2, batch.msgIds.size());
+        Assertions.assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(300));
+
+        // without a wait a request does not wait for the next one
+        MergedSender noWaitSender = new MergedSender(100, 0L, LONG_IDLE, executor, batches::offer, IGNORE_FAILURE, retired -> { });
+        noWaitSender.start();
+        noWaitSender.offer(newMessage());
+        Assertions.assertEquals(1, takeBatch().msgIds.size());
+        TimeUnit.MILLISECONDS.sleep(50);
+        noWaitSender.offer(newMessage());
+        Assertions.assertEquals(1, takeBatch().msgIds.size());
+    }
+
+    @Test
+    public void testOfferWhileParking() throws InterruptedException {
+        MergedSender sender = new MergedSender(16, 0L, LONG_IDLE, executor, batches::offer, IGNORE_FAILURE, retired -> { });
+        sender.start();
+        int threads = 4;
+        int perThread = 5000;
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    sender.offer(newMessage());
+                    // let the sender drain the basket and park now and then, so offers race with its parking
+                    if (ThreadLocalRandom.current().nextInt(8) == 0) {
+                        LockSupport.parkNanos(ThreadLocalRandom.current().nextInt(20000));
+                    }
+                }
+                done.countDown();
+            }).start();
+        }
+        Assertions.assertTrue(done.await(10, TimeUnit.SECONDS));
+        Set<Integer> received = new HashSet<>();
+        while (received.size() < threads * perThread) {
+            MergedWarpMessage batch = takeBatch();
+            Assertions.assertTrue(batch.msgIds.size() <= 16);
+            for (Integer id : batch.msgIds) {
+                Assertions.assertTrue(received.add(id));
+            }
+        }
+        Assertions.assertNull(batches.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testRetireWhenIdle() throws InterruptedException {
+        List<MergedSender> retiredSenders = new ArrayList<>();
+        CountDownLatch retired = new CountDownLatch(1);
+        MergedSender sender = new MergedSender(100, 0L, 50L, executor, batches::offer, IGNORE_FAILURE, s -> {
+            retiredSenders.add(s);
+            retired.countDown();
+        });
+        sender.start();
+        sender.offer(newMessage());
+        Assertions.assertEquals(1, takeBatch().msgIds.size());
+        Assertions.assertTrue(retired.await(5, TimeUnit.SECONDS));
+        Assertions.assertSame(sender, retiredSenders.get(0));
+
+        // a request that raced with the retirement is sent by the thread that offered it
+        TimeUnit.MILLISECONDS.sleep(50);
+        Assertions.assertTrue(sender.isRetired());
+        sender.offer(newMessage());
+        Assertions.assertEquals(1, batches.poll().msgIds.size());
+    }
+
+    @Test
+    public void testRetireOnSendFailure() throws InterruptedException {
+        BlockingQueue<MergedWarpMessage> failed = new LinkedBlockingQueue<>();
+        CountDownLatch retired = new CountDownLatch(1);
+        MergedSender sender = new MergedSender(100, 0L, LONG_IDLE, executor, batch -> {
+            throw new IllegalStateException("unexpected");
+        }, (batch, cause) -> failed.offer(batch), s -> retired.countDown());
+        sender.start();
+        RpcMessage message = newMessage();
+        sender.offer(message);
+        MergedWarpMessage batch = failed.poll(5, TimeUnit.SECONDS);
+        Assertions.assertNotNull(batch);
+        Assertions.assertEquals(message.getId(), batch.msgIds.get(0).intValue());
+        Assertions.assertTrue(retired.await(5, TimeUnit.SECONDS));
+        // the listener is called before the flag is set
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!sender.isRetired() && System.nanoTime() < deadline) {
+            Thread.yield();
+        }
+        Assertions.assertTrue(sender.isRetired());
+    }
+
+    private MergedWarpMessage takeBatch() throws InterruptedException {
+        MergedWarpMessage batch = batches.poll(5, TimeUnit.SECONDS);
+        Assertions.assertNotNull(batch);
+        return batch;
+    }
+
+    private RpcMessage newMessage() {
+        RpcMessage rpcMessage = new RpcMessage();
+        rpcMessage.setId(ids.incrementAndGet());
+        rpcMessage.setBody(new GlobalBeginRequest());
+        return rpcMessage;
+    }
+}
@@ -147,11 +147,61 @@ class NettyClientChannelManagerTest {
         verify(keyedObjectPool).returnObject(nettyPoolKey, channel);
     }
     
+    @Test
+    void assertAcquireChannelRoundRobin() {
+        nettyClientConfig.setClientConnectionsPerServer(2);
+        nettyClientConfig.setClientChannelSelector("roundRobin");
+        channelManager = new NettyClientChannelManager(poolableFactory, poolKeyFunction, nettyClientConfig);
+        setupPoolFactory(nettyPoolKey, newChannel);
+        setupLiveChannel(channel);
+        setupLiveChannel(newChannel);
+        channelManager.getChannels().putIfAbsent("127.0.0.1:8091", channel);
+        awaitSecondConnection("127.0.0.1:8091");
+        Channel first = channelManager.acquireChannel("127.0.0.1:8091");
+        Channel second = channelManager.acquireChannel("127.0.0.1:8091");
+        Assertions.assertNotSame(first, second);
+        Assertions.assertSame(first, channelManager.acquireChannel("127.0.0.1:8091"));
+    }
+    
+    @Test
+    void assertAcquireChannelLeastPending() {
+        nettyClientConfig.setClientConnectionsPerServer(2);
+        channelManager = new NettyClientChannelManager(poolableFactory, poolKeyFunction, nettyClientConfig);
+        setupPoolFactory(nettyPoolKey, newChannel);
+        setupLiveChannel(channel);
+        setupLiveChannel(newChannel);
+        channelManager.getChannels().putIfAbsent("127.0.0.1:8091", channel);
+        awaitSecondConnection("127.0.0.1:8091");
+        when(channel.bytesBeforeUnwritable()).thenReturn(10L);
+        when(newChannel.bytesBeforeUnwritable()).thenReturn(100L);
+        for (int i = 0; i < 4; i++) {
+            Assertions.assertSame(newChannel, channelManager.acquireChannel("127.0.0.1:8091"));
+        }
+        // a closed connection is replaced in the background
+        channelManager.releaseChannel(newChannel, "127.0.0.1:8091");
+        Assertions.assertSame(channel, channelManager.acquireChannel("127.0.0.1:8091"));
+    }
+    
+    private void setupLiveChannel(final Channel channel) {
+        when(channel.isActive()).thenReturn(true);
+        when(channel.isWritable()).thenReturn(true);
+    }
+    
+    private void awaitSecondConnection(final String serverAddress) {
+        // the first acquire connects the missing one in the background
+        channelManager.acquireChannel(serverAddress);
+        long deadline = System.currentTimeMillis() + 5000L;
+        while (System.currentTimeMillis() < deadline) {
+            if (channelManager.acquireChannel(serverAddress) == newChannel) {
+                return;
+            }
+            Thread.yield();
+        }
+        Assertions.fail("the second connection was not made");
+    }
+    
     @SuppressWarnings("unchecked")
     private void setUpReleaseChannel() {
-        ConcurrentMap<String, Object> channelLocks =
-            (ConcurrentMap<String, Object>) getFieldValue("channelLocks", channelManager);
-        channelLocks.putIfAbsent("127.0.0.1:8091", new Object());
         ConcurrentMap<String, NettyPoolKey> poolKeyMap =
             (ConcurrentMap<String, NettyPoolKey>) getFieldValue("poolKeyMap", channelManager);
         poolKeyMap.putIfAbsent("127.0.0.1:8091", nettyPoolKey);
@@ -0,0 +1,48 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.seata.core.rpc.netty;
+
+import io.seata.core.protocol.MessageType;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The type Server message class test.
+ */
+public class ServerMessageClassTest {
+
+    @Test
+    public void testFromTypeCode() {
+        Assertions.assertEquals(ServerMessageClass.PHASE_TWO, ServerMessageClass.fromTypeCode(MessageType.TYPE_GLOBAL_COMMIT));
+        Assertions.assertNull(ServerMessageClass.fromTypeCode(MessageType.TYPE_BRANCH_ROLLBACK_RESULT));
+        Assertions.assertNull(ServerMessageClass.fromTypeCode(MessageType.TYPE_BRANCH_COMMIT_RESULT));
+        Assertions.assertEquals(ServerMessageClass.REGISTER, ServerMessageClass.fromTypeCode(MessageType.TYPE_GLOBAL_LOCK_QUERY));
+        Assertions.assertEquals(ServerMessageClass.BEGIN, ServerMessageClass.fromTypeCode(MessageType.TYPE_GLOBAL_BEGIN));
+        Assertions.assertEquals(ServerMessageClass.RM_REGISTER, ServerMessageClass.fromTypeCode(MessageType.TYPE_REG_RM));
+        Assertions.assertNull(ServerMessageClass.fromTypeCode(MessageType.TYPE_HEARTBEAT_MSG));
+        Assertions.assertNull(ServerMessageClass.fromTypeCode(MessageType.TYPE_SEATA_MERGE));
+    }
+
+    @Test
+    public void testDefaultConfig() {
+        Assertions.assertFalse(NettyServerConfig.isServerExecutorIsolation());
+        Assertions.assertTrue(NettyServerConfig.isServerExecutorHighPriority(ServerMessageClass.PHASE_TWO));
+        Assertions.assertFalse(NettyServerConfig.isServerExecutorHighPriority(ServerMessageClass.REGISTER));
+        Assertions.assertTrue(NettyServerConfig.isServerExecutorHighPriority(ServerMessageClass.RM_REGISTER));
+        Assertions.assertEquals(200, NettyServerConfig.getServerExecutorMaxThreads(ServerMessageClass.BEGIN));
+        Assertions.assertEquals(5000, NettyServerConfig.getServerExecutorQueueSize(ServerMessageClass.BEGIN));
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.seata.core.rpc.processor.server;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import io.seata.core.protocol.ResultCode;
+import io.seata.core.protocol.transaction.GlobalBeginRequest;
+import io.seata.core.protocol.transaction.GlobalBeginResponse;
+import io.seata.core.protocol.transaction.GlobalCommitRequest;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The type Request tracer test.
+ */
+public class RequestTracerTest {
+
+    private static final InetSocketAddress CLIENT_ADDRESS = new InetSocketAddress("127.0.0.1", 12345);
+
+    @Test
+    public void testSample() {
+        Assertions.assertTrue(new RequestTracer(100, 16).sample());
+        Assertions.assertFalse(new RequestTracer(0, 16).sample());
+    }
+
+    @Test
+    public void testTrace() throws InterruptedException {
+        RequestTracer tracer = new RequestTracer(100, 16);
+        CountDownLatch drained = new CountDownLatch(1);
+        String[] xid = new String[1];
+        ResultCode[] resultCode = new ResultCode[1];
+        tracer.addListener(trace -> {
+            xid[0] = trace.getXid();
+            resultCode[0] = trace.getResultCode();
+            drained.countDown();
+        });
+        GlobalBeginResponse response = new GlobalBeginResponse();
+        response.setXid("127.0.0.1:8091:1");
+        response.setResultCode(ResultCode.Success);
+        tracer.trace(new GlobalBeginRequest(), response, 1000L, CLIENT_ADDRESS, "my_test_tx_group");
+        Assertions.assertTrue(drained.await(3, TimeUnit.SECONDS));
+        Assertions.assertEquals("127.0.0.1:8091:1", xid[0]);
+        Assertions.assertEquals(ResultCode.Success, resultCode[0]);
+    }
+
+    @Test
+    public void testDropWhenFull() throws InterruptedException {
+        RequestTracer tracer = new RequestTracer(100, 2);
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch drained = new CountDownLatch(2);
+        tracer.addListener(trace -> {
+            entered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ignore) {
+            }
+            drained.countDown();
+        });
+        GlobalCommitRequest request = new GlobalCommitRequest();
+        tracer.trace(request, null, 0L, CLIENT_ADDRESS, "my_test_tx_group");
+        Assertions.assertTrue(entered.await(3, TimeUnit.SECONDS));
+        // the first slot is held by the drain thread, so only one more trace fits
+        tracer.trace(request, null, 0L, CLIENT_ADDRESS, "my_test_tx_group");
+        tracer.trace(request, null, 0L, CLIENT_ADDRESS, "my_test_tx_group");
+        Assertions.assertEquals(1, tracer.getDropped());
+        release.countDown();
+        Assertions.assertTrue(drained.await(3, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testShutdown() throws InterruptedException {
+        RequestTracer tracer = new RequestTracer(100, 16);
+        CountDownLatch drained = new CountDownLatch(2);
+        Thread[] drainThreads = new Thread[2];
+        tracer.addListener(trace -> {
+            drainThreads[2 - (int) drained.getCount()] = Thread.currentThread();
+            drained.countDown();
+        });
+        GlobalCommitRequest request = new GlobalCommitRequest();
+        tracer.trace(request, null, 0L, CLIENT_ADDRESS, "my_test_tx_group");
+        // the drain thread is parked on the empty buffer, the next trace wakes it up
+        TimeUnit.MILLISECONDS.sleep(100);
+        tracer.shutdown();
+        Assertions.assertNotNull(drainThreads[0]);
+        Assertions.assertFalse(drainThreads[0].isAlive());
+
+        tracer.trace(request, null, 0L, CLIENT_ADDRESS, "my_test_tx_group");
+        Assertions.assertTrue(drained.await(3, TimeUnit.SECONDS));
+        Assertions.assertNotSame(drainThreads[0], drainThreads[1]);
+        tracer.shutdown();
+    }
+}
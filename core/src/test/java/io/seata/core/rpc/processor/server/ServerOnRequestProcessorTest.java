@@ -0,0 +1,144 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.seata.core.rpc.processor.server;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.seata.core.protocol.AbstractMessage;
+import io.seata.core.protocol.AbstractResultMessage;
+import io.seata.core.protocol.MergeResultMessage;
+import io.seata.core.protocol.MessageType;
+import io.seata.core.protocol.ResultCode;
+import io.seata.core.protocol.RpcMessage;
+import io.seata.core.protocol.transaction.BranchCommitRequest;
+import io.seata.core.protocol.transaction.GlobalBeginRequest;
+import io.seata.core.protocol.transaction.GlobalBeginResponse;
+import io.seata.core.protocol.transaction.GlobalCommitRequest;
+import io.seata.core.protocol.transaction.GlobalCommitResponse;
+import io.seata.core.rpc.RemotingServer;
+import io.seata.core.rpc.RpcContext;
+import io.seata.core.rpc.TransactionMessageHandler;
+import io.seata.core.rpc.netty.ServerMessageClass;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+/**
+ * The type Server on request processor test.
+ */
+public class ServerOnRequestProcessorTest {
+
+    @Test
+    public void testRejectedMergedRequest() throws Exception {
+        RemotingServer remotingServer = Mockito.mock(RemotingServer.class);
+        TransactionMessageHandler handler = Mockito.mock(TransactionMessageHandler.class);
+        GlobalBeginResponse beginResponse = new GlobalBeginResponse();
+        beginResponse.setResultCode(ResultCode.Success);
+        Mockito.when(handler.onRequest(Mockito.any(GlobalBeginRequest.class), Mockito.any())).thenReturn(beginResponse);
+        Mockito.when(handler.onRequestAsync(Mockito.any(), Mockito.any())).thenCallRealMethod();
+        Executor rejecting = command -> {
+            throw new RejectedExecutionException();
+        };
+        ServerOnRequestProcessor processor = new ServerOnRequestProcessor(remotingServer, handler, null,
+            Collections.singletonMap(ServerMessageClass.PHASE_TWO, rejecting));
+
+        ChannelHandlerContext ctx = Mockito.mock(ChannelHandlerContext.class);
+        Channel channel = Mockito.mock(Channel.class);
+        Mockito.when(ctx.channel()).thenReturn(channel);
+        RpcMessage rpcMessage = new RpcMessage();
+        List<AbstractMessage> subMessages = Arrays.asList(new GlobalBeginRequest(), new GlobalCommitRequest());
+        Method method = ServerOnRequestProcessor.class.getDeclaredMethod("onMergedRequestInParallel",
+            ChannelHandlerContext.class, RpcMessage.class, RpcContext.class, List.class, AbstractResultMessage[].class,
+            boolean.class);
+        method.setAccessible(true);
+        method.invoke(processor, ctx, rpcMessage, new RpcContext(), subMessages,
+            new AbstractResultMessage[subMessages.size()], false);
+
+        // the rejected commit is answered with a failed result together with the begin
+        ArgumentCaptor<Object> captor = ArgumentCaptor.forClass(Object.class);
+        Mockito.verify(remotingServer).sendAsyncResponse(Mockito.same(rpcMessage), Mockito.same(channel),
+            captor.capture());
+        AbstractResultMessage[] results = ((MergeResultMessage) captor.getValue()).getMsgs();
+        Assertions.assertSame(beginResponse, results[0]);
+        Assertions.assertTrue(results[1] instanceof GlobalCommitResponse);
+        Assertions.assertEquals(ResultCode.Failed, results[1].getResultCode());
+        Mockito.verify(handler, Mockito.never()).onRequest(Mockito.any(GlobalCommitRequest.class), Mockito.any());
+    }
+
+    @Test
+    public void testMergedRequestInParallel() throws Exception {
+        RemotingServer remotingServer = Mockito.mock(RemotingServer.class);
+        TransactionMessageHandler handler = Mockito.mock(TransactionMessageHandler.class);
+        GlobalBeginResponse beginResponse = new GlobalBeginResponse();
+        beginResponse.setResultCode(ResultCode.Success);
+        GlobalCommitResponse commitResponse = new GlobalCommitResponse();
+        commitResponse.setResultCode(ResultCode.Success);
+        Mockito.when(handler.onRequest(Mockito.any(GlobalBeginRequest.class), Mockito.any())).thenReturn(beginResponse);
+        Mockito.when(handler.onRequest(Mockito.any(GlobalCommitRequest.class), Mockito.any())).thenReturn(commitResponse);
+        Mockito.when(handler.onRequestAsync(Mockito.any(), Mockito.any())).thenCallRealMethod();
+        List<Runnable> tasks = new ArrayList<>();
+        ServerOnRequestProcessor processor = new ServerOnRequestProcessor(remotingServer, handler);
+        Field batchRequestExecutorField = ServerOnRequestProcessor.class.getDeclaredField("batchRequestExecutor");
+        batchRequestExecutorField.setAccessible(true);
+        batchRequestExecutorField.set(processor, (Executor) tasks::add);
+
+        ChannelHandlerContext ctx = Mockito.mock(ChannelHandlerContext.class);
+        Channel channel = Mockito.mock(Channel.class);
+        Mockito.when(ctx.channel()).thenReturn(channel);
+        RpcMessage rpcMessage = new RpcMessage();
+        List<AbstractMessage> subMessages = Arrays.asList(new GlobalBeginRequest(), new GlobalCommitRequest());
+        Method method = ServerOnRequestProcessor.class.getDeclaredMethod("onMergedRequestInParallel",
+            ChannelHandlerContext.class, RpcMessage.class, RpcContext.class, List.class, AbstractResultMessage[].class,
+            boolean.class);
+        method.setAccessible(true);
+        method.invoke(processor, ctx, rpcMessage, new RpcContext(), subMessages,
+            new AbstractResultMessage[subMessages.size()], false);
+
+        // every sub request is handed to the executor, nothing is answered before the last one is done
+        Assertions.assertEquals(2, tasks.size());
+        tasks.get(1).run();
+        Mockito.verify(remotingServer, Mockito.never()).sendAsyncResponse(Mockito.any(), Mockito.any(), Mockito.any());
+        tasks.get(0).run();
+
+        // the results keep the order of the requests whatever order they finish in
+        ArgumentCaptor<Object> captor = ArgumentCaptor.forClass(Object.class);
+        Mockito.verify(remotingServer).sendAsyncResponse(Mockito.same(rpcMessage), Mockito.same(channel),
+            captor.capture());
+        AbstractResultMessage[] results = ((MergeResultMessage) captor.getValue()).getMsgs();
+        Assertions.assertSame(beginResponse, results[0]);
+        Assertions.assertSame(commitResponse, results[1]);
+    }
+
+    @Test
+    public void testFailedResultOfUnknownRequest() {
+        AbstractResultMessage result = ServerOnRequestProcessor.failedResult(new BranchCommitRequest(), "failed");
+        Assertions.assertEquals(ResultCode.Failed, result.getResultCode());
+        Assertions.assertEquals("failed", result.getMsg());
+        Assertions.assertEquals(MessageType.TYPE_BRANCH_COMMIT, result.getTypeCode());
+        Assertions.assertTrue(ServerOnRequestProcessor.failedResult(new GlobalCommitRequest(), "failed")
+            instanceof GlobalCommitResponse);
+    }
+}
@@ -270,4 +270,25 @@ public class LockStoreSqlFactoryTest {
         sql = OCEANBASE_LOCK_STORE.getCheckLockableSql(BRANCH_TABLE, "1");
         Assertions.assertNotNull(sql);
     }
+
+    @Test
+    public void insertLockIgnoreDuplicateTest() {
+        String sql = MYSQL_LOCK_STORE.getInsertLockIgnoreDuplicateSQL(GLOBAL_TABLE, 2);
+        Assertions.assertTrue(sql.startsWith("insert into global_table"));
+        Assertions.assertTrue(sql.endsWith("on duplicate key update xid = xid"));
+        Assertions.assertEquals(14, sql.chars().filter(c -> c == '?').count());
+        sql = OCEANBASE_LOCK_STORE.getInsertLockIgnoreDuplicateSQL(GLOBAL_TABLE, 1);
+        Assertions.assertTrue(sql.endsWith("on duplicate key update xid = xid"));
+        Assertions.assertEquals(7, sql.chars().filter(c -> c == '?').count());
+        sql = POSTGRESQL_LOCK_STORE.getInsertLockIgnoreDuplicateSQL(GLOBAL_TABLE, 3);
+        Assertions.assertTrue(sql.endsWith("on conflict do nothing"));
+        Assertions.assertEquals(21, sql.chars().filter(c -> c == '?').count());
+        Assertions.assertNull(ORACLE_LOCK_STORE.getInsertLockIgnoreDuplicateSQL(GLOBAL_TABLE, 1));
+        Assertions.assertNull(H2_LOCK_STORE.getInsertLockIgnoreDuplicateSQL(GLOBAL_TABLE, 1));
+
+        // mysql counts the rows left as they are when the driver asks for found rows
+        Assertions.assertFalse(MYSQL_LOCK_STORE.isInsertLockIgnoreDuplicateCountReliable());
+        Assertions.assertFalse(OCEANBASE_LOCK_STORE.isInsertLockIgnoreDuplicateCountReliable());
+        Assertions.assertTrue(POSTGRESQL_LOCK_STORE.isInsertLockIgnoreDuplicateCountReliable());
+    }
 }
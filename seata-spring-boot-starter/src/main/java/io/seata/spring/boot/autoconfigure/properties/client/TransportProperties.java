@@ -18,6 +18,10 @@ package io.seata.spring.boot.autoconfigure.properties.client;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import static io.seata.common.DefaultValues.DEFAULT_CLIENT_BATCH_MAX_COUNT;
+import static io.seata.common.DefaultValues.DEFAULT_CLIENT_BATCH_MAX_WAIT;
+import static io.seata.common.DefaultValues.DEFAULT_CLIENT_CHANNEL_SELECTOR;
+import static io.seata.common.DefaultValues.DEFAULT_CLIENT_CONNECTIONS_PER_SERVER;
 import static io.seata.common.DefaultValues.DEFAULT_ENABLE_CLIENT_BATCH_SEND_REQUEST;
 import static io.seata.common.DefaultValues.DEFAULT_TRANSPORT_HEARTBEAT;
 import static io.seata.spring.boot.autoconfigure.StarterConstants.TRANSPORT_PREFIX;
@@ -54,6 +58,26 @@ public class TransportProperties {
      */
     private boolean enableClientBatchSendRequest = DEFAULT_ENABLE_CLIENT_BATCH_SEND_REQUEST;
 
+    /**
+     * the max requests merged into one batch
+     */
+    private int clientBatchMaxCount = DEFAULT_CLIENT_BATCH_MAX_COUNT;
+
+    /**
+     * the max milliseconds a batch waits for more requests
+     */
+    private int clientBatchMaxWait = DEFAULT_CLIENT_BATCH_MAX_WAIT;
+
+    /**
+     * the connections kept to each server
+     */
+    private int clientConnectionsPerServer = DEFAULT_CLIENT_CONNECTIONS_PER_SERVER;
+
+    /**
+     * leastPending, roundRobin
+     */
+    private String clientChannelSelector = DEFAULT_CLIENT_CHANNEL_SELECTOR;
+
     public String getType() {
         return type;
     }
@@ -107,4 +131,40 @@ public class TransportProperties {
         this.enableClientBatchSendRequest = enableClientBatchSendRequest;
         return this;
     }
+
+    public int getClientBatchMaxCount() {
+        return clientBatchMaxCount;
+    }
+
+    public TransportProperties setClientBatchMaxCount(int clientBatchMaxCount) {
+        this.clientBatchMaxCount = clientBatchMaxCount;
+        return this;
+    }
+
+    public int getClientBatchMaxWait() {
+        return clientBatchMaxWait;
+    }
+
+    public TransportProperties setClientBatchMaxWait(int clientBatchMaxWait) {
+        this.clientBatchMaxWait = clientBatchMaxWait;
+        return this;
+    }
+
+    public int getClientConnectionsPerServer() {
+        return clientConnectionsPerServer;
+    }
+
+    public TransportProperties setClientConnectionsPerServer(int clientConnectionsPerServer) {
+        this.clientConnectionsPerServer = clientConnectionsPerServer;
+        return this;
+    }
+
+    public String getClientChannelSelector() {
+        return clientChannelSelector;
+    }
+
+    public TransportProperties setClientChannelSelector(String clientChannelSelector) {
+        this.clientChannelSelector = clientChannelSelector;
+        return this;
+    }
 }
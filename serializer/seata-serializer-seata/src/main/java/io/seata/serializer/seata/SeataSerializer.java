@@ -33,6 +33,17 @@ public class SeataSerializer implements Serializer {
 
     @Override
     public <T> byte[] serialize(T t) {
+        //get empty ByteBuffer
+        ByteBuf out = Unpooled.buffer(1024);
+        //typecode + body
+        serialize(t, out);
+        byte[] content = new byte[out.readableBytes()];
+        out.readBytes(content);
+        return content;
+    }
+
+    @Override
+    public <T> void serialize(T t, ByteBuf out) {
         if (t == null || !(t instanceof AbstractMessage)) {
             throw new IllegalArgumentException("AbstractMessage isn't available.");
         }
@@ -41,22 +52,9 @@ public class SeataSerializer implements Serializer {
         short typecode = abstractMessage.getTypeCode();
         //msg codec
         MessageSeataCodec messageCodec = MessageCodecFactory.getMessageCodec(typecode);
-        //get empty ByteBuffer
-        ByteBuf out = Unpooled.buffer(1024);
+        out.writeShort(typecode);
         //msg encode
         messageCodec.encode(t, out);
-        byte[] body = new byte[out.readableBytes()];
-        out.readBytes(body);
-
-        //typecode + body
-        ByteBuffer byteBuffer = ByteBuffer.allocate(2 + body.length);
-        byteBuffer.putShort(typecode);
-        byteBuffer.put(body);
-
-        byteBuffer.flip();
-        byte[] content = new byte[byteBuffer.limit()];
-        byteBuffer.get(content);
-        return content;
     }
 
     @Override
@@ -64,22 +62,25 @@ public class SeataSerializer implements Serializer {
         if (bytes == null || bytes.length == 0) {
             throw new IllegalArgumentException("Nothing to decode.");
         }
-        if (bytes.length < 2) {
+        return deserialize(Unpooled.wrappedBuffer(bytes));
+    }
+
+    @Override
+    public <T> T deserialize(ByteBuf in) {
+        if (in.readableBytes() < 2) {
             throw new IllegalArgumentException("The byte[] isn't available for decode.");
         }
-        ByteBuffer byteBuffer = ByteBuffer.wrap(bytes);
         //typecode
-        short typecode = byteBuffer.getShort();
-        //msg body
-        byte[] body = new byte[byteBuffer.remaining()];
-        byteBuffer.get(body);
-        ByteBuffer in = ByteBuffer.wrap(body);
+        short typecode = in.readShort();
+        //msg body, a view on the buffer rather than a copy
+        ByteBuffer body = in.nioBuffer();
+        in.skipBytes(in.readableBytes());
         //new Messgae
         AbstractMessage abstractMessage = MessageCodecFactory.getMessage(typecode);
         //get messageCodec
         MessageSeataCodec messageCodec = MessageCodecFactory.getMessageCodec(typecode);
         //decode
-        messageCodec.decode(abstractMessage, in);
+        messageCodec.decode(abstractMessage, body);
         return (T)abstractMessage;
     }
 
@@ -15,10 +15,18 @@
  */
 package io.seata.serializer.seata.protocol;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
 import io.seata.serializer.seata.SeataSerializer;
+import io.seata.core.serializer.SerializerType;
+import io.seata.core.compressor.CompressorType;
 import io.seata.core.protocol.AbstractMessage;
 import io.seata.core.protocol.MergedWarpMessage;
+import io.seata.core.protocol.ProtocolConstants;
+import io.seata.core.protocol.RpcMessage;
 import io.seata.core.protocol.transaction.GlobalBeginRequest;
+import io.seata.core.rpc.netty.v1.ProtocolV1Decoder;
+import io.seata.core.rpc.netty.v1.ProtocolV1Encoder;
 import org.junit.jupiter.api.Test;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -67,6 +75,38 @@ public class MergedWarpMessageSerializerTest {
 
     }
 
+    /**
+     * Test codec on a pooled buffer through the v1 protocol.
+     */
+    @Test
+    public void test_codec_pooled_buffer() {
+        MergedWarpMessage mergedWarpMessage = new MergedWarpMessage();
+        final ArrayList<AbstractMessage> msgs = new ArrayList<>();
+        msgs.add(buildGlobalBeginRequest("x1"));
+        msgs.add(buildGlobalBeginRequest("x2"));
+        mergedWarpMessage.msgs = msgs;
+
+        RpcMessage rpcMessage = new RpcMessage();
+        rpcMessage.setId(1);
+        rpcMessage.setMessageType(ProtocolConstants.MSGTYPE_RESQUEST_SYNC);
+        rpcMessage.setCodec(SerializerType.SEATA.getCode());
+        rpcMessage.setCompressor(CompressorType.NONE.getCode());
+        rpcMessage.setBody(mergedWarpMessage);
+
+        ByteBuf out = PooledByteBufAllocator.DEFAULT.directBuffer();
+        try {
+            new ProtocolV1Encoder().encode(null, rpcMessage, out);
+            assertThat(out.getInt(3)).isEqualTo(out.readableBytes());
+            RpcMessage decoded = (RpcMessage) new ProtocolV1Decoder().decodeFrame(out);
+            assertThat(out.isReadable()).isFalse();
+            MergedWarpMessage mergedWarpMessage2 = (MergedWarpMessage) decoded.getBody();
+            assertThat(mergedWarpMessage2.msgs.size()).isEqualTo(2);
+            assertThat(((GlobalBeginRequest) mergedWarpMessage2.msgs.get(1)).getTransactionName()).isEqualTo("x2");
+        } finally {
+            out.release();
+        }
+    }
+
     private GlobalBeginRequest buildGlobalBeginRequest(String name) {
         final GlobalBeginRequest globalBeginRequest = new GlobalBeginRequest();
         globalBeginRequest.setTransactionName(name);
@@ -45,6 +45,9 @@ import io.seata.server.session.SessionHolder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
 /**
  * The type Abstract tc inbound handler.
  *
@@ -87,12 +90,36 @@ public abstract class AbstractTCInboundHandler extends AbstractExceptionHandler
     public GlobalCommitResponse handle(GlobalCommitRequest request, final RpcContext rpcContext) {
         GlobalCommitResponse response = new GlobalCommitResponse();
         response.setGlobalStatus(GlobalStatus.Committing);
-        exceptionHandleTemplate(new AbstractCallback<GlobalCommitRequest, GlobalCommitResponse>() {
+        exceptionHandleTemplate(globalCommitCallback(() -> doGlobalCommit(request, response, rpcContext)), request,
+            response);
+        return response;
+    }
+
+    /**
+     * Handle a global commit whose response is completed once the second phase is done, rather than returned on
+     * the caller thread.
+     *
+     * @param request    the request
+     * @param rpcContext the rpc context
+     * @return the future of the response
+     */
+    public CompletableFuture<GlobalCommitResponse> handleAsync(GlobalCommitRequest request,
+                                                               final RpcContext rpcContext) {
+        GlobalCommitResponse response = new GlobalCommitResponse();
+        response.setGlobalStatus(GlobalStatus.Committing);
+        return startSafely(() -> doGlobalCommitAsync(request, response, rpcContext)).handle((v, e) -> {
+            exceptionHandleTemplate(globalCommitCallback(() -> rethrow(e)), request, response);
+            return response;
+        });
+    }
+
+    private AbstractCallback<GlobalCommitRequest, GlobalCommitResponse> globalCommitCallback(PhaseTwo phaseTwo) {
+        return new AbstractCallback<GlobalCommitRequest, GlobalCommitResponse>() {
             @Override
             public void execute(GlobalCommitRequest request, GlobalCommitResponse response)
                 throws TransactionException {
                 try {
-                    doGlobalCommit(request, response, rpcContext);
+                    phaseTwo.run();
                 } catch (StoreException e) {
                     throw new TransactionException(TransactionExceptionCode.FailedStore,
                         String.format("global commit request failed. xid=%s, msg=%s", request.getXid(), e.getMessage()),
@@ -113,8 +140,7 @@ public abstract class AbstractTCInboundHandler extends AbstractExceptionHandler
             }
 
 
-        }, request, response);
-        return response;
+        };
     }
 
     /**
@@ -128,16 +154,57 @@ public abstract class AbstractTCInboundHandler extends AbstractExceptionHandler
     protected abstract void doGlobalCommit(GlobalCommitRequest request, GlobalCommitResponse response,
                                            RpcContext rpcContext) throws TransactionException;
 
+    /**
+     * Do global commit, the returned future is completed once the second phase is done. By default the commit is
+     * done on the caller thread.
+     *
+     * @param request    the request
+     * @param response   the response
+     * @param rpcContext the rpc context
+     * @return the future
+     */
+    protected CompletableFuture<Void> doGlobalCommitAsync(GlobalCommitRequest request, GlobalCommitResponse response,
+                                                          RpcContext rpcContext) {
+        return startSafely(() -> {
+            doGlobalCommit(request, response, rpcContext);
+            return CompletableFuture.completedFuture(null);
+        });
+    }
+
     @Override
     public GlobalRollbackResponse handle(GlobalRollbackRequest request, final RpcContext rpcContext) {
         GlobalRollbackResponse response = new GlobalRollbackResponse();
         response.setGlobalStatus(GlobalStatus.Rollbacking);
-        exceptionHandleTemplate(new AbstractCallback<GlobalRollbackRequest, GlobalRollbackResponse>() {
+        exceptionHandleTemplate(globalRollbackCallback(() -> doGlobalRollback(request, response, rpcContext)), request,
+            response);
+        return response;
+    }
+
+    /**
+     * Handle a global rollback whose response is completed once the second phase is done, see
+     * {@link #handleAsync(GlobalCommitRequest, RpcContext)}.
+     *
+     * @param request    the request
+     * @param rpcContext the rpc context
+     * @return the future of the response
+     */
+    public CompletableFuture<GlobalRollbackResponse> handleAsync(GlobalRollbackRequest request,
+                                                                 final RpcContext rpcContext) {
+        GlobalRollbackResponse response = new GlobalRollbackResponse();
+        response.setGlobalStatus(GlobalStatus.Rollbacking);
+        return startSafely(() -> doGlobalRollbackAsync(request, response, rpcContext)).handle((v, e) -> {
+            exceptionHandleTemplate(globalRollbackCallback(() -> rethrow(e)), request, response);
+            return response;
+        });
+    }
+
+    private AbstractCallback<GlobalRollbackRequest, GlobalRollbackResponse> globalRollbackCallback(PhaseTwo phaseTwo) {
+        return new AbstractCallback<GlobalRollbackRequest, GlobalRollbackResponse>() {
             @Override
             public void execute(GlobalRollbackRequest request, GlobalRollbackResponse response)
                 throws TransactionException {
                 try {
-                    doGlobalRollback(request, response, rpcContext);
+                    phaseTwo.run();
                 } catch (StoreException e) {
                     throw new TransactionException(TransactionExceptionCode.FailedStore, String
                         .format("global rollback request failed. xid=%s, msg=%s", request.getXid(), e.getMessage()), e);
@@ -158,8 +225,7 @@ public abstract class AbstractTCInboundHandler extends AbstractExceptionHandler
                 // may be appears StoreException outer layer method catch
                 checkTransactionStatus(request, response);
             }
-        }, request, response);
-        return response;
+        };
     }
 
     /**
@@ -173,6 +239,65 @@ public abstract class AbstractTCInboundHandler extends AbstractExceptionHandler
     protected abstract void doGlobalRollback(GlobalRollbackRequest request, GlobalRollbackResponse response,
                                              RpcContext rpcContext) throws TransactionException;
 
+    /**
+     * Do global rollback, the returned future is completed once the second phase is done. By default the rollback
+     * is done on the caller thread.
+     *
+     * @param request    the request
+     * @param response   the response
+     * @param rpcContext the rpc context
+     * @return the future
+     */
+    protected CompletableFuture<Void> doGlobalRollbackAsync(GlobalRollbackRequest request,
+                                                            GlobalRollbackResponse response, RpcContext rpcContext) {
+        return startSafely(() -> {
+            doGlobalRollback(request, response, rpcContext);
+            return CompletableFuture.completedFuture(null);
+        });
+    }
+
+    /**
+     * Start a second phase, an exception thrown by the caller thread fails the returned future like a later one.
+     */
+    private static CompletableFuture<Void> startSafely(PhaseTwoStarter starter) {
+        try {
+            return starter.start();
+        } catch (TransactionException | RuntimeException e) {
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+            return future;
+        }
+    }
+
+    private static void rethrow(Throwable e) throws TransactionException {
+        if (e == null) {
+            return;
+        }
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof TransactionException) {
+            throw (TransactionException) cause;
+        }
+        if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        throw new TransactionException(cause);
+    }
+
+    @FunctionalInterface
+    private interface PhaseTwo {
+
+        void run() throws TransactionException;
+    }
+
+    @FunctionalInterface
+    private interface PhaseTwoStarter {
+
+        CompletableFuture<Void> start() throws TransactionException;
+    }
+
     @Override
     public BranchRegisterResponse handle(BranchRegisterRequest request, final RpcContext rpcContext) {
         BranchRegisterResponse response = new BranchRegisterResponse();
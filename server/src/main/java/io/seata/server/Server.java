@@ -17,14 +17,21 @@ package io.seata.server;
 
 import java.io.IOException;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 import io.seata.common.XID;
 import io.seata.common.thread.NamedThreadFactory;
 import io.seata.common.util.NetUtil;
 import io.seata.core.constants.ConfigurationKeys;
+import io.seata.core.protocol.transaction.BranchCommitRequest;
+import io.seata.core.protocol.transaction.BranchRollbackRequest;
 import io.seata.core.rpc.ShutdownHook;
 import io.seata.core.rpc.netty.NettyRemotingServer;
+import io.seata.core.rpc.netty.NettyServerConfig;
+import io.seata.core.rpc.netty.ServerMessageClass;
+import io.seata.core.rpc.processor.server.RequestTracer;
 import io.seata.server.coordinator.DefaultCoordinator;
 import io.seata.server.env.ContainerHelper;
 import io.seata.server.env.PortHelper;
@@ -77,10 +84,19 @@ public class Server {
         System.setProperty(ConfigurationKeys.STORE_MODE, parameterParser.getStoreMode());
 
         NettyRemotingServer nettyRemotingServer = new NettyRemotingServer(WORKING_THREADS);
+        if (NettyServerConfig.isServerExecutorIsolation()) {
+            for (ServerMessageClass messageClass : ServerMessageClass.values()) {
+                nettyRemotingServer.setMessageClassExecutor(messageClass, newMessageClassExecutor(messageClass));
+            }
+        }
+        // the second phase requests are the ones the server waits on a response for
+        MetricsManager.get().registerTimeoutCounts(nettyRemotingServer, BranchCommitRequest.class,
+            BranchRollbackRequest.class);
+        MetricsManager.get().registerRequestTrace(RequestTracer.INSTANCE);
         //server port
         nettyRemotingServer.setListenPort(parameterParser.getPort());
         UUIDGenerator.init(parameterParser.getServerNode());
-        //log store mode : file, db, redis
+        //log store mode : file, db, redis, rocksdb
         SessionHolder.init(parameterParser.getStoreMode());
 
         DefaultCoordinator coordinator = new DefaultCoordinator(nettyRemotingServer);
@@ -107,4 +123,24 @@ public class Server {
 
         System.exit(0);
     }
+
+    /**
+     * A bounded executor for one message class. When it is full, a high priority class runs on the caller
+     * and a low priority one is rejected, so that it cannot hold up the IO threads the others arrive on.
+     */
+    private static ThreadPoolExecutor newMessageClassExecutor(ServerMessageClass messageClass) {
+        int maxThreads = NettyServerConfig.getServerExecutorMaxThreads(messageClass);
+        RejectedExecutionHandler policy = NettyServerConfig.isServerExecutorHighPriority(messageClass)
+            ? new ThreadPoolExecutor.CallerRunsPolicy() : new ThreadPoolExecutor.AbortPolicy();
+        LongAdder saturation = new LongAdder();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(maxThreads, maxThreads, KEEP_ALIVE_TIME, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(NettyServerConfig.getServerExecutorQueueSize(messageClass)),
+            new NamedThreadFactory("ServerHandlerThread_" + messageClass.getName(), maxThreads), (r, e) -> {
+                saturation.increment();
+                policy.rejectedExecution(r, e);
+            });
+        executor.allowCoreThreadTimeOut(true);
+        MetricsManager.get().registerExecutor(messageClass.getName(), executor, saturation);
+        return executor;
+    }
 }
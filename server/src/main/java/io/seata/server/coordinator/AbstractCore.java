@@ -16,6 +16,8 @@
 package io.seata.server.coordinator;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.TimeoutException;
 
 import io.seata.core.exception.BranchTransactionException;
@@ -114,7 +116,8 @@ public abstract class AbstractCore implements Core {
 
     private GlobalSession assertGlobalSessionNotNull(String xid, boolean withBranchSessions)
             throws TransactionException {
-        GlobalSession globalSession = SessionHolder.findGlobalSession(xid, withBranchSessions);
+        // the registration and the report change the session, they must not act on a copy another server outdated
+        GlobalSession globalSession = SessionHolder.findGlobalSessionInStore(xid, withBranchSessions);
         if (globalSession == null) {
             throw new GlobalTransactionException(TransactionExceptionCode.GlobalTransactionNotExist,
                     String.format("Could not found global transaction xid = %s, may be has finished.", xid));
@@ -149,13 +152,7 @@ public abstract class AbstractCore implements Core {
     @Override
     public BranchStatus branchCommit(GlobalSession globalSession, BranchSession branchSession) throws TransactionException {
         try {
-            BranchCommitRequest request = new BranchCommitRequest();
-            request.setXid(branchSession.getXid());
-            request.setBranchId(branchSession.getBranchId());
-            request.setResourceId(branchSession.getResourceId());
-            request.setApplicationData(branchSession.getApplicationData());
-            request.setBranchType(branchSession.getBranchType());
-            return branchCommitSend(request, globalSession, branchSession);
+            return branchCommitSend(buildBranchCommitRequest(branchSession), globalSession, branchSession);
         } catch (IOException | TimeoutException e) {
             throw new BranchTransactionException(FailedToSendBranchCommitRequest,
                     String.format("Send branch commit failed, xid = %s branchId = %s", branchSession.getXid(),
@@ -163,6 +160,25 @@ public abstract class AbstractCore implements Core {
         }
     }
 
+    /**
+     * Branch commit without blocking the caller thread.
+     *
+     * @param globalSession the global session
+     * @param branchSession the branch session
+     * @return the future of branch status, completed exceptionally by BranchTransactionException on send failure
+     */
+    public CompletableFuture<BranchStatus> branchCommitAsync(GlobalSession globalSession, BranchSession branchSession) {
+        return branchCommitSendAsync(buildBranchCommitRequest(branchSession), globalSession, branchSession)
+            .handle((branchStatus, e) -> {
+                if (e != null) {
+                    throw new CompletionException(new BranchTransactionException(FailedToSendBranchCommitRequest,
+                        String.format("Send branch commit failed, xid = %s branchId = %s", branchSession.getXid(),
+                            branchSession.getBranchId()), unwrap(e)));
+                }
+                return branchStatus;
+            });
+    }
+
     protected BranchStatus branchCommitSend(BranchCommitRequest request, GlobalSession globalSession,
                                             BranchSession branchSession) throws IOException, TimeoutException {
         BranchCommitResponse response = (BranchCommitResponse) remotingServer.sendSyncRequest(
@@ -170,16 +186,17 @@ public abstract class AbstractCore implements Core {
         return response.getBranchStatus();
     }
 
+    protected CompletableFuture<BranchStatus> branchCommitSendAsync(BranchCommitRequest request,
+                                                                    GlobalSession globalSession,
+                                                                    BranchSession branchSession) {
+        return remotingServer.sendAsyncRequest(branchSession.getResourceId(), branchSession.getClientId(), request)
+            .thenApply(response -> ((BranchCommitResponse) response).getBranchStatus());
+    }
+
     @Override
     public BranchStatus branchRollback(GlobalSession globalSession, BranchSession branchSession) throws TransactionException {
         try {
-            BranchRollbackRequest request = new BranchRollbackRequest();
-            request.setXid(branchSession.getXid());
-            request.setBranchId(branchSession.getBranchId());
-            request.setResourceId(branchSession.getResourceId());
-            request.setApplicationData(branchSession.getApplicationData());
-            request.setBranchType(branchSession.getBranchType());
-            return branchRollbackSend(request, globalSession, branchSession);
+            return branchRollbackSend(buildBranchRollbackRequest(branchSession), globalSession, branchSession);
         } catch (IOException | TimeoutException e) {
             throw new BranchTransactionException(FailedToSendBranchRollbackRequest,
                     String.format("Send branch rollback failed, xid = %s branchId = %s",
@@ -187,6 +204,25 @@ public abstract class AbstractCore implements Core {
         }
     }
 
+    /**
+     * Branch rollback without blocking the caller thread.
+     *
+     * @param globalSession the global session
+     * @param branchSession the branch session
+     * @return the future of branch status, completed exceptionally by BranchTransactionException on send failure
+     */
+    public CompletableFuture<BranchStatus> branchRollbackAsync(GlobalSession globalSession, BranchSession branchSession) {
+        return branchRollbackSendAsync(buildBranchRollbackRequest(branchSession), globalSession, branchSession)
+            .handle((branchStatus, e) -> {
+                if (e != null) {
+                    throw new CompletionException(new BranchTransactionException(FailedToSendBranchRollbackRequest,
+                        String.format("Send branch rollback failed, xid = %s branchId = %s",
+                            branchSession.getXid(), branchSession.getBranchId()), unwrap(e)));
+                }
+                return branchStatus;
+            });
+    }
+
     protected BranchStatus branchRollbackSend(BranchRollbackRequest request, GlobalSession globalSession,
                                               BranchSession branchSession) throws IOException, TimeoutException {
         BranchRollbackResponse response = (BranchRollbackResponse) remotingServer.sendSyncRequest(
@@ -194,6 +230,37 @@ public abstract class AbstractCore implements Core {
         return response.getBranchStatus();
     }
 
+    protected CompletableFuture<BranchStatus> branchRollbackSendAsync(BranchRollbackRequest request,
+                                                                      GlobalSession globalSession,
+                                                                      BranchSession branchSession) {
+        return remotingServer.sendAsyncRequest(branchSession.getResourceId(), branchSession.getClientId(), request)
+            .thenApply(response -> ((BranchRollbackResponse) response).getBranchStatus());
+    }
+
+    private BranchCommitRequest buildBranchCommitRequest(BranchSession branchSession) {
+        BranchCommitRequest request = new BranchCommitRequest();
+        request.setXid(branchSession.getXid());
+        request.setBranchId(branchSession.getBranchId());
+        request.setResourceId(branchSession.getResourceId());
+        request.setApplicationData(branchSession.getApplicationData());
+        request.setBranchType(branchSession.getBranchType());
+        return request;
+    }
+
+    private BranchRollbackRequest buildBranchRollbackRequest(BranchSession branchSession) {
+        BranchRollbackRequest request = new BranchRollbackRequest();
+        request.setXid(branchSession.getXid());
+        request.setBranchId(branchSession.getBranchId());
+        request.setResourceId(branchSession.getResourceId());
+        request.setApplicationData(branchSession.getApplicationData());
+        request.setBranchType(branchSession.getBranchType());
+        return request;
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+
     @Override
     public String begin(String applicationId, String transactionServiceGroup, String name, int timeout)
             throws TransactionException {
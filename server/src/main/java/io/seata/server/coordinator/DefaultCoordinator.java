@@ -52,6 +52,8 @@ import io.seata.core.rpc.RemotingServer;
 import io.seata.core.rpc.RpcContext;
 import io.seata.core.rpc.TransactionMessageHandler;
 import io.seata.core.rpc.netty.NettyRemotingServer;
+import io.seata.core.rpc.netty.NettyServerConfig;
+import io.seata.core.rpc.netty.ServerMessageClass;
 import io.seata.server.AbstractTCInboundHandler;
 import io.seata.server.event.EventBusManager;
 import io.seata.server.session.GlobalSession;
@@ -61,10 +63,18 @@ import org.slf4j.LoggerFactory;
 
 import java.time.Duration;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
+import static io.seata.common.DefaultValues.DEFAULT_RECOVERY_MAX_RETRY_BACKOFF;
+import static io.seata.common.DefaultValues.DEFAULT_RECOVERY_PARALLELISM;
+import static io.seata.common.DefaultValues.DEFAULT_RECOVERY_SHARD_CAPACITY;
+
 /**
  * The type Default coordinator.
  */
@@ -119,6 +129,15 @@ public class DefaultCoordinator extends AbstractTCInboundHandler implements Tran
     private static final boolean ROLLBACK_RETRY_TIMEOUT_UNLOCK_ENABLE = ConfigurationFactory.getInstance().getBoolean(
         ConfigurationKeys.ROLLBACK_RETRY_TIMEOUT_UNLOCK_ENABLE, false);
 
+    private static final int RECOVERY_PARALLELISM = CONFIG.getInt(ConfigurationKeys.RECOVERY_PARALLELISM,
+        DEFAULT_RECOVERY_PARALLELISM);
+
+    private static final int RECOVERY_SHARD_CAPACITY = CONFIG.getInt(ConfigurationKeys.RECOVERY_SHARD_CAPACITY,
+        DEFAULT_RECOVERY_SHARD_CAPACITY);
+
+    private static final long RECOVERY_MAX_RETRY_BACKOFF = CONFIG.getLong(ConfigurationKeys.RECOVERY_MAX_RETRY_BACKOFF,
+        DEFAULT_RECOVERY_MAX_RETRY_BACKOFF);
+
     private ScheduledThreadPoolExecutor retryRollbacking = new ScheduledThreadPoolExecutor(1,
         new NamedThreadFactory("RetryRollbacking", 1));
 
@@ -134,6 +153,20 @@ public class DefaultCoordinator extends AbstractTCInboundHandler implements Tran
     private ScheduledThreadPoolExecutor undoLogDelete = new ScheduledThreadPoolExecutor(1,
         new NamedThreadFactory("UndoLogDelete", 1));
 
+    private ShardedRetryExecutor retryRollbackingExecutor = new ShardedRetryExecutor("RetryRollbacking",
+        RECOVERY_PARALLELISM, RECOVERY_SHARD_CAPACITY, ROLLBACKING_RETRY_PERIOD, RECOVERY_MAX_RETRY_BACKOFF);
+
+    private ShardedRetryExecutor retryCommittingExecutor = new ShardedRetryExecutor("RetryCommitting",
+        RECOVERY_PARALLELISM, RECOVERY_SHARD_CAPACITY, COMMITTING_RETRY_PERIOD, RECOVERY_MAX_RETRY_BACKOFF);
+
+    private ShardedRetryExecutor asyncCommittingExecutor = new ShardedRetryExecutor("AsyncCommitting",
+        RECOVERY_PARALLELISM, RECOVERY_SHARD_CAPACITY, ASYNC_COMMITTING_RETRY_PERIOD, RECOVERY_MAX_RETRY_BACKOFF);
+
+    /**
+     * the executor the decisions of the parallel phase two run on, once the branches are answered
+     */
+    private ThreadPoolExecutor phaseTwoExecutor = newPhaseTwoExecutor();
+
     private RemotingServer remotingServer;
 
     private DefaultCore core;
@@ -148,6 +181,19 @@ public class DefaultCoordinator extends AbstractTCInboundHandler implements Tran
     public DefaultCoordinator(RemotingServer remotingServer) {
         this.remotingServer = remotingServer;
         this.core = new DefaultCore(remotingServer);
+        this.core.setPhaseTwoExecutor(phaseTwoExecutor);
+    }
+
+    /**
+     * The decisions write the sessions to the store, so they do not run on the netty or timer thread completing the
+     * last branch. The queue is unbounded, a decision that is dropped would leave its global transaction behind.
+     */
+    private static ThreadPoolExecutor newPhaseTwoExecutor() {
+        int threads = NettyServerConfig.getServerExecutorMaxThreads(ServerMessageClass.PHASE_TWO);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, TIMED_TASK_SHUTDOWN_MAX_WAIT_MILLS,
+            TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), new NamedThreadFactory("PhaseTwoDecision", threads));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
     }
 
     @Override
@@ -173,6 +219,18 @@ public class DefaultCoordinator extends AbstractTCInboundHandler implements Tran
         response.setGlobalStatus(core.rollback(request.getXid()));
     }
 
+    @Override
+    protected CompletableFuture<Void> doGlobalCommitAsync(GlobalCommitRequest request, GlobalCommitResponse response,
+                                                          RpcContext rpcContext) {
+        return core.commitAsync(request.getXid()).thenAccept(response::setGlobalStatus);
+    }
+
+    @Override
+    protected CompletableFuture<Void> doGlobalRollbackAsync(GlobalRollbackRequest request,
+                                                            GlobalRollbackResponse response, RpcContext rpcContext) {
+        return core.rollbackAsync(request.getXid()).thenAccept(response::setGlobalStatus);
+    }
+
     @Override
     protected void doGlobalStatus(GlobalStatusRequest request, GlobalStatusResponse response, RpcContext rpcContext)
         throws TransactionException {
@@ -213,14 +271,15 @@ public class DefaultCoordinator extends AbstractTCInboundHandler implements Tran
      * @throws TransactionException the transaction exception
      */
     protected void timeoutCheck() throws TransactionException {
-        Collection<GlobalSession> allSessions = SessionHolder.getRootSessionManager().allSessions();
-        if (CollectionUtils.isEmpty(allSessions)) {
+        List<GlobalSession> timeoutSessions = SessionHolder.getRootSessionManager().findTimeoutSessions(
+            System.currentTimeMillis());
+        if (CollectionUtils.isEmpty(timeoutSessions)) {
             return;
         }
-        if (allSessions.size() > 0 && LOGGER.isDebugEnabled()) {
-            LOGGER.debug("Global transaction timeout check begin, size: {}", allSessions.size());
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Global transaction timeout check begin, size: {}", timeoutSessions.size());
         }
-        for (GlobalSession globalSession : allSessions) {
+        for (GlobalSession globalSession : timeoutSessions) {
             if (LOGGER.isDebugEnabled()) {
                 LOGGER.debug(
                     globalSession.getXid() + " " + globalSession.getStatus() + " " + globalSession.getBeginTime() + " "
@@ -251,7 +310,7 @@ public class DefaultCoordinator extends AbstractTCInboundHandler implements Tran
             SessionHolder.getRetryRollbackingSessionManager().addGlobalSession(globalSession);
 
         }
-        if (allSessions.size() > 0 && LOGGER.isDebugEnabled()) {
+        if (LOGGER.isDebugEnabled()) {
             LOGGER.debug("Global transaction timeout check end. ");
         }
 
@@ -266,11 +325,11 @@ public class DefaultCoordinator extends AbstractTCInboundHandler implements Tran
             return;
         }
         long now = System.currentTimeMillis();
-        for (GlobalSession rollbackingSession : rollbackingSessions) {
+        retryRollbackingExecutor.execute(rollbackingSessions, rollbackingSession -> {
             try {
                 // prevent repeated rollback
                 if (rollbackingSession.getStatus().equals(GlobalStatus.Rollbacking) && !rollbackingSession.isRollbackingDead()) {
-                    continue;
+                    return true;
                 }
                 if (isRetryTimeout(now, MAX_ROLLBACK_RETRY_TIMEOUT.toMillis(), rollbackingSession.getBeginTime())) {
                     if (ROLLBACK_RETRY_TIMEOUT_UNLOCK_ENABLE) {
@@ -281,14 +340,15 @@ public class DefaultCoordinator extends AbstractTCInboundHandler implements Tran
                      */
                     SessionHolder.getRetryRollbackingSessionManager().removeGlobalSession(rollbackingSession);
                     LOGGER.info("Global transaction rollback retry timeout and has removed [{}]", rollbackingSession.getXid());
-                    continue;
+                    return true;
                 }
                 rollbackingSession.addSessionLifecycleListener(SessionHolder.getRootSessionManager());
-                core.doGlobalRollback(rollbackingSession, true);
+                return core.doGlobalRollback(rollbackingSession, true);
             } catch (TransactionException ex) {
                 LOGGER.info("Failed to retry rollbacking [{}] {} {}", rollbackingSession.getXid(), ex.getCode(), ex.getMessage());
+                return false;
             }
-        }
+        });
     }
 
     /**
@@ -300,7 +360,7 @@ public class DefaultCoordinator extends AbstractTCInboundHandler implements Tran
             return;
         }
         long now = System.currentTimeMillis();
-        for (GlobalSession committingSession : committingSessions) {
+        retryCommittingExecutor.execute(committingSessions, committingSession -> {
             try {
                 if (isRetryTimeout(now, MAX_COMMIT_RETRY_TIMEOUT.toMillis(), committingSession.getBeginTime())) {
                     /**
@@ -308,14 +368,15 @@ public class DefaultCoordinator extends AbstractTCInboundHandler implements Tran
                      */
                     SessionHolder.getRetryCommittingSessionManager().removeGlobalSession(committingSession);
                     LOGGER.error("Global transaction commit retry timeout and has removed [{}]", committingSession.getXid());
-                    continue;
+                    return true;
                 }
                 committingSession.addSessionLifecycleListener(SessionHolder.getRootSessionManager());
-                core.doGlobalCommit(committingSession, true);
+                return core.doGlobalCommit(committingSession, true);
             } catch (TransactionException ex) {
                 LOGGER.info("Failed to retry committing [{}] {} {}", committingSession.getXid(), ex.getCode(), ex.getMessage());
+                return false;
             }
-        }
+        });
     }
 
     private boolean isRetryTimeout(long now, long timeout, long beginTime) {
@@ -331,18 +392,19 @@ public class DefaultCoordinator extends AbstractTCInboundHandler implements Tran
         if (CollectionUtils.isEmpty(asyncCommittingSessions)) {
             return;
         }
-        for (GlobalSession asyncCommittingSession : asyncCommittingSessions) {
+        asyncCommittingExecutor.execute(asyncCommittingSessions, asyncCommittingSession -> {
             try {
                 // Instruction reordering in DefaultCore#asyncCommit may cause this situation
                 if (GlobalStatus.AsyncCommitting != asyncCommittingSession.getStatus()) {
-                    continue;
+                    return true;
                 }
                 asyncCommittingSession.addSessionLifecycleListener(SessionHolder.getRootSessionManager());
-                core.doGlobalCommit(asyncCommittingSession, true);
+                return core.doGlobalCommit(asyncCommittingSession, true);
             } catch (TransactionException ex) {
                 LOGGER.error("Failed to async committing [{}] {} {}", asyncCommittingSession.getXid(), ex.getCode(), ex.getMessage(), ex);
+                return false;
             }
-        }
+        });
     }
 
     /**
@@ -427,6 +489,18 @@ public class DefaultCoordinator extends AbstractTCInboundHandler implements Tran
         return transactionRequest.handle(context);
     }
 
+    @Override
+    public CompletableFuture<AbstractResultMessage> onRequestAsync(AbstractMessage request, RpcContext context) {
+        // the second phase answers once its branches are, without holding the thread the request came on
+        if (request instanceof GlobalCommitRequest) {
+            return handleAsync((GlobalCommitRequest) request, context).thenApply(response -> response);
+        }
+        if (request instanceof GlobalRollbackRequest) {
+            return handleAsync((GlobalRollbackRequest) request, context).thenApply(response -> response);
+        }
+        return TransactionMessageHandler.super.onRequestAsync(request, context);
+    }
+
     @Override
     public void onResponse(AbstractResultMessage response, RpcContext context) {
         if (!(response instanceof AbstractTransactionResponse)) {
@@ -442,11 +516,19 @@ public class DefaultCoordinator extends AbstractTCInboundHandler implements Tran
         retryCommitting.shutdown();
         asyncCommitting.shutdown();
         timeoutCheck.shutdown();
+        retryRollbackingExecutor.shutdown();
+        retryCommittingExecutor.shutdown();
+        asyncCommittingExecutor.shutdown();
+        phaseTwoExecutor.shutdown();
         try {
             retryRollbacking.awaitTermination(TIMED_TASK_SHUTDOWN_MAX_WAIT_MILLS, TimeUnit.MILLISECONDS);
             retryCommitting.awaitTermination(TIMED_TASK_SHUTDOWN_MAX_WAIT_MILLS, TimeUnit.MILLISECONDS);
             asyncCommitting.awaitTermination(TIMED_TASK_SHUTDOWN_MAX_WAIT_MILLS, TimeUnit.MILLISECONDS);
             timeoutCheck.awaitTermination(TIMED_TASK_SHUTDOWN_MAX_WAIT_MILLS, TimeUnit.MILLISECONDS);
+            retryRollbackingExecutor.awaitTermination(TIMED_TASK_SHUTDOWN_MAX_WAIT_MILLS, TimeUnit.MILLISECONDS);
+            retryCommittingExecutor.awaitTermination(TIMED_TASK_SHUTDOWN_MAX_WAIT_MILLS, TimeUnit.MILLISECONDS);
+            asyncCommittingExecutor.awaitTermination(TIMED_TASK_SHUTDOWN_MAX_WAIT_MILLS, TimeUnit.MILLISECONDS);
+            phaseTwoExecutor.awaitTermination(TIMED_TASK_SHUTDOWN_MAX_WAIT_MILLS, TimeUnit.MILLISECONDS);
         } catch (InterruptedException ignore) {
 
         }
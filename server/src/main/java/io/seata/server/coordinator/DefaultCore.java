@@ -15,9 +15,17 @@
  */
 package io.seata.server.coordinator;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -25,6 +33,9 @@ import org.slf4j.LoggerFactory;
 import io.seata.common.exception.NotSupportYetException;
 import io.seata.common.loader.EnhancedServiceLoader;
 import io.seata.common.util.CollectionUtils;
+import io.seata.config.Configuration;
+import io.seata.config.ConfigurationFactory;
+import io.seata.core.constants.ConfigurationKeys;
 import io.seata.core.event.EventBus;
 import io.seata.core.event.GlobalTransactionEvent;
 import io.seata.core.exception.TransactionException;
@@ -39,6 +50,8 @@ import io.seata.server.session.GlobalSession;
 import io.seata.server.session.SessionHelper;
 import io.seata.server.session.SessionHolder;
 
+import static io.seata.common.DefaultValues.DEFAULT_ENABLE_PARALLEL_PHASE_TWO;
+
 /**
  * The type Default core.
  *
@@ -48,10 +61,19 @@ public class DefaultCore implements Core {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(DefaultCore.class);
 
+    private static final Configuration CONFIG = ConfigurationFactory.getInstance();
+
+    private static final boolean ENABLE_PARALLEL_PHASE_TWO = CONFIG.getBoolean(
+        ConfigurationKeys.ENABLE_PARALLEL_PHASE_TWO, DEFAULT_ENABLE_PARALLEL_PHASE_TWO);
+
     private EventBus eventBus = EventBusManager.get();
 
     private static Map<BranchType, AbstractCore> coreMap = new ConcurrentHashMap<>();
 
+    private boolean parallelPhaseTwo = ENABLE_PARALLEL_PHASE_TWO;
+
+    private Executor phaseTwoExecutor = Runnable::run;
+
     /**
      * get the Default core.
      *
@@ -91,6 +113,25 @@ public class DefaultCore implements Core {
         coreMap.put(branchType, core);
     }
 
+    /**
+     * Sets the executor the decisions of the parallel phase two run on once the branches are answered, the default
+     * one runs them on the thread completing the last branch.
+     *
+     * @param phaseTwoExecutor the phase two executor
+     */
+    public void setPhaseTwoExecutor(Executor phaseTwoExecutor) {
+        this.phaseTwoExecutor = phaseTwoExecutor;
+    }
+
+    /**
+     * only for mock
+     *
+     * @param parallelPhaseTwo whether to send the branch requests of phase two concurrently
+     */
+    public void mockParallelPhaseTwo(boolean parallelPhaseTwo) {
+        this.parallelPhaseTwo = parallelPhaseTwo;
+    }
+
     @Override
     public Long branchRegister(BranchType branchType, String resourceId, String clientId, String xid,
                                String applicationData, String lockKeys) throws TransactionException {
@@ -138,47 +179,72 @@ public class DefaultCore implements Core {
 
     @Override
     public GlobalStatus commit(String xid) throws TransactionException {
-        GlobalSession globalSession = SessionHolder.findGlobalSession(xid);
-        if (globalSession == null) {
-            return GlobalStatus.Finished;
-        }
-        globalSession.addSessionLifecycleListener(SessionHolder.getRootSessionManager());
-        // just lock changeStatus
+        return await(commitAsync(xid));
+    }
 
-        boolean shouldCommit = SessionHolder.lockAndExecute(globalSession, () -> {
-            // Highlight: Firstly, close the session, then no more branch can be registered.
-            globalSession.closeAndClean();
-            if (globalSession.getStatus() == GlobalStatus.Begin) {
-                if (globalSession.canBeCommittedAsync()) {
-                    globalSession.asyncCommit();
-                    return false;
-                } else {
-                    globalSession.changeStatus(GlobalStatus.Committing);
-                    return true;
-                }
+    /**
+     * Commit a global transaction, the returned future is completed once the second phase is done. Only the
+     * parallel second phase completes it later, from the callback of the branch responses; the sequential one has
+     * completed it on the caller thread already.
+     *
+     * @param xid the xid
+     * @return the future of the global status
+     */
+    public CompletableFuture<GlobalStatus> commitAsync(String xid) {
+        GlobalSession globalSession;
+        boolean shouldCommit;
+        try {
+            globalSession = SessionHolder.findGlobalSessionInStore(xid);
+            if (globalSession == null) {
+                return CompletableFuture.completedFuture(GlobalStatus.Finished);
             }
-            return false;
-        });
+            globalSession.addSessionLifecycleListener(SessionHolder.getRootSessionManager());
+            // just lock changeStatus
+
+            shouldCommit = SessionHolder.lockAndExecute(globalSession, () -> {
+                // Highlight: Firstly, close the session, then no more branch can be registered.
+                globalSession.closeAndClean();
+                if (globalSession.getStatus() == GlobalStatus.Begin) {
+                    if (globalSession.canBeCommittedAsync()) {
+                        globalSession.asyncCommit();
+                        return false;
+                    } else {
+                        globalSession.changeStatus(GlobalStatus.Committing);
+                        return true;
+                    }
+                }
+                return false;
+            });
+        } catch (TransactionException | RuntimeException e) {
+            return failedFuture(e);
+        }
 
-        if (shouldCommit) {
-            boolean success = doGlobalCommit(globalSession, false);
+        if (!shouldCommit) {
+            return CompletableFuture.completedFuture(globalSession.getStatus() == GlobalStatus.AsyncCommitting
+                ? GlobalStatus.Committed : globalSession.getStatus());
+        }
+        return doGlobalCommitAsync(globalSession, false).thenApply(success -> {
             if (success && !globalSession.getBranchSessions().isEmpty()) {
-                globalSession.asyncCommit();
+                try {
+                    globalSession.asyncCommit();
+                } catch (TransactionException e) {
+                    throw new CompletionException(e);
+                }
                 return GlobalStatus.Committed;
             } else {
                 return globalSession.getStatus();
             }
-        } else {
-            return globalSession.getStatus() == GlobalStatus.AsyncCommitting ? GlobalStatus.Committed : globalSession.getStatus();
-        }
+        });
     }
 
     @Override
     public boolean doGlobalCommit(GlobalSession globalSession, boolean retrying) throws TransactionException {
+        if (parallelPhaseTwo && !globalSession.isSaga()) {
+            return await(doGlobalCommitAsync(globalSession, retrying));
+        }
         boolean success = true;
         // start committing event
-        eventBus.post(new GlobalTransactionEvent(globalSession.getTransactionId(), GlobalTransactionEvent.ROLE_TC,
-            globalSession.getTransactionName(), globalSession.getBeginTime(), null, globalSession.getStatus()));
+        postStartEvent(globalSession);
 
         if (globalSession.isSaga()) {
             success = getCore(BranchType.SAGA).doGlobalCommit(globalSession, retrying);
@@ -241,48 +307,112 @@ public class DefaultCore implements Core {
             }
         }
         if (success && globalSession.getBranchSessions().isEmpty()) {
-            SessionHelper.endCommitted(globalSession);
-
-            // committed event
-            eventBus.post(new GlobalTransactionEvent(globalSession.getTransactionId(), GlobalTransactionEvent.ROLE_TC,
-                globalSession.getTransactionName(), globalSession.getBeginTime(), System.currentTimeMillis(),
-                globalSession.getStatus()));
-
-            LOGGER.info("Committing global transaction is successfully done, xid = {}.", globalSession.getXid());
+            endCommitted(globalSession);
         }
         return success;
     }
 
-    @Override
-    public GlobalStatus rollback(String xid) throws TransactionException {
-        GlobalSession globalSession = SessionHolder.findGlobalSession(xid);
-        if (globalSession == null) {
-            return GlobalStatus.Finished;
+    /**
+     * Commit the branches of a global transaction, the returned future is completed with the result of
+     * {@link #doGlobalCommit} once the second phase is done. The parallel second phase chains on the branch
+     * responses and decides on the global transaction in their callback, so no thread waits for the branches.
+     *
+     * @param globalSession the global session
+     * @param retrying      the retrying
+     * @return the future of whether the global transaction is committed
+     */
+    public CompletableFuture<Boolean> doGlobalCommitAsync(GlobalSession globalSession, boolean retrying) {
+        if (!parallelPhaseTwo || globalSession.isSaga()) {
+            try {
+                return CompletableFuture.completedFuture(doGlobalCommit(globalSession, retrying));
+            } catch (TransactionException | RuntimeException e) {
+                return failedFuture(e);
+            }
         }
-        globalSession.addSessionLifecycleListener(SessionHolder.getRootSessionManager());
-        // just lock changeStatus
-        boolean shouldRollBack = SessionHolder.lockAndExecute(globalSession, () -> {
-            globalSession.close(); // Highlight: Firstly, close the session, then no more branch can be registered.
-            if (globalSession.getStatus() == GlobalStatus.Begin) {
-                globalSession.changeStatus(GlobalStatus.Rollbacking);
-                return true;
+        // start committing event
+        postStartEvent(globalSession);
+        CompletableFuture<Boolean> phaseTwo;
+        try {
+            phaseTwo = doParallelBranchCommit(globalSession, retrying);
+        } catch (TransactionException | RuntimeException e) {
+            return failedFuture(e);
+        }
+        return phaseTwo.thenApply(success -> {
+            if (success && globalSession.getBranchSessions().isEmpty()) {
+                try {
+                    endCommitted(globalSession);
+                } catch (TransactionException e) {
+                    throw new CompletionException(e);
+                }
             }
-            return false;
+            return success;
         });
+    }
+
+    private void endCommitted(GlobalSession globalSession) throws TransactionException {
+        SessionHelper.endCommitted(globalSession);
+
+        // committed event
+        eventBus.post(new GlobalTransactionEvent(globalSession.getTransactionId(), GlobalTransactionEvent.ROLE_TC,
+            globalSession.getTransactionName(), globalSession.getBeginTime(), System.currentTimeMillis(),
+            globalSession.getStatus()));
+
+        LOGGER.info("Committing global transaction is successfully done, xid = {}.", globalSession.getXid());
+    }
+
+    private void postStartEvent(GlobalSession globalSession) {
+        eventBus.post(new GlobalTransactionEvent(globalSession.getTransactionId(), GlobalTransactionEvent.ROLE_TC,
+            globalSession.getTransactionName(), globalSession.getBeginTime(), null, globalSession.getStatus()));
+    }
+
+    @Override
+    public GlobalStatus rollback(String xid) throws TransactionException {
+        return await(rollbackAsync(xid));
+    }
+
+    /**
+     * Rollback a global transaction, the returned future is completed once the second phase is done, see
+     * {@link #commitAsync}.
+     *
+     * @param xid the xid
+     * @return the future of the global status
+     */
+    public CompletableFuture<GlobalStatus> rollbackAsync(String xid) {
+        GlobalSession globalSession;
+        boolean shouldRollBack;
+        try {
+            globalSession = SessionHolder.findGlobalSessionInStore(xid);
+            if (globalSession == null) {
+                return CompletableFuture.completedFuture(GlobalStatus.Finished);
+            }
+            globalSession.addSessionLifecycleListener(SessionHolder.getRootSessionManager());
+            // just lock changeStatus
+            shouldRollBack = SessionHolder.lockAndExecute(globalSession, () -> {
+                globalSession.close(); // Highlight: Firstly, close the session, then no more branch can be registered.
+                if (globalSession.getStatus() == GlobalStatus.Begin) {
+                    globalSession.changeStatus(GlobalStatus.Rollbacking);
+                    return true;
+                }
+                return false;
+            });
+        } catch (TransactionException | RuntimeException e) {
+            return failedFuture(e);
+        }
         if (!shouldRollBack) {
-            return globalSession.getStatus();
+            return CompletableFuture.completedFuture(globalSession.getStatus());
         }
 
-        doGlobalRollback(globalSession, false);
-        return globalSession.getStatus();
+        return doGlobalRollbackAsync(globalSession, false).thenApply(success -> globalSession.getStatus());
     }
 
     @Override
     public boolean doGlobalRollback(GlobalSession globalSession, boolean retrying) throws TransactionException {
+        if (parallelPhaseTwo && !globalSession.isSaga()) {
+            return await(doGlobalRollbackAsync(globalSession, retrying));
+        }
         boolean success = true;
         // start rollback event
-        eventBus.post(new GlobalTransactionEvent(globalSession.getTransactionId(), GlobalTransactionEvent.ROLE_TC,
-            globalSession.getTransactionName(), globalSession.getBeginTime(), null, globalSession.getStatus()));
+        postStartEvent(globalSession);
 
         if (globalSession.isSaga()) {
             success = getCore(BranchType.SAGA).doGlobalRollback(globalSession, retrying);
@@ -328,23 +458,333 @@ public class DefaultCore implements Core {
             // 2. New branch transaction has data association with rollback branch transaction
             // The second query can solve the first problem, and if it is the second problem, it may cause a rollback
             // failure due to data changes.
-            GlobalSession globalSessionTwice = SessionHolder.findGlobalSession(globalSession.getXid());
+            GlobalSession globalSessionTwice = SessionHolder.findGlobalSessionInStore(globalSession.getXid());
             if (globalSessionTwice != null && globalSessionTwice.hasBranch()) {
                 LOGGER.info("Rollbacking global transaction is NOT done, xid = {}.", globalSession.getXid());
                 return false;
             }
         }
         if (success) {
-            SessionHelper.endRollbacked(globalSession);
+            endRollbacked(globalSession);
+        }
+        return success;
+    }
+
+    /**
+     * Rollback the branches of a global transaction, the returned future is completed with the result of
+     * {@link #doGlobalRollback} once the second phase is done, see {@link #doGlobalCommitAsync}.
+     *
+     * @param globalSession the global session
+     * @param retrying      the retrying
+     * @return the future of whether the global transaction is rolled back
+     */
+    public CompletableFuture<Boolean> doGlobalRollbackAsync(GlobalSession globalSession, boolean retrying) {
+        if (!parallelPhaseTwo || globalSession.isSaga()) {
+            try {
+                return CompletableFuture.completedFuture(doGlobalRollback(globalSession, retrying));
+            } catch (TransactionException | RuntimeException e) {
+                return failedFuture(e);
+            }
+        }
+        // start rollback event
+        postStartEvent(globalSession);
+        CompletableFuture<Boolean> phaseTwo;
+        try {
+            phaseTwo = doParallelBranchRollback(globalSession, retrying);
+        } catch (TransactionException | RuntimeException e) {
+            return failedFuture(e);
+        }
+        return phaseTwo.thenApply(success -> {
+            if (success) {
+                try {
+                    endRollbacked(globalSession);
+                } catch (TransactionException e) {
+                    throw new CompletionException(e);
+                }
+            }
+            return success;
+        });
+    }
+
+    private void endRollbacked(GlobalSession globalSession) throws TransactionException {
+        SessionHelper.endRollbacked(globalSession);
+
+        // rollbacked event
+        eventBus.post(new GlobalTransactionEvent(globalSession.getTransactionId(), GlobalTransactionEvent.ROLE_TC,
+            globalSession.getTransactionName(), globalSession.getBeginTime(), System.currentTimeMillis(),
+            globalSession.getStatus()));
+
+        LOGGER.info("Rollback global transaction successfully, xid = {}.", globalSession.getXid());
+    }
 
-            // rollbacked event
-            eventBus.post(new GlobalTransactionEvent(globalSession.getTransactionId(), GlobalTransactionEvent.ROLE_TC,
-                globalSession.getTransactionName(), globalSession.getBeginTime(), System.currentTimeMillis(),
-                globalSession.getStatus()));
+    /**
+     * Commit all the branches concurrently, then decide on the global transaction in branch order.
+     * <p>
+     * The branch requests are chained on {@link AbstractCore#branchCommitAsync}, and the decision runs as a callback
+     * once all of them are answered. It runs on the phase two executor rather than on the netty or timer thread
+     * completing the last branch, since it writes the sessions to the store.
+     *
+     * @param globalSession the global session
+     * @param retrying      the retrying
+     * @return the future of whether all the branches are committed
+     * @throws TransactionException the transaction exception
+     */
+    private CompletableFuture<Boolean> doParallelBranchCommit(GlobalSession globalSession, boolean retrying)
+        throws TransactionException {
+        List<BranchSession> branchSessions = new ArrayList<>();
+        for (BranchSession branchSession : globalSession.getSortedBranches()) {
+            // if not retrying, skip the canBeCommittedAsync branches
+            if (!retrying && branchSession.canBeCommittedAsync()) {
+                continue;
+            }
+            if (branchSession.getStatus() == BranchStatus.PhaseOne_Failed) {
+                globalSession.removeBranch(branchSession);
+                continue;
+            }
+            branchSessions.add(branchSession);
+        }
 
-            LOGGER.info("Rollback global transaction successfully, xid = {}.", globalSession.getXid());
+        // branches are independent of each other on commit, so all the requests are in flight at once
+        List<CompletableFuture<BranchStatus>> futures = new ArrayList<>(branchSessions.size());
+        for (BranchSession branchSession : branchSessions) {
+            futures.add(getCore(branchSession.getBranchType()).branchCommitAsync(globalSession, branchSession));
+        }
+
+        return whenAllDone(futures, () -> decideParallelCommit(globalSession, retrying, branchSessions, futures));
+    }
+
+    private boolean decideParallelCommit(GlobalSession globalSession, boolean retrying,
+                                         List<BranchSession> branchSessions,
+                                         List<CompletableFuture<BranchStatus>> futures) throws TransactionException {
+        // whatever happens to the others, a committed branch needn't be retried
+        for (int i = 0; i < branchSessions.size(); i++) {
+            if (getBranchStatusQuietly(futures.get(i)) == BranchStatus.PhaseTwo_Committed) {
+                globalSession.removeBranch(branchSessions.get(i));
+            }
+        }
+
+        for (int i = 0; i < branchSessions.size(); i++) {
+            BranchSession branchSession = branchSessions.get(i);
+            try {
+                BranchStatus branchStatus = getBranchStatus(futures.get(i));
+                switch (branchStatus) {
+                    case PhaseTwo_Committed:
+                        continue;
+                    case PhaseTwo_CommitFailed_Unretryable:
+                        if (globalSession.canBeCommittedAsync()) {
+                            LOGGER.error(
+                                "Committing branch transaction[{}], status: PhaseTwo_CommitFailed_Unretryable, please check the business log.", branchSession.getBranchId());
+                            continue;
+                        } else {
+                            SessionHelper.endCommitFailed(globalSession);
+                            LOGGER.error("Committing global transaction[{}] finally failed, caused by branch transaction[{}] commit failed.", globalSession.getXid(), branchSession.getBranchId());
+                            return false;
+                        }
+                    default:
+                        if (!retrying) {
+                            globalSession.queueToRetryCommit();
+                            return false;
+                        }
+                        if (globalSession.canBeCommittedAsync()) {
+                            LOGGER.error("Committing branch transaction[{}], status:{} and will retry later",
+                                branchSession.getBranchId(), branchStatus);
+                            continue;
+                        } else {
+                            LOGGER.error(
+                                "Committing global transaction[{}] failed, caused by branch transaction[{}] commit failed, will retry later.", globalSession.getXid(), branchSession.getBranchId());
+                            return false;
+                        }
+                }
+            } catch (Exception ex) {
+                StackTraceLogger.error(LOGGER, ex, "Committing branch transaction exception: {}",
+                    new String[] {branchSession.toString()});
+                if (!retrying) {
+                    globalSession.queueToRetryCommit();
+                    throw new TransactionException(ex);
+                }
+            }
+        }
+        if (globalSession.hasBranch()) {
+            LOGGER.info("Committing global transaction is NOT done, xid = {}.", globalSession.getXid());
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Rollback the branches of different resources concurrently, while the branches of one resource are still
+     * rolled back one by one in reverse order, since their undo data may depend on each other. Like the parallel
+     * commit, the decision runs as a callback once all the chains are done.
+     * <p>
+     * Unlike the sequential rollback, a failed branch stops only the chain of its own resource: the branches of the
+     * other resources are already in flight. They are removed once rolled back, while the failed branch and the ones
+     * after it on its resource keep their status, and the global transaction is decided on the first failure in
+     * reverse order like the sequential rollback, so a retryable failure still ends in RollbackRetrying and the retry
+     * only sends the branches that are left.
+     *
+     * @param globalSession the global session
+     * @param retrying      the retrying
+     * @return the future of whether all the branches are rolled back
+     * @throws TransactionException the transaction exception
+     */
+    private CompletableFuture<Boolean> doParallelBranchRollback(GlobalSession globalSession, boolean retrying)
+        throws TransactionException {
+        List<BranchSession> branchSessions = new ArrayList<>();
+        Map<String, List<BranchSession>> resourceBranchSessions = new LinkedHashMap<>();
+        for (BranchSession branchSession : globalSession.getReverseSortedBranches()) {
+            if (branchSession.getStatus() == BranchStatus.PhaseOne_Failed) {
+                globalSession.removeBranch(branchSession);
+                continue;
+            }
+            branchSessions.add(branchSession);
+            resourceBranchSessions.computeIfAbsent(branchSession.getResourceId(), k -> new ArrayList<>())
+                .add(branchSession);
+        }
+
+        Map<Long, CompletableFuture<BranchStatus>> futures = new HashMap<>(branchSessions.size());
+        for (List<BranchSession> sameResourceBranchSessions : resourceBranchSessions.values()) {
+            CompletableFuture<BranchStatus> previous = null;
+            for (BranchSession branchSession : sameResourceBranchSessions) {
+                AbstractCore branchCore = getCore(branchSession.getBranchType());
+                CompletableFuture<BranchStatus> future;
+                if (previous == null) {
+                    future = branchCore.branchRollbackAsync(globalSession, branchSession);
+                } else {
+                    // the branch is left untouched once an earlier one of the same resource failed
+                    future = previous.thenCompose(previousStatus -> previousStatus == BranchStatus.PhaseTwo_Rollbacked
+                        ? branchCore.branchRollbackAsync(globalSession, branchSession)
+                        : CompletableFuture.completedFuture(BranchStatus.Unknown));
+                }
+                futures.put(branchSession.getBranchId(), future);
+                previous = future;
+            }
+        }
+
+        return whenAllDone(futures.values(),
+            () -> decideParallelRollback(globalSession, retrying, branchSessions, futures));
+    }
+
+    private boolean decideParallelRollback(GlobalSession globalSession, boolean retrying,
+                                           List<BranchSession> branchSessions,
+                                           Map<Long, CompletableFuture<BranchStatus>> futures)
+        throws TransactionException {
+        for (BranchSession branchSession : branchSessions) {
+            if (getBranchStatusQuietly(futures.get(branchSession.getBranchId())) == BranchStatus.PhaseTwo_Rollbacked) {
+                globalSession.removeBranch(branchSession);
+                LOGGER.info("Rollback branch transaction successfully, xid = {} branchId = {}", globalSession.getXid(), branchSession.getBranchId());
+            }
+        }
+
+        for (BranchSession branchSession : branchSessions) {
+            try {
+                BranchStatus branchStatus = getBranchStatus(futures.get(branchSession.getBranchId()));
+                switch (branchStatus) {
+                    case PhaseTwo_Rollbacked:
+                        continue;
+                    case PhaseTwo_RollbackFailed_Unretryable:
+                        SessionHelper.endRollbackFailed(globalSession);
+                        LOGGER.info("Rollback branch transaction fail and stop retry, xid = {} branchId = {}", globalSession.getXid(), branchSession.getBranchId());
+                        return false;
+                    default:
+                        LOGGER.info("Rollback branch transaction fail and will retry, xid = {} branchId = {}", globalSession.getXid(), branchSession.getBranchId());
+                        if (!retrying) {
+                            globalSession.queueToRetryRollback();
+                        }
+                        return false;
+                }
+            } catch (Exception ex) {
+                StackTraceLogger.error(LOGGER, ex,
+                    "Rollback branch transaction exception, xid = {} branchId = {} exception = {}",
+                    new String[] {globalSession.getXid(), String.valueOf(branchSession.getBranchId()), ex.getMessage()});
+                if (!retrying) {
+                    globalSession.queueToRetryRollback();
+                }
+                throw new TransactionException(ex);
+            }
+        }
+
+        // see doGlobalRollback, branches may be registered by another TC while rolling back in db mode
+        GlobalSession globalSessionTwice = SessionHolder.findGlobalSessionInStore(globalSession.getXid());
+        if (globalSessionTwice != null && globalSessionTwice.hasBranch()) {
+            LOGGER.info("Rollbacking global transaction is NOT done, xid = {}.", globalSession.getXid());
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Decide on the phase two once every future is done, each of them is completed by the response or the timeout
+     * of its request. The decision runs on the phase two executor.
+     */
+    private CompletableFuture<Boolean> whenAllDone(Collection<CompletableFuture<BranchStatus>> futures,
+                                                   Decision decision) {
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).handle((v, e) -> null)
+            .thenApplyAsync(v -> {
+                try {
+                    return decision.decide();
+                } catch (TransactionException e) {
+                    throw new CompletionException(e);
+                }
+            }, phaseTwoExecutor);
+    }
+
+    /**
+     * Wait for a phase two started by the synchronous api.
+     */
+    private static <T> T await(CompletableFuture<T> future) throws TransactionException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof TransactionException) {
+                throw (TransactionException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new TransactionException(cause);
+        }
+    }
+
+    private static <T> CompletableFuture<T> failedFuture(Throwable e) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(e);
+        return future;
+    }
+
+    /**
+     * The decision on a global transaction once its branches are done.
+     */
+    @FunctionalInterface
+    private interface Decision {
+
+        boolean decide() throws TransactionException;
+    }
+
+    /**
+     * The status of a branch whose future is done.
+     */
+    private BranchStatus getBranchStatus(CompletableFuture<BranchStatus> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw e;
+        }
+    }
+
+    private BranchStatus getBranchStatusQuietly(CompletableFuture<BranchStatus> future) {
+        try {
+            return getBranchStatus(future);
+        } catch (Exception e) {
+            return null;
         }
-        return success;
     }
 
     @Override
@@ -359,7 +799,7 @@ public class DefaultCore implements Core {
 
     @Override
     public GlobalStatus globalReport(String xid, GlobalStatus globalStatus) throws TransactionException {
-        GlobalSession globalSession = SessionHolder.findGlobalSession(xid);
+        GlobalSession globalSession = SessionHolder.findGlobalSessionInStore(xid);
         if (globalSession == null) {
             return globalStatus;
         }
@@ -0,0 +1,220 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.seata.server.coordinator;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import io.seata.common.thread.NamedThreadFactory;
+import io.seata.core.exception.TransactionException;
+import io.seata.server.session.GlobalSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs one round of a retry schedule over a session collection on several workers.
+ * <p>
+ * Sessions are sharded by transaction id and each shard is handled serially, so a session is never handled by two
+ * workers at once. Each worker takes at most {@code shardCapacity} sessions per round, the rest are left to the next
+ * round. A session whose last attempt failed is skipped until its retry delay, which doubles on every failure up to
+ * {@code maxRetryBackoff}, has passed.
+ */
+public class ShardedRetryExecutor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ShardedRetryExecutor.class);
+
+    private static final int MAX_BACKOFF_SHIFT = 20;
+
+    private final String name;
+
+    private final int parallelism;
+
+    private final int shardCapacity;
+
+    private final long retryPeriod;
+
+    private final long maxRetryBackoff;
+
+    private final ExecutorService workers;
+
+    private final Map<Long, RetryState> retryStates = new ConcurrentHashMap<>();
+
+    /**
+     * Instantiates a new Sharded retry executor.
+     *
+     * @param name            the name of the schedule, used as worker thread prefix
+     * @param parallelism     the number of workers
+     * @param shardCapacity   the max sessions a worker handles per round
+     * @param retryPeriod     the period of the schedule, also the delay after the first failure
+     * @param maxRetryBackoff the max delay between two attempts on the same session
+     */
+    public ShardedRetryExecutor(String name, int parallelism, int shardCapacity, long retryPeriod,
+                                long maxRetryBackoff) {
+        this.name = name;
+        this.parallelism = Math.max(1, parallelism);
+        this.shardCapacity = Math.max(1, shardCapacity);
+        this.retryPeriod = Math.max(1L, retryPeriod);
+        this.maxRetryBackoff = Math.max(this.retryPeriod, maxRetryBackoff);
+        // a single shard runs on the scheduling thread itself
+        this.workers = this.parallelism == 1 ? null : new ThreadPoolExecutor(this.parallelism, this.parallelism,
+            Integer.MAX_VALUE, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+            new NamedThreadFactory(name + "Worker", this.parallelism));
+    }
+
+    /**
+     * Run one round over the sessions and wait until every shard is done.
+     *
+     * @param sessions the sessions of the schedule
+     * @param handler  the handler of a single session
+     */
+    public void execute(Collection<GlobalSession> sessions, RetryHandler handler) {
+        long now = System.currentTimeMillis();
+        List<List<GlobalSession>> shards = new ArrayList<>(parallelism);
+        for (int i = 0; i < parallelism; i++) {
+            shards.add(new ArrayList<>());
+        }
+        Set<Long> alive = retryStates.isEmpty() ? null : new HashSet<>(sessions.size());
+        int deferred = 0;
+        for (GlobalSession session : sessions) {
+            long transactionId = session.getTransactionId();
+            if (alive != null) {
+                alive.add(transactionId);
+            }
+            RetryState state = retryStates.get(transactionId);
+            if (state != null && state.nextRetryTime > now) {
+                continue;
+            }
+            List<GlobalSession> shard = shards.get(shardOf(transactionId));
+            if (shard.size() >= shardCapacity) {
+                deferred++;
+                continue;
+            }
+            shard.add(session);
+        }
+        if (alive != null) {
+            // forget sessions that were finished or removed since the last round
+            retryStates.keySet().retainAll(alive);
+        }
+        if (deferred > 0 && LOGGER.isInfoEnabled()) {
+            LOGGER.info("{} shards are full, {} sessions are deferred to the next round", name, deferred);
+        }
+        if (workers == null) {
+            handle(shards.get(0), handler);
+            return;
+        }
+        CountDownLatch latch = new CountDownLatch(parallelism);
+        for (List<GlobalSession> shard : shards) {
+            if (shard.isEmpty()) {
+                latch.countDown();
+                continue;
+            }
+            workers.execute(() -> {
+                try {
+                    handle(shard, handler);
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void handle(List<GlobalSession> shard, RetryHandler handler) {
+        for (GlobalSession session : shard) {
+            boolean success;
+            try {
+                success = handler.handle(session);
+            } catch (Exception e) {
+                LOGGER.error("{} failed to handle [{}] {}", name, session.getXid(), e.getMessage(), e);
+                success = false;
+            }
+            if (success) {
+                retryStates.remove(session.getTransactionId());
+            } else {
+                retryStates.computeIfAbsent(session.getTransactionId(), k -> new RetryState()).failed(
+                    System.currentTimeMillis());
+            }
+        }
+    }
+
+    private int shardOf(long transactionId) {
+        return (int) ((transactionId & Long.MAX_VALUE) % parallelism);
+    }
+
+    /**
+     * Shutdown the workers.
+     */
+    public void shutdown() {
+        if (workers != null) {
+            workers.shutdown();
+        }
+    }
+
+    /**
+     * Await termination of the workers.
+     *
+     * @param timeout the timeout
+     * @param unit    the unit
+     * @throws InterruptedException the interrupted exception
+     */
+    public void awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        if (workers != null) {
+            workers.awaitTermination(timeout, unit);
+        }
+    }
+
+    /**
+     * The handler of a single session.
+     */
+    @FunctionalInterface
+    public interface RetryHandler {
+
+        /**
+         * Handle the session.
+         *
+         * @param session the session
+         * @return false if the attempt failed and the session should be retried later
+         * @throws TransactionException the transaction exception
+         */
+        boolean handle(GlobalSession session) throws TransactionException;
+    }
+
+    private class RetryState {
+
+        private int failures;
+
+        private volatile long nextRetryTime;
+
+        void failed(long now) {
+            int shift = Math.min(failures++, MAX_BACKOFF_SHIFT);
+            nextRetryTime = now + Math.min(retryPeriod << shift, maxRetryBackoff);
+        }
+    }
+}
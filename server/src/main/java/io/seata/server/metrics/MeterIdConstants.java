@@ -24,6 +24,22 @@ import io.seata.metrics.Id;
  * @author zhengyangyong
  */
 public class MeterIdConstants {
+    public static final String SEATA_EXECUTOR = "seata.executor";
+
+    public static final String STATISTIC_VALUE_QUEUED = "queued";
+
+    public static final String STATISTIC_VALUE_ACTIVE = "active";
+
+    public static final String STATISTIC_VALUE_SATURATED = "saturated";
+
+    public static final String SEATA_REQUEST = "seata.request";
+
+    public static final String STATISTIC_VALUE_TIMEOUT = "timeout";
+
+    public static final String STATISTIC_VALUE_COST = "cost";
+
+    public static final String STATISTIC_VALUE_TRACE_DROPPED = "traceDropped";
+
     public static final Id COUNTER_ACTIVE = new Id(IdConstants.SEATA_TRANSACTION)
         .withTag(IdConstants.ROLE_KEY, IdConstants.ROLE_VALUE_TC)
         .withTag(IdConstants.METER_KEY, IdConstants.METER_VALUE_COUNTER)
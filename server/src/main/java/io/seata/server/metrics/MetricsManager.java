@@ -16,10 +16,17 @@
 package io.seata.server.metrics;
 
 import java.util.List;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 import io.seata.config.ConfigurationFactory;
 import io.seata.core.constants.ConfigurationKeys;
+import io.seata.core.rpc.netty.AbstractNettyRemoting;
+import io.seata.core.rpc.processor.server.RequestTracer;
 import io.seata.metrics.exporter.Exporter;
+import io.seata.metrics.Id;
+import io.seata.metrics.IdConstants;
 import io.seata.metrics.exporter.ExporterFactory;
 import io.seata.metrics.registry.Registry;
 import io.seata.metrics.registry.RegistryFactory;
@@ -60,4 +67,71 @@ public class MetricsManager {
             }
         }
     }
+
+    /**
+     * Register the queued tasks, active threads and saturations of an executor, if metrics are enabled.
+     *
+     * @param name       the executor name
+     * @param executor   the executor
+     * @param saturation the count of tasks the executor had no room for
+     */
+    public void registerExecutor(String name, ThreadPoolExecutor executor, LongAdder saturation) {
+        if (registry == null) {
+            return;
+        }
+        registry.getGauge(executorId(name, MeterIdConstants.STATISTIC_VALUE_QUEUED), () -> executor.getQueue().size());
+        registry.getGauge(executorId(name, MeterIdConstants.STATISTIC_VALUE_ACTIVE), executor::getActiveCount);
+        registry.getGauge(executorId(name, MeterIdConstants.STATISTIC_VALUE_SATURATED), saturation::longValue);
+    }
+
+    /**
+     * Register the count of the timed out requests of each message type, if metrics are enabled.
+     *
+     * @param remoting     the remoting the requests are sent through
+     * @param messageTypes the message types
+     */
+    public void registerTimeoutCounts(AbstractNettyRemoting remoting, Class<?>... messageTypes) {
+        if (registry == null) {
+            return;
+        }
+        for (Class<?> messageType : messageTypes) {
+            registry.getGauge(new Id(MeterIdConstants.SEATA_REQUEST)
+                .withTag(IdConstants.ROLE_KEY, IdConstants.ROLE_VALUE_TC)
+                .withTag(IdConstants.METER_KEY, IdConstants.METER_VALUE_GAUGE)
+                .withTag(IdConstants.NAME_KEY, messageType.getSimpleName())
+                .withTag(IdConstants.STATISTIC_KEY, MeterIdConstants.STATISTIC_VALUE_TIMEOUT),
+                () -> remoting.getTimeoutCount(messageType));
+        }
+    }
+
+    /**
+     * Record the cost of the sampled requests of each message type and the count of the dropped traces,
+     * if metrics are enabled.
+     *
+     * @param tracer the request tracer
+     */
+    public void registerRequestTrace(RequestTracer tracer) {
+        if (registry == null) {
+            return;
+        }
+        registry.getGauge(new Id(MeterIdConstants.SEATA_REQUEST)
+            .withTag(IdConstants.ROLE_KEY, IdConstants.ROLE_VALUE_TC)
+            .withTag(IdConstants.METER_KEY, IdConstants.METER_VALUE_GAUGE)
+            .withTag(IdConstants.STATISTIC_KEY, MeterIdConstants.STATISTIC_VALUE_TRACE_DROPPED), tracer::getDropped);
+        // called on the drain thread of the tracer, never on the thread handling the request
+        tracer.addListener(trace -> registry.getTimer(new Id(MeterIdConstants.SEATA_REQUEST)
+            .withTag(IdConstants.ROLE_KEY, IdConstants.ROLE_VALUE_TC)
+            .withTag(IdConstants.METER_KEY, IdConstants.METER_VALUE_TIMER)
+            .withTag(IdConstants.NAME_KEY, trace.getMessageType().getSimpleName())
+            .withTag(IdConstants.STATISTIC_KEY, MeterIdConstants.STATISTIC_VALUE_COST))
+            .record(trace.getCostMicros(), TimeUnit.MICROSECONDS));
+    }
+
+    private static Id executorId(String name, String statistic) {
+        return new Id(MeterIdConstants.SEATA_EXECUTOR)
+            .withTag(IdConstants.ROLE_KEY, IdConstants.ROLE_VALUE_TC)
+            .withTag(IdConstants.METER_KEY, IdConstants.METER_VALUE_GAUGE)
+            .withTag(IdConstants.NAME_KEY, name)
+            .withTag(IdConstants.STATISTIC_KEY, statistic);
+    }
 }
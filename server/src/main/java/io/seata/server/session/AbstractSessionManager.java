@@ -15,6 +15,10 @@
  */
 package io.seata.server.session;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
 import io.seata.core.exception.BranchTransactionException;
 import io.seata.core.exception.GlobalTransactionException;
 import io.seata.core.exception.TransactionException;
@@ -148,6 +152,32 @@ public abstract class AbstractSessionManager implements SessionManager, SessionL
         removeGlobalSession(globalSession);
     }
 
+    @Override
+    public List<GlobalSession> findTimeoutSessions(long now) {
+        return filterTimeoutSessions(allSessions(), now);
+    }
+
+    /**
+     * Filter the sessions in Begin status whose timeout has expired.
+     *
+     * @param globalSessions the global sessions
+     * @param now            the current time millis
+     * @return the list
+     */
+    protected List<GlobalSession> filterTimeoutSessions(Collection<GlobalSession> globalSessions, long now) {
+        List<GlobalSession> found = new ArrayList<>();
+        if (globalSessions == null) {
+            return found;
+        }
+        for (GlobalSession globalSession : globalSessions) {
+            if (globalSession.getStatus() == GlobalStatus.Begin
+                && now - globalSession.getBeginTime() > globalSession.getTimeout()) {
+                found.add(globalSession);
+            }
+        }
+        return found;
+    }
+
     private void writeSession(LogOperation logOperation, SessionStorable sessionStorable) throws TransactionException {
         if (!transactionStoreManager.writeSession(logOperation, sessionStorable)) {
             if (LogOperation.GLOBAL_ADD.equals(logOperation)) {
@@ -0,0 +1,222 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.seata.server.session;
+
+import java.util.Collection;
+import java.util.List;
+
+import io.seata.common.exception.StoreException;
+import io.seata.common.executor.Initialize;
+import io.seata.common.util.StringUtils;
+import io.seata.core.exception.TransactionException;
+import io.seata.core.model.BranchStatus;
+import io.seata.core.model.GlobalStatus;
+import io.seata.server.store.TransactionStoreManager.LogOperation;
+
+/**
+ * The base of the session managers whose sessions live in a shared store (db, redis, rocksdb) rather than in the
+ * memory of the server. The root manager writes the sessions and keeps the {@link GlobalSessionCache} in step, the
+ * managers of the retry and async tasks only read the sessions of their statuses from the store.
+ * The subclasses set the {@link #transactionStoreManager} in {@link #init()}.
+ */
+public abstract class AbstractStoreSessionManager extends AbstractSessionManager
+    implements SessionManager, SessionLifecycleListener, Initialize, Reloadable {
+
+    /**
+     * The Task name.
+     */
+    protected String taskName;
+
+    /**
+     * Instantiates a new store session manager.
+     */
+    public AbstractStoreSessionManager() {
+        super();
+    }
+
+    /**
+     * Instantiates a new store session manager.
+     *
+     * @param name the name
+     */
+    public AbstractStoreSessionManager(String name) {
+        super();
+        this.taskName = name;
+    }
+
+    @Override
+    public void addGlobalSession(GlobalSession session) throws TransactionException {
+        if (StringUtils.isBlank(taskName)) {
+            boolean ret = transactionStoreManager.writeSession(LogOperation.GLOBAL_ADD, session);
+            if (!ret) {
+                throw new StoreException("addGlobalSession failed.");
+            }
+            SessionHolder.getGlobalSessionCache().put(session);
+        } else {
+            boolean ret = transactionStoreManager.writeSession(LogOperation.GLOBAL_UPDATE, session);
+            if (!ret) {
+                throw new StoreException("addGlobalSession failed.");
+            }
+        }
+    }
+
+    @Override
+    public void updateGlobalSessionStatus(GlobalSession session, GlobalStatus status) throws TransactionException {
+        if (StringUtils.isNotBlank(taskName)) {
+            return;
+        }
+        session.setStatus(status);
+        try {
+            boolean ret = transactionStoreManager.writeSession(LogOperation.GLOBAL_UPDATE, session);
+            if (!ret) {
+                throw new StoreException("updateGlobalSessionStatus failed.");
+            }
+        } finally {
+            SessionHolder.getGlobalSessionCache().retain(session);
+        }
+    }
+
+    /**
+     * remove globalSession
+     * 1. rootSessionManager remove normal globalSession
+     * 2. retryCommitSessionManager and retryRollbackSessionManager remove retry expired globalSession
+     * @param session the session
+     * @throws TransactionException
+     */
+    @Override
+    public void removeGlobalSession(GlobalSession session) throws TransactionException {
+        try {
+            boolean ret = transactionStoreManager.writeSession(LogOperation.GLOBAL_REMOVE, session);
+            if (!ret) {
+                throw new StoreException("removeGlobalSession failed.");
+            }
+        } finally {
+            SessionHolder.getGlobalSessionCache().invalidate(session.getXid());
+        }
+    }
+
+    @Override
+    public void addBranchSession(GlobalSession globalSession, BranchSession session) throws TransactionException {
+        if (StringUtils.isNotBlank(taskName)) {
+            return;
+        }
+        try {
+            boolean ret = transactionStoreManager.writeSession(LogOperation.BRANCH_ADD, session);
+            if (!ret) {
+                throw new StoreException("addBranchSession failed.");
+            }
+        } finally {
+            SessionHolder.getGlobalSessionCache().retain(globalSession);
+        }
+    }
+
+    @Override
+    public void updateBranchSessionStatus(BranchSession session, BranchStatus status) throws TransactionException {
+        if (StringUtils.isNotBlank(taskName)) {
+            return;
+        }
+        try {
+            boolean ret = transactionStoreManager.writeSession(LogOperation.BRANCH_UPDATE, session);
+            if (!ret) {
+                throw new StoreException("updateBranchSessionStatus failed.");
+            }
+        } finally {
+            SessionHolder.getGlobalSessionCache().retain(session);
+        }
+    }
+
+    @Override
+    public void removeBranchSession(GlobalSession globalSession, BranchSession session) throws TransactionException {
+        if (StringUtils.isNotBlank(taskName)) {
+            return;
+        }
+        try {
+            boolean ret = transactionStoreManager.writeSession(LogOperation.BRANCH_REMOVE, session);
+            if (!ret) {
+                throw new StoreException("removeBranchSession failed.");
+            }
+        } finally {
+            SessionHolder.getGlobalSessionCache().retain(globalSession);
+        }
+    }
+
+    @Override
+    public GlobalSession findGlobalSession(String xid) {
+        return this.findGlobalSession(xid, true);
+    }
+
+    @Override
+    public GlobalSession findGlobalSession(String xid, boolean withBranchSessions) {
+        GlobalSessionCache cache = SessionHolder.getGlobalSessionCache();
+        GlobalSession session = cache.get(xid);
+        if (session != null) {
+            return session;
+        }
+        long stamp = cache.stamp(xid);
+        session = transactionStoreManager.readSession(xid, withBranchSessions);
+        return session != null && withBranchSessions ? cache.load(session, stamp) : session;
+    }
+
+    @Override
+    public Collection<GlobalSession> allSessions() {
+        // get by taskName
+        if (SessionHolder.ASYNC_COMMITTING_SESSION_MANAGER_NAME.equalsIgnoreCase(taskName)) {
+            return findGlobalSessions(new SessionCondition(GlobalStatus.AsyncCommitting));
+        } else if (SessionHolder.RETRY_COMMITTING_SESSION_MANAGER_NAME.equalsIgnoreCase(taskName)) {
+            return findGlobalSessions(new SessionCondition(new GlobalStatus[] {GlobalStatus.CommitRetrying}));
+        } else if (SessionHolder.RETRY_ROLLBACKING_SESSION_MANAGER_NAME.equalsIgnoreCase(taskName)) {
+            return findGlobalSessions(new SessionCondition(new GlobalStatus[] {GlobalStatus.RollbackRetrying,
+                GlobalStatus.Rollbacking, GlobalStatus.TimeoutRollbacking, GlobalStatus.TimeoutRollbackRetrying}));
+        } else {
+            // all data
+            return findGlobalSessions(new SessionCondition(new GlobalStatus[] {
+                GlobalStatus.UnKnown, GlobalStatus.Begin,
+                GlobalStatus.Committing, GlobalStatus.CommitRetrying, GlobalStatus.Rollbacking,
+                GlobalStatus.RollbackRetrying,
+                GlobalStatus.TimeoutRollbacking, GlobalStatus.TimeoutRollbackRetrying, GlobalStatus.AsyncCommitting}));
+        }
+    }
+
+    @Override
+    public List<GlobalSession> findTimeoutSessions(long now) {
+        return filterTimeoutSessions(findGlobalSessions(new SessionCondition(GlobalStatus.Begin)), now);
+    }
+
+    @Override
+    public List<GlobalSession> findGlobalSessions(SessionCondition condition) {
+        // nothing need to do
+        return transactionStoreManager.readSession(condition);
+    }
+
+    @Override
+    public <T> T lockAndExecute(GlobalSession globalSession, GlobalSession.LockCallable<T> lockCallable)
+            throws TransactionException {
+        if (!SessionHolder.getGlobalSessionCache().isEnabled()) {
+            return lockCallable.call();
+        }
+        // a cached session is shared by the requests of the transaction
+        globalSession.lock();
+        try {
+            return lockCallable.call();
+        } finally {
+            globalSession.unlock();
+        }
+    }
+
+    @Override
+    public void reload() {
+    }
+}
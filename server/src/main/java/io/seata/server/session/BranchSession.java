@@ -17,9 +17,7 @@ package io.seata.server.session;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.nio.charset.Charset;
 
 import io.seata.server.storage.file.lock.FileLocker;
 import io.seata.common.util.CompressUtil;
@@ -41,10 +39,12 @@ public class BranchSession implements Lockable, Comparable<BranchSession>, Sessi
 
     private static final Logger LOGGER = LoggerFactory.getLogger(BranchSession.class);
 
-    private static final int MAX_BRANCH_SESSION_SIZE = StoreConfig.getMaxBranchSessionSize();
+    /**
+     * the platform charset, which the session files have always been written in
+     */
+    private static final Charset STRING_CHARSET = Charset.defaultCharset();
 
-    private static ThreadLocal<ByteBuffer> byteBufferThreadLocal = ThreadLocal.withInitial(() -> ByteBuffer.allocate(
-        MAX_BRANCH_SESSION_SIZE));
+    private static final int MAX_BRANCH_SESSION_SIZE = StoreConfig.getMaxBranchSessionSize();
 
     private String xid;
 
@@ -66,8 +66,15 @@ public class BranchSession implements Lockable, Comparable<BranchSession>, Sessi
 
     private String applicationData;
 
-    private ConcurrentMap<FileLocker.BucketLockMap, Set<String>> lockHolder
-        = new ConcurrentHashMap<>();
+    private final FileLocker.LockHolder lockHolder = new FileLocker.LockHolder();
+
+    /**
+     * the cached encodings of the fields that don't change after the branch is registered,
+     * the others are encoded each time
+     */
+    private volatile byte[] xidBytes;
+
+    private volatile byte[] resourceIdBytes;
 
     /**
      * Gets application data.
@@ -139,6 +146,7 @@ public class BranchSession implements Lockable, Comparable<BranchSession>, Sessi
      */
     public void setResourceId(String resourceId) {
         this.resourceId = resourceId;
+        this.resourceIdBytes = null;
     }
 
     /**
@@ -247,6 +255,7 @@ public class BranchSession implements Lockable, Comparable<BranchSession>, Sessi
      */
     public void setXid(String xid) {
         this.xid = xid;
+        this.xidBytes = null;
     }
 
     @Override
@@ -268,7 +277,7 @@ public class BranchSession implements Lockable, Comparable<BranchSession>, Sessi
      *
      * @return the lock holder
      */
-    public ConcurrentMap<FileLocker.BucketLockMap, Set<String>> getLockHolder() {
+    public FileLocker.LockHolder getLockHolder() {
         return lockHolder;
     }
 
@@ -290,18 +299,87 @@ public class BranchSession implements Lockable, Comparable<BranchSession>, Sessi
 
     @Override
     public byte[] encode() {
+        Encoding encoding = encoding();
+        byte[] result = new byte[encoding.size()];
+        encoding.encodeTo(ByteBuffer.wrap(result));
+        return result;
+    }
+
+    @Override
+    public Encoding encoding() {
+        // every field is read once, the lock key is serialized and compressed once for both the size and the bytes
+        final long transactionId = this.transactionId;
+        final long branchId = this.branchId;
+        final byte[] resourceIdBytes = getResourceIdBytes();
+        final byte[] clientIdBytes = toBytes(clientId);
+        final byte[] applicationDataBytes = toBytes(applicationData);
+        final byte[] xidBytes = getXidBytes();
+        final byte[] lockKeyBytes = getLockKeyBytesToEncode(resourceIdBytes, clientIdBytes, applicationDataBytes,
+            xidBytes);
+        final BranchType branchType = this.branchType;
+        final byte branchTypeByte = branchType != null ? (byte) branchType.ordinal() : -1;
+        final byte statusByte = (byte) status.getCode();
+        final int size = calBranchSessionSize(resourceIdBytes, lockKeyBytes, clientIdBytes, applicationDataBytes,
+            xidBytes);
+        return new Encoding() {
+            @Override
+            public int size() {
+                return size;
+            }
 
-        byte[] resourceIdBytes = resourceId != null ? resourceId.getBytes() : null;
+            @Override
+            public void encodeTo(ByteBuffer byteBuffer) {
+                byteBuffer.putLong(transactionId);
+                byteBuffer.putLong(branchId);
 
-        byte[] lockKeyBytes = lockKey != null ? lockKey.getBytes() : null;
+                if (resourceIdBytes != null) {
+                    byteBuffer.putInt(resourceIdBytes.length);
+                    byteBuffer.put(resourceIdBytes);
+                } else {
+                    byteBuffer.putInt(0);
+                }
 
-        byte[] clientIdBytes = clientId != null ? clientId.getBytes() : null;
+                if (lockKeyBytes != null) {
+                    byteBuffer.putInt(lockKeyBytes.length);
+                    byteBuffer.put(lockKeyBytes);
+                } else {
+                    byteBuffer.putInt(0);
+                }
 
-        byte[] applicationDataBytes = applicationData != null ? applicationData.getBytes() : null;
+                if (clientIdBytes != null) {
+                    byteBuffer.putShort((short)clientIdBytes.length);
+                    byteBuffer.put(clientIdBytes);
+                } else {
+                    byteBuffer.putShort((short)0);
+                }
 
-        byte[] xidBytes = xid != null ? xid.getBytes() : null;
+                if (applicationDataBytes != null) {
+                    byteBuffer.putInt(applicationDataBytes.length);
+                    byteBuffer.put(applicationDataBytes);
+                } else {
+                    byteBuffer.putInt(0);
+                }
 
-        byte branchTypeByte = branchType != null ? (byte) branchType.ordinal() : -1;
+                if (xidBytes != null) {
+                    byteBuffer.putInt(xidBytes.length);
+                    byteBuffer.put(xidBytes);
+                } else {
+                    byteBuffer.putInt(0);
+                }
+
+                byteBuffer.put(branchTypeByte);
+
+                byteBuffer.put(statusByte);
+            }
+        };
+    }
+
+    /**
+     * the lockKey bytes to encode, compressed if the branch session size exceeded
+     */
+    private byte[] getLockKeyBytesToEncode(byte[] resourceIdBytes, byte[] clientIdBytes, byte[] applicationDataBytes,
+                                           byte[] xidBytes) {
+        byte[] lockKeyBytes = toBytes(lockKey);
 
         int size = calBranchSessionSize(resourceIdBytes, lockKeyBytes, clientIdBytes, applicationDataBytes, xidBytes);
 
@@ -311,14 +389,13 @@ public class BranchSession implements Lockable, Comparable<BranchSession>, Sessi
                     + MAX_BRANCH_SESSION_SIZE);
             }
             // try compress lockkey
+            size -= lockKeyBytes.length;
             try {
-                size -= lockKeyBytes.length;
                 lockKeyBytes = CompressUtil.compress(lockKeyBytes);
             } catch (IOException e) {
                 LOGGER.error("compress lockKey error", e);
-            } finally {
-                size += lockKeyBytes.length;
             }
+            size += lockKeyBytes.length;
 
             if (size > MAX_BRANCH_SESSION_SIZE) {
                 throw new RuntimeException(
@@ -326,56 +403,7 @@ public class BranchSession implements Lockable, Comparable<BranchSession>, Sessi
                         + MAX_BRANCH_SESSION_SIZE);
             }
         }
-
-        ByteBuffer byteBuffer = byteBufferThreadLocal.get();
-        //recycle
-        byteBuffer.clear();
-
-        byteBuffer.putLong(transactionId);
-        byteBuffer.putLong(branchId);
-
-        if (resourceIdBytes != null) {
-            byteBuffer.putInt(resourceIdBytes.length);
-            byteBuffer.put(resourceIdBytes);
-        } else {
-            byteBuffer.putInt(0);
-        }
-
-        if (lockKeyBytes != null) {
-            byteBuffer.putInt(lockKeyBytes.length);
-            byteBuffer.put(lockKeyBytes);
-        } else {
-            byteBuffer.putInt(0);
-        }
-
-        if (clientIdBytes != null) {
-            byteBuffer.putShort((short)clientIdBytes.length);
-            byteBuffer.put(clientIdBytes);
-        } else {
-            byteBuffer.putShort((short)0);
-        }
-
-        if (applicationDataBytes != null) {
-            byteBuffer.putInt(applicationDataBytes.length);
-            byteBuffer.put(applicationDataBytes);
-        } else {
-            byteBuffer.putInt(0);
-        }
-
-        if (xidBytes != null) {
-            byteBuffer.putInt(xidBytes.length);
-            byteBuffer.put(xidBytes);
-        } else {
-            byteBuffer.putInt(0);
-        }
-
-        byteBuffer.put(branchTypeByte);
-
-        byteBuffer.put((byte)status.getCode());
-        byteBuffer.flip();
-        byte[] result = new byte[byteBuffer.limit()];
-        byteBuffer.get(result);
-        return result;
+        return lockKeyBytes;
     }
 
     private int calBranchSessionSize(byte[] resourceIdBytes, byte[] lockKeyBytes, byte[] clientIdBytes,
@@ -397,16 +425,41 @@ public class BranchSession implements Lockable, Comparable<BranchSession>, Sessi
         return size;
     }
 
+    private byte[] getResourceIdBytes() {
+        byte[] bytes = resourceIdBytes;
+        if (bytes == null && resourceId != null) {
+            resourceIdBytes = bytes = resourceId.getBytes(STRING_CHARSET);
+        }
+        return bytes;
+    }
+
+    private byte[] getXidBytes() {
+        byte[] bytes = xidBytes;
+        if (bytes == null && xid != null) {
+            xidBytes = bytes = xid.getBytes(STRING_CHARSET);
+        }
+        return bytes;
+    }
+
+    private static byte[] toBytes(String value) {
+        return value == null ? null : value.getBytes(STRING_CHARSET);
+    }
+
     @Override
     public void decode(byte[] a) {
-        ByteBuffer byteBuffer = ByteBuffer.wrap(a);
+        decode(ByteBuffer.wrap(a));
+    }
+
+    @Override
+    public void decode(ByteBuffer byteBuffer) {
         this.transactionId = byteBuffer.getLong();
         this.branchId = byteBuffer.getLong();
         int resourceLen = byteBuffer.getInt();
         if (resourceLen > 0) {
             byte[] byResource = new byte[resourceLen];
             byteBuffer.get(byResource);
-            this.resourceId = new String(byResource);
+            this.resourceId = new String(byResource, STRING_CHARSET);
+            this.resourceIdBytes = byResource;
         }
         int lockKeyLen = byteBuffer.getInt();
         if (lockKeyLen > 0) {
@@ -414,12 +467,13 @@ public class BranchSession implements Lockable, Comparable<BranchSession>, Sessi
             byteBuffer.get(byLockKey);
             if (CompressUtil.isCompressData(byLockKey)) {
                 try {
-                    this.lockKey = new String(CompressUtil.uncompress(byLockKey));
+                    byte[] uncompressedBytes = CompressUtil.uncompress(byLockKey);
+                    this.lockKey = new String(uncompressedBytes, STRING_CHARSET);
                 } catch (IOException e) {
                     throw new RuntimeException("decompress lockKey error", e);
                 }
             } else {
-                this.lockKey = new String(byLockKey);
+                this.lockKey = new String(byLockKey, STRING_CHARSET);
             }
 
         }
@@ -427,19 +481,20 @@ public class BranchSession implements Lockable, Comparable<BranchSession>, Sessi
         if (clientIdLen > 0) {
             byte[] byClientId = new byte[clientIdLen];
             byteBuffer.get(byClientId);
-            this.clientId = new String(byClientId);
+            this.clientId = new String(byClientId, STRING_CHARSET);
         }
         int applicationDataLen = byteBuffer.getInt();
         if (applicationDataLen > 0) {
             byte[] byApplicationData = new byte[applicationDataLen];
             byteBuffer.get(byApplicationData);
-            this.applicationData = new String(byApplicationData);
+            this.applicationData = new String(byApplicationData, STRING_CHARSET);
         }
         int xidLen = byteBuffer.getInt();
         if (xidLen > 0) {
             byte[] xidBytes = new byte[xidLen];
             byteBuffer.get(xidBytes);
-            this.xid = new String(xidBytes);
+            this.xid = new String(xidBytes, STRING_CHARSET);
+            this.xidBytes = xidBytes;
         }
         int branchTypeId = byteBuffer.get();
         if (branchTypeId >= 0) {
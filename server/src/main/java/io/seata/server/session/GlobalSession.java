@@ -16,11 +16,15 @@
 package io.seata.server.session;
 
 import java.nio.ByteBuffer;
-import java.util.ArrayList;
-import java.util.Collections;
+import java.nio.charset.Charset;
+import java.util.AbstractList;
+import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
+import java.util.RandomAccess;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -49,10 +53,17 @@ public class GlobalSession implements SessionLifecycle, SessionStorable {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(GlobalSession.class);
 
+    /**
+     * the platform charset, which the session files have always been written in
+     */
+    private static final Charset STRING_CHARSET = Charset.defaultCharset();
+
     private static final int MAX_GLOBAL_SESSION_SIZE = StoreConfig.getMaxGlobalSessionSize();
 
-    private static ThreadLocal<ByteBuffer> byteBufferThreadLocal = ThreadLocal.withInitial(() -> ByteBuffer.allocate(
-        MAX_GLOBAL_SESSION_SIZE));
+    private static final BranchSession[] EMPTY_BRANCHES = new BranchSession[0];
+
+    private static final AtomicReferenceFieldUpdater<GlobalSession, BranchSession[]> BRANCHES_UPDATER =
+        AtomicReferenceFieldUpdater.newUpdater(GlobalSession.class, BranchSession[].class, "branches");
 
     private String xid;
 
@@ -74,10 +85,25 @@ public class GlobalSession implements SessionLifecycle, SessionStorable {
 
     private volatile boolean active = true;
 
-    private final ArrayList<BranchSession> branchSessions = new ArrayList<>();
+    /**
+     * the branches in registration order, never modified in place: a change swaps in a new array, so a reader takes
+     * a consistent snapshot without a monitor or a copy
+     */
+    private volatile BranchSession[] branches = EMPTY_BRANCHES;
 
     private GlobalSessionLock globalSessionLock = new GlobalSessionLock();
 
+    /**
+     * the cached encodings of the fields that don't change after the transaction begins,
+     * the application data is encoded each time
+     */
+    private volatile byte[] xidBytes;
+
+    private volatile byte[] applicationIdBytes;
+
+    private volatile byte[] transactionServiceGroupBytes;
+
+    private volatile byte[] transactionNameBytes;
 
     /**
      * Add boolean.
@@ -86,7 +112,14 @@ public class GlobalSession implements SessionLifecycle, SessionStorable {
      * @return the boolean
      */
     public boolean add(BranchSession branchSession) {
-        return branchSessions.add(branchSession);
+        for (;;) {
+            BranchSession[] current = branches;
+            BranchSession[] updated = Arrays.copyOf(current, current.length + 1);
+            updated[current.length] = branchSession;
+            if (BRANCHES_UPDATER.compareAndSet(this, current, updated)) {
+                return true;
+            }
+        }
     }
 
     /**
@@ -96,7 +129,28 @@ public class GlobalSession implements SessionLifecycle, SessionStorable {
      * @return the boolean
      */
     public boolean remove(BranchSession branchSession) {
-        return branchSessions.remove(branchSession);
+        for (;;) {
+            BranchSession[] current = branches;
+            int index = indexOf(current, branchSession);
+            if (index < 0) {
+                return false;
+            }
+            BranchSession[] updated = new BranchSession[current.length - 1];
+            System.arraycopy(current, 0, updated, 0, index);
+            System.arraycopy(current, index + 1, updated, index, updated.length - index);
+            if (BRANCHES_UPDATER.compareAndSet(this, current, updated)) {
+                return true;
+            }
+        }
+    }
+
+    private static int indexOf(BranchSession[] branches, BranchSession branchSession) {
+        for (int i = 0; i < branches.length; i++) {
+            if (branches[i].equals(branchSession)) {
+                return i;
+            }
+        }
+        return -1;
     }
 
     private Set<SessionLifecycleListener> lifecycleListeners = new HashSet<>();
@@ -107,7 +161,7 @@ public class GlobalSession implements SessionLifecycle, SessionStorable {
      * @return the boolean
      */
     public boolean canBeCommittedAsync() {
-        for (BranchSession branchSession : branchSessions) {
+        for (BranchSession branchSession : branches) {
             if (!branchSession.canBeCommittedAsync()) {
                 return false;
             }
@@ -121,8 +175,9 @@ public class GlobalSession implements SessionLifecycle, SessionStorable {
      * @return is saga
      */
     public boolean isSaga() {
-        if (branchSessions.size() > 0) {
-            return BranchType.SAGA == branchSessions.get(0).getBranchType();
+        BranchSession[] current = branches;
+        if (current.length > 0) {
+            return BranchType.SAGA == current[0].getBranchType();
         }
         else if (StringUtils.isNotBlank(transactionName)
                 && transactionName.startsWith(Constants.SAGA_TRANS_NAME_PREFIX)) {
@@ -262,36 +317,30 @@ public class GlobalSession implements SessionLifecycle, SessionStorable {
      * @return the branch
      */
     public BranchSession getBranch(long branchId) {
-        synchronized (branchSessions) {
-            for (BranchSession branchSession : branchSessions) {
-                if (branchSession.getBranchId() == branchId) {
-                    return branchSession;
-                }
+        for (BranchSession branchSession : branches) {
+            if (branchSession.getBranchId() == branchId) {
+                return branchSession;
             }
-
-            return null;
         }
-
+        return null;
     }
 
     /**
-     * Gets sorted branches.
+     * Gets sorted branches, a read-only snapshot that later changes of the session do not affect.
      *
      * @return the sorted branches
      */
-    public ArrayList<BranchSession> getSortedBranches() {
-        return new ArrayList<>(branchSessions);
+    public List<BranchSession> getSortedBranches() {
+        return new BranchSnapshot(branches, false);
     }
 
     /**
-     * Gets reverse sorted branches.
+     * Gets reverse sorted branches, a read-only snapshot that later changes of the session do not affect.
      *
      * @return the reverse sorted branches
      */
-    public ArrayList<BranchSession> getReverseSortedBranches() {
-        ArrayList<BranchSession> reversed = new ArrayList<>(branchSessions);
-        Collections.reverse(reversed);
-        return reversed;
+    public List<BranchSession> getReverseSortedBranches() {
+        return new BranchSnapshot(branches, true);
     }
 
     /**
@@ -370,6 +419,7 @@ public class GlobalSession implements SessionLifecycle, SessionStorable {
      */
     public void setXid(String xid) {
         this.xid = xid;
+        this.xidBytes = null;
     }
 
     /**
@@ -470,67 +520,77 @@ public class GlobalSession implements SessionLifecycle, SessionStorable {
 
     @Override
     public byte[] encode() {
+        Encoding encoding = encoding();
+        byte[] result = new byte[encoding.size()];
+        encoding.encodeTo(ByteBuffer.wrap(result));
+        return result;
+    }
 
-        byte[] byApplicationIdBytes = applicationId != null ? applicationId.getBytes() : null;
-
-        byte[] byServiceGroupBytes = transactionServiceGroup != null ? transactionServiceGroup.getBytes() : null;
-
-        byte[] byTxNameBytes = transactionName != null ? transactionName.getBytes() : null;
-
-        byte[] xidBytes = xid != null ? xid.getBytes() : null;
-
-        byte[] applicationDataBytes = applicationData != null ? applicationData.getBytes() : null;
-
-        int size = calGlobalSessionSize(byApplicationIdBytes, byServiceGroupBytes, byTxNameBytes, xidBytes,
+    @Override
+    public Encoding encoding() {
+        // every field is read once, so the size and the bytes agree while the session changes
+        final long transactionId = this.transactionId;
+        final int timeout = this.timeout;
+        final byte[] byApplicationIdBytes = getApplicationIdBytes();
+        final byte[] byServiceGroupBytes = getTransactionServiceGroupBytes();
+        final byte[] byTxNameBytes = getTransactionNameBytes();
+        final byte[] xidBytes = getXidBytes();
+        final byte[] applicationDataBytes = getApplicationDataBytes();
+        final long beginTime = this.beginTime;
+        final byte statusByte = (byte) status.getCode();
+
+        final int size = calGlobalSessionSize(byApplicationIdBytes, byServiceGroupBytes, byTxNameBytes, xidBytes,
             applicationDataBytes);
 
         if (size > MAX_GLOBAL_SESSION_SIZE) {
             throw new RuntimeException("global session size exceeded, size : " + size + " maxBranchSessionSize : " +
                 MAX_GLOBAL_SESSION_SIZE);
         }
-        ByteBuffer byteBuffer = byteBufferThreadLocal.get();
-        //recycle
-        byteBuffer.clear();
-
-        byteBuffer.putLong(transactionId);
-        byteBuffer.putInt(timeout);
-        if (byApplicationIdBytes != null) {
-            byteBuffer.putShort((short)byApplicationIdBytes.length);
-            byteBuffer.put(byApplicationIdBytes);
-        } else {
-            byteBuffer.putShort((short)0);
-        }
-        if (byServiceGroupBytes != null) {
-            byteBuffer.putShort((short)byServiceGroupBytes.length);
-            byteBuffer.put(byServiceGroupBytes);
-        } else {
-            byteBuffer.putShort((short)0);
-        }
-        if (byTxNameBytes != null) {
-            byteBuffer.putShort((short)byTxNameBytes.length);
-            byteBuffer.put(byTxNameBytes);
-        } else {
-            byteBuffer.putShort((short)0);
-        }
-        if (xidBytes != null) {
-            byteBuffer.putInt(xidBytes.length);
-            byteBuffer.put(xidBytes);
-        } else {
-            byteBuffer.putInt(0);
-        }
-        if (applicationDataBytes != null) {
-            byteBuffer.putInt(applicationDataBytes.length);
-            byteBuffer.put(applicationDataBytes);
-        } else {
-            byteBuffer.putInt(0);
-        }
+        return new Encoding() {
+            @Override
+            public int size() {
+                return size;
+            }
 
-        byteBuffer.putLong(beginTime);
-        byteBuffer.put((byte)status.getCode());
-        byteBuffer.flip();
-        byte[] result = new byte[byteBuffer.limit()];
-        byteBuffer.get(result);
-        return result;
+            @Override
+            public void encodeTo(ByteBuffer byteBuffer) {
+                byteBuffer.putLong(transactionId);
+                byteBuffer.putInt(timeout);
+                if (byApplicationIdBytes != null) {
+                    byteBuffer.putShort((short)byApplicationIdBytes.length);
+                    byteBuffer.put(byApplicationIdBytes);
+                } else {
+                    byteBuffer.putShort((short)0);
+                }
+                if (byServiceGroupBytes != null) {
+                    byteBuffer.putShort((short)byServiceGroupBytes.length);
+                    byteBuffer.put(byServiceGroupBytes);
+                } else {
+                    byteBuffer.putShort((short)0);
+                }
+                if (byTxNameBytes != null) {
+                    byteBuffer.putShort((short)byTxNameBytes.length);
+                    byteBuffer.put(byTxNameBytes);
+                } else {
+                    byteBuffer.putShort((short)0);
+                }
+                if (xidBytes != null) {
+                    byteBuffer.putInt(xidBytes.length);
+                    byteBuffer.put(xidBytes);
+                } else {
+                    byteBuffer.putInt(0);
+                }
+                if (applicationDataBytes != null) {
+                    byteBuffer.putInt(applicationDataBytes.length);
+                    byteBuffer.put(applicationDataBytes);
+                } else {
+                    byteBuffer.putInt(0);
+                }
+
+                byteBuffer.putLong(beginTime);
+                byteBuffer.put(statusByte);
+            }
+        };
     }
 
     private int calGlobalSessionSize(byte[] byApplicationIdBytes, byte[] byServiceGroupBytes, byte[] byTxNameBytes,
@@ -552,40 +612,84 @@ public class GlobalSession implements SessionLifecycle, SessionStorable {
         return size;
     }
 
+    private byte[] getApplicationIdBytes() {
+        byte[] bytes = applicationIdBytes;
+        if (bytes == null && applicationId != null) {
+            applicationIdBytes = bytes = applicationId.getBytes(STRING_CHARSET);
+        }
+        return bytes;
+    }
+
+    private byte[] getTransactionServiceGroupBytes() {
+        byte[] bytes = transactionServiceGroupBytes;
+        if (bytes == null && transactionServiceGroup != null) {
+            transactionServiceGroupBytes = bytes = transactionServiceGroup.getBytes(STRING_CHARSET);
+        }
+        return bytes;
+    }
+
+    private byte[] getTransactionNameBytes() {
+        byte[] bytes = transactionNameBytes;
+        if (bytes == null && transactionName != null) {
+            transactionNameBytes = bytes = transactionName.getBytes(STRING_CHARSET);
+        }
+        return bytes;
+    }
+
+    private byte[] getXidBytes() {
+        byte[] bytes = xidBytes;
+        if (bytes == null && xid != null) {
+            xidBytes = bytes = xid.getBytes(STRING_CHARSET);
+        }
+        return bytes;
+    }
+
+    private byte[] getApplicationDataBytes() {
+        return applicationData == null ? null : applicationData.getBytes(STRING_CHARSET);
+    }
+
     @Override
     public void decode(byte[] a) {
-        ByteBuffer byteBuffer = ByteBuffer.wrap(a);
+        decode(ByteBuffer.wrap(a));
+    }
+
+    @Override
+    public void decode(ByteBuffer byteBuffer) {
         this.transactionId = byteBuffer.getLong();
         this.timeout = byteBuffer.getInt();
         short applicationIdLen = byteBuffer.getShort();
         if (applicationIdLen > 0) {
             byte[] byApplicationId = new byte[applicationIdLen];
             byteBuffer.get(byApplicationId);
-            this.applicationId = new String(byApplicationId);
+            this.applicationId = new String(byApplicationId, STRING_CHARSET);
+            this.applicationIdBytes = byApplicationId;
         }
         short serviceGroupLen = byteBuffer.getShort();
         if (serviceGroupLen > 0) {
             byte[] byServiceGroup = new byte[serviceGroupLen];
             byteBuffer.get(byServiceGroup);
-            this.transactionServiceGroup = new String(byServiceGroup);
+            this.transactionServiceGroup = new String(byServiceGroup, STRING_CHARSET);
+            this.transactionServiceGroupBytes = byServiceGroup;
         }
         short txNameLen = byteBuffer.getShort();
         if (txNameLen > 0) {
             byte[] byTxName = new byte[txNameLen];
             byteBuffer.get(byTxName);
-            this.transactionName = new String(byTxName);
+            this.transactionName = new String(byTxName, STRING_CHARSET);
+            this.transactionNameBytes = byTxName;
         }
         int xidLen = byteBuffer.getInt();
         if (xidLen > 0) {
             byte[] xidBytes = new byte[xidLen];
             byteBuffer.get(xidBytes);
-            this.xid = new String(xidBytes);
+            this.xid = new String(xidBytes, STRING_CHARSET);
+            this.xidBytes = xidBytes;
         }
         int applicationDataLen = byteBuffer.getInt();
         if (applicationDataLen > 0) {
             byte[] applicationDataLenBytes = new byte[applicationDataLen];
             byteBuffer.get(applicationDataLenBytes);
-            this.applicationData = new String(applicationDataLenBytes);
+            this.applicationData = new String(applicationDataLenBytes, STRING_CHARSET);
         }
 
         this.beginTime = byteBuffer.getLong();
@@ -598,7 +702,7 @@ public class GlobalSession implements SessionLifecycle, SessionStorable {
      * @return the boolean
      */
     public boolean hasBranch() {
-        return branchSessions.size() > 0;
+        return branches.length > 0;
     }
 
     public void lock() throws TransactionException {
@@ -644,8 +748,39 @@ public class GlobalSession implements SessionLifecycle, SessionStorable {
         V call() throws TransactionException;
     }
 
-    public ArrayList<BranchSession> getBranchSessions() {
-        return branchSessions;
+    /**
+     * Gets branch sessions, a read-only snapshot, use {@link #add(BranchSession)} and {@link #remove(BranchSession)}
+     * to change them.
+     *
+     * @return the branch sessions
+     */
+    public List<BranchSession> getBranchSessions() {
+        return new BranchSnapshot(branches, false);
+    }
+
+    /**
+     * A read-only list over a branch array that is never modified.
+     */
+    private static class BranchSnapshot extends AbstractList<BranchSession> implements RandomAccess {
+
+        private final BranchSession[] branches;
+
+        private final boolean reversed;
+
+        BranchSnapshot(BranchSession[] branches, boolean reversed) {
+            this.branches = branches;
+            this.reversed = reversed;
+        }
+
+        @Override
+        public BranchSession get(int index) {
+            return branches[reversed ? branches.length - 1 - index : index];
+        }
+
+        @Override
+        public int size() {
+            return branches.length;
+        }
     }
 
     public void asyncCommit() throws TransactionException {
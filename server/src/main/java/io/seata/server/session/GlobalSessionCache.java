@@ -0,0 +1,193 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.seata.server.session;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.seata.core.model.GlobalStatus;
+
+/**
+ * A bounded near cache of the active global sessions of the db, redis and rocksdb store modes, keyed by xid.
+ * <p>
+ * A session is cached when this server begins it or reads it with its branches, and only while its status is
+ * {@link GlobalStatus#Begin}. The cached instance is the one the coordinator works on, so the writes made through it
+ * keep it up to date. A write made through any other instance of the same transaction, a status change and the
+ * removal of the session invalidate it. A session updated by another server of the cluster is not seen by this cache,
+ * so every request that changes a session, the branch registration and report, the commit, the rollback and the
+ * global report, reads it past the cache, see {@link SessionHolder#findGlobalSessionInStore(String, boolean)}. Only
+ * the status queries are answered from the cache, and they may be out of date until the entry expires.
+ */
+public class GlobalSessionCache {
+
+    private static final int STAMP_STRIPES = 64;
+
+    private final boolean enabled;
+
+    private final Cache<String, GlobalSession> sessions;
+
+    /**
+     * Bumped on every invalidation, so a session read from the store while the same xid was invalidated is not cached.
+     */
+    private final AtomicLongArray stamps = new AtomicLongArray(STAMP_STRIPES);
+
+    private final Object[] stripeLocks = new Object[STAMP_STRIPES];
+
+    /**
+     * Instantiates a new Global session cache.
+     *
+     * @param enabled    whether sessions are cached at all
+     * @param maxSize    the max cached sessions
+     * @param expireTime the milliseconds a session stays cached
+     */
+    public GlobalSessionCache(boolean enabled, int maxSize, long expireTime) {
+        this.enabled = enabled && maxSize > 0 && expireTime > 0;
+        this.sessions = this.enabled ? CacheBuilder.newBuilder().maximumSize(maxSize).expireAfterWrite(expireTime,
+            TimeUnit.MILLISECONDS).build() : null;
+        for (int i = 0; i < STAMP_STRIPES; i++) {
+            stripeLocks[i] = new Object();
+        }
+    }
+
+    /**
+     * Is enabled.
+     *
+     * @return the boolean
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Gets a cached session.
+     *
+     * @param xid the xid
+     * @return the session, null if it is not cached
+     */
+    public GlobalSession get(String xid) {
+        return enabled ? sessions.getIfPresent(xid) : null;
+    }
+
+    /**
+     * Gets the stamp to pass to {@link #load(GlobalSession, long)}, taken before the session is read from the store.
+     *
+     * @param xid the xid
+     * @return the stamp
+     */
+    public long stamp(String xid) {
+        return enabled ? stamps.get(stripeOf(xid)) : 0L;
+    }
+
+    /**
+     * Cache a session begun by this server.
+     *
+     * @param session the session
+     */
+    public void put(GlobalSession session) {
+        if (enabled && isCacheable(session)) {
+            sessions.put(session.getXid(), session);
+        }
+    }
+
+    /**
+     * Cache a session read from the store with its branches, unless the xid was invalidated since the stamp was
+     * taken or another instance was cached meanwhile.
+     *
+     * @param session the session
+     * @param stamp   the stamp taken before the read
+     * @return the cached instance, the given session if it was not cached
+     */
+    public GlobalSession load(GlobalSession session, long stamp) {
+        if (!enabled || !isCacheable(session)) {
+            return session;
+        }
+        String xid = session.getXid();
+        synchronized (stripeLock(xid)) {
+            if (stamps.get(stripeOf(xid)) != stamp) {
+                return session;
+            }
+            GlobalSession cached = sessions.asMap().putIfAbsent(xid, session);
+            return cached != null ? cached : session;
+        }
+    }
+
+    /**
+     * Keep the cached session of a write only if the write was made through it and the session is still active.
+     *
+     * @param session the session that was written
+     */
+    public void retain(GlobalSession session) {
+        if (enabled && (!isCacheable(session) || sessions.getIfPresent(session.getXid()) != session)) {
+            invalidate(session.getXid());
+        }
+    }
+
+    /**
+     * Keep the cached session of a branch write only if the branch belongs to it.
+     *
+     * @param branchSession the branch that was written
+     */
+    public void retain(BranchSession branchSession) {
+        if (!enabled) {
+            return;
+        }
+        GlobalSession cached = sessions.getIfPresent(branchSession.getXid());
+        if (cached != null && cached.getBranch(branchSession.getBranchId()) != branchSession) {
+            invalidate(branchSession.getXid());
+        }
+    }
+
+    /**
+     * Invalidate the cached session of a xid.
+     *
+     * @param xid the xid
+     */
+    public void invalidate(String xid) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (stripeLock(xid)) {
+            stamps.incrementAndGet(stripeOf(xid));
+            sessions.invalidate(xid);
+        }
+    }
+
+    /**
+     * Invalidate all cached sessions.
+     */
+    public void clear() {
+        if (enabled) {
+            sessions.invalidateAll();
+            for (int i = 0; i < STAMP_STRIPES; i++) {
+                stamps.incrementAndGet(i);
+            }
+        }
+    }
+
+    private static boolean isCacheable(GlobalSession session) {
+        return session.isActive() && session.getStatus() == GlobalStatus.Begin;
+    }
+
+    private static int stripeOf(String xid) {
+        return (xid.hashCode() & Integer.MAX_VALUE) % STAMP_STRIPES;
+    }
+
+    private Object stripeLock(String xid) {
+        return stripeLocks[stripeOf(xid)];
+    }
+}
@@ -16,8 +16,8 @@
 package io.seata.server.session;
 
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 import io.seata.common.exception.ShouldNeverHappenException;
 import io.seata.common.exception.StoreException;
@@ -32,6 +32,10 @@ import io.seata.core.store.StoreMode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import static io.seata.common.DefaultValues.DEFAULT_STORE_SESSION_CACHE_ENABLE;
+import static io.seata.common.DefaultValues.DEFAULT_STORE_SESSION_CACHE_EXPIRE_TIME;
+import static io.seata.common.DefaultValues.DEFAULT_STORE_SESSION_CACHE_MAX_SIZE;
+
 /**
  * The type Session holder.
  *
@@ -71,6 +75,7 @@ public class SessionHolder {
     private static SessionManager ASYNC_COMMITTING_SESSION_MANAGER;
     private static SessionManager RETRY_COMMITTING_SESSION_MANAGER;
     private static SessionManager RETRY_ROLLBACKING_SESSION_MANAGER;
+    private static GlobalSessionCache GLOBAL_SESSION_CACHE = new GlobalSessionCache(false, 0, 0L);
 
     /**
      * Init.
@@ -91,6 +96,7 @@ public class SessionHolder {
                 new Object[] {RETRY_COMMITTING_SESSION_MANAGER_NAME});
             RETRY_ROLLBACKING_SESSION_MANAGER = EnhancedServiceLoader.load(SessionManager.class, StoreMode.DB.getName(),
                 new Object[] {RETRY_ROLLBACKING_SESSION_MANAGER_NAME});
+            GLOBAL_SESSION_CACHE = newGlobalSessionCache();
         } else if (StoreMode.FILE.equals(storeMode)) {
             String sessionStorePath = CONFIG.getConfig(ConfigurationKeys.STORE_FILE_DIR,
                 DEFAULT_SESSION_STORE_FILE_DIR);
@@ -105,6 +111,8 @@ public class SessionHolder {
                 new Class[] {String.class, String.class}, new Object[] {RETRY_COMMITTING_SESSION_MANAGER_NAME, null});
             RETRY_ROLLBACKING_SESSION_MANAGER = EnhancedServiceLoader.load(SessionManager.class, StoreMode.FILE.getName(),
                 new Class[] {String.class, String.class}, new Object[] {RETRY_ROLLBACKING_SESSION_MANAGER_NAME, null});
+            // the file store keeps the sessions in memory itself
+            GLOBAL_SESSION_CACHE = new GlobalSessionCache(false, 0, 0L);
         } else if (StoreMode.REDIS.equals(storeMode)) {
             ROOT_SESSION_MANAGER = EnhancedServiceLoader.load(SessionManager.class, StoreMode.REDIS.getName());
             ASYNC_COMMITTING_SESSION_MANAGER = EnhancedServiceLoader.load(SessionManager.class,
@@ -113,6 +121,16 @@ public class SessionHolder {
                 StoreMode.REDIS.getName(), new Object[] {RETRY_COMMITTING_SESSION_MANAGER_NAME});
             RETRY_ROLLBACKING_SESSION_MANAGER = EnhancedServiceLoader.load(SessionManager.class,
                 StoreMode.REDIS.getName(), new Object[] {RETRY_ROLLBACKING_SESSION_MANAGER_NAME});
+            GLOBAL_SESSION_CACHE = newGlobalSessionCache();
+        } else if (StoreMode.ROCKSDB.equals(storeMode)) {
+            ROOT_SESSION_MANAGER = EnhancedServiceLoader.load(SessionManager.class, StoreMode.ROCKSDB.getName());
+            ASYNC_COMMITTING_SESSION_MANAGER = EnhancedServiceLoader.load(SessionManager.class,
+                StoreMode.ROCKSDB.getName(), new Object[] {ASYNC_COMMITTING_SESSION_MANAGER_NAME});
+            RETRY_COMMITTING_SESSION_MANAGER = EnhancedServiceLoader.load(SessionManager.class,
+                StoreMode.ROCKSDB.getName(), new Object[] {RETRY_COMMITTING_SESSION_MANAGER_NAME});
+            RETRY_ROLLBACKING_SESSION_MANAGER = EnhancedServiceLoader.load(SessionManager.class,
+                StoreMode.ROCKSDB.getName(), new Object[] {RETRY_ROLLBACKING_SESSION_MANAGER_NAME});
+            GLOBAL_SESSION_CACHE = newGlobalSessionCache();
         } else {
             // unknown store
             throw new IllegalArgumentException("unknown store mode:" + mode);
@@ -120,6 +138,13 @@ public class SessionHolder {
         reload();
     }
 
+    private static GlobalSessionCache newGlobalSessionCache() {
+        return new GlobalSessionCache(
+            CONFIG.getBoolean(ConfigurationKeys.STORE_SESSION_CACHE_ENABLE, DEFAULT_STORE_SESSION_CACHE_ENABLE),
+            CONFIG.getInt(ConfigurationKeys.STORE_SESSION_CACHE_MAX_SIZE, DEFAULT_STORE_SESSION_CACHE_MAX_SIZE),
+            CONFIG.getLong(ConfigurationKeys.STORE_SESSION_CACHE_EXPIRE_TIME, DEFAULT_STORE_SESSION_CACHE_EXPIRE_TIME));
+    }
+
     /**
      * Reload.
      */
@@ -150,7 +175,7 @@ public class SessionHolder {
                             }
                             break;
                         default: {
-                            ArrayList<BranchSession> branchSessions = globalSession.getSortedBranches();
+                            List<BranchSession> branchSessions = globalSession.getSortedBranches();
                             branchSessions.forEach(branchSession -> {
                                 try {
                                     branchSession.lock();
@@ -242,6 +267,15 @@ public class SessionHolder {
         return RETRY_ROLLBACKING_SESSION_MANAGER;
     }
 
+    /**
+     * Gets the near cache of the active global sessions, it is only enabled in db and redis mode.
+     *
+     * @return the global session cache
+     */
+    public static GlobalSessionCache getGlobalSessionCache() {
+        return GLOBAL_SESSION_CACHE;
+    }
+
     /**
      * Find global session.
      *
@@ -253,7 +287,33 @@ public class SessionHolder {
     }
 
     /**
-     * Find global session.
+     * Find global session with its branches in the store, past the near cache. The second phase always decides on
+     * the store, because another server of the cluster may have registered a branch of a session cached here.
+     *
+     * @param xid the xid
+     * @return the global session
+     */
+    public static GlobalSession findGlobalSessionInStore(String xid) {
+        return findGlobalSessionInStore(xid, true);
+    }
+
+    /**
+     * Find global session in the store, past the near cache. Every request that changes a session reads it this
+     * way, since another server of the cluster may have changed it since it was cached here.
+     *
+     * @param xid                the xid
+     * @param withBranchSessions the withBranchSessions
+     * @return the global session
+     */
+    public static GlobalSession findGlobalSessionInStore(String xid, boolean withBranchSessions) {
+        // a session cached again after this was read from the store after the invalidation too
+        GLOBAL_SESSION_CACHE.invalidate(xid);
+        return findGlobalSession(xid, withBranchSessions);
+    }
+
+    /**
+     * Find global session, from the near cache if it is there. Only for reads whose answer may be out of date, a
+     * request that changes the session reads it with {@link #findGlobalSessionInStore(String, boolean)}.
      *
      * @param xid                the xid
      * @param withBranchSessions the withBranchSessions
@@ -276,6 +336,7 @@ public class SessionHolder {
     }
 
     public static void destroy() {
+        GLOBAL_SESSION_CACHE.clear();
         if (ROOT_SESSION_MANAGER != null) {
             ROOT_SESSION_MANAGER.destroy();
         }
@@ -114,6 +114,14 @@ public interface SessionManager extends SessionLifecycleListener, Disposable {
      */
     List<GlobalSession> findGlobalSessions(SessionCondition condition);
 
+    /**
+     * Find the global sessions in Begin status whose timeout has expired.
+     *
+     * @param now the current time millis
+     * @return the list
+     */
+    List<GlobalSession> findTimeoutSessions(long now);
+
     /**
      * lock and execute
      *
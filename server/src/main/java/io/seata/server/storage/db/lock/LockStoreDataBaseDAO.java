@@ -106,6 +106,11 @@ public class LockStoreDataBaseDAO implements LockStore {
         if (lockDOs.size() > 1) {
             lockDOs = lockDOs.stream().filter(LambdaUtils.distinctByKey(LockDO::getRowKey)).collect(Collectors.toList());
         }
+        String insertIgnoreSQL =
+            LockStoreSqlFactory.getLogStoreSql(dbType).getInsertLockIgnoreDuplicateSQL(lockTable, lockDOs.size());
+        if (insertIgnoreSQL != null) {
+            return acquireLockIgnoreDuplicate(lockDOs, insertIgnoreSQL);
+        }
         try {
             conn = lockStoreDataSource.getConnection();
             if (originalAutoCommit = conn.getAutoCommit()) {
@@ -194,6 +199,93 @@ public class LockStoreDataBaseDAO implements LockStore {
         }
     }
 
+    /**
+     * Insert all the locks in one statement that leaves the rows already locked as they are. Only when some rows
+     * may have been left are their owners checked, so where the affected row count is reliable an uncontended branch
+     * is locked with a single statement and a commit. Mysql reports a row left as it is as a found row when the client
+     * asks for found rows, the default of its jdbc driver, so there the count cannot tell and the owners are always
+     * checked. The locked rows are held by the insert until the commit, so a checked owner cannot change before it.
+     *
+     * @param lockDOs         the lock dos, distinct by row key
+     * @param insertIgnoreSQL the insert ignore duplicate sql
+     * @return the boolean
+     */
+    protected boolean acquireLockIgnoreDuplicate(List<LockDO> lockDOs, String insertIgnoreSQL) {
+        Connection conn = null;
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        boolean originalAutoCommit = true;
+        try {
+            conn = lockStoreDataSource.getConnection();
+            if (originalAutoCommit = conn.getAutoCommit()) {
+                conn.setAutoCommit(false);
+            }
+            ps = conn.prepareStatement(insertIgnoreSQL);
+            int index = 0;
+            for (LockDO lockDO : lockDOs) {
+                ps.setString(++index, lockDO.getXid());
+                ps.setLong(++index, lockDO.getTransactionId());
+                ps.setLong(++index, lockDO.getBranchId());
+                ps.setString(++index, lockDO.getResourceId());
+                ps.setString(++index, lockDO.getTableName());
+                ps.setString(++index, lockDO.getPk());
+                ps.setString(++index, lockDO.getRowKey());
+            }
+            int inserted = ps.executeUpdate();
+            if (inserted < lockDOs.size()
+                || !LockStoreSqlFactory.getLogStoreSql(dbType).isInsertLockIgnoreDuplicateCountReliable()) {
+                IOUtil.close(ps);
+                StringJoiner sj = new StringJoiner(",");
+                for (int i = 0; i < lockDOs.size(); i++) {
+                    sj.add("?");
+                }
+                String checkLockSQL = LockStoreSqlFactory.getLogStoreSql(dbType).getCheckLockableSql(lockTable,
+                    sj.toString());
+                ps = conn.prepareStatement(checkLockSQL);
+                for (int i = 0; i < lockDOs.size(); i++) {
+                    ps.setString(i + 1, lockDOs.get(i).getRowKey());
+                }
+                rs = ps.executeQuery();
+                String currentXID = lockDOs.get(0).getXid();
+                int owned = 0;
+                while (rs.next()) {
+                    String dbXID = rs.getString(ServerTableColumnsName.LOCK_TABLE_XID);
+                    if (!StringUtils.equals(dbXID, currentXID)) {
+                        if (LOGGER.isInfoEnabled()) {
+                            LOGGER.info("Global lock on [{}:{}] is holding by xid {} branchId {}",
+                                rs.getString(ServerTableColumnsName.LOCK_TABLE_TABLE_NAME),
+                                rs.getString(ServerTableColumnsName.LOCK_TABLE_PK), dbXID,
+                                rs.getLong(ServerTableColumnsName.LOCK_TABLE_BRANCH_ID));
+                        }
+                        conn.rollback();
+                        return false;
+                    }
+                    owned++;
+                }
+                // a row left as it is was unlocked before it could be checked, let the caller retry
+                if (owned < lockDOs.size()) {
+                    conn.rollback();
+                    return false;
+                }
+            }
+            conn.commit();
+            return true;
+        } catch (SQLException e) {
+            throw new StoreException(e);
+        } finally {
+            IOUtil.close(rs, ps);
+            if (conn != null) {
+                try {
+                    if (originalAutoCommit) {
+                        conn.setAutoCommit(true);
+                    }
+                    conn.close();
+                } catch (SQLException e) {
+                }
+            }
+        }
+    }
+
     @Override
     public boolean unLock(LockDO lockDO) {
         return unLock(Collections.singletonList(lockDO));
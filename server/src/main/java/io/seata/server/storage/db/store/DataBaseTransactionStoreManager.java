@@ -16,9 +16,12 @@
 package io.seata.server.storage.db.store;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import javax.sql.DataSource;
 
@@ -43,6 +46,10 @@ import io.seata.server.store.AbstractTransactionStoreManager;
 import io.seata.server.store.SessionStorable;
 import io.seata.server.store.TransactionStoreManager;
 
+import static io.seata.common.DefaultValues.DEFAULT_STORE_DB_GROUP_COMMIT;
+import static io.seata.common.DefaultValues.DEFAULT_STORE_DB_GROUP_COMMIT_SIZE;
+import static io.seata.common.DefaultValues.DEFAULT_STORE_DB_GROUP_COMMIT_WAIT;
+
 /**
  * The type Database transaction store manager.
  *
@@ -73,6 +80,12 @@ public class DataBaseTransactionStoreManager extends AbstractTransactionStoreMan
      */
     protected int logQueryLimit;
 
+    /**
+     * The scan cursors of the status queries, one per status set and so one per retry manager, each round resumes
+     * after the last row of the previous round instead of reading the same first page again.
+     */
+    private final Map<String, ScanCursor> scanCursors = new ConcurrentHashMap<>();
+
     /**
      * Get the instance.
      */
@@ -95,7 +108,14 @@ public class DataBaseTransactionStoreManager extends AbstractTransactionStoreMan
         String datasourceType = CONFIG.getConfig(ConfigurationKeys.STORE_DB_DATASOURCE_TYPE);
         //init dataSource
         DataSource logStoreDataSource = EnhancedServiceLoader.load(DataSourceProvider.class, datasourceType).provide();
-        logStore = new LogStoreDataBaseDAO(logStoreDataSource);
+        LogStoreDataBaseDAO logStoreDataBaseDAO = new LogStoreDataBaseDAO(logStoreDataSource);
+        if (CONFIG.getBoolean(ConfigurationKeys.STORE_DB_GROUP_COMMIT, DEFAULT_STORE_DB_GROUP_COMMIT)) {
+            logStore = new GroupCommitLogStore(logStoreDataBaseDAO, logStoreDataSource,
+                CONFIG.getInt(ConfigurationKeys.STORE_DB_GROUP_COMMIT_SIZE, DEFAULT_STORE_DB_GROUP_COMMIT_SIZE),
+                CONFIG.getInt(ConfigurationKeys.STORE_DB_GROUP_COMMIT_WAIT, DEFAULT_STORE_DB_GROUP_COMMIT_WAIT));
+        } else {
+            logStore = logStoreDataBaseDAO;
+        }
     }
 
     @Override
@@ -181,7 +201,17 @@ public class DataBaseTransactionStoreManager extends AbstractTransactionStoreMan
             states[i] = statuses[i].getCode();
         }
         //global transaction
-        List<GlobalTransactionDO> globalTransactionDOs = logStore.queryGlobalTransactionDO(states, logQueryLimit);
+        List<GlobalTransactionDO> globalTransactionDOs;
+        ScanCursor cursor = scanCursors.computeIfAbsent(Arrays.toString(states), k -> new ScanCursor());
+        synchronized (cursor) {
+            globalTransactionDOs = logStore.queryGlobalTransactionDO(states, cursor.gmtModified,
+                cursor.transactionId, logQueryLimit);
+            if (CollectionUtils.isEmpty(globalTransactionDOs) && cursor.gmtModified != null) {
+                // nothing is left after the cursor, start over
+                globalTransactionDOs = logStore.queryGlobalTransactionDO(states, null, 0L, logQueryLimit);
+            }
+            cursor.advance(globalTransactionDOs, logQueryLimit);
+        }
         if (CollectionUtils.isEmpty(globalTransactionDOs)) {
             return null;
         }
@@ -295,6 +325,28 @@ public class DataBaseTransactionStoreManager extends AbstractTransactionStoreMan
         return branchTransactionDO;
     }
 
+    /**
+     * The position of a status scan, the (gmt_modified, transaction_id) of the last row read.
+     */
+    private static class ScanCursor {
+
+        private Date gmtModified;
+
+        private long transactionId;
+
+        void advance(List<GlobalTransactionDO> page, int limit) {
+            if (page == null || page.size() < limit) {
+                // the end of the scan, the next round starts over
+                gmtModified = null;
+                transactionId = 0L;
+                return;
+            }
+            GlobalTransactionDO last = page.get(page.size() - 1);
+            gmtModified = last.getGmtModified();
+            transactionId = last.getTransactionId();
+        }
+    }
+
     /**
      * Sets log store.
      *
@@ -0,0 +1,344 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.seata.server.storage.db.store;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import javax.sql.DataSource;
+
+import io.seata.common.exception.StoreException;
+import io.seata.common.thread.NamedThreadFactory;
+import io.seata.common.util.IOUtil;
+import io.seata.core.store.BranchTransactionDO;
+import io.seata.core.store.GlobalTransactionDO;
+import io.seata.core.store.LogStore;
+import io.seata.server.store.TransactionStoreManager.LogOperation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The log store that commits the writes of concurrent callers together.
+ * <p>
+ * A single committer thread takes the queued writes, at most {@code groupCommitSize} of them, and runs one JDBC
+ * batch per table and operation in one local transaction. A caller blocks until the transaction holding its write is
+ * committed, so it gets the same durability as with {@link LogStoreDataBaseDAO}. When a group fails it is rolled back
+ * and its writes are retried one by one, so that a bad write only fails its own caller. Reads are not queued. If the
+ * committer thread is interrupted it stops, the queued writes and all later ones fail with a {@link StoreException}.
+ */
+public class GroupCommitLogStore implements LogStore {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(GroupCommitLogStore.class);
+
+    private static final String THREAD_PREFIX = "logStoreGroupCommit";
+
+    /**
+     * Rows are inserted before they are updated and updated before they are deleted.
+     */
+    private static final LogOperation[] COMMIT_ORDER = {LogOperation.GLOBAL_ADD, LogOperation.BRANCH_ADD,
+        LogOperation.GLOBAL_UPDATE, LogOperation.BRANCH_UPDATE, LogOperation.BRANCH_REMOVE, LogOperation.GLOBAL_REMOVE};
+
+    private final LogStoreDataBaseDAO logStoreDataBaseDAO;
+
+    private final DataSource logStoreDataSource;
+
+    private final int groupCommitSize;
+
+    private final long groupCommitWaitNanos;
+
+    private final BlockingQueue<Write> writes = new LinkedBlockingQueue<>();
+
+    private final Thread committer;
+
+    /**
+     * set once the committer thread is gone, a write is then failed rather than left waiting forever
+     */
+    private volatile boolean closed;
+
+    /**
+     * Instantiates a new Group commit log store.
+     *
+     * @param logStoreDataBaseDAO the log store data base dao
+     * @param logStoreDataSource  the data source of the dao
+     * @param groupCommitSize     the max writes of a group
+     * @param groupCommitWait     the max milliseconds a group waits for more writes
+     */
+    public GroupCommitLogStore(LogStoreDataBaseDAO logStoreDataBaseDAO, DataSource logStoreDataSource,
+                               int groupCommitSize, long groupCommitWait) {
+        this.logStoreDataBaseDAO = logStoreDataBaseDAO;
+        this.logStoreDataSource = logStoreDataSource;
+        this.groupCommitSize = Math.max(1, groupCommitSize);
+        this.groupCommitWaitNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0L, groupCommitWait));
+        this.committer = new NamedThreadFactory(THREAD_PREFIX, 1, true).newThread(this::commitLoop);
+        this.committer.start();
+    }
+
+    @Override
+    public GlobalTransactionDO queryGlobalTransactionDO(String xid) {
+        return logStoreDataBaseDAO.queryGlobalTransactionDO(xid);
+    }
+
+    @Override
+    public GlobalTransactionDO queryGlobalTransactionDO(long transactionId) {
+        return logStoreDataBaseDAO.queryGlobalTransactionDO(transactionId);
+    }
+
+    @Override
+    public List<GlobalTransactionDO> queryGlobalTransactionDO(int[] status, int limit) {
+        return logStoreDataBaseDAO.queryGlobalTransactionDO(status, limit);
+    }
+
+    @Override
+    public List<GlobalTransactionDO> queryGlobalTransactionDO(int[] status, Date afterGmtModified,
+                                                              long afterTransactionId, int limit) {
+        return logStoreDataBaseDAO.queryGlobalTransactionDO(status, afterGmtModified, afterTransactionId, limit);
+    }
+
+    @Override
+    public boolean insertGlobalTransactionDO(GlobalTransactionDO globalTransactionDO) {
+        return write(LogOperation.GLOBAL_ADD, globalTransactionDO);
+    }
+
+    @Override
+    public boolean updateGlobalTransactionDO(GlobalTransactionDO globalTransactionDO) {
+        return write(LogOperation.GLOBAL_UPDATE, globalTransactionDO);
+    }
+
+    @Override
+    public boolean deleteGlobalTransactionDO(GlobalTransactionDO globalTransactionDO) {
+        return write(LogOperation.GLOBAL_REMOVE, globalTransactionDO);
+    }
+
+    @Override
+    public List<BranchTransactionDO> queryBranchTransactionDO(String xid) {
+        return logStoreDataBaseDAO.queryBranchTransactionDO(xid);
+    }
+
+    @Override
+    public List<BranchTransactionDO> queryBranchTransactionDO(List<String> xids) {
+        return logStoreDataBaseDAO.queryBranchTransactionDO(xids);
+    }
+
+    @Override
+    public boolean insertBranchTransactionDO(BranchTransactionDO branchTransactionDO) {
+        return write(LogOperation.BRANCH_ADD, branchTransactionDO);
+    }
+
+    @Override
+    public boolean updateBranchTransactionDO(BranchTransactionDO branchTransactionDO) {
+        return write(LogOperation.BRANCH_UPDATE, branchTransactionDO);
+    }
+
+    @Override
+    public boolean deleteBranchTransactionDO(BranchTransactionDO branchTransactionDO) {
+        return write(LogOperation.BRANCH_REMOVE, branchTransactionDO);
+    }
+
+    @Override
+    public long getCurrentMaxSessionId(long high, long low) {
+        return logStoreDataBaseDAO.getCurrentMaxSessionId(high, low);
+    }
+
+    private boolean write(LogOperation logOperation, Object storeDO) {
+        if (closed) {
+            throw closedException();
+        }
+        Write write = new Write(logOperation, storeDO);
+        writes.add(write);
+        if (closed) {
+            // added after the committer failed the pending writes
+            failPending();
+        }
+        try {
+            return write.result.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            }
+            throw new StoreException(cause);
+        }
+    }
+
+    private void commitLoop() {
+        List<Write> group = new ArrayList<>(groupCommitSize);
+        while (true) {
+            try {
+                group.add(writes.take());
+                writes.drainTo(group, groupCommitSize - group.size());
+                if (groupCommitWaitNanos > 0) {
+                    long deadline = System.nanoTime() + groupCommitWaitNanos;
+                    long remaining;
+                    while (group.size() < groupCommitSize && (remaining = deadline - System.nanoTime()) > 0) {
+                        Write write = writes.poll(remaining, TimeUnit.NANOSECONDS);
+                        if (write == null) {
+                            break;
+                        }
+                        group.add(write);
+                        writes.drainTo(group, groupCommitSize - group.size());
+                    }
+                }
+                commit(group);
+            } catch (InterruptedException e) {
+                LOGGER.error("the group commit thread is interrupted, no more writes are taken");
+                closed = true;
+                StoreException exception = closedException();
+                group.forEach(write -> write.result.completeExceptionally(exception));
+                failPending();
+                return;
+            } catch (Throwable t) {
+                LOGGER.error("group commit error: {}", t.getMessage(), t);
+                group.forEach(write -> write.result.completeExceptionally(t));
+            } finally {
+                group.clear();
+            }
+        }
+    }
+
+    /**
+     * Fail the writes still queued, called once the committer is gone.
+     */
+    private void failPending() {
+        List<Write> pending = new ArrayList<>();
+        writes.drainTo(pending);
+        StoreException exception = closedException();
+        pending.forEach(write -> write.result.completeExceptionally(exception));
+    }
+
+    private static StoreException closedException() {
+        return new StoreException("the group commit thread is interrupted");
+    }
+
+    private void commit(List<Write> group) {
+        if (group.size() == 1) {
+            writeOne(group.get(0));
+            return;
+        }
+        Map<LogOperation, List<Write>> groupByOperation = new EnumMap<>(LogOperation.class);
+        for (Write write : group) {
+            groupByOperation.computeIfAbsent(write.logOperation, k -> new ArrayList<>()).add(write);
+        }
+        Map<LogOperation, boolean[]> results = new EnumMap<>(LogOperation.class);
+        boolean committed = false;
+        Connection conn = null;
+        try {
+            conn = logStoreDataSource.getConnection();
+            conn.setAutoCommit(false);
+            for (LogOperation logOperation : COMMIT_ORDER) {
+                List<Write> operationWrites = groupByOperation.get(logOperation);
+                if (operationWrites != null) {
+                    results.put(logOperation, logStoreDataBaseDAO.writeBatch(conn, logOperation,
+                        operationWrites.stream().map(write -> write.storeDO).collect(Collectors.toList())));
+                }
+            }
+            conn.commit();
+            committed = true;
+        } catch (SQLException | RuntimeException e) {
+            rollback(conn);
+            LOGGER.warn("group commit of {} writes failed, write them one by one: {}", group.size(), e.getMessage());
+        } finally {
+            resetAutoCommit(conn);
+            IOUtil.close(conn);
+        }
+        if (!committed) {
+            group.forEach(this::writeOne);
+            return;
+        }
+        results.forEach((logOperation, operationResults) -> {
+            List<Write> operationWrites = groupByOperation.get(logOperation);
+            for (int i = 0; i < operationResults.length; i++) {
+                operationWrites.get(i).result.complete(operationResults[i]);
+            }
+        });
+    }
+
+    private void writeOne(Write write) {
+        try {
+            boolean result;
+            switch (write.logOperation) {
+                case GLOBAL_ADD:
+                    result = logStoreDataBaseDAO.insertGlobalTransactionDO((GlobalTransactionDO)write.storeDO);
+                    break;
+                case GLOBAL_UPDATE:
+                    result = logStoreDataBaseDAO.updateGlobalTransactionDO((GlobalTransactionDO)write.storeDO);
+                    break;
+                case GLOBAL_REMOVE:
+                    result = logStoreDataBaseDAO.deleteGlobalTransactionDO((GlobalTransactionDO)write.storeDO);
+                    break;
+                case BRANCH_ADD:
+                    result = logStoreDataBaseDAO.insertBranchTransactionDO((BranchTransactionDO)write.storeDO);
+                    break;
+                case BRANCH_UPDATE:
+                    result = logStoreDataBaseDAO.updateBranchTransactionDO((BranchTransactionDO)write.storeDO);
+                    break;
+                case BRANCH_REMOVE:
+                    result = logStoreDataBaseDAO.deleteBranchTransactionDO((BranchTransactionDO)write.storeDO);
+                    break;
+                default:
+                    throw new StoreException("Unknown LogOperation:" + write.logOperation.name());
+            }
+            write.result.complete(result);
+        } catch (Throwable t) {
+            write.result.completeExceptionally(t);
+        }
+    }
+
+    private static void rollback(Connection conn) {
+        if (conn == null) {
+            return;
+        }
+        try {
+            conn.rollback();
+        } catch (SQLException e) {
+            LOGGER.error("group commit rollback error: {}", e.getMessage(), e);
+        }
+    }
+
+    private static void resetAutoCommit(Connection conn) {
+        if (conn == null) {
+            return;
+        }
+        try {
+            conn.setAutoCommit(true);
+        } catch (SQLException e) {
+            LOGGER.warn("group commit reset autocommit error: {}", e.getMessage());
+        }
+    }
+
+    private static class Write {
+
+        private final LogOperation logOperation;
+
+        private final Object storeDO;
+
+        private final CompletableFuture<Boolean> result = new CompletableFuture<>();
+
+        Write(LogOperation logOperation, Object storeDO) {
+            this.logOperation = logOperation;
+            this.storeDO = storeDO;
+        }
+    }
+}
@@ -20,7 +20,10 @@ import java.sql.DatabaseMetaData;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 import javax.sql.DataSource;
 
@@ -35,7 +38,9 @@ import io.seata.core.constants.ServerTableColumnsName;
 import io.seata.core.store.BranchTransactionDO;
 import io.seata.core.store.GlobalTransactionDO;
 import io.seata.core.store.LogStore;
+import io.seata.core.store.db.sql.log.LogStoreSqls;
 import io.seata.core.store.db.sql.log.LogStoreSqlsFactory;
+import io.seata.server.store.TransactionStoreManager.LogOperation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -185,6 +190,47 @@ public class LogStoreDataBaseDAO implements LogStore {
         }
     }
 
+    @Override
+    public List<GlobalTransactionDO> queryGlobalTransactionDO(int[] statuses, Date afterGmtModified,
+                                                              long afterTransactionId, int limit) {
+        List<GlobalTransactionDO> ret = new ArrayList<>();
+        Connection conn = null;
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        try {
+            conn = logStoreDataSource.getConnection();
+            conn.setAutoCommit(true);
+
+            String paramsPlaceHolder = org.apache.commons.lang.StringUtils.repeat("?", ",", statuses.length);
+
+            String sql = LogStoreSqlsFactory.getLogStoreSqls(dbType).getQueryGlobalTransactionSQLByStatusAfter(
+                globalTable, paramsPlaceHolder);
+            ps = conn.prepareStatement(sql);
+            // fetch the page in one round trip instead of the driver default
+            ps.setFetchSize(limit);
+            int index = 1;
+            for (int status : statuses) {
+                ps.setInt(index++, status);
+            }
+            // the first page starts before any row
+            Timestamp cursor = afterGmtModified == null ? new Timestamp(0L) : afterGmtModified instanceof Timestamp
+                ? (Timestamp)afterGmtModified : new Timestamp(afterGmtModified.getTime());
+            ps.setTimestamp(index++, cursor);
+            ps.setTimestamp(index++, cursor);
+            ps.setLong(index++, afterTransactionId);
+            ps.setInt(index, limit);
+            rs = ps.executeQuery();
+            while (rs.next()) {
+                ret.add(convertGlobalTransactionDO(rs));
+            }
+            return ret;
+        } catch (SQLException e) {
+            throw new DataAccessException(e);
+        } finally {
+            IOUtil.close(rs, ps, conn);
+        }
+    }
+
     @Override
     public boolean insertGlobalTransactionDO(GlobalTransactionDO globalTransactionDO) {
         String sql = LogStoreSqlsFactory.getLogStoreSqls(dbType).getInsertGlobalTransactionSQL(globalTable);
@@ -194,18 +240,7 @@ public class LogStoreDataBaseDAO implements LogStore {
             conn = logStoreDataSource.getConnection();
             conn.setAutoCommit(true);
             ps = conn.prepareStatement(sql);
-            ps.setString(1, globalTransactionDO.getXid());
-            ps.setLong(2, globalTransactionDO.getTransactionId());
-            ps.setInt(3, globalTransactionDO.getStatus());
-            ps.setString(4, globalTransactionDO.getApplicationId());
-            ps.setString(5, globalTransactionDO.getTransactionServiceGroup());
-            String transactionName = globalTransactionDO.getTransactionName();
-            transactionName = transactionName.length() > transactionNameColumnSize ? transactionName.substring(0,
-                transactionNameColumnSize) : transactionName;
-            ps.setString(6, transactionName);
-            ps.setInt(7, globalTransactionDO.getTimeout());
-            ps.setLong(8, globalTransactionDO.getBeginTime());
-            ps.setString(9, globalTransactionDO.getApplicationData());
+            setInsertGlobalTransactionParams(ps, globalTransactionDO);
             return ps.executeUpdate() > 0;
         } catch (SQLException e) {
             throw new StoreException(e);
@@ -223,8 +258,7 @@ public class LogStoreDataBaseDAO implements LogStore {
             conn = logStoreDataSource.getConnection();
             conn.setAutoCommit(true);
             ps = conn.prepareStatement(sql);
-            ps.setInt(1, globalTransactionDO.getStatus());
-            ps.setString(2, globalTransactionDO.getXid());
+            setUpdateGlobalTransactionParams(ps, globalTransactionDO);
             return ps.executeUpdate() > 0;
         } catch (SQLException e) {
             throw new StoreException(e);
@@ -242,7 +276,7 @@ public class LogStoreDataBaseDAO implements LogStore {
             conn = logStoreDataSource.getConnection();
             conn.setAutoCommit(true);
             ps = conn.prepareStatement(sql);
-            ps.setString(1, globalTransactionDO.getXid());
+            setDeleteGlobalTransactionParams(ps, globalTransactionDO);
             ps.executeUpdate();
         } catch (SQLException e) {
             throw new StoreException(e);
@@ -315,15 +349,7 @@ public class LogStoreDataBaseDAO implements LogStore {
             conn = logStoreDataSource.getConnection();
             conn.setAutoCommit(true);
             ps = conn.prepareStatement(sql);
-            ps.setString(1, branchTransactionDO.getXid());
-            ps.setLong(2, branchTransactionDO.getTransactionId());
-            ps.setLong(3, branchTransactionDO.getBranchId());
-            ps.setString(4, branchTransactionDO.getResourceGroupId());
-            ps.setString(5, branchTransactionDO.getResourceId());
-            ps.setString(6, branchTransactionDO.getBranchType());
-            ps.setInt(7, branchTransactionDO.getStatus());
-            ps.setString(8, branchTransactionDO.getClientId());
-            ps.setString(9, branchTransactionDO.getApplicationData());
+            setInsertBranchTransactionParams(ps, branchTransactionDO);
             return ps.executeUpdate() > 0;
         } catch (SQLException e) {
             throw new StoreException(e);
@@ -341,9 +367,7 @@ public class LogStoreDataBaseDAO implements LogStore {
             conn = logStoreDataSource.getConnection();
             conn.setAutoCommit(true);
             ps = conn.prepareStatement(sql);
-            ps.setInt(1, branchTransactionDO.getStatus());
-            ps.setString(2, branchTransactionDO.getXid());
-            ps.setLong(3, branchTransactionDO.getBranchId());
+            setUpdateBranchTransactionParams(ps, branchTransactionDO);
             return ps.executeUpdate() > 0;
         } catch (SQLException e) {
             throw new StoreException(e);
@@ -361,8 +385,7 @@ public class LogStoreDataBaseDAO implements LogStore {
             conn = logStoreDataSource.getConnection();
             conn.setAutoCommit(true);
             ps = conn.prepareStatement(sql);
-            ps.setString(1, branchTransactionDO.getXid());
-            ps.setLong(2, branchTransactionDO.getBranchId());
+            setDeleteBranchTransactionParams(ps, branchTransactionDO);
             ps.executeUpdate();
         } catch (SQLException e) {
             throw new StoreException(e);
@@ -372,6 +395,129 @@ public class LogStoreDataBaseDAO implements LogStore {
         return true;
     }
 
+    /**
+     * Execute the writes of one log operation as a single JDBC batch on the given connection, the caller owns the
+     * connection and its transaction.
+     *
+     * @param conn         the connection
+     * @param logOperation the log operation
+     * @param storeDOs     the global or branch transaction DOs, matching the log operation
+     * @return whether each write changed a row, deletes always succeed
+     * @throws SQLException the sql exception
+     */
+    public boolean[] writeBatch(Connection conn, LogOperation logOperation, List<?> storeDOs) throws SQLException {
+        LogStoreSqls logStoreSqls = LogStoreSqlsFactory.getLogStoreSqls(dbType);
+        String sql;
+        switch (logOperation) {
+            case GLOBAL_ADD:
+                sql = logStoreSqls.getInsertGlobalTransactionSQL(globalTable);
+                break;
+            case GLOBAL_UPDATE:
+                sql = logStoreSqls.getUpdateGlobalTransactionStatusSQL(globalTable);
+                break;
+            case GLOBAL_REMOVE:
+                sql = logStoreSqls.getDeleteGlobalTransactionSQL(globalTable);
+                break;
+            case BRANCH_ADD:
+                sql = logStoreSqls.getInsertBranchTransactionSQL(branchTable);
+                break;
+            case BRANCH_UPDATE:
+                sql = logStoreSqls.getUpdateBranchTransactionStatusSQL(branchTable);
+                break;
+            case BRANCH_REMOVE:
+                sql = logStoreSqls.getDeleteBranchTransactionByBranchIdSQL(branchTable);
+                break;
+            default:
+                throw new StoreException("Unknown LogOperation:" + logOperation.name());
+        }
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            for (Object storeDO : storeDOs) {
+                switch (logOperation) {
+                    case GLOBAL_ADD:
+                        setInsertGlobalTransactionParams(ps, (GlobalTransactionDO)storeDO);
+                        break;
+                    case GLOBAL_UPDATE:
+                        setUpdateGlobalTransactionParams(ps, (GlobalTransactionDO)storeDO);
+                        break;
+                    case GLOBAL_REMOVE:
+                        setDeleteGlobalTransactionParams(ps, (GlobalTransactionDO)storeDO);
+                        break;
+                    case BRANCH_ADD:
+                        setInsertBranchTransactionParams(ps, (BranchTransactionDO)storeDO);
+                        break;
+                    case BRANCH_UPDATE:
+                        setUpdateBranchTransactionParams(ps, (BranchTransactionDO)storeDO);
+                        break;
+                    default:
+                        setDeleteBranchTransactionParams(ps, (BranchTransactionDO)storeDO);
+                        break;
+                }
+                ps.addBatch();
+            }
+            int[] counts = ps.executeBatch();
+            boolean alwaysSucceed =
+                logOperation == LogOperation.GLOBAL_REMOVE || logOperation == LogOperation.BRANCH_REMOVE;
+            boolean[] results = new boolean[storeDOs.size()];
+            for (int i = 0; i < results.length; i++) {
+                results[i] = alwaysSucceed || counts[i] > 0 || counts[i] == Statement.SUCCESS_NO_INFO;
+            }
+            return results;
+        }
+    }
+
+    private void setInsertGlobalTransactionParams(PreparedStatement ps, GlobalTransactionDO globalTransactionDO)
+        throws SQLException {
+        ps.setString(1, globalTransactionDO.getXid());
+        ps.setLong(2, globalTransactionDO.getTransactionId());
+        ps.setInt(3, globalTransactionDO.getStatus());
+        ps.setString(4, globalTransactionDO.getApplicationId());
+        ps.setString(5, globalTransactionDO.getTransactionServiceGroup());
+        String transactionName = globalTransactionDO.getTransactionName();
+        transactionName = transactionName.length() > transactionNameColumnSize ? transactionName.substring(0,
+            transactionNameColumnSize) : transactionName;
+        ps.setString(6, transactionName);
+        ps.setInt(7, globalTransactionDO.getTimeout());
+        ps.setLong(8, globalTransactionDO.getBeginTime());
+        ps.setString(9, globalTransactionDO.getApplicationData());
+    }
+
+    private void setUpdateGlobalTransactionParams(PreparedStatement ps, GlobalTransactionDO globalTransactionDO)
+        throws SQLException {
+        ps.setInt(1, globalTransactionDO.getStatus());
+        ps.setString(2, globalTransactionDO.getXid());
+    }
+
+    private void setDeleteGlobalTransactionParams(PreparedStatement ps, GlobalTransactionDO globalTransactionDO)
+        throws SQLException {
+        ps.setString(1, globalTransactionDO.getXid());
+    }
+
+    private void setInsertBranchTransactionParams(PreparedStatement ps, BranchTransactionDO branchTransactionDO)
+        throws SQLException {
+        ps.setString(1, branchTransactionDO.getXid());
+        ps.setLong(2, branchTransactionDO.getTransactionId());
+        ps.setLong(3, branchTransactionDO.getBranchId());
+        ps.setString(4, branchTransactionDO.getResourceGroupId());
+        ps.setString(5, branchTransactionDO.getResourceId());
+        ps.setString(6, branchTransactionDO.getBranchType());
+        ps.setInt(7, branchTransactionDO.getStatus());
+        ps.setString(8, branchTransactionDO.getClientId());
+        ps.setString(9, branchTransactionDO.getApplicationData());
+    }
+
+    private void setUpdateBranchTransactionParams(PreparedStatement ps, BranchTransactionDO branchTransactionDO)
+        throws SQLException {
+        ps.setInt(1, branchTransactionDO.getStatus());
+        ps.setString(2, branchTransactionDO.getXid());
+        ps.setLong(3, branchTransactionDO.getBranchId());
+    }
+
+    private void setDeleteBranchTransactionParams(PreparedStatement ps, BranchTransactionDO branchTransactionDO)
+        throws SQLException {
+        ps.setString(1, branchTransactionDO.getXid());
+        ps.setLong(2, branchTransactionDO.getBranchId());
+    }
+
     @Override
     public long getCurrentMaxSessionId(long high, long low) {
         String transMaxSql = LogStoreSqlsFactory.getLogStoreSqls(dbType).getQueryGlobalMax(globalTable);
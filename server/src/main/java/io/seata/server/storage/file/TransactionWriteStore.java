@@ -86,25 +86,45 @@ public class TransactionWriteStore implements SessionStorable {
 
     @Override
     public byte[] encode() {
-        byte[] bySessionRequest = this.sessionRequest.encode();
-        byte byOpCode = this.getOperate().getCode();
-        int len = bySessionRequest.length + 1;
-        byte[] byResult = new byte[len];
-        ByteBuffer byteBuffer = ByteBuffer.wrap(byResult);
-        byteBuffer.put(bySessionRequest);
-        byteBuffer.put(byOpCode);
+        Encoding encoding = encoding();
+        byte[] byResult = new byte[encoding.size()];
+        encoding.encodeTo(ByteBuffer.wrap(byResult));
         return byResult;
     }
 
+    @Override
+    public Encoding encoding() {
+        Encoding sessionEncoding = this.sessionRequest.encoding();
+        byte operateCode = this.getOperate().getCode();
+        return new Encoding() {
+            @Override
+            public int size() {
+                return sessionEncoding.size() + 1;
+            }
+
+            @Override
+            public void encodeTo(ByteBuffer byteBuffer) {
+                sessionEncoding.encodeTo(byteBuffer);
+                byteBuffer.put(operateCode);
+            }
+        };
+    }
+
     @Override
     public void decode(byte[] src) {
-        ByteBuffer byteBuffer = ByteBuffer.wrap(src);
-        byte[] bySessionRequest = new byte[src.length - 1];
-        byteBuffer.get(bySessionRequest);
-        byte byOpCode = byteBuffer.get();
+        decode(ByteBuffer.wrap(src));
+    }
+
+    @Override
+    public void decode(ByteBuffer byteBuffer) {
+        int end = byteBuffer.limit();
+        byte byOpCode = byteBuffer.get(end - 1);
         this.operate = LogOperation.getLogOperationByCode(byOpCode);
         SessionStorable tmpSessionStorable = getSessionInstanceByOperation(this.operate);
-        tmpSessionStorable.decode(bySessionRequest);
+        ByteBuffer sessionBuffer = byteBuffer.duplicate();
+        sessionBuffer.limit(end - 1);
+        tmpSessionStorable.decode(sessionBuffer);
+        byteBuffer.position(end);
         this.sessionRequest = tmpSessionStorable;
     }
 
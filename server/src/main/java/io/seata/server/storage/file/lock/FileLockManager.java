@@ -15,7 +15,7 @@
  */
 package io.seata.server.storage.file.lock;
 
-import java.util.ArrayList;
+import java.util.List;
 
 import io.seata.common.loader.LoadLevel;
 import io.seata.core.exception.TransactionException;
@@ -37,9 +37,22 @@ public class FileLockManager extends AbstractLockManager {
         return new FileLocker(branchSession);
     }
 
+    @Override
+    public boolean releaseLock(BranchSession branchSession) throws TransactionException {
+        if (branchSession == null) {
+            throw new IllegalArgumentException("branchSession can't be null for memory/file locker.");
+        }
+        Locker locker = getLocker(branchSession);
+        if (!(locker instanceof FileLocker)) {
+            return super.releaseLock(branchSession);
+        }
+        // the branch session tracks the row locks it holds, so the lock key needn't be parsed again
+        return ((FileLocker) locker).releaseHeldLocks();
+    }
+
     @Override
     public boolean releaseGlobalSessionLock(GlobalSession globalSession) throws TransactionException {
-        ArrayList<BranchSession> branchSessions = globalSession.getBranchSessions();
+        List<BranchSession> branchSessions = globalSession.getBranchSessions();
         boolean releaseLockResult = true;
         for (BranchSession branchSession : branchSessions) {
             if (!this.releaseLock(branchSession)) {
@@ -15,13 +15,11 @@
  */
 package io.seata.server.storage.file.lock;
 
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
-import io.netty.util.internal.ConcurrentSet;
 import io.seata.common.exception.FrameworkException;
 import io.seata.common.util.CollectionUtils;
 import io.seata.core.exception.TransactionException;
@@ -38,9 +36,13 @@ public class FileLocker extends AbstractLocker {
 
     private static final int BUCKET_PER_TABLE = 128;
 
+    /**
+     * The transaction id of a row without lock, real transaction ids are always positive.
+     */
+    private static final long NO_LOCK = 0L;
+
     private static final ConcurrentMap<String/* resourceId */, ConcurrentMap<String/* tableName */,
-        ConcurrentMap<Integer/* bucketId */, BucketLockMap>>>
-        LOCK_MAP = new ConcurrentHashMap<>();
+        BucketLockMap[]>> LOCK_MAP = new ConcurrentHashMap<>();
 
     /**
      * The Branch session.
@@ -65,36 +67,32 @@ public class FileLocker extends AbstractLocker {
         String resourceId = branchSession.getResourceId();
         long transactionId = branchSession.getTransactionId();
 
-        ConcurrentMap<BucketLockMap, Set<String>> bucketHolder = branchSession.getLockHolder();
-        ConcurrentMap<String, ConcurrentMap<Integer, BucketLockMap>> dbLockMap = LOCK_MAP.get(resourceId);
+        LockHolder lockHolder = branchSession.getLockHolder();
+        ConcurrentMap<String, BucketLockMap[]> dbLockMap = LOCK_MAP.get(resourceId);
         if (dbLockMap == null) {
             LOCK_MAP.putIfAbsent(resourceId, new ConcurrentHashMap<>());
             dbLockMap = LOCK_MAP.get(resourceId);
         }
 
+        String lastTableName = null;
+        BucketLockMap[] tableLockMap = null;
         for (RowLock lock : rowLocks) {
             String tableName = lock.getTableName();
             String pk = lock.getPk();
-            ConcurrentMap<Integer, BucketLockMap> tableLockMap = dbLockMap.get(tableName);
-            if (tableLockMap == null) {
-                dbLockMap.putIfAbsent(tableName, new ConcurrentHashMap<>());
+            // row locks of a branch are grouped by table, so the table lookup is mostly skipped
+            if (!tableName.equals(lastTableName)) {
                 tableLockMap = dbLockMap.get(tableName);
+                if (tableLockMap == null) {
+                    dbLockMap.putIfAbsent(tableName, newTableLockMap());
+                    tableLockMap = dbLockMap.get(tableName);
+                }
+                lastTableName = tableName;
             }
-            int bucketId = pk.hashCode() % BUCKET_PER_TABLE;
-            BucketLockMap bucketLockMap = tableLockMap.get(bucketId);
-            if (bucketLockMap == null) {
-                tableLockMap.putIfAbsent(bucketId, new BucketLockMap());
-                bucketLockMap = tableLockMap.get(bucketId);
-            }
-            Long previousLockTransactionId = bucketLockMap.get().putIfAbsent(pk, transactionId);
-            if (previousLockTransactionId == null) {
+            BucketLockMap bucketLockMap = tableLockMap[bucketIndex(pk)];
+            long previousLockTransactionId = bucketLockMap.putIfAbsent(pk, transactionId);
+            if (previousLockTransactionId == NO_LOCK) {
                 //No existing lock, and now locked by myself
-                Set<String> keysInHolder = bucketHolder.get(bucketLockMap);
-                if (keysInHolder == null) {
-                    bucketHolder.putIfAbsent(bucketLockMap, new ConcurrentSet<>());
-                    keysInHolder = bucketHolder.get(bucketLockMap);
-                }
-                keysInHolder.add(pk);
+                lockHolder.add(bucketLockMap, pk);
             } else if (previousLockTransactionId == transactionId) {
                 // Locked by me before
                 continue;
@@ -118,19 +116,17 @@ public class FileLocker extends AbstractLocker {
             //no lock
             return true;
         }
-        ConcurrentMap<BucketLockMap, Set<String>> lockHolder = branchSession.getLockHolder();
-        if (lockHolder == null || lockHolder.size() == 0) {
-            return true;
-        }
-        for (Map.Entry<BucketLockMap, Set<String>> entry : lockHolder.entrySet()) {
-            BucketLockMap bucket = entry.getKey();
-            Set<String> keys = entry.getValue();
-            for (String key : keys) {
-                // remove lock only if it locked by myself
-                bucket.get().remove(key, branchSession.getTransactionId());
-            }
-        }
-        lockHolder.clear();
+        branchSession.getLockHolder().release(branchSession.getTransactionId());
+        return true;
+    }
+
+    /**
+     * Release all the row locks held by the branch session, as tracked by its lock holder.
+     *
+     * @return the boolean
+     */
+    public boolean releaseHeldLocks() {
+        branchSession.getLockHolder().release(branchSession.getTransactionId());
         return true;
     }
 
@@ -140,28 +136,22 @@ public class FileLocker extends AbstractLocker {
             //no lock
             return true;
         }
-        Long transactionId = rowLocks.get(0).getTransactionId();
+        long transactionId = rowLocks.get(0).getTransactionId();
         String resourceId = rowLocks.get(0).getResourceId();
-        ConcurrentMap<String, ConcurrentMap<Integer, BucketLockMap>> dbLockMap = LOCK_MAP.get(resourceId);
+        ConcurrentMap<String, BucketLockMap[]> dbLockMap = LOCK_MAP.get(resourceId);
         if (dbLockMap == null) {
             return true;
         }
         for (RowLock rowLock : rowLocks) {
-            String xid = rowLock.getXid();
             String tableName = rowLock.getTableName();
             String pk = rowLock.getPk();
 
-            ConcurrentMap<Integer, BucketLockMap> tableLockMap = dbLockMap.get(tableName);
+            BucketLockMap[] tableLockMap = dbLockMap.get(tableName);
             if (tableLockMap == null) {
                 continue;
             }
-            int bucketId = pk.hashCode() % BUCKET_PER_TABLE;
-            BucketLockMap bucketLockMap = tableLockMap.get(bucketId);
-            if (bucketLockMap == null) {
-                continue;
-            }
-            Long lockingTransactionId = bucketLockMap.get().get(pk);
-            if (lockingTransactionId == null || lockingTransactionId.longValue() == transactionId) {
+            long lockingTransactionId = tableLockMap[bucketIndex(pk)].get(pk);
+            if (lockingTransactionId == NO_LOCK || lockingTransactionId == transactionId) {
                 // Locked by me
                 continue;
             } else {
@@ -177,28 +167,183 @@ public class FileLocker extends AbstractLocker {
         LOCK_MAP.clear();
     }
 
+    private static BucketLockMap[] newTableLockMap() {
+        BucketLockMap[] tableLockMap = new BucketLockMap[BUCKET_PER_TABLE];
+        for (int i = 0; i < BUCKET_PER_TABLE; i++) {
+            tableLockMap[i] = new BucketLockMap();
+        }
+        return tableLockMap;
+    }
+
+    private static int bucketIndex(String pk) {
+        int h = pk.hashCode();
+        // BUCKET_PER_TABLE is a power of two, the mask keeps the index non-negative
+        return (h ^ (h >>> 16)) & (BUCKET_PER_TABLE - 1);
+    }
+
     /**
-     * Because bucket lock map will be key of HashMap(lockHolder), however {@link ConcurrentHashMap} overwrites
-     * {@link Object##hashCode()} and {@link Object##equals(Object)}, that leads to hash key conflict in lockHolder.
-     * We define a {@link BucketLockMap} to hold the ConcurrentHashMap(bucketLockMap) and replace it as key of
-     * HashMap(lockHolder).
+     * A bucket of the row locks of one table: an open addressing map from pk to the transaction id holding it.
+     * Transaction ids are kept unboxed and no node object is allocated per row, every access is guarded by
+     * the monitor of the bucket.
      */
     public static class BucketLockMap {
-        private final ConcurrentHashMap<String/* pk */, Long/* transactionId */> bucketLockMap
-            = new ConcurrentHashMap<>();
 
-        ConcurrentHashMap<String, Long> get() {
-            return bucketLockMap;
+        private static final int INITIAL_CAPACITY = 8;
+
+        private String[] pks = new String[INITIAL_CAPACITY];
+
+        private long[] transactionIds = new long[INITIAL_CAPACITY];
+
+        private int size;
+
+        /**
+         * Lock the row if it is not locked yet.
+         *
+         * @param pk            the pk
+         * @param transactionId the transaction id
+         * @return the transaction id holding the row before, or NO_LOCK if the row is locked now
+         */
+        synchronized long putIfAbsent(String pk, long transactionId) {
+            int mask = pks.length - 1;
+            int i = slot(pk, mask);
+            for (String key; (key = pks[i]) != null; i = (i + 1) & mask) {
+                if (key.equals(pk)) {
+                    return transactionIds[i];
+                }
+            }
+            pks[i] = pk;
+            transactionIds[i] = transactionId;
+            // keep the load factor under 0.5 so that probe sequences stay short
+            if (++size > pks.length >> 1) {
+                resize(pks.length << 1);
+            }
+            return NO_LOCK;
+        }
+
+        /**
+         * Get the transaction id holding the row.
+         *
+         * @param pk the pk
+         * @return the transaction id, or NO_LOCK if the row is not locked
+         */
+        synchronized long get(String pk) {
+            int i = indexOf(pk);
+            return i < 0 ? NO_LOCK : transactionIds[i];
         }
 
-        @Override
-        public int hashCode() {
-            return super.hashCode();
+        /**
+         * Unlock the row only if it is locked by the transaction.
+         *
+         * @param pk            the pk
+         * @param transactionId the transaction id
+         * @return true if the row is unlocked
+         */
+        synchronized boolean remove(String pk, long transactionId) {
+            int hole = indexOf(pk);
+            if (hole < 0 || transactionIds[hole] != transactionId) {
+                return false;
+            }
+            // backward shift deletion: no tombstone is left behind, so lookups never slow down
+            int mask = pks.length - 1;
+            for (int i = (hole + 1) & mask; pks[i] != null; i = (i + 1) & mask) {
+                int home = slot(pks[i], mask);
+                boolean reachable = hole <= i ? (hole < home && home <= i) : (hole < home || home <= i);
+                if (!reachable) {
+                    pks[hole] = pks[i];
+                    transactionIds[hole] = transactionIds[i];
+                    hole = i;
+                }
+            }
+            pks[hole] = null;
+            transactionIds[hole] = NO_LOCK;
+            if (--size < pks.length >> 3 && pks.length > INITIAL_CAPACITY) {
+                resize(pks.length >> 1);
+            }
+            return true;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        private int indexOf(String pk) {
+            int mask = pks.length - 1;
+            for (int i = slot(pk, mask); pks[i] != null; i = (i + 1) & mask) {
+                if (pks[i].equals(pk)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private void resize(int capacity) {
+            String[] oldPks = pks;
+            long[] oldTransactionIds = transactionIds;
+            pks = new String[capacity];
+            transactionIds = new long[capacity];
+            int mask = capacity - 1;
+            for (int j = 0; j < oldPks.length; j++) {
+                if (oldPks[j] != null) {
+                    int i = slot(oldPks[j], mask);
+                    while (pks[i] != null) {
+                        i = (i + 1) & mask;
+                    }
+                    pks[i] = oldPks[j];
+                    transactionIds[i] = oldTransactionIds[j];
+                }
+            }
+        }
+
+        private static int slot(String pk, int mask) {
+            // all the pks in a bucket share the low bits used by bucketIndex, so they are mixed again here
+            int h = pk.hashCode() * 0x9E3779B9;
+            return (h ^ (h >>> 16)) & mask;
+        }
+    }
+
+    /**
+     * The row locks held by one branch session, kept as two parallel arrays instead of a map of sets.
+     */
+    public static class LockHolder {
+
+        private static final int INITIAL_CAPACITY = 4;
+
+        private BucketLockMap[] buckets;
+
+        private String[] pks;
+
+        private int size;
+
+        synchronized void add(BucketLockMap bucket, String pk) {
+            if (buckets == null) {
+                buckets = new BucketLockMap[INITIAL_CAPACITY];
+                pks = new String[INITIAL_CAPACITY];
+            } else if (size == buckets.length) {
+                buckets = Arrays.copyOf(buckets, size << 1);
+                pks = Arrays.copyOf(pks, size << 1);
+            }
+            buckets[size] = bucket;
+            pks[size] = pk;
+            size++;
+        }
+
+        synchronized void release(long transactionId) {
+            for (int i = 0; i < size; i++) {
+                // remove lock only if it locked by myself
+                buckets[i].remove(pks[i], transactionId);
+            }
+            buckets = null;
+            pks = null;
+            size = 0;
         }
 
-        @Override
-        public boolean equals(Object o) {
-            return super.equals(o);
+        /**
+         * Gets the count of the held row locks.
+         *
+         * @return the count
+         */
+        public synchronized int size() {
+            return size;
         }
     }
 }
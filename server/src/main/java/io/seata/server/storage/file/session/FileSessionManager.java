@@ -19,11 +19,14 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableSet;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
 import io.seata.common.exception.ShouldNeverHappenException;
 import io.seata.common.loader.LoadLevel;
 import io.seata.common.util.StringUtils;
@@ -60,6 +63,13 @@ public class FileSessionManager extends AbstractSessionManager implements Reload
      */
     private Map<String, GlobalSession> sessionMap = new ConcurrentHashMap<>();
 
+    /**
+     * The sessions in Begin status ordered by deadline (begin time + timeout),
+     * so the timeout check only touches the sessions that are due.
+     */
+    private final NavigableSet<GlobalSession> deadlineIndex = new ConcurrentSkipListSet<>(
+        Comparator.comparingLong(FileSessionManager::getDeadline).thenComparingLong(GlobalSession::getTransactionId));
+
     /**
      * Instantiates a new File based session manager.
      *
@@ -86,12 +96,22 @@ public class FileSessionManager extends AbstractSessionManager implements Reload
     public void reload() {
         restoreSessions();
         washSessions();
+        sessionMap.values().forEach(this::addToDeadlineIndex);
     }
 
     @Override
     public void addGlobalSession(GlobalSession session) throws TransactionException {
         super.addGlobalSession(session);
         sessionMap.put(session.getXid(), session);
+        addToDeadlineIndex(session);
+    }
+
+    @Override
+    public void updateGlobalSessionStatus(GlobalSession session, GlobalStatus status) throws TransactionException {
+        super.updateGlobalSessionStatus(session, status);
+        if (status != GlobalStatus.Begin) {
+            deadlineIndex.remove(session);
+        }
     }
 
     @Override
@@ -109,6 +129,7 @@ public class FileSessionManager extends AbstractSessionManager implements Reload
     public void removeGlobalSession(GlobalSession session) throws TransactionException {
         super.removeGlobalSession(session);
         sessionMap.remove(session.getXid());
+        deadlineIndex.remove(session);
     }
 
     @Override
@@ -127,6 +148,33 @@ public class FileSessionManager extends AbstractSessionManager implements Reload
         return found;
     }
 
+    @Override
+    public List<GlobalSession> findTimeoutSessions(long now) {
+        List<GlobalSession> found = new ArrayList<>();
+        for (GlobalSession globalSession : deadlineIndex) {
+            if (getDeadline(globalSession) >= now) {
+                break;
+            }
+            // the status never goes back to Begin, so a session that left it is no longer needed here
+            if (globalSession.getStatus() == GlobalStatus.Begin) {
+                found.add(globalSession);
+            } else {
+                deadlineIndex.remove(globalSession);
+            }
+        }
+        return found;
+    }
+
+    private void addToDeadlineIndex(GlobalSession globalSession) {
+        if (globalSession.getStatus() == GlobalStatus.Begin) {
+            deadlineIndex.add(globalSession);
+        }
+    }
+
+    private static long getDeadline(GlobalSession globalSession) {
+        return globalSession.getBeginTime() + globalSession.getTimeout();
+    }
+
     @Override
     public <T> T lockAndExecute(GlobalSession globalSession, GlobalSession.LockCallable<T> lockCallable)
             throws TransactionException {
@@ -19,22 +19,28 @@ import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.CRC32;
 
+import io.netty.util.internal.PlatformDependent;
 import io.seata.common.exception.StoreException;
 import io.seata.common.thread.NamedThreadFactory;
-import io.seata.common.util.CollectionUtils;
 import io.seata.server.session.BranchSession;
 import io.seata.server.session.GlobalSession;
 import io.seata.server.session.SessionCondition;
@@ -51,6 +57,10 @@ import org.slf4j.LoggerFactory;
 
 /**
  * The type File transaction store manager.
+ * <p>
+ * The log is made up of memory-mapped segments named by an increasing index, every record is framed
+ * as [length][crc32][body]. Each time a segment is filled a checkpoint (snapshot of all the live sessions)
+ * is written, so recovery is the checkpoint plus the replay of the segments from the previous one.
  *
  * @author slievrly
  */
@@ -62,6 +72,11 @@ public class FileTransactionStoreManager extends AbstractTransactionStoreManager
 
     private ExecutorService fileWriteExecutor;
 
+    /**
+     * writes the checkpoints apart from the write thread, a pending checkpoint is replaced by a newer one
+     */
+    private ExecutorService checkpointExecutor;
+
     private volatile boolean stopping = false;
 
     private static final int MAX_SHUTDOWN_RETRY = 3;
@@ -70,35 +85,46 @@ public class FileTransactionStoreManager extends AbstractTransactionStoreManager
 
     private static final int MAX_WRITE_RETRY = 5;
 
+    /**
+     * the history file of the legacy two files layout, only read on recovery
+     */
     private static final String HIS_DATA_FILENAME_POSTFIX = ".1";
 
+    private static final String CHECKPOINT_FILENAME_POSTFIX = ".checkpoint";
+
+    private static final String TMP_FILENAME_POSTFIX = ".tmp";
+
+    private static final String SEGMENT_INDEX_FORMAT = "%020d";
+
+    private static final int SEGMENT_INDEX_LENGTH = 20;
+
     private static final AtomicLong FILE_TRX_NUM = new AtomicLong(0);
 
     private static final AtomicLong FILE_FLUSH_NUM = new AtomicLong(0);
 
     private static final int MARK_SIZE = 4;
 
+    private static final int FRAME_HEADER_SIZE = MARK_SIZE * 2;
+
+    private static final int CHECKPOINT_HEADER_SIZE = 8;
+
     private static final int MAX_WAIT_TIME_MILLS = 2 * 1000;
 
     private static final int MAX_FLUSH_TIME_MILLS = 2 * 1000;
 
     private static final int MAX_FLUSH_NUM = 10;
 
-    private static final int PER_FILE_BLOCK_SIZE = 65535 * 8;
-
-    private static final long MAX_TRX_TIMEOUT_MILLS = 30 * 60 * 1000;
+    private static final int SEGMENT_SIZE = StoreConfig.getFileSegmentSize();
 
-    private static volatile long trxStartTimeMills = System.currentTimeMillis();
-
-    private File currDataFile;
+    private long currSegmentIndex;
 
     private RandomAccessFile currRaf;
 
-    private FileChannel currFileChannel;
+    private MappedByteBuffer currMappedBuffer;
 
-    private long recoverCurrOffset = 0;
+    private RecoverCursor hisRecoverCursor;
 
-    private long recoverHisOffset = 0;
+    private RecoverCursor currRecoverCursor;
 
     private SessionManager sessionManager;
 
@@ -106,23 +132,26 @@ public class FileTransactionStoreManager extends AbstractTransactionStoreManager
 
     private String hisFullFileName;
 
-    private WriteDataFileRunnable writeDataFileRunnable;
+    private String checkpointFullFileName;
 
-    private ReentrantLock writeSessionLock = new ReentrantLock();
+    private WriteDataFileRunnable writeDataFileRunnable;
 
     private volatile long lastModifiedTime;
 
     private static final int MAX_WRITE_BUFFER_SIZE = StoreConfig.getFileWriteBufferCacheSize();
 
+    /**
+     * only used by the checkpoint thread
+     */
     private final ByteBuffer writeBuffer = ByteBuffer.allocateDirect(MAX_WRITE_BUFFER_SIZE);
 
     private static final FlushDiskMode FLUSH_DISK_MODE = StoreConfig.getFlushDiskMode();
 
     private static final int MAX_WAIT_FOR_FLUSH_TIME_MILLS = 2 * 1000;
 
-    private static final int MAX_WAIT_FOR_CLOSE_TIME_MILLS = 2 * 1000;
+    private static final int MAX_GROUP_COMMIT_NUM = 1024;
 
-    private static final int INT_BYTE_SIZE = 4;
+    private static final byte[] ZERO_BYTES = new byte[4096];
 
     /**
      * Instantiates a new File transaction store manager.
@@ -136,6 +165,9 @@ public class FileTransactionStoreManager extends AbstractTransactionStoreManager
         fileWriteExecutor = new ThreadPoolExecutor(MAX_THREAD_WRITE, MAX_THREAD_WRITE, Integer.MAX_VALUE,
             TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(),
             new NamedThreadFactory("fileTransactionStore", MAX_THREAD_WRITE, true));
+        checkpointExecutor = new ThreadPoolExecutor(1, 1, Integer.MAX_VALUE, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(1), new NamedThreadFactory("fileTransactionCheckpoint", 1, true),
+            new ThreadPoolExecutor.DiscardOldestPolicy());
         writeDataFileRunnable = new WriteDataFileRunnable();
         fileWriteExecutor.submit(writeDataFileRunnable);
         this.sessionManager = sessionManager;
@@ -144,161 +176,308 @@ public class FileTransactionStoreManager extends AbstractTransactionStoreManager
     private void initFile(String fullFileName) throws IOException {
         this.currFullFileName = fullFileName;
         this.hisFullFileName = fullFileName + HIS_DATA_FILENAME_POSTFIX;
+        this.checkpointFullFileName = fullFileName + CHECKPOINT_FILENAME_POSTFIX;
+        File storeDir = new File(currFullFileName).getAbsoluteFile().getParentFile();
+        // create parent dir first
+        if (storeDir != null && !storeDir.exists()) {
+            storeDir.mkdirs();
+        }
+        List<Long> segmentIndexes = listSegmentIndexes();
+        openSegment(segmentIndexes.isEmpty() ? 0 : segmentIndexes.get(segmentIndexes.size() - 1));
+    }
+
+    /**
+     * map the segment and move to the end of its valid records, only assigns the current segment on success
+     */
+    private void openSegment(long segmentIndex) throws IOException {
+        File segmentFile = getSegmentFile(segmentIndex);
+        boolean exists = segmentFile.exists();
+        RandomAccessFile raf = null;
         try {
-            currDataFile = new File(currFullFileName);
-            if (!currDataFile.exists()) {
-                // create parent dir first
-                if (currDataFile.getParentFile() != null && !currDataFile.getParentFile().exists()) {
-                    currDataFile.getParentFile().mkdirs();
+            raf = new RandomAccessFile(segmentFile, "rw");
+            if (raf.length() < SEGMENT_SIZE) {
+                raf.setLength(SEGMENT_SIZE);
+            }
+            MappedByteBuffer mappedBuffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, raf.length());
+            if (exists) {
+                while (readFrame(mappedBuffer, true) != null) {
+                    // skip to the end of the valid records
                 }
-                currDataFile.createNewFile();
-                trxStartTimeMills = System.currentTimeMillis();
-            } else {
-                trxStartTimeMills = currDataFile.lastModified();
+                clearTail(mappedBuffer);
             }
+            currRaf = raf;
+            currMappedBuffer = mappedBuffer;
+            currSegmentIndex = segmentIndex;
             lastModifiedTime = System.currentTimeMillis();
-            currRaf = new RandomAccessFile(currDataFile, "rw");
-            currRaf.seek(currDataFile.length());
-            currFileChannel = currRaf.getChannel();
         } catch (IOException exx) {
             LOGGER.error("init file error,{}", exx.getMessage(), exx);
+            closeFile(raf);
             throw exx;
         }
     }
 
+    /**
+     * zero the bytes behind the last valid record, so that stale records of a torn write can't be replayed
+     * after new records are appended
+     */
+    private void clearTail(MappedByteBuffer mappedBuffer) {
+        int position = mappedBuffer.position();
+        if (mappedBuffer.remaining() < MARK_SIZE || mappedBuffer.getInt(position) == 0) {
+            return;
+        }
+        LOGGER.warn("found incomplete record in segment {} at {}, clear it", currFullFileName, position);
+        while (mappedBuffer.hasRemaining()) {
+            mappedBuffer.put(ZERO_BYTES, 0, Math.min(ZERO_BYTES.length, mappedBuffer.remaining()));
+        }
+        mappedBuffer.force();
+        mappedBuffer.position(position);
+    }
+
+    private File getSegmentFile(long segmentIndex) {
+        return new File(currFullFileName + "." + String.format(SEGMENT_INDEX_FORMAT, segmentIndex));
+    }
+
+    private List<Long> listSegmentIndexes() {
+        File dataFile = new File(currFullFileName).getAbsoluteFile();
+        String prefix = dataFile.getName() + ".";
+        File[] files = dataFile.getParentFile().listFiles();
+        List<Long> segmentIndexes = new ArrayList<>();
+        if (files == null) {
+            return segmentIndexes;
+        }
+        for (File file : files) {
+            String name = file.getName();
+            if (name.startsWith(prefix) && name.length() == prefix.length() + SEGMENT_INDEX_LENGTH) {
+                try {
+                    segmentIndexes.add(Long.parseLong(name.substring(prefix.length())));
+                } catch (NumberFormatException ignore) {
+                }
+            }
+        }
+        Collections.sort(segmentIndexes);
+        return segmentIndexes;
+    }
+
     @Override
     public boolean writeSession(LogOperation logOperation, SessionStorable session) {
-        writeSessionLock.lock();
-        long curFileTrxNum;
+        if (stopping) {
+            return false;
+        }
+        byte[] frame;
         try {
-            if (!writeDataFile(new TransactionWriteStore(session, logOperation).encode())) {
-                return false;
-            }
-            lastModifiedTime = System.currentTimeMillis();
-            curFileTrxNum = FILE_TRX_NUM.incrementAndGet();
-            if (curFileTrxNum % PER_FILE_BLOCK_SIZE == 0
-                && (System.currentTimeMillis() - trxStartTimeMills) > MAX_TRX_TIMEOUT_MILLS) {
-                return saveHistory();
-            }
+            frame = encodeFrame(new TransactionWriteStore(session, logOperation));
         } catch (Exception exx) {
             LOGGER.error("writeSession error, {}", exx.getMessage(), exx);
             return false;
-        } finally {
-            writeSessionLock.unlock();
         }
-        flushDisk(curFileTrxNum, currFileChannel);
+        WriteRequest writeRequest = new WriteRequest(frame);
+        writeDataFileRunnable.putRequest(writeRequest);
+        return writeRequest.waitForWrite(MAX_WAIT_FOR_FLUSH_TIME_MILLS);
+    }
+
+    /**
+     * encode the record straight into its frame, so the frame is the only copy before the segment
+     */
+    private static byte[] encodeFrame(TransactionWriteStore writeStore) {
+        SessionStorable.Encoding encoding = writeStore.encoding();
+        int bodySize = encoding.size();
+        byte[] frame = new byte[FRAME_HEADER_SIZE + bodySize];
+        ByteBuffer byteBuffer = ByteBuffer.wrap(frame);
+        byteBuffer.putInt(bodySize);
+        byteBuffer.position(FRAME_HEADER_SIZE);
+        encoding.encodeTo(byteBuffer);
+        if (byteBuffer.hasRemaining()) {
+            throw new StoreException("encoded size mismatch, expect:" + bodySize + ", actual:"
+                + (byteBuffer.position() - FRAME_HEADER_SIZE));
+        }
+        CRC32 crc32 = new CRC32();
+        crc32.update(frame, FRAME_HEADER_SIZE, bodySize);
+        byteBuffer.putInt(MARK_SIZE, (int)crc32.getValue());
+        return frame;
+    }
+
+    /**
+     * append a frame to the current segment, roll to a new segment if there is no room left
+     * only called by the write thread
+     */
+    private boolean appendFrame(byte[] frame) throws IOException {
+        if (frame.length > SEGMENT_SIZE) {
+            LOGGER.error("record size {} exceeds the segment size {}", frame.length, SEGMENT_SIZE);
+            return false;
+        }
+        if (currMappedBuffer.remaining() < frame.length) {
+            rollSegment();
+        }
+        currMappedBuffer.put(frame);
         return true;
     }
 
-    private void flushDisk(long curFileNum, FileChannel currFileChannel) {
+    private void rollSegment() throws IOException {
+        RandomAccessFile prevRaf = currRaf;
+        MappedByteBuffer prevMappedBuffer = currMappedBuffer;
+        long diff = FILE_TRX_NUM.get() - FILE_FLUSH_NUM.get();
+        flush(prevMappedBuffer);
+        FILE_FLUSH_NUM.addAndGet(diff);
+        openSegment(currSegmentIndex + 1);
+        PlatformDependent.freeDirectBuffer(prevMappedBuffer);
+        closeFile(prevRaf);
+        if (sessionManager == null) {
+            return;
+        }
+        // the live sessions are encoded here at the roll point, the writers don't wait for the file to be written
+        long replayFromSegmentIndex = currSegmentIndex - 1;
+        List<byte[]> frames = snapshotFrames(sessionManager.allSessions());
+        checkpointExecutor.execute(() -> {
+            try {
+                if (!checkpoint(frames, replayFromSegmentIndex)) {
+                    LOGGER.error("save checkpoint failed, segment:{}", replayFromSegmentIndex + 1);
+                }
+            } catch (Exception exx) {
+                LOGGER.error("save checkpoint error, segment:{}, {}", replayFromSegmentIndex + 1, exx.getMessage(),
+                    exx);
+            }
+        });
+    }
 
-        if (FLUSH_DISK_MODE == FlushDiskMode.SYNC_MODEL) {
-            SyncFlushRequest syncFlushRequest = new SyncFlushRequest(curFileNum, currFileChannel);
-            writeDataFileRunnable.putRequest(syncFlushRequest);
-            syncFlushRequest.waitForFlush(MAX_WAIT_FOR_FLUSH_TIME_MILLS);
-        } else {
-            writeDataFileRunnable.putRequest(new AsyncFlushRequest(curFileNum, currFileChannel));
+    /**
+     * encode the frames of all the live sessions, each global session followed by its branches
+     * only called by the write thread, so the snapshot is in line with the records before the roll
+     */
+    private static List<byte[]> snapshotFrames(Collection<GlobalSession> sessions) {
+        List<byte[]> frames = new ArrayList<>(sessions.size());
+        for (GlobalSession globalSession : sessions) {
+            frames.add(encodeFrame(new TransactionWriteStore(globalSession, LogOperation.GLOBAL_ADD)));
+            for (BranchSession branchSession : globalSession.getSortedBranches()) {
+                frames.add(encodeFrame(new TransactionWriteStore(branchSession, LogOperation.BRANCH_ADD)));
+            }
         }
+        return frames;
     }
 
     /**
-     * get all overTimeSessionStorables
-     * merge write file
+     * write the snapshot of all the live sessions to the checkpoint file, after that only the segments
+     * from the previous one are needed for recovery.
+     * the previous segment is kept because a session may be logged before its change is visible in memory,
+     * replaying the segments fixes it up.
      *
      * @throws IOException
      */
-    private boolean saveHistory() throws IOException {
-        boolean result;
-        try {
-            result = findTimeoutAndSave();
-            StoreRequest request = new CloseFileRequest(currFileChannel, currRaf);
-            writeDataFileRunnable.putRequest(request);
-            ((CloseFileRequest)request).waitForClose(MAX_WAIT_FOR_CLOSE_TIME_MILLS);
-            Files.move(currDataFile.toPath(), new File(hisFullFileName).toPath(), StandardCopyOption.REPLACE_EXISTING);
-        } catch (IOException exx) {
-            LOGGER.error("save history data file error, {}", exx.getMessage(), exx);
-            result = false;
+    private boolean checkpoint(List<byte[]> frames, long replayFromSegmentIndex) throws IOException {
+        File tmpFile = new File(checkpointFullFileName + TMP_FILENAME_POSTFIX);
+        try (RandomAccessFile raf = new RandomAccessFile(tmpFile, "rw")) {
+            raf.setLength(0);
+            FileChannel fileChannel = raf.getChannel();
+            writeBuffer.clear();
+            writeBuffer.putLong(replayFromSegmentIndex);
+            for (byte[] frame : frames) {
+                if (!writeDataFrame(fileChannel, frame)) {
+                    return false;
+                }
+            }
+            if (!flushWriteBuffer(fileChannel)) {
+                return false;
+            }
+            fileChannel.force(false);
         } finally {
-            initFile(currFullFileName);
+            writeBuffer.clear();
+        }
+        Files.move(tmpFile.toPath(), new File(checkpointFullFileName).toPath(), StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+        for (Long segmentIndex : listSegmentIndexes()) {
+            if (segmentIndex < replayFromSegmentIndex) {
+                deleteFile(getSegmentFile(segmentIndex));
+            }
         }
-        return result;
+        deleteFile(new File(hisFullFileName));
+        deleteFile(new File(currFullFileName));
+        return true;
     }
 
-    private boolean writeDataFrame(byte[] data) {
-        if (data == null || data.length <= 0) {
-            return true;
+    private void deleteFile(File file) {
+        if (file.exists() && !file.delete()) {
+            LOGGER.warn("delete file failed, file:{}", file.getName());
         }
-        int dataLength = data.length;
-        int bufferRemainingSize = writeBuffer.remaining();
-        if (bufferRemainingSize <= INT_BYTE_SIZE) {
-            if (!flushWriteBuffer(writeBuffer)) {
+    }
+
+    private boolean writeDataFrame(FileChannel fileChannel, byte[] frame) {
+        int framePos = 0;
+        while (framePos < frame.length) {
+            if (!writeBuffer.hasRemaining() && !flushWriteBuffer(fileChannel)) {
                 return false;
             }
-        }
-        bufferRemainingSize = writeBuffer.remaining();
-        if (bufferRemainingSize <= INT_BYTE_SIZE) {
-            throw new IllegalStateException(
-                String.format("Write buffer remaining size %d was too small", bufferRemainingSize));
-        }
-        writeBuffer.putInt(dataLength);
-        bufferRemainingSize = writeBuffer.remaining();
-        int dataPos = 0;
-        while (dataPos < dataLength) {
-            int dataLengthToWrite = dataLength - dataPos;
-            dataLengthToWrite = Math.min(dataLengthToWrite, bufferRemainingSize);
-            writeBuffer.put(data, dataPos, dataLengthToWrite);
-            bufferRemainingSize = writeBuffer.remaining();
-            if (bufferRemainingSize == 0) {
-                if (!flushWriteBuffer(writeBuffer)) {
-                    return false;
-                }
-                bufferRemainingSize = writeBuffer.remaining();
-            }
-            dataPos += dataLengthToWrite;
+            int lengthToWrite = Math.min(frame.length - framePos, writeBuffer.remaining());
+            writeBuffer.put(frame, framePos, lengthToWrite);
+            framePos += lengthToWrite;
         }
         return true;
     }
 
-    private boolean flushWriteBuffer(ByteBuffer writeBuffer) {
+    private boolean flushWriteBuffer(FileChannel fileChannel) {
         writeBuffer.flip();
-        if (!writeDataFileByBuffer(writeBuffer)) {
+        if (!writeDataFileByBuffer(fileChannel, writeBuffer)) {
             return false;
         }
         writeBuffer.clear();
         return true;
     }
 
-    private boolean findTimeoutAndSave() throws IOException {
-        List<GlobalSession> globalSessionsOverMaxTimeout = sessionManager.findGlobalSessions(
-            new SessionCondition(MAX_TRX_TIMEOUT_MILLS));
-        if (CollectionUtils.isEmpty(globalSessionsOverMaxTimeout)) {
-            return true;
-        }
-        for (GlobalSession globalSession : globalSessionsOverMaxTimeout) {
-            TransactionWriteStore globalWriteStore = new TransactionWriteStore(globalSession, LogOperation.GLOBAL_ADD);
-            byte[] data = globalWriteStore.encode();
-            if (!writeDataFrame(data)) {
-                return false;
-            }
-            List<BranchSession> branchSessIonsOverMaXTimeout = globalSession.getSortedBranches();
-            if (branchSessIonsOverMaXTimeout != null) {
-                for (BranchSession branchSession : branchSessIonsOverMaXTimeout) {
-                    TransactionWriteStore branchWriteStore = new TransactionWriteStore(branchSession,
-                        LogOperation.BRANCH_ADD);
-                    data = branchWriteStore.encode();
-                    if (!writeDataFrame(data)) {
-                        return false;
-                    }
+    private boolean writeDataFileByBuffer(FileChannel fileChannel, ByteBuffer byteBuffer) {
+        for (int retry = 0; retry < MAX_WRITE_RETRY; retry++) {
+            try {
+                while (byteBuffer.hasRemaining()) {
+                    fileChannel.write(byteBuffer);
                 }
+                return true;
+            } catch (Exception exx) {
+                LOGGER.error("write data file error:{}", exx.getMessage(), exx);
             }
         }
-        if (flushWriteBuffer(writeBuffer)) {
-            currFileChannel.force(false);
-            return true;
-        }
+        LOGGER.error("write dataFile failed,retry more than :{}", MAX_WRITE_RETRY);
         return false;
     }
 
+    private void flush(MappedByteBuffer mappedBuffer) {
+        try {
+            mappedBuffer.force();
+        } catch (Exception exx) {
+            LOGGER.error("flush error: {}", exx.getMessage(), exx);
+        }
+    }
+
+    private static int crc32(ByteBuffer data) {
+        CRC32 crc32 = new CRC32();
+        crc32.update(data);
+        return (int)crc32.getValue();
+    }
+
+    /**
+     * read the frame at the position of the buffer
+     *
+     * @return the body of the frame as a view of the buffer, null if there is no more valid frame
+     */
+    private static ByteBuffer readFrame(ByteBuffer buffer, boolean checksum) {
+        int headerSize = checksum ? FRAME_HEADER_SIZE : MARK_SIZE;
+        int position = buffer.position();
+        if (buffer.remaining() < headerSize) {
+            return null;
+        }
+        int bodySize = buffer.getInt();
+        int crc = checksum ? buffer.getInt() : 0;
+        if (bodySize <= 0 || bodySize > buffer.remaining()) {
+            buffer.position(position);
+            return null;
+        }
+        ByteBuffer body = buffer.slice();
+        body.limit(bodySize);
+        buffer.position(buffer.position() + bodySize);
+        if (checksum && crc != crc32(body.duplicate())) {
+            LOGGER.warn("crc check failed at position {}, ignore the rest of the file", position);
+            buffer.position(position);
+            return null;
+        }
+        return body;
+    }
+
     @Override
     public GlobalSession readSession(String xid) {
         throw new StoreException("unsupport for read from file, xid:" + xid);
@@ -311,9 +490,11 @@ public class FileTransactionStoreManager extends AbstractTransactionStoreManager
 
     @Override
     public void shutdown() {
+        boolean terminated = true;
         if (fileWriteExecutor != null) {
             fileWriteExecutor.shutdown();
             stopping = true;
+            writeDataFileRunnable.wakeup();
             int retry = 0;
             while (!fileWriteExecutor.isTerminated() && retry < MAX_SHUTDOWN_RETRY) {
                 ++retry;
@@ -325,109 +506,78 @@ public class FileTransactionStoreManager extends AbstractTransactionStoreManager
             if (retry >= MAX_SHUTDOWN_RETRY) {
                 fileWriteExecutor.shutdownNow();
             }
+            terminated = fileWriteExecutor.isTerminated();
         }
-        try {
-            currFileChannel.force(true);
-        } catch (IOException e) {
-            LOGGER.error("fileChannel force error{}", e.getMessage(), e);
+        if (checkpointExecutor != null) {
+            // no more checkpoint after the write thread is gone, let the pending one finish
+            checkpointExecutor.shutdown();
+            try {
+                checkpointExecutor.awaitTermination((long) MAX_SHUTDOWN_RETRY * SHUTDOWN_CHECK_INTERNAL,
+                    TimeUnit.MILLISECONDS);
+            } catch (InterruptedException ignore) {
+            }
+        }
+        flush(currMappedBuffer);
+        // never unmap the segment while the write thread may still touch it
+        if (terminated) {
+            PlatformDependent.freeDirectBuffer(currMappedBuffer);
         }
         closeFile(currRaf);
     }
 
+    /**
+     * the history part is the checkpoint, or the files of the legacy layout if there is no checkpoint yet,
+     * the current part is the segments from the one recorded in the checkpoint
+     */
     @Override
     public List<TransactionWriteStore> readWriteStore(int readSize, boolean isHistory) {
-        File file = null;
-        long currentOffset = 0;
-        if (isHistory) {
-            file = new File(hisFullFileName);
-            currentOffset = recoverHisOffset;
-        } else {
-            file = new File(currFullFileName);
-            currentOffset = recoverCurrOffset;
-        }
-        if (file.exists()) {
-            return parseDataFile(file, readSize, currentOffset, isHistory);
-        }
-        return null;
+        return getRecoverCursor(isHistory).read(readSize);
     }
 
     @Override
     public boolean hasRemaining(boolean isHistory) {
-        File file = null;
-        RandomAccessFile raf = null;
-        long currentOffset = 0;
-        if (isHistory) {
-            file = new File(hisFullFileName);
-            currentOffset = recoverHisOffset;
-        } else {
-            file = new File(currFullFileName);
-            currentOffset = recoverCurrOffset;
-        }
-        try {
-            raf = new RandomAccessFile(file, "r");
-            return currentOffset < raf.length();
-
-        } catch (IOException ignore) {
-        } finally {
-            closeFile(raf);
-        }
-        return false;
+        return getRecoverCursor(isHistory).hasRemaining();
     }
 
-    private List<TransactionWriteStore> parseDataFile(File file, int readSize, long currentOffset, boolean isHistory) {
-        List<TransactionWriteStore> transactionWriteStores = new ArrayList<>(readSize);
-        RandomAccessFile raf = null;
-        FileChannel fileChannel = null;
-        try {
-            raf = new RandomAccessFile(file, "r");
-            raf.seek(currentOffset);
-            fileChannel = raf.getChannel();
-            fileChannel.position(currentOffset);
-            long size = raf.length();
-            ByteBuffer buffSize = ByteBuffer.allocate(MARK_SIZE);
-            while (fileChannel.position() < size) {
-                try {
-                    buffSize.clear();
-                    int avilReadSize = fileChannel.read(buffSize);
-                    if (avilReadSize != MARK_SIZE) {
-                        break;
-                    }
-                    buffSize.flip();
-                    int bodySize = buffSize.getInt();
-                    byte[] byBody = new byte[bodySize];
-                    ByteBuffer buffBody = ByteBuffer.wrap(byBody);
-                    avilReadSize = fileChannel.read(buffBody);
-                    if (avilReadSize != bodySize) {
-                        break;
-                    }
-                    TransactionWriteStore writeStore = new TransactionWriteStore();
-                    writeStore.decode(byBody);
-                    transactionWriteStores.add(writeStore);
-                    if (transactionWriteStores.size() == readSize) {
-                        break;
-                    }
-                } catch (Exception ex) {
-                    LOGGER.error("decode data file error:{}", ex.getMessage(), ex);
-                    break;
+    private RecoverCursor getRecoverCursor(boolean isHistory) {
+        if (isHistory) {
+            if (hisRecoverCursor == null) {
+                File checkpointFile = new File(checkpointFullFileName);
+                if (checkpointFile.exists()) {
+                    hisRecoverCursor = new RecoverCursor(Collections.singletonList(checkpointFile), true,
+                        CHECKPOINT_HEADER_SIZE);
+                } else {
+                    List<File> legacyFiles = new ArrayList<>(2);
+                    legacyFiles.add(new File(hisFullFileName));
+                    legacyFiles.add(new File(currFullFileName));
+                    hisRecoverCursor = new RecoverCursor(legacyFiles, false, 0);
                 }
             }
-            return transactionWriteStores;
-        } catch (IOException exx) {
-            LOGGER.error("parse data file error:{},file:{}", exx.getMessage(), file.getName(), exx);
-            return null;
-        } finally {
-            try {
-                if (fileChannel != null) {
-                    if (isHistory) {
-                        recoverHisOffset = fileChannel.position();
-                    } else {
-                        recoverCurrOffset = fileChannel.position();
-                    }
+            return hisRecoverCursor;
+        }
+        if (currRecoverCursor == null) {
+            long replayFromSegmentIndex = readReplayFromSegmentIndex();
+            List<File> segmentFiles = new ArrayList<>();
+            for (Long segmentIndex : listSegmentIndexes()) {
+                if (segmentIndex >= replayFromSegmentIndex) {
+                    segmentFiles.add(getSegmentFile(segmentIndex));
                 }
-                closeFile(raf);
-            } catch (IOException exx) {
-                LOGGER.error("file close error{}", exx.getMessage(), exx);
             }
+            currRecoverCursor = new RecoverCursor(segmentFiles, true, 0);
+        }
+        return currRecoverCursor;
+    }
+
+    private long readReplayFromSegmentIndex() {
+        File checkpointFile = new File(checkpointFullFileName);
+        if (!checkpointFile.exists()) {
+            return 0;
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(checkpointFile, "r")) {
+            return raf.length() >= CHECKPOINT_HEADER_SIZE ? raf.readLong() : 0;
+        } catch (IOException exx) {
+            LOGGER.error("read checkpoint file error:{}", exx.getMessage(), exx);
+            return 0;
         }
     }
 
@@ -442,132 +592,157 @@ public class FileTransactionStoreManager extends AbstractTransactionStoreManager
         }
     }
 
-    private boolean writeDataFile(byte[] bs) {
-        if (bs == null || bs.length >= Integer.MAX_VALUE - 3) {
-            return false;
-        }
-        if (!writeDataFrame(bs)) {
-            return false;
-        }
-        return flushWriteBuffer(writeBuffer);
-    }
-
-    private boolean writeDataFileByBuffer(ByteBuffer byteBuffer) {
-        for (int retry = 0; retry < MAX_WRITE_RETRY; retry++) {
-            try {
-                while (byteBuffer.hasRemaining()) {
-                    currFileChannel.write(byteBuffer);
-                }
-                return true;
-            } catch (Exception exx) {
-                LOGGER.error("write data file error:{}", exx.getMessage(), exx);
-            }
-        }
-        LOGGER.error("write dataFile failed,retry more than :{}", MAX_WRITE_RETRY);
-        return false;
-    }
+    /**
+     * The type Recover cursor, reads the records of the files one by one through read only mappings.
+     */
+    class RecoverCursor {
 
-    interface StoreRequest {
+        private final List<File> files;
 
-    }
+        private final boolean checksum;
 
-    abstract static class AbstractFlushRequest implements StoreRequest {
-        private final long curFileTrxNum;
+        private final int headerSize;
 
-        private final FileChannel curFileChannel;
+        private int fileIndex;
 
-        protected AbstractFlushRequest(long curFileTrxNum, FileChannel curFileChannel) {
-            this.curFileTrxNum = curFileTrxNum;
-            this.curFileChannel = curFileChannel;
-        }
+        private MappedByteBuffer mappedBuffer;
 
-        public long getCurFileTrxNum() {
-            return curFileTrxNum;
-        }
+        private boolean finished;
 
-        public FileChannel getCurFileChannel() {
-            return curFileChannel;
+        RecoverCursor(List<File> files, boolean checksum, int headerSize) {
+            this.files = files;
+            this.checksum = checksum;
+            this.headerSize = headerSize;
         }
-    }
-
-    class SyncFlushRequest extends AbstractFlushRequest {
 
-        private final CountDownLatch countDownLatch = new CountDownLatch(1);
-
-        public SyncFlushRequest(long curFileTrxNum, FileChannel curFileChannel) {
-            super(curFileTrxNum, curFileChannel);
+        boolean hasRemaining() {
+            return !finished;
         }
 
-        public void wakeup() {
-            this.countDownLatch.countDown();
+        List<TransactionWriteStore> read(int readSize) {
+            List<TransactionWriteStore> transactionWriteStores = new ArrayList<>(readSize);
+            while (!finished && transactionWriteStores.size() < readSize) {
+                if (mappedBuffer == null && !nextFile()) {
+                    finished = true;
+                    break;
+                }
+                ByteBuffer body = readFrame(mappedBuffer, checksum);
+                if (body == null) {
+                    PlatformDependent.freeDirectBuffer(mappedBuffer);
+                    mappedBuffer = null;
+                    continue;
+                }
+                try {
+                    TransactionWriteStore writeStore = new TransactionWriteStore();
+                    writeStore.decode(body);
+                    transactionWriteStores.add(writeStore);
+                } catch (Exception ex) {
+                    LOGGER.error("decode data file error:{}", ex.getMessage(), ex);
+                }
+            }
+            return transactionWriteStores;
         }
 
-        public void waitForFlush(long timeout) {
-            try {
-                this.countDownLatch.await(timeout, TimeUnit.MILLISECONDS);
-            } catch (InterruptedException e) {
-                LOGGER.error("Interrupted", e);
+        private boolean nextFile() {
+            while (fileIndex < files.size()) {
+                File file = files.get(fileIndex++);
+                if (!file.exists()) {
+                    continue;
+                }
+                try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+                    if (raf.length() < headerSize) {
+                        continue;
+                    }
+                    mappedBuffer = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+                    mappedBuffer.position(headerSize);
+                    return true;
+                } catch (IOException exx) {
+                    LOGGER.error("parse data file error:{},file:{}", exx.getMessage(), file.getName(), exx);
+                }
             }
+            return false;
         }
     }
 
-    class AsyncFlushRequest extends AbstractFlushRequest {
-
-        public AsyncFlushRequest(long curFileTrxNum, FileChannel curFileChannel) {
-            super(curFileTrxNum, curFileChannel);
-        }
+    /**
+     * The type Write request, a pre-encoded frame waiting for its group to be committed.
+     */
+    static class WriteRequest {
 
-    }
+        private final byte[] data;
 
-    static class CloseFileRequest implements StoreRequest {
         private final CountDownLatch countDownLatch = new CountDownLatch(1);
-        private FileChannel fileChannel;
 
-        private RandomAccessFile file;
+        private volatile boolean success;
 
-        public CloseFileRequest(FileChannel fileChannel, RandomAccessFile file) {
-            this.fileChannel = fileChannel;
-            this.file = file;
+        public WriteRequest(byte[] data) {
+            this.data = data;
         }
 
-        public FileChannel getFileChannel() {
-            return fileChannel;
+        public byte[] getData() {
+            return data;
         }
 
-        public RandomAccessFile getFile() {
-            return file;
+        public void setSuccess(boolean success) {
+            this.success = success;
         }
 
         public void wakeup() {
             this.countDownLatch.countDown();
         }
 
-        public void waitForClose(long timeout) {
+        public boolean waitForWrite(long timeout) {
             try {
-                this.countDownLatch.await(timeout, TimeUnit.MILLISECONDS);
+                if (!this.countDownLatch.await(timeout, TimeUnit.MILLISECONDS)) {
+                    LOGGER.error("wait for write data file timeout, timeout:{}", timeout);
+                    return false;
+                }
             } catch (InterruptedException e) {
                 LOGGER.error("Interrupted", e);
+                return false;
             }
+            return success;
         }
     }
 
     /**
      * The type Write data file runnable.
+     * It is the only writer of the segments: every round it drains all pending frames,
+     * appends them to the mapped segment, forces it once in sync mode and then
+     * wakes up all the waiters of the group together.
      */
     class WriteDataFileRunnable implements Runnable {
 
-        private LinkedBlockingQueue<StoreRequest> storeRequests = new LinkedBlockingQueue<>();
+        private final Queue<WriteRequest> writeRequests = PlatformDependent.newMpscQueue();
+
+        private final List<WriteRequest> groupRequests = new ArrayList<>(MAX_GROUP_COMMIT_NUM);
 
-        public void putRequest(final StoreRequest request) {
-            storeRequests.add(request);
+        private volatile Thread writeThread;
+
+        private volatile boolean waiting;
+
+        public void putRequest(final WriteRequest request) {
+            writeRequests.offer(request);
+            if (waiting) {
+                LockSupport.unpark(writeThread);
+            }
+        }
+
+        public void wakeup() {
+            LockSupport.unpark(writeThread);
         }
 
         @Override
         public void run() {
+            writeThread = Thread.currentThread();
             while (!stopping) {
                 try {
-                    StoreRequest storeRequest = storeRequests.poll(MAX_WAIT_TIME_MILLS, TimeUnit.MILLISECONDS);
-                    handleStoreRequest(storeRequest);
+                    if (writeRequests.isEmpty()) {
+                        waitForRequest();
+                    }
+                    if (!groupCommit()) {
+                        flushOnCondition();
+                    }
                 } catch (Exception exx) {
                     LOGGER.error("write file error: {}", exx.getMessage(), exx);
                 }
@@ -579,48 +754,72 @@ public class FileTransactionStoreManager extends AbstractTransactionStoreManager
          * handle the rest requests when stopping is true
          */
         private void handleRestRequest() {
-            int remainNums = storeRequests.size();
-            for (int i = 0; i < remainNums; i++) {
-                handleStoreRequest(storeRequests.poll());
+            try {
+                while (groupCommit()) {
+                    // drain until empty
+                }
+            } catch (Exception exx) {
+                LOGGER.error("write file error: {}", exx.getMessage(), exx);
             }
         }
 
-        private void handleStoreRequest(StoreRequest storeRequest) {
-            if (storeRequest == null) {
-                flushOnCondition(currFileChannel);
-            }
-            if (storeRequest instanceof SyncFlushRequest) {
-                syncFlush((SyncFlushRequest)storeRequest);
-            } else if (storeRequest instanceof AsyncFlushRequest) {
-                async((AsyncFlushRequest)storeRequest);
-            } else if (storeRequest instanceof CloseFileRequest) {
-                closeAndFlush((CloseFileRequest)storeRequest);
+        private void waitForRequest() {
+            waiting = true;
+            try {
+                if (writeRequests.isEmpty()) {
+                    LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(MAX_WAIT_TIME_MILLS));
+                }
+            } finally {
+                waiting = false;
             }
         }
 
-        private void closeAndFlush(CloseFileRequest req) {
-            long diff = FILE_TRX_NUM.get() - FILE_FLUSH_NUM.get();
-            flush(req.getFileChannel());
-            FILE_FLUSH_NUM.addAndGet(diff);
-            closeFile(req.getFile());
-            req.wakeup();
-        }
-
-        private void async(AsyncFlushRequest req) {
-            flushOnCondition(req.getCurFileChannel());
-        }
-
-        private void syncFlush(SyncFlushRequest req) {
-            if (req.getCurFileTrxNum() > FILE_FLUSH_NUM.get()) {
-                long diff = FILE_TRX_NUM.get() - FILE_FLUSH_NUM.get();
-                flush(req.getCurFileChannel());
-                FILE_FLUSH_NUM.addAndGet(diff);
+        /**
+         * write all the pending frames as one group
+         *
+         * @return false if there is nothing to write
+         */
+        private boolean groupCommit() {
+            WriteRequest request;
+            while (groupRequests.size() < MAX_GROUP_COMMIT_NUM && (request = writeRequests.poll()) != null) {
+                groupRequests.add(request);
+            }
+            if (groupRequests.isEmpty()) {
+                return false;
+            }
+            int writeNum = 0;
+            for (int i = 0; i < groupRequests.size(); i++) {
+                request = groupRequests.get(i);
+                try {
+                    request.setSuccess(appendFrame(request.getData()));
+                } catch (Exception exx) {
+                    LOGGER.error("write data file error:{}", exx.getMessage(), exx);
+                    request.setSuccess(false);
+                }
+                if (request.success) {
+                    writeNum++;
+                }
+            }
+            if (writeNum > 0) {
+                lastModifiedTime = System.currentTimeMillis();
+                long curFileTrxNum = FILE_TRX_NUM.addAndGet(writeNum);
+                if (FLUSH_DISK_MODE == FlushDiskMode.SYNC_MODEL) {
+                    long diff = curFileTrxNum - FILE_FLUSH_NUM.get();
+                    flush(currMappedBuffer);
+                    FILE_FLUSH_NUM.addAndGet(diff);
+                } else {
+                    flushOnCondition();
+                }
             }
             // notify
-            req.wakeup();
+            for (int i = 0; i < groupRequests.size(); i++) {
+                groupRequests.get(i).wakeup();
+            }
+            groupRequests.clear();
+            return true;
         }
 
-        private void flushOnCondition(FileChannel fileChannel) {
+        private void flushOnCondition() {
             if (FLUSH_DISK_MODE == FlushDiskMode.SYNC_MODEL) {
                 return;
             }
@@ -628,18 +827,10 @@ public class FileTransactionStoreManager extends AbstractTransactionStoreManager
             if (diff == 0) {
                 return;
             }
-            if (diff % MAX_FLUSH_NUM == 0 || System.currentTimeMillis() - lastModifiedTime > MAX_FLUSH_TIME_MILLS) {
-                flush(fileChannel);
+            if (diff >= MAX_FLUSH_NUM || System.currentTimeMillis() - lastModifiedTime > MAX_FLUSH_TIME_MILLS) {
+                flush(currMappedBuffer);
                 FILE_FLUSH_NUM.addAndGet(diff);
             }
         }
-
-        private void flush(FileChannel fileChannel) {
-            try {
-                fileChannel.force(false);
-            } catch (IOException exx) {
-                LOGGER.error("flush error: {}", exx.getMessage(), exx);
-            }
-        }
     }
 }
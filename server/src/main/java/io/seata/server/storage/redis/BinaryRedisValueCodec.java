@@ -0,0 +1,307 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.seata.server.storage.redis;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Date;
+
+import io.seata.common.exception.StoreException;
+import io.seata.common.loader.LoadLevel;
+import io.seata.core.store.BranchTransactionDO;
+import io.seata.core.store.GlobalTransactionDO;
+import io.seata.core.store.LockDO;
+
+/**
+ * The codec that stores global transactions, branch transactions and row locks in a compact binary layout: a magic
+ * byte, a version, the value type, a two byte bitmap of the non null fields and then the fields in declaration order, numbers
+ * as zigzag varints and strings as a varint length followed by their utf-8 bytes.
+ * <p>
+ * Any value that does not start with the magic byte is read as json, so a store written by the json codec keeps
+ * working and is converted as its values are rewritten. Older servers can't read the binary values, so it is opt-in
+ * and only to be enabled once every server of the cluster reads it.
+ */
+@LoadLevel(name = "binary")
+public class BinaryRedisValueCodec implements RedisValueCodec {
+
+    /**
+     * Never the first byte of a json value, nor of valid utf-8 text.
+     */
+    private static final byte MAGIC = (byte)0xC1;
+
+    private static final byte VERSION = 1;
+
+    private static final byte TYPE_GLOBAL = 1;
+
+    private static final byte TYPE_BRANCH = 2;
+
+    private static final byte TYPE_LOCK = 3;
+
+    private static final int HEADER_SIZE = 5;
+
+    private final RedisValueCodec fallback = new JsonRedisValueCodec();
+
+    @Override
+    public byte[] encode(Object value) {
+        if (value instanceof GlobalTransactionDO) {
+            GlobalTransactionDO global = (GlobalTransactionDO)value;
+            return new Writer(TYPE_GLOBAL)
+                .writeString(global.getXid())
+                .writeLong(global.getTransactionId())
+                .writeInt(global.getStatus())
+                .writeString(global.getApplicationId())
+                .writeString(global.getTransactionServiceGroup())
+                .writeString(global.getTransactionName())
+                .writeInt(global.getTimeout())
+                .writeLong(global.getBeginTime())
+                .writeString(global.getApplicationData())
+                .writeDate(global.getGmtCreate())
+                .writeDate(global.getGmtModified())
+                .toBytes();
+        }
+        if (value instanceof BranchTransactionDO) {
+            BranchTransactionDO branch = (BranchTransactionDO)value;
+            return new Writer(TYPE_BRANCH)
+                .writeString(branch.getXid())
+                .writeLong(branch.getTransactionId())
+                .writeLong(branch.getBranchId())
+                .writeString(branch.getResourceGroupId())
+                .writeString(branch.getResourceId())
+                .writeString(branch.getBranchType())
+                .writeInt(branch.getStatus())
+                .writeString(branch.getClientId())
+                .writeString(branch.getApplicationData())
+                .writeDate(branch.getGmtCreate())
+                .writeDate(branch.getGmtModified())
+                .toBytes();
+        }
+        if (value instanceof LockDO) {
+            LockDO lock = (LockDO)value;
+            return new Writer(TYPE_LOCK)
+                .writeString(lock.getXid())
+                .writeLong(lock.getTransactionId())
+                .writeLong(lock.getBranchId())
+                .writeString(lock.getResourceId())
+                .writeString(lock.getTableName())
+                .writeString(lock.getPk())
+                .writeString(lock.getRowKey())
+                .toBytes();
+        }
+        return fallback.encode(value);
+    }
+
+    @Override
+    public <T> T decode(byte[] bytes, Class<T> type) {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] != MAGIC) {
+            return fallback.decode(bytes, type);
+        }
+        Reader reader = new Reader(bytes);
+        byte valueType = reader.valueType;
+        if (valueType == TYPE_GLOBAL && type == GlobalTransactionDO.class) {
+            GlobalTransactionDO global = new GlobalTransactionDO();
+            global.setXid(reader.readString());
+            global.setTransactionId(reader.readLong());
+            global.setStatus(reader.readInt());
+            global.setApplicationId(reader.readString());
+            global.setTransactionServiceGroup(reader.readString());
+            global.setTransactionName(reader.readString());
+            global.setTimeout(reader.readInt());
+            global.setBeginTime(reader.readLong());
+            global.setApplicationData(reader.readString());
+            global.setGmtCreate(reader.readDate());
+            global.setGmtModified(reader.readDate());
+            return type.cast(global);
+        }
+        if (valueType == TYPE_BRANCH && type == BranchTransactionDO.class) {
+            BranchTransactionDO branch = new BranchTransactionDO();
+            branch.setXid(reader.readString());
+            branch.setTransactionId(reader.readLong());
+            branch.setBranchId(reader.readLong());
+            branch.setResourceGroupId(reader.readString());
+            branch.setResourceId(reader.readString());
+            branch.setBranchType(reader.readString());
+            branch.setStatus(reader.readInt());
+            branch.setClientId(reader.readString());
+            branch.setApplicationData(reader.readString());
+            branch.setGmtCreate(reader.readDate());
+            branch.setGmtModified(reader.readDate());
+            return type.cast(branch);
+        }
+        if (valueType == TYPE_LOCK && type == LockDO.class) {
+            LockDO lock = new LockDO();
+            lock.setXid(reader.readString());
+            lock.setTransactionId(reader.readLong());
+            lock.setBranchId(reader.readLong());
+            lock.setResourceId(reader.readString());
+            lock.setTableName(reader.readString());
+            lock.setPk(reader.readString());
+            lock.setRowKey(reader.readString());
+            return type.cast(lock);
+        }
+        throw new StoreException("Can not decode the value type " + valueType + " as " + type.getName());
+    }
+
+    private static final class Writer {
+
+        private byte[] buffer = new byte[128];
+
+        private int position = HEADER_SIZE;
+
+        private int field;
+
+        private int nonNullFields;
+
+        Writer(byte valueType) {
+            buffer[0] = MAGIC;
+            buffer[1] = VERSION;
+            buffer[2] = valueType;
+        }
+
+        Writer writeString(String value) {
+            if (present(value)) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                writeVarLong(bytes.length);
+                ensureCapacity(bytes.length);
+                System.arraycopy(bytes, 0, buffer, position, bytes.length);
+                position += bytes.length;
+            }
+            return this;
+        }
+
+        Writer writeLong(Long value) {
+            if (present(value)) {
+                writeVarLong(zigzag(value));
+            }
+            return this;
+        }
+
+        Writer writeInt(Integer value) {
+            if (present(value)) {
+                writeVarLong(zigzag(value));
+            }
+            return this;
+        }
+
+        Writer writeDate(Date value) {
+            if (present(value)) {
+                writeVarLong(zigzag(value.getTime()));
+            }
+            return this;
+        }
+
+        byte[] toBytes() {
+            buffer[3] = (byte)(nonNullFields >>> 8);
+            buffer[4] = (byte)nonNullFields;
+            return Arrays.copyOf(buffer, position);
+        }
+
+        private boolean present(Object value) {
+            int bit = 1 << field++;
+            if (value == null) {
+                return false;
+            }
+            nonNullFields |= bit;
+            return true;
+        }
+
+        private void writeVarLong(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[position++] = (byte)((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte)value;
+        }
+
+        private void ensureCapacity(int size) {
+            if (position + size > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length << 1, position + size));
+            }
+        }
+
+        private static long zigzag(long value) {
+            return (value << 1) ^ (value >> 63);
+        }
+    }
+
+    private static final class Reader {
+
+        private final byte[] buffer;
+
+        private final byte valueType;
+
+        private final int nonNullFields;
+
+        private int position;
+
+        private int field;
+
+        Reader(byte[] buffer) {
+            this.buffer = buffer;
+            if (buffer.length < HEADER_SIZE || buffer[1] != VERSION) {
+                throw new StoreException("Unsupported redis value version: " + (buffer.length > 1 ? buffer[1] : -1));
+            }
+            this.valueType = buffer[2];
+            this.nonNullFields = ((buffer[3] & 0xFF) << 8) | (buffer[4] & 0xFF);
+            this.position = HEADER_SIZE;
+        }
+
+        String readString() {
+            if (!present()) {
+                return null;
+            }
+            int length = (int)readVarLong();
+            String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        Long readLong() {
+            return present() ? unzigzag(readVarLong()) : null;
+        }
+
+        Integer readInt() {
+            return present() ? (int)unzigzag(readVarLong()) : null;
+        }
+
+        Date readDate() {
+            return present() ? new Date(unzigzag(readVarLong())) : null;
+        }
+
+        private boolean present() {
+            return (nonNullFields & (1 << field++)) != 0;
+        }
+
+        private long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = buffer[position++];
+                value |= (long)(b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new StoreException("Malformed varint in redis value");
+        }
+
+        private static long unzigzag(long value) {
+            return (value >>> 1) ^ -(value & 1);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.seata.server.storage.redis;
+
+/**
+ * The codec of the values the redis mode stores: global transactions, branch transactions and row locks.
+ * <p>
+ * Every codec must be able to decode the json values written before the codec was pluggable, so that a store can be
+ * switched to another codec without migrating it.
+ */
+public interface RedisValueCodec {
+
+    /**
+     * Encode the value.
+     *
+     * @param value the value
+     * @return the bytes
+     */
+    byte[] encode(Object value);
+
+    /**
+     * Decode the value.
+     *
+     * @param <T>   the type
+     * @param bytes the bytes, may be null
+     * @param type  the type
+     * @return the value, null if the bytes are null or empty
+     */
+    <T> T decode(byte[] bytes, Class<T> type);
+}
@@ -0,0 +1,50 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.seata.server.storage.redis;
+
+import io.seata.common.loader.EnhancedServiceLoader;
+import io.seata.config.ConfigurationFactory;
+import io.seata.core.constants.ConfigurationKeys;
+
+import static io.seata.common.DefaultValues.DEFAULT_STORE_REDIS_CODEC;
+
+/**
+ * The factory of the redis value codec.
+ */
+public class RedisValueCodecFactory {
+
+    private static volatile RedisValueCodec codec;
+
+    private RedisValueCodecFactory() {
+    }
+
+    /**
+     * Get the codec configured by store.redis.codec.
+     *
+     * @return the redis value codec
+     */
+    public static RedisValueCodec getCodec() {
+        if (codec == null) {
+            synchronized (RedisValueCodecFactory.class) {
+                if (codec == null) {
+                    codec = EnhancedServiceLoader.load(RedisValueCodec.class, ConfigurationFactory.getInstance()
+                        .getConfig(ConfigurationKeys.STORE_REDIS_CODEC, DEFAULT_STORE_REDIS_CODEC));
+                }
+            }
+        }
+        return codec;
+    }
+}
@@ -21,18 +21,24 @@ import java.util.stream.Collectors;
 import io.seata.common.executor.Initialize;
 import io.seata.common.loader.LoadLevel;
 import io.seata.common.util.CollectionUtils;
+import io.seata.config.ConfigurationFactory;
+import io.seata.core.constants.ConfigurationKeys;
 import io.seata.core.exception.TransactionException;
 import io.seata.core.lock.Locker;
 import io.seata.server.lock.AbstractLockManager;
 import io.seata.server.session.BranchSession;
 import io.seata.server.session.GlobalSession;
 
+import static io.seata.common.DefaultValues.DEFAULT_STORE_REDIS_TYPE;
+
 /**
  * @author funkye
  */
 @LoadLevel(name = "redis")
 public class RedisLockManager extends AbstractLockManager implements Initialize {
 
+    private static final String REDIS_TYPE_LUA = "lua";
+
     /**
      * The locker.
      */
@@ -40,7 +46,9 @@ public class RedisLockManager extends AbstractLockManager implements Initialize
 
     @Override
     public void init() {
-        locker = new RedisLocker();
+        String type = ConfigurationFactory.getInstance().getConfig(ConfigurationKeys.STORE_REDIS_TYPE,
+            DEFAULT_STORE_REDIS_TYPE);
+        locker = REDIS_TYPE_LUA.equalsIgnoreCase(type) ? new RedisLuaLocker() : new RedisLocker();
     }
 
     @Override
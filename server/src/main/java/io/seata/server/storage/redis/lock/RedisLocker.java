@@ -26,7 +26,6 @@ import java.util.Map;
 import java.util.HashMap;
 import java.util.stream.Collectors;
 
-import com.alibaba.fastjson.JSON;
 import io.seata.common.util.CollectionUtils;
 import io.seata.common.util.LambdaUtils;
 import io.seata.common.util.StringUtils;
@@ -36,8 +35,11 @@ import io.seata.core.lock.AbstractLocker;
 import io.seata.core.lock.RowLock;
 import io.seata.core.store.LockDO;
 import io.seata.server.storage.redis.JedisPooledFactory;
+import io.seata.server.storage.redis.RedisValueCodec;
+import io.seata.server.storage.redis.RedisValueCodecFactory;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.util.SafeEncoder;
 
 /**
  * @author funkye
@@ -55,6 +57,8 @@ public class RedisLocker extends AbstractLocker {
      */
     private int logQueryLimit;
 
+    private final RedisValueCodec codec = RedisValueCodecFactory.getCodec();
+
     /**
      * Instantiates a new Redis locker.
      */
@@ -81,15 +85,15 @@ public class RedisLocker extends AbstractLocker {
             locks.forEach(lockDO -> {
                 existedKeyList.add(getLockKey(lockDO.getRowKey()));
             });
-            List<String> lockList = jedis.mget(existedKeyList.toArray(new String[0]));
-            Map<String, String> map = new HashMap<>(existedKeyList.size(), 1);
+            List<byte[]> lockList =
+                jedis.mget(existedKeyList.stream().map(SafeEncoder::encode).toArray(byte[][]::new));
+            Map<String, byte[]> map = new HashMap<>(existedKeyList.size(), 1);
             for (int i = 0; i < existedKeyList.size(); i++) {
-                String existedValue = lockList.get(i);
-                if (existedValue == null) {
+                LockDO existed = codec.decode(lockList.get(i), LockDO.class);
+                if (existed == null) {
                     String key = existedKeyList.get(i);
-                    map.put(key, JSON.toJSONString(locks.get(i)));
+                    map.put(key, codec.encode(locks.get(i)));
                 } else {
-                    LockDO existed = JSON.parseObject(existedValue, LockDO.class);
                     if (!StringUtils.equals(existed.getXid(), locks.get(i).getXid())) {
                         return false;
                     }
@@ -101,7 +105,7 @@ public class RedisLocker extends AbstractLocker {
             Pipeline pipeline = jedis.pipelined();
             List<String> readyKeys = new ArrayList<>();
             map.forEach((key, value) -> {
-                pipeline.setnx(key, value);
+                pipeline.setnx(SafeEncoder.encode(key), value);
                 readyKeys.add(key);
             });
             List<Object> results = pipeline.syncAndReturnAll();
@@ -165,10 +169,10 @@ public class RedisLocker extends AbstractLocker {
             Set<String> keys = lRange(jedis, lockListKey);
             if (CollectionUtils.isNotEmpty(keys)) {
                 List<String> delKeys = new ArrayList<>();
-                List<String> values = jedis.mget(keys.toArray(new String[0]));
-                for (String value : values) {
+                List<byte[]> values = jedis.mget(keys.stream().map(SafeEncoder::encode).toArray(byte[][]::new));
+                for (byte[] value : values) {
                     Iterator<Long> it = branchIds.iterator();
-                    LockDO lock = JSON.parseObject(value, LockDO.class);
+                    LockDO lock = codec.decode(value, LockDO.class);
                     while (it.hasNext()) {
                         Long branchId = it.next();
                         if (lock != null && Objects.equals(lock.getBranchId(), branchId)) {
@@ -209,14 +213,13 @@ public class RedisLocker extends AbstractLocker {
             for (LockDO rowlock : locks) {
                 lockKeys.add(getLockKey(rowlock.getRowKey()));
             }
-            List<String> rowlockJsons = jedis.mget(lockKeys.toArray(new String[0]));
+            List<byte[]> rowlockValues =
+                jedis.mget(lockKeys.stream().map(SafeEncoder::encode).toArray(byte[][]::new));
             String xid = rowLocks.get(0).getXid();
-            for (String rowlockJson : rowlockJsons) {
-                if (!StringUtils.isEmpty(rowlockJson)) {
-                    LockDO lock = JSON.parseObject(rowlockJson, LockDO.class);
-                    if (lock != null && !Objects.equals(lock.getXid(), xid)) {
-                        return false;
-                    }
+            for (byte[] rowlockValue : rowlockValues) {
+                LockDO lock = codec.decode(rowlockValue, LockDO.class);
+                if (lock != null && !Objects.equals(lock.getXid(), xid)) {
+                    return false;
                 }
             }
         }
@@ -237,11 +240,11 @@ public class RedisLocker extends AbstractLocker {
         return keys;
     }
 
-    private String getXidLockKey(String xid) {
+    protected String getXidLockKey(String xid) {
         return DEFAULT_REDIS_SEATA_LOCK_XID_PREFIX + xid;
     }
 
-    private String getLockKey(String rowKey) {
+    protected String getLockKey(String rowKey) {
         return DEFAULT_REDIS_SEATA_LOCK_PREFIX + rowKey;
     }
 
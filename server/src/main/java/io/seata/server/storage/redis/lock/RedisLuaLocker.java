@@ -0,0 +1,298 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.seata.server.storage.redis.lock;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import io.seata.common.util.CollectionUtils;
+import io.seata.core.lock.RowLock;
+import io.seata.core.store.LockDO;
+import io.seata.server.storage.redis.JedisPooledFactory;
+import io.seata.server.storage.redis.RedisValueCodec;
+import io.seata.server.storage.redis.RedisValueCodecFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.exceptions.JedisNoScriptException;
+import redis.clients.jedis.util.SafeEncoder;
+
+/**
+ * The redis locker that checks, sets and indexes the row locks of a branch with server-side lua scripts, so that a
+ * branch is locked atomically in a single round trip.
+ * <p>
+ * A row lock is stored as a hash with the fields xid, transactionId, branchId, resourceId, tableName and pk instead
+ * of a json LockDO. The string row locks written by {@link RedisLocker} are still honored: the scripts never touch
+ * them, they hand them back and they are decoded and handled here, so a store can be switched from the pipeline
+ * type without draining it first. Every key a script touches is passed in KEYS.
+ */
+public class RedisLuaLocker extends RedisLocker {
+
+    private static final String FIELD_XID = "xid";
+
+    private static final int MAX_ACQUIRE_ATTEMPTS = 3;
+
+    /**
+     * KEYS: the row lock keys, then the xid lock key.
+     * ARGV: xid, transactionId, branchId, resourceId, the indexes of the string row locks known to be held by the xid,
+     * then the tableName and pk of each row.
+     * Returns 1 if locked, 0 on conflict, or the indexes of the string row locks yet to be checked.
+     */
+    private static final LuaScript ACQUIRE_LOCK_SCRIPT = new LuaScript(
+        "local xid = ARGV[1]\n"
+            + "local size = #KEYS - 1\n"
+            + "local owned = {}\n"
+            + "for index in string.gmatch(ARGV[5], '%d+') do\n"
+            + "    owned[tonumber(index)] = true\n"
+            + "end\n"
+            + "local unchecked = {}\n"
+            + "for i = 1, size do\n"
+            + "    local keyType = redis.call('TYPE', KEYS[i])\n"
+            + "    keyType = keyType.ok or keyType\n"
+            + "    if keyType == 'hash' then\n"
+            + "        if redis.call('HGET', KEYS[i], 'xid') ~= xid then\n"
+            + "            return 0\n"
+            + "        end\n"
+            + "    elseif keyType ~= 'none' and not owned[i] then\n"
+            + "        unchecked[#unchecked + 1] = i\n"
+            + "    end\n"
+            + "end\n"
+            + "if #unchecked > 0 then\n"
+            + "    return unchecked\n"
+            + "end\n"
+            + "local xidLockKey = KEYS[size + 1]\n"
+            + "for i = 1, size do\n"
+            + "    if redis.call('EXISTS', KEYS[i]) == 0 then\n"
+            + "        redis.call('HMSET', KEYS[i], 'xid', xid, 'transactionId', ARGV[2], 'branchId', ARGV[3],\n"
+            + "            'resourceId', ARGV[4], 'tableName', ARGV[4 + i * 2], 'pk', ARGV[5 + i * 2])\n"
+            + "        redis.call('LPUSH', xidLockKey, KEYS[i])\n"
+            + "    end\n"
+            + "end\n"
+            + "return 1\n");
+
+    /**
+     * KEYS: the xid lock key, then the row lock keys indexed by it.
+     * ARGV: the branch ids whose row locks are released.
+     * Returns the indexes of the string row locks, which are left to the caller.
+     */
+    private static final LuaScript RELEASE_LOCK_SCRIPT = new LuaScript(
+        "local branchIds = {}\n"
+            + "for i = 1, #ARGV do\n"
+            + "    branchIds[ARGV[i]] = true\n"
+            + "end\n"
+            + "local unchecked = {}\n"
+            + "for i = 2, #KEYS do\n"
+            + "    local keyType = redis.call('TYPE', KEYS[i])\n"
+            + "    keyType = keyType.ok or keyType\n"
+            + "    if keyType == 'hash' then\n"
+            + "        local branchId = redis.call('HGET', KEYS[i], 'branchId')\n"
+            + "        if branchId and branchIds[branchId] then\n"
+            + "            redis.call('DEL', KEYS[i])\n"
+            + "            redis.call('LREM', KEYS[1], 0, KEYS[i])\n"
+            + "        end\n"
+            + "    elseif keyType == 'none' then\n"
+            + "        redis.call('LREM', KEYS[1], 0, KEYS[i])\n"
+            + "    else\n"
+            + "        unchecked[#unchecked + 1] = i - 1\n"
+            + "    end\n"
+            + "end\n"
+            + "return unchecked\n");
+
+    private final RedisValueCodec codec = RedisValueCodecFactory.getCodec();
+
+    @Override
+    public boolean acquireLock(List<RowLock> rowLocks) {
+        if (CollectionUtils.isEmpty(rowLocks)) {
+            // no lock
+            return true;
+        }
+        RowLock first = rowLocks.get(0);
+        String xid = first.getXid();
+        List<String> keys = new ArrayList<>(rowLocks.size() + 1);
+        List<String> args = new ArrayList<>(rowLocks.size() * 2 + 5);
+        args.add(xid);
+        args.add(String.valueOf(first.getTransactionId()));
+        args.add(String.valueOf(first.getBranchId()));
+        args.add(first.getResourceId());
+        args.add("");
+        Set<String> rowKeys = new HashSet<>(rowLocks.size());
+        for (RowLock rowLock : rowLocks) {
+            String rowKey = getRowKey(rowLock.getResourceId(), rowLock.getTableName(), rowLock.getPk());
+            if (!rowKeys.add(rowKey)) {
+                continue;
+            }
+            keys.add(getLockKey(rowKey));
+            args.add(rowLock.getTableName());
+            args.add(rowLock.getPk());
+        }
+        keys.add(getXidLockKey(xid));
+        try (Jedis jedis = JedisPooledFactory.getJedisInstance()) {
+            Set<Long> owned = new TreeSet<>();
+            for (int attempt = 0; attempt < MAX_ACQUIRE_ATTEMPTS; attempt++) {
+                Object result = evalsha(jedis, ACQUIRE_LOCK_SCRIPT, keys, args);
+                if (!(result instanceof List)) {
+                    return Objects.equals(result, 1L);
+                }
+                // string row locks of the pipeline type, the script can not read their owner
+                List<Long> unchecked = toIndexes(result);
+                List<byte[]> values = jedis.mget(unchecked.stream().map(index -> SafeEncoder.encode(
+                    keys.get(index.intValue() - 1))).toArray(byte[][]::new));
+                for (int i = 0; i < unchecked.size(); i++) {
+                    LockDO lock = codec.decode(values.get(i), LockDO.class);
+                    if (lock != null && !Objects.equals(lock.getXid(), xid)) {
+                        return false;
+                    }
+                    if (lock != null) {
+                        owned.add(unchecked.get(i));
+                    }
+                }
+                args.set(4, owned.stream().map(String::valueOf).collect(Collectors.joining(",")));
+            }
+            return false;
+        }
+    }
+
+    @Override
+    public boolean releaseLock(String xid, List<Long> branchIds) {
+        if (CollectionUtils.isEmpty(branchIds)) {
+            // no lock
+            return true;
+        }
+        List<String> args = new ArrayList<>(branchIds.size());
+        for (Long branchId : branchIds) {
+            args.add(String.valueOf(branchId));
+        }
+        String xidLockKey = getXidLockKey(xid);
+        try (Jedis jedis = JedisPooledFactory.getJedisInstance()) {
+            List<String> rowLockKeys = jedis.lrange(xidLockKey, 0, -1);
+            if (CollectionUtils.isEmpty(rowLockKeys)) {
+                return true;
+            }
+            // a row key is listed again if the row was locked again by another branch of the xid
+            List<String> keys = new ArrayList<>(rowLockKeys.size() + 1);
+            keys.add(xidLockKey);
+            keys.addAll(new LinkedHashSet<>(rowLockKeys));
+            List<Long> unchecked = toIndexes(evalsha(jedis, RELEASE_LOCK_SCRIPT, keys, args));
+            if (unchecked.isEmpty()) {
+                return true;
+            }
+            // string row locks of the pipeline type, released the same way as RedisLocker does
+            List<byte[]> values = jedis.mget(unchecked.stream().map(index -> SafeEncoder.encode(
+                keys.get(index.intValue()))).toArray(byte[][]::new));
+            List<String> delKeys = new ArrayList<>();
+            for (int i = 0; i < unchecked.size(); i++) {
+                LockDO lock = codec.decode(values.get(i), LockDO.class);
+                if (lock != null && branchIds.contains(lock.getBranchId())) {
+                    delKeys.add(keys.get(unchecked.get(i).intValue()));
+                }
+            }
+            if (CollectionUtils.isNotEmpty(delKeys)) {
+                Pipeline pipeline = jedis.pipelined();
+                pipeline.del(delKeys.toArray(new String[0]));
+                for (String key : delKeys) {
+                    pipeline.lrem(xidLockKey, 0, key);
+                }
+                pipeline.sync();
+            }
+            return true;
+        }
+    }
+
+    @Override
+    public boolean isLockable(List<RowLock> rowLocks) {
+        if (CollectionUtils.isEmpty(rowLocks)) {
+            // no lock
+            return true;
+        }
+        String xid = rowLocks.get(0).getXid();
+        try (Jedis jedis = JedisPooledFactory.getJedisInstance()) {
+            List<String> lockKeys = new ArrayList<>(rowLocks.size());
+            Pipeline pipeline = jedis.pipelined();
+            for (RowLock rowLock : rowLocks) {
+                String lockKey = getLockKey(getRowKey(rowLock.getResourceId(), rowLock.getTableName(),
+                    rowLock.getPk()));
+                lockKeys.add(lockKey);
+                pipeline.hget(lockKey, FIELD_XID);
+            }
+            List<Object> owners = pipeline.syncAndReturnAll();
+            List<String> stringKeys = new ArrayList<>();
+            for (int i = 0; i < owners.size(); i++) {
+                Object owner = owners.get(i);
+                if (owner instanceof JedisDataException) {
+                    // WRONGTYPE, a string row lock of the pipeline type
+                    stringKeys.add(lockKeys.get(i));
+                } else if (owner != null && !Objects.equals(owner, xid)) {
+                    return false;
+                }
+            }
+            if (stringKeys.isEmpty()) {
+                return true;
+            }
+            for (byte[] value : jedis.mget(stringKeys.stream().map(SafeEncoder::encode).toArray(byte[][]::new))) {
+                LockDO lock = codec.decode(value, LockDO.class);
+                if (lock != null && !Objects.equals(lock.getXid(), xid)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Long> toIndexes(Object result) {
+        return result instanceof List ? (List<Long>) result : Collections.emptyList();
+    }
+
+    private Object evalsha(Jedis jedis, LuaScript script, List<String> keys, List<String> args) {
+        try {
+            return jedis.evalsha(script.getSha(jedis), keys, args);
+        } catch (JedisNoScriptException e) {
+            // the script cache of the redis server was flushed or restarted
+            return jedis.evalsha(script.load(jedis), keys, args);
+        }
+    }
+
+    /**
+     * A lua script that is loaded once with SCRIPT LOAD and then run by its sha.
+     */
+    private static class LuaScript {
+
+        private final String script;
+
+        private volatile String sha;
+
+        LuaScript(String script) {
+            this.script = script;
+        }
+
+        String getSha(Jedis jedis) {
+            String loaded = sha;
+            return loaded != null ? loaded : load(jedis);
+        }
+
+        String load(Jedis jedis) {
+            sha = jedis.scriptLoad(script);
+            return sha;
+        }
+    }
+}
@@ -16,13 +16,17 @@
 package io.seata.server.storage.redis.store;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
-import com.alibaba.fastjson.JSON;
 import io.seata.common.exception.StoreException;
 import io.seata.common.util.CollectionUtils;
 import io.seata.common.util.StringUtils;
@@ -37,6 +41,8 @@ import io.seata.server.session.BranchSession;
 import io.seata.server.session.GlobalSession;
 import io.seata.server.session.SessionCondition;
 import io.seata.server.storage.redis.JedisPooledFactory;
+import io.seata.server.storage.redis.RedisValueCodec;
+import io.seata.server.storage.redis.RedisValueCodecFactory;
 import io.seata.server.store.AbstractTransactionStoreManager;
 import io.seata.server.store.SessionStorable;
 import io.seata.server.store.TransactionStoreManager;
@@ -44,6 +50,9 @@ import redis.clients.jedis.Jedis;
 import redis.clients.jedis.Pipeline;
 import redis.clients.jedis.ScanParams;
 import redis.clients.jedis.ScanResult;
+import redis.clients.jedis.Transaction;
+import redis.clients.jedis.Tuple;
+import redis.clients.jedis.util.SafeEncoder;
 
 /**
  * @author funkye
@@ -62,17 +71,37 @@ public class RedisTransactionStoreManager extends AbstractTransactionStoreManage
     // global transaction id PREFIX
     private static final String DEFAULT_SEATA_TRANSACTION_ID_GLOBAL_PREFIX = "SEATA_TRANSACTION_ID_GLOBAL_";
 
+    // the prefix of the sorted sets that index the xids of each global status by begin time
+    private static final String DEFAULT_REDIS_SEATA_STATUS_PREFIX = "SEATA_STATUS_";
+
+    // set once the status sorted sets hold every global transaction. Servers older than the index write sessions
+    // without indexing them, so every server of the cluster must be upgraded before any of them reads by status
+    private static final String REDIS_SEATA_STATUS_INDEX_READY = "SEATA_STATUS_INDEX_READY";
+
     private static volatile RedisTransactionStoreManager instance;
 
     private static final Integer DEFAULT_QUERY_LIMIT = 100;
 
     private static final String INITIAL_CURSOR = "0";
+
+    private static final String MIN_SCORE = "-inf";
+
+    private static final String MAX_SCORE = "+inf";
     /**
      * The query limit.
      */
     private int logQueryLimit =
         ConfigurationFactory.getInstance().getInt(ConfigurationKeys.STORE_REDIS_QUERY_LIMIT, DEFAULT_QUERY_LIMIT);;
 
+    private volatile boolean statusIndexReady;
+
+    /**
+     * the scan positions of each status set, by the statuses read together
+     */
+    private final Map<String, StatusCursor[]> statusCursors = new ConcurrentHashMap<>();
+
+    private final RedisValueCodec codec = RedisValueCodecFactory.getCodec();
+
     /**
      * Get the instance.
      */
@@ -118,10 +147,10 @@ public class RedisTransactionStoreManager extends AbstractTransactionStoreManage
         try (Jedis jedis = JedisPooledFactory.getJedisInstance()) {
             String key = getBranchKey(branchTransactionDO.getBranchId());
             Pipeline pipeline = jedis.pipelined();
-            if (jedis.get(key) == null) {
+            if (!jedis.exists(key)) {
                 pipeline.lpush(getBranchListKeyByXid(branchTransactionDO.getXid()), key);
             }
-            pipeline.set(key, JSON.toJSONString(branchTransactionDO));
+            pipeline.set(SafeEncoder.encode(key), codec.encode(branchTransactionDO));
             pipeline.sync();
             return true;
         }
@@ -133,24 +162,83 @@ public class RedisTransactionStoreManager extends AbstractTransactionStoreManage
             keys[0] = getGlobalKeyByXid(globalTransactionDO.getXid());
             keys[1] = getGlobalKeyByTransactionId(globalTransactionDO.getTransactionId());
             keys[2] = getBranchListKeyByXid(globalTransactionDO.getXid());
-            jedis.del(keys);
-            return true;
+            GlobalStatus status = GlobalStatus.get(globalTransactionDO.getStatus());
+            byte[] xidKey = SafeEncoder.encode(keys[0]);
+            while (true) {
+                GlobalStatus previous = watchStatus(jedis, xidKey);
+                Transaction multi = jedis.multi();
+                multi.del(keys);
+                multi.zrem(getStatusKey(status), globalTransactionDO.getXid());
+                unindexPreviousStatus(multi, globalTransactionDO.getXid(), previous, status);
+                if (isExecuted(multi.exec())) {
+                    return true;
+                }
+            }
         }
     }
 
     private boolean insertOrUpdateGlobalTransactionDO(GlobalTransactionDO convertGlobalTransactionDO) {
         try (Jedis jedis = JedisPooledFactory.getJedisInstance()) {
-            String keys = getGlobalKeyByXid(convertGlobalTransactionDO.getXid());
-            Pipeline pipeline = jedis.pipelined();
-            String json = JSON.toJSONString(convertGlobalTransactionDO);
-            pipeline.set(keys, json);
-            keys = getGlobalKeyByTransactionId(convertGlobalTransactionDO.getTransactionId());
-            pipeline.set(keys, json);
-            pipeline.sync();
-            return true;
+            byte[] xidKey = SafeEncoder.encode(getGlobalKeyByXid(convertGlobalTransactionDO.getXid()));
+            byte[] transactionIdKey =
+                SafeEncoder.encode(getGlobalKeyByTransactionId(convertGlobalTransactionDO.getTransactionId()));
+            GlobalStatus status = GlobalStatus.get(convertGlobalTransactionDO.getStatus());
+            byte[] value = codec.encode(convertGlobalTransactionDO);
+            while (true) {
+                GlobalStatus previous = watchStatus(jedis, xidKey);
+                Transaction multi = jedis.multi();
+                multi.set(xidKey, value);
+                multi.set(transactionIdKey, value);
+                multi.zadd(getStatusKey(status), convertGlobalTransactionDO.getBeginTime(),
+                    convertGlobalTransactionDO.getXid());
+                unindexPreviousStatus(multi, convertGlobalTransactionDO.getXid(), previous, status);
+                if (isExecuted(multi.exec())) {
+                    return true;
+                }
+            }
         }
     }
 
+    /**
+     * Watch the global transaction and read its status, the MULTI that follows only runs if the value is still the
+     * one read here, so the status it moves the xid away from is always the one it replaces.
+     *
+     * @param jedis  the jedis
+     * @param xidKey the key of the global transaction by xid
+     * @return the status before the write, null if there was none
+     */
+    private GlobalStatus watchStatus(Jedis jedis, byte[] xidKey) {
+        jedis.watch(xidKey);
+        GlobalTransactionDO previousDO = codec.decode(jedis.get(xidKey), GlobalTransactionDO.class);
+        return previousDO == null ? null : GlobalStatus.get(previousDO.getStatus());
+    }
+
+    /**
+     * Remove the xid from the sorted set of the status it had before the write, if that differs, in the same MULTI
+     * as the write.
+     *
+     * @param multi    the transaction of the write
+     * @param xid      the xid
+     * @param previous the status before the write, null if there was none
+     * @param status   the status written, still indexed
+     */
+    private void unindexPreviousStatus(Transaction multi, String xid, GlobalStatus previous, GlobalStatus status) {
+        if (previous != null && previous != status) {
+            multi.zrem(getStatusKey(previous), xid);
+        }
+    }
+
+    /**
+     * Whether a MULTI started after a watch was executed, it is discarded if another write changed the watched value
+     * in between and is then retried on the new value.
+     *
+     * @param results the results of the EXEC
+     * @return the boolean
+     */
+    private static boolean isExecuted(List<Object> results) {
+        return results != null && !results.isEmpty();
+    }
+
     /**
      * Read session global session.
      *
@@ -162,14 +250,10 @@ public class RedisTransactionStoreManager extends AbstractTransactionStoreManage
      */
     @Override
     public GlobalSession readSession(String xid, boolean withBranchSessions) {
-        String globalSessionJson;
         try (Jedis jedis = JedisPooledFactory.getJedisInstance()) {
-            globalSessionJson = jedis.get(getGlobalKeyByXid(xid));
-            if (StringUtils.isBlank(globalSessionJson)) {
-                return null;
-            }
             // global transaction
-            GlobalTransactionDO globalTransactionDO = JSON.parseObject(globalSessionJson, GlobalTransactionDO.class);
+            GlobalTransactionDO globalTransactionDO =
+                codec.decode(jedis.get(SafeEncoder.encode(getGlobalKeyByXid(xid))), GlobalTransactionDO.class);
             if (globalTransactionDO == null) {
                 return null;
             }
@@ -179,7 +263,7 @@ public class RedisTransactionStoreManager extends AbstractTransactionStoreManage
             if (withBranchSessions) {
                 Set<String> keys = lRange(jedis, getBranchListKeyByXid(globalTransactionDO.getXid()));
                 if (CollectionUtils.isNotEmpty(keys)) {
-                    branchTransactionDOs = getBranchJsons(jedis, keys);
+                    branchTransactionDOs = readBranchTransactionDOs(jedis, keys);
                 }
             }
             return getGlobalSession(globalTransactionDO, branchTransactionDOs);
@@ -199,84 +283,208 @@ public class RedisTransactionStoreManager extends AbstractTransactionStoreManage
     }
 
     /**
-     * Read session list.
+     * Read session list, at most the query limit of them. Each status set is scanned by begin time from where the
+     * last call with the same statuses stopped and starts over after its end, the statuses share the limit in turn,
+     * so neither a full status nor the oldest sessions of one hide the others.
      *
      * @param statuses
      *            the statuses
      * @return the list
      */
     public List<GlobalSession> readSession(GlobalStatus[] statuses) {
-        List<Integer> states = new ArrayList<>();
-        for (int i = 0; i < statuses.length; i++) {
-            states.add(statuses[i].getCode());
-        }
         try (Jedis jedis = JedisPooledFactory.getJedisInstance()) {
-            Set<String> keys = new HashSet<>();
-            String cursor = INITIAL_CURSOR;
-            ScanParams params = new ScanParams();
-            params.count(logQueryLimit);
-            params.match(getGlobalKeyByXid("*"));
-            ScanResult<String> scans;
-            do {
-                scans = jedis.scan(cursor, params);
-                keys.addAll(scans.getResult());
-                cursor = scans.getCursor();
-            } while (!INITIAL_CURSOR.equals(cursor));
-            if (CollectionUtils.isNotEmpty(keys)) {
-                List<GlobalTransactionDO> globalTransactionDOs = new ArrayList<>();
-                for (String globalKey : keys) {
-                    GlobalTransactionDO globalTransactionDO =
-                        JSON.parseObject(jedis.get(globalKey), GlobalTransactionDO.class);
-                    if (globalTransactionDO != null && states.contains(globalTransactionDO.getStatus())) {
-                        globalTransactionDOs.add(globalTransactionDO);
-                    }
+            ensureStatusIndex(jedis);
+            List<String> xids = new ArrayList<>();
+            List<GlobalStatus> indexedStatuses = new ArrayList<>();
+            StatusCursor[] cursors = statusCursors.computeIfAbsent(Arrays.toString(statuses), k -> {
+                StatusCursor[] created = new StatusCursor[statuses.length];
+                for (int i = 0; i < created.length; i++) {
+                    created[i] = new StatusCursor();
                 }
-                if (CollectionUtils.isNotEmpty(globalTransactionDOs)) {
-                    List<String> xids =
-                        globalTransactionDOs.stream().map(GlobalTransactionDO::getXid).collect(Collectors.toList());
-                    List<BranchTransactionDO> branchTransactionDOs = new ArrayList<>();
-                    for (String xid : xids) {
-                        Set<String> branches = lRange(jedis, getBranchListKeyByXid(xid));
-                        if (CollectionUtils.isNotEmpty(branches)) {
-                            branchTransactionDOs.addAll(getBranchJsons(jedis, branches));
+                return created;
+            });
+            synchronized (cursors) {
+                boolean[] ends = new boolean[statuses.length];
+                List<List<Tuple>> pages = scanStatuses(jedis, statuses, cursors, ends);
+                int[] taken = new int[statuses.length];
+                boolean more = true;
+                while (more && xids.size() < logQueryLimit) {
+                    more = false;
+                    for (int i = 0; i < statuses.length && xids.size() < logQueryLimit; i++) {
+                        if (taken[i] < pages.get(i).size()) {
+                            xids.add(pages.get(i).get(taken[i]++).getElement());
+                            indexedStatuses.add(statuses[i]);
+                            more = true;
                         }
                     }
-                    Map<String, List<BranchTransactionDO>> branchTransactionDOsMap =
-                        branchTransactionDOs.stream().collect(Collectors.groupingBy(BranchTransactionDO::getXid,
-                            LinkedHashMap::new, Collectors.toList()));
-                    return globalTransactionDOs.stream()
-                        .map(globalTransactionDO -> getGlobalSession(globalTransactionDO,
-                            branchTransactionDOsMap.get(globalTransactionDO.getXid())))
-                        .collect(Collectors.toList());
                 }
+                for (int i = 0; i < statuses.length; i++) {
+                    cursors[i].advance(pages.get(i), taken[i], ends[i]);
+                }
+            }
+            if (xids.isEmpty()) {
+                return null;
+            }
+            List<byte[]> globalValues =
+                jedis.mget(xids.stream().map(xid -> SafeEncoder.encode(getGlobalKeyByXid(xid))).toArray(byte[][]::new));
+            List<GlobalTransactionDO> globalTransactionDOs = new ArrayList<>(xids.size());
+            Pipeline stale = null;
+            for (int i = 0; i < xids.size(); i++) {
+                GlobalTransactionDO globalTransactionDO = codec.decode(globalValues.get(i), GlobalTransactionDO.class);
+                if (globalTransactionDO != null && globalTransactionDO.getStatus() == indexedStatuses.get(i).getCode()) {
+                    globalTransactionDOs.add(globalTransactionDO);
+                    continue;
+                }
+                // an entry left behind by the index rebuild racing with a session write
+                if (stale == null) {
+                    stale = jedis.pipelined();
+                }
+                stale.zrem(getStatusKey(indexedStatuses.get(i)), xids.get(i));
+            }
+            if (stale != null) {
+                stale.sync();
+            }
+            if (globalTransactionDOs.isEmpty()) {
+                return null;
             }
+            Map<String, List<BranchTransactionDO>> branchTransactionDOsMap =
+                getBranchTransactionDOs(jedis, globalTransactionDOs);
+            return globalTransactionDOs.stream()
+                .map(globalTransactionDO -> getGlobalSession(globalTransactionDO,
+                    branchTransactionDOsMap.get(globalTransactionDO.getXid())))
+                .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Read the next page of each status set after its cursor, a set whose cursor is past its end is read again from
+     * the start. The end of a set is flagged when its page is short.
+     */
+    private List<List<Tuple>> scanStatuses(Jedis jedis, GlobalStatus[] statuses, StatusCursor[] cursors,
+                                           boolean[] ends) {
+        Pipeline pipeline = jedis.pipelined();
+        for (int i = 0; i < statuses.length; i++) {
+            pipeline.zrangeByScoreWithScores(getStatusKey(statuses[i]), cursors[i].min(), MAX_SCORE, 0,
+                logQueryLimit);
+        }
+        List<Object> ranges = pipeline.syncAndReturnAll();
+        List<List<Tuple>> pages = new ArrayList<>(statuses.length);
+        for (int i = 0; i < statuses.length; i++) {
+            String statusKey = getStatusKey(statuses[i]);
+            List<Tuple> range = toTuples(ranges.get(i));
+            List<Tuple> page = cursors[i].after(range);
+            if (page.isEmpty() && range.size() >= logQueryLimit) {
+                // a page full of the score of the cursor, skip to the next score rather than stall on it
+                range = toTuples(jedis.zrangeByScoreWithScores(statusKey, cursors[i].exclusiveMin(), MAX_SCORE, 0,
+                    logQueryLimit));
+                page = range;
+            }
+            if (page.isEmpty() && cursors[i].isSet()) {
+                // nothing is left after the cursor, start over
+                cursors[i].reset();
+                range = toTuples(jedis.zrangeByScoreWithScores(statusKey, MIN_SCORE, MAX_SCORE, 0, logQueryLimit));
+                page = range;
+            }
+            ends[i] = range.size() < logQueryLimit;
+            pages.add(page);
+        }
+        return pages;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Tuple> toTuples(Object range) {
+        return range instanceof Collection ? new ArrayList<>((Collection<Tuple>)range) : Collections.emptyList();
+    }
+
+    private Map<String, List<BranchTransactionDO>> getBranchTransactionDOs(Jedis jedis,
+        List<GlobalTransactionDO> globalTransactionDOs) {
+        Pipeline pipeline = jedis.pipelined();
+        for (GlobalTransactionDO globalTransactionDO : globalTransactionDOs) {
+            pipeline.lrange(getBranchListKeyByXid(globalTransactionDO.getXid()), 0, -1);
+        }
+        Set<String> branchKeys = new LinkedHashSet<>();
+        for (Object keys : pipeline.syncAndReturnAll()) {
+            for (Object key : (Collection<?>)keys) {
+                branchKeys.add((String)key);
+            }
+        }
+        if (branchKeys.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return readBranchTransactionDOs(jedis, branchKeys).stream().collect(
+            Collectors.groupingBy(BranchTransactionDO::getXid, LinkedHashMap::new, Collectors.toList()));
+    }
+
+    /**
+     * Index the global transactions written before the status sorted sets existed, once per store. The sessions a
+     * server older than the index writes after this are not indexed and are never read by status, so a cluster is
+     * upgraded in full before the first upgraded server serves a status read.
+     */
+    private void ensureStatusIndex(Jedis jedis) {
+        if (statusIndexReady) {
+            return;
+        }
+        synchronized (this) {
+            if (statusIndexReady) {
+                return;
+            }
+            if (!jedis.exists(REDIS_SEATA_STATUS_INDEX_READY)) {
+                String cursor = INITIAL_CURSOR;
+                ScanParams params = new ScanParams();
+                params.count(logQueryLimit);
+                params.match(getGlobalKeyByXid("*"));
+                ScanResult<String> scans;
+                do {
+                    scans = jedis.scan(cursor, params);
+                    List<String> keys = scans.getResult();
+                    if (CollectionUtils.isNotEmpty(keys)) {
+                        List<byte[]> globalValues =
+                            jedis.mget(keys.stream().map(SafeEncoder::encode).toArray(byte[][]::new));
+                        Pipeline pipeline = jedis.pipelined();
+                        for (byte[] globalValue : globalValues) {
+                            GlobalTransactionDO globalTransactionDO =
+                                codec.decode(globalValue, GlobalTransactionDO.class);
+                            if (globalTransactionDO == null) {
+                                continue;
+                            }
+                            pipeline.zadd(getStatusKey(GlobalStatus.get(globalTransactionDO.getStatus())),
+                                globalTransactionDO.getBeginTime(), globalTransactionDO.getXid());
+                        }
+                        pipeline.sync();
+                    }
+                    cursor = scans.getCursor();
+                } while (!INITIAL_CURSOR.equals(cursor));
+                jedis.set(REDIS_SEATA_STATUS_INDEX_READY, String.valueOf(System.currentTimeMillis()));
+            }
+            statusIndexReady = true;
         }
-        return null;
     }
 
     @Override
     public List<GlobalSession> readSession(SessionCondition sessionCondition) {
         try (Jedis jedis = JedisPooledFactory.getJedisInstance()) {
             if (!StringUtils.isEmpty(sessionCondition.getXid())) {
-                String globalSessionJson = jedis.get(getGlobalKeyByXid(sessionCondition.getXid()));
-                if (!StringUtils.isEmpty(globalSessionJson)) {
-                    GlobalSession session =
-                        convertGlobalSession(JSON.parseObject(globalSessionJson, GlobalTransactionDO.class));
+                GlobalTransactionDO globalTransactionDO = codec.decode(
+                    jedis.get(SafeEncoder.encode(getGlobalKeyByXid(sessionCondition.getXid()))),
+                    GlobalTransactionDO.class);
+                if (globalTransactionDO != null) {
+                    GlobalSession session = convertGlobalSession(globalTransactionDO);
                     List<GlobalSession> globalSessions = new ArrayList<>();
                     globalSessions.add(session);
                     return globalSessions;
                 }
             } else if (sessionCondition.getTransactionId() != null) {
-                String global = jedis.get(getGlobalKeyByTransactionId(sessionCondition.getTransactionId()));
-                if (StringUtils.isEmpty(global)) {
+                GlobalTransactionDO globalTransactionDO = codec.decode(
+                    jedis.get(SafeEncoder.encode(getGlobalKeyByTransactionId(sessionCondition.getTransactionId()))),
+                    GlobalTransactionDO.class);
+                if (globalTransactionDO == null) {
                     return null;
                 }
-                GlobalTransactionDO globalTransactionDO = JSON.parseObject(global, GlobalTransactionDO.class);
                 String branchKey = getBranchListKeyByXid(globalTransactionDO.getXid());
                 Set<String> keys = lRange(jedis, branchKey);
                 List<BranchTransactionDO> branchTransactionDOs = null;
                 if (CollectionUtils.isNotEmpty(keys)) {
-                    branchTransactionDOs = getBranchJsons(jedis, keys);
+                    branchTransactionDOs = readBranchTransactionDOs(jedis, keys);
                 }
                 GlobalSession globalSession = getGlobalSession(globalTransactionDO, branchTransactionDOs);
                 List<GlobalSession> globalSessions = new ArrayList<>();
@@ -289,12 +497,13 @@ public class RedisTransactionStoreManager extends AbstractTransactionStoreManage
         return null;
     }
 
-    private List<BranchTransactionDO> getBranchJsons(Jedis jedis, Set<String> keys) {
+    private List<BranchTransactionDO> readBranchTransactionDOs(Jedis jedis, Set<String> keys) {
         List<BranchTransactionDO> branchTransactionDOs = new ArrayList<>();
-        List<String> branchJsons = jedis.mget(keys.toArray(new String[0]));
-        for (String branchJson : branchJsons) {
-            if (!StringUtils.isEmpty(branchJson)) {
-                branchTransactionDOs.add(JSON.parseObject(branchJson, BranchTransactionDO.class));
+        List<byte[]> branchValues = jedis.mget(keys.stream().map(SafeEncoder::encode).toArray(byte[][]::new));
+        for (byte[] branchValue : branchValues) {
+            BranchTransactionDO branchTransactionDO = codec.decode(branchValue, BranchTransactionDO.class);
+            if (branchTransactionDO != null) {
+                branchTransactionDOs.add(branchTransactionDO);
             }
         }
         return branchTransactionDOs;
@@ -392,6 +601,71 @@ public class RedisTransactionStoreManager extends AbstractTransactionStoreManage
         return keys;
     }
 
+    /**
+     * The position of a scan over a status set, the score and xid of the last entry returned.
+     */
+    private static class StatusCursor {
+
+        private long score;
+
+        private String xid;
+
+        boolean isSet() {
+            return xid != null;
+        }
+
+        void reset() {
+            score = 0L;
+            xid = null;
+        }
+
+        String min() {
+            return xid == null ? MIN_SCORE : String.valueOf(score);
+        }
+
+        String exclusiveMin() {
+            return "(" + score;
+        }
+
+        /**
+         * the entries of the page behind the cursor, the page starts at the score of the cursor and may repeat the
+         * entries of the same score that were already returned
+         */
+        List<Tuple> after(List<Tuple> page) {
+            if (xid == null) {
+                return page;
+            }
+            int from = 0;
+            while (from < page.size() && (long)page.get(from).getScore() == score
+                && page.get(from).getElement().compareTo(xid) <= 0) {
+                from++;
+            }
+            return page.subList(from, page.size());
+        }
+
+        void advance(List<Tuple> page, int taken, boolean end) {
+            if (taken == page.size() && end) {
+                // the end of the set, the next round starts over
+                reset();
+                return;
+            }
+            if (taken > 0) {
+                Tuple last = page.get(taken - 1);
+                score = (long)last.getScore();
+                xid = last.getElement();
+            }
+        }
+    }
+
+    /**
+     * Sets log query limit.
+     *
+     * @param logQueryLimit the log query limit
+     */
+    public void setLogQueryLimit(int logQueryLimit) {
+        this.logQueryLimit = logQueryLimit;
+    }
+
     private String getGlobalKeyByXid(String xid) {
         return DEFAULT_REDIS_SEATA_GLOBAL_PREFIX + xid;
     }
@@ -404,6 +678,10 @@ public class RedisTransactionStoreManager extends AbstractTransactionStoreManage
         return DEFAULT_SEATA_TRANSACTION_ID_GLOBAL_PREFIX + transactionId;
     }
 
+    private String getStatusKey(GlobalStatus status) {
+        return DEFAULT_REDIS_SEATA_STATUS_PREFIX + status.getCode();
+    }
+
     private String getBranchKey(Long branchId) {
         return DEFAULT_REDIS_SEATA_BRANCH_PREFIX + branchId;
     }
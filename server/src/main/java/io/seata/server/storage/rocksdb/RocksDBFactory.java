@@ -0,0 +1,268 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.seata.server.storage.rocksdb;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import io.seata.common.exception.StoreException;
+import io.seata.config.Configuration;
+import io.seata.config.ConfigurationFactory;
+import io.seata.core.constants.ConfigurationKeys;
+import org.rocksdb.ColumnFamilyDescriptor;
+import org.rocksdb.ColumnFamilyHandle;
+import org.rocksdb.DBOptions;
+import org.rocksdb.RocksDB;
+import org.rocksdb.RocksDBException;
+import org.rocksdb.WriteBatch;
+import org.rocksdb.WriteOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static io.seata.common.DefaultValues.DEFAULT_STORE_ROCKSDB_DIR;
+import static io.seata.common.DefaultValues.DEFAULT_STORE_ROCKSDB_SYNC_WRITE;
+
+/**
+ * Opens the embedded rocksdb store of the server once and holds its column families.
+ * <p>
+ * The sessions and the row locks live in separate column families, the other ones are indexes kept in the same
+ * write batch as the record they point to:
+ * <ul>
+ * <li>global: xid to the global session</li>
+ * <li>transaction: transaction id to xid</li>
+ * <li>status: status, begin time and xid, for the scans of the retry schedules</li>
+ * <li>branch: xid and branch id to the branch session</li>
+ * <li>lock: row key to the row lock</li>
+ * <li>xid_lock: xid and row key to the branch id that holds the lock</li>
+ * </ul>
+ */
+public class RocksDBFactory {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RocksDBFactory.class);
+
+    private static final Configuration CONFIG = ConfigurationFactory.getInstance();
+
+    /**
+     * Separates the xid from the rest of a composite key, it never occurs in a xid.
+     */
+    public static final byte KEY_SEPARATOR = 0;
+
+    private static volatile RocksDBFactory instance;
+
+    private final DBOptions options;
+
+    private final WriteOptions writeOptions;
+
+    private final RocksDB db;
+
+    private final List<ColumnFamilyHandle> handles = new ArrayList<>();
+
+    private final ColumnFamilyHandle global;
+
+    private final ColumnFamilyHandle transaction;
+
+    private final ColumnFamilyHandle status;
+
+    private final ColumnFamilyHandle branch;
+
+    private final ColumnFamilyHandle lock;
+
+    private final ColumnFamilyHandle xidLock;
+
+    static {
+        RocksDB.loadLibrary();
+    }
+
+    /**
+     * Instantiates a new Rocks db factory.
+     *
+     * @param dir       the dir of the store
+     * @param syncWrite whether every write syncs the write ahead log
+     */
+    public RocksDBFactory(String dir, boolean syncWrite) {
+        List<ColumnFamilyDescriptor> descriptors = Arrays.asList(
+            new ColumnFamilyDescriptor(RocksDB.DEFAULT_COLUMN_FAMILY),
+            new ColumnFamilyDescriptor(bytes("global")),
+            new ColumnFamilyDescriptor(bytes("transaction")),
+            new ColumnFamilyDescriptor(bytes("status")),
+            new ColumnFamilyDescriptor(bytes("branch")),
+            new ColumnFamilyDescriptor(bytes("lock")),
+            new ColumnFamilyDescriptor(bytes("xid_lock")));
+        new File(dir).mkdirs();
+        options = new DBOptions().setCreateIfMissing(true).setCreateMissingColumnFamilies(true);
+        writeOptions = new WriteOptions().setSync(syncWrite);
+        try {
+            db = RocksDB.open(options, dir, descriptors, handles);
+        } catch (RocksDBException e) {
+            throw new StoreException(e, "open rocksdb store failed, dir:" + dir);
+        }
+        global = handles.get(1);
+        transaction = handles.get(2);
+        status = handles.get(3);
+        branch = handles.get(4);
+        lock = handles.get(5);
+        xidLock = handles.get(6);
+        if (LOGGER.isInfoEnabled()) {
+            LOGGER.info("rocksdb store is opened, dir:{}, syncWrite:{}", dir, syncWrite);
+        }
+    }
+
+    /**
+     * Get the instance, opened in the configured dir on first use.
+     *
+     * @return the instance
+     */
+    public static RocksDBFactory getInstance() {
+        if (instance == null) {
+            synchronized (RocksDBFactory.class) {
+                if (instance == null) {
+                    instance = new RocksDBFactory(
+                        CONFIG.getConfig(ConfigurationKeys.STORE_ROCKSDB_DIR, DEFAULT_STORE_ROCKSDB_DIR),
+                        CONFIG.getBoolean(ConfigurationKeys.STORE_ROCKSDB_SYNC_WRITE, DEFAULT_STORE_ROCKSDB_SYNC_WRITE));
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Close the instance if it was opened, on the shutdown of the server.
+     */
+    public static void shutdown() {
+        synchronized (RocksDBFactory.class) {
+            if (instance != null) {
+                instance.close();
+                instance = null;
+                if (LOGGER.isInfoEnabled()) {
+                    LOGGER.info("rocksdb store is closed");
+                }
+            }
+        }
+    }
+
+    /**
+     * Get a value.
+     *
+     * @param columnFamily the column family
+     * @param key          the key
+     * @return the value, null if there is none
+     */
+    public byte[] get(ColumnFamilyHandle columnFamily, byte[] key) {
+        try {
+            return db.get(columnFamily, key);
+        } catch (RocksDBException e) {
+            throw new StoreException(e);
+        }
+    }
+
+    /**
+     * Apply a write batch atomically.
+     *
+     * @param batch the batch
+     */
+    public void write(WriteBatch batch) {
+        try {
+            db.write(writeOptions, batch);
+        } catch (RocksDBException e) {
+            throw new StoreException(e);
+        }
+    }
+
+    /**
+     * Close the store.
+     */
+    public void close() {
+        for (ColumnFamilyHandle handle : handles) {
+            handle.close();
+        }
+        db.close();
+        writeOptions.close();
+        options.close();
+    }
+
+    public RocksDB getDb() {
+        return db;
+    }
+
+    public ColumnFamilyHandle getGlobal() {
+        return global;
+    }
+
+    public ColumnFamilyHandle getTransaction() {
+        return transaction;
+    }
+
+    public ColumnFamilyHandle getStatus() {
+        return status;
+    }
+
+    public ColumnFamilyHandle getBranch() {
+        return branch;
+    }
+
+    public ColumnFamilyHandle getLock() {
+        return lock;
+    }
+
+    public ColumnFamilyHandle getXidLock() {
+        return xidLock;
+    }
+
+    /**
+     * The utf-8 bytes of a string.
+     *
+     * @param value the value
+     * @return the bytes
+     */
+    public static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The utf-8 bytes of a xid followed by the key separator, the prefix of the composite keys of the xid.
+     *
+     * @param xid the xid
+     * @return the prefix
+     */
+    public static byte[] xidPrefix(String xid) {
+        byte[] xidBytes = bytes(xid);
+        byte[] prefix = Arrays.copyOf(xidBytes, xidBytes.length + 1);
+        prefix[xidBytes.length] = KEY_SEPARATOR;
+        return prefix;
+    }
+
+    /**
+     * Whether a key starts with a prefix.
+     *
+     * @param key    the key
+     * @param prefix the prefix
+     * @return the boolean
+     */
+    public static boolean startsWith(byte[] key, byte[] prefix) {
+        if (key.length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (key[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
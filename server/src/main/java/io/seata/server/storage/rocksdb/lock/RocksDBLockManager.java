@@ -0,0 +1,71 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.seata.server.storage.rocksdb.lock;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import io.seata.common.loader.LoadLevel;
+import io.seata.common.util.CollectionUtils;
+import io.seata.core.exception.TransactionException;
+import io.seata.core.lock.Locker;
+import io.seata.server.lock.AbstractLockManager;
+import io.seata.server.session.BranchSession;
+import io.seata.server.session.GlobalSession;
+import io.seata.server.storage.rocksdb.RocksDBFactory;
+
+/**
+ * The lock manager of the embedded rocksdb store.
+ */
+@LoadLevel(name = "rocksdb")
+public class RocksDBLockManager extends AbstractLockManager {
+
+    /**
+     * The locker.
+     */
+    private final Locker locker = new RocksDBLocker(RocksDBFactory.getInstance());
+
+    @Override
+    public Locker getLocker(BranchSession branchSession) {
+        return locker;
+    }
+
+    @Override
+    public boolean releaseLock(BranchSession branchSession) throws TransactionException {
+        try {
+            return getLocker().releaseLock(branchSession.getXid(), branchSession.getBranchId());
+        } catch (Exception t) {
+            LOGGER.error("unLock error, xid {}, branchId:{}", branchSession.getXid(), branchSession.getBranchId(), t);
+            return false;
+        }
+    }
+
+    @Override
+    public boolean releaseGlobalSessionLock(GlobalSession globalSession) throws TransactionException {
+        List<BranchSession> branchSessions = globalSession.getBranchSessions();
+        if (CollectionUtils.isEmpty(branchSessions)) {
+            return true;
+        }
+        List<Long> branchIds = branchSessions.stream().map(BranchSession::getBranchId).collect(Collectors.toList());
+        try {
+            return getLocker().releaseLock(globalSession.getXid(), branchIds);
+        } catch (Exception t) {
+            LOGGER.error("unLock globalSession error, xid:{} branchIds:{}", globalSession.getXid(),
+                CollectionUtils.toString(branchIds), t);
+            return false;
+        }
+    }
+}
\ No newline at end of file
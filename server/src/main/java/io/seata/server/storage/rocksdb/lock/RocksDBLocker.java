@@ -0,0 +1,246 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.seata.server.storage.rocksdb.lock;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+import io.seata.common.exception.StoreException;
+import io.seata.common.util.CollectionUtils;
+import io.seata.common.util.LambdaUtils;
+import io.seata.core.lock.AbstractLocker;
+import io.seata.core.lock.RowLock;
+import io.seata.core.store.LockDO;
+import io.seata.server.storage.redis.BinaryRedisValueCodec;
+import io.seata.server.storage.redis.RedisValueCodec;
+import io.seata.server.storage.rocksdb.RocksDBFactory;
+import org.rocksdb.RocksDBException;
+import org.rocksdb.RocksIterator;
+import org.rocksdb.WriteBatch;
+
+import static io.seata.server.storage.rocksdb.RocksDBFactory.bytes;
+import static io.seata.server.storage.rocksdb.RocksDBFactory.startsWith;
+import static io.seata.server.storage.rocksdb.RocksDBFactory.xidPrefix;
+
+/**
+ * The locker of the embedded rocksdb store.
+ * <p>
+ * The rows of a branch are checked and locked under the striped monitors of their row keys, taken in stripe order, and
+ * written with their xid index entries in one write batch. A lock is released under the same monitors and only if its
+ * xid still owns the row.
+ */
+public class RocksDBLocker extends AbstractLocker {
+
+    private static final int LOCK_STRIPES = 256;
+
+    private final RocksDBFactory factory;
+
+    private final RedisValueCodec codec = new BinaryRedisValueCodec();
+
+    private final ReentrantLock[] rowLocks = new ReentrantLock[LOCK_STRIPES];
+
+    /**
+     * Instantiates a new Rocks db locker.
+     *
+     * @param factory the factory of the store
+     */
+    public RocksDBLocker(RocksDBFactory factory) {
+        this.factory = factory;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            rowLocks[i] = new ReentrantLock();
+        }
+    }
+
+    @Override
+    public boolean acquireLock(List<RowLock> rowLocks) {
+        if (CollectionUtils.isEmpty(rowLocks)) {
+            // no lock
+            return true;
+        }
+        List<LockDO> locks = convertToLockDO(rowLocks);
+        if (locks.size() > 1) {
+            locks = locks.stream().filter(LambdaUtils.distinctByKey(LockDO::getRowKey)).collect(Collectors.toList());
+        }
+        String xid = locks.get(0).getXid();
+        List<ReentrantLock> stripes = lockStripes(locks.stream().map(LockDO::getRowKey).collect(Collectors.toList()));
+        try (WriteBatch batch = new WriteBatch()) {
+            boolean hasNew = false;
+            for (LockDO lockDO : locks) {
+                byte[] key = bytes(lockDO.getRowKey());
+                LockDO existed = codec.decode(factory.get(factory.getLock(), key), LockDO.class);
+                if (existed != null) {
+                    if (!Objects.equals(existed.getXid(), xid)) {
+                        return false;
+                    }
+                    continue;
+                }
+                batch.put(factory.getLock(), key, codec.encode(lockDO));
+                batch.put(factory.getXidLock(), getXidLockKey(xid, key), toBytes(lockDO.getBranchId()));
+                hasNew = true;
+            }
+            if (hasNew) {
+                factory.write(batch);
+            }
+            return true;
+        } catch (RocksDBException e) {
+            throw new StoreException(e);
+        } finally {
+            unlockStripes(stripes);
+        }
+    }
+
+    @Override
+    public boolean releaseLock(List<RowLock> rowLocks) {
+        if (CollectionUtils.isEmpty(rowLocks)) {
+            // no lock
+            return true;
+        }
+        List<LockDO> locks = convertToLockDO(rowLocks);
+        List<ReentrantLock> stripes = lockStripes(locks.stream().map(LockDO::getRowKey).collect(Collectors.toList()));
+        try (WriteBatch batch = new WriteBatch()) {
+            boolean hasReleased = false;
+            for (LockDO lockDO : locks) {
+                byte[] key = bytes(lockDO.getRowKey());
+                hasReleased |= deleteOwned(batch, key, lockDO.getXid());
+            }
+            if (hasReleased) {
+                factory.write(batch);
+            }
+            return true;
+        } catch (RocksDBException e) {
+            throw new StoreException(e);
+        } finally {
+            unlockStripes(stripes);
+        }
+    }
+
+    @Override
+    public boolean releaseLock(String xid, List<Long> branchIds) {
+        if (CollectionUtils.isEmpty(branchIds)) {
+            // no lock
+            return true;
+        }
+        Set<Long> releasing = new HashSet<>(branchIds);
+        byte[] prefix = xidPrefix(xid);
+        List<byte[]> rowKeys = new ArrayList<>();
+        try (RocksIterator iterator = factory.getDb().newIterator(factory.getXidLock())) {
+            for (iterator.seek(prefix); iterator.isValid(); iterator.next()) {
+                byte[] key = iterator.key();
+                if (!startsWith(key, prefix)) {
+                    break;
+                }
+                if (releasing.contains(ByteBuffer.wrap(iterator.value()).getLong())) {
+                    byte[] rowKey = new byte[key.length - prefix.length];
+                    System.arraycopy(key, prefix.length, rowKey, 0, rowKey.length);
+                    rowKeys.add(rowKey);
+                }
+            }
+        }
+        if (rowKeys.isEmpty()) {
+            return true;
+        }
+        List<ReentrantLock> stripes = lockStripes(
+            rowKeys.stream().map(rowKey -> new String(rowKey, StandardCharsets.UTF_8)).collect(Collectors.toList()));
+        try (WriteBatch batch = new WriteBatch()) {
+            for (byte[] rowKey : rowKeys) {
+                deleteOwned(batch, rowKey, xid);
+            }
+            factory.write(batch);
+            return true;
+        } catch (RocksDBException e) {
+            throw new StoreException(e);
+        } finally {
+            unlockStripes(stripes);
+        }
+    }
+
+    /**
+     * Delete the lock of a row if the xid still owns it, called under the stripe of the row so that the owner can't
+     * change before the batch is written.
+     *
+     * @return whether the lock was owned and is deleted
+     */
+    private boolean deleteOwned(WriteBatch batch, byte[] rowKey, String xid) throws RocksDBException {
+        batch.delete(factory.getXidLock(), getXidLockKey(xid, rowKey));
+        LockDO existed = codec.decode(factory.get(factory.getLock(), rowKey), LockDO.class);
+        if (existed == null || !Objects.equals(existed.getXid(), xid)) {
+            return false;
+        }
+        batch.delete(factory.getLock(), rowKey);
+        return true;
+    }
+
+    @Override
+    public boolean releaseLock(String xid, Long branchId) {
+        List<Long> branchIds = new ArrayList<>();
+        branchIds.add(branchId);
+        return releaseLock(xid, branchIds);
+    }
+
+    @Override
+    public boolean isLockable(List<RowLock> rowLocks) {
+        if (CollectionUtils.isEmpty(rowLocks)) {
+            // no lock
+            return true;
+        }
+        String xid = rowLocks.get(0).getXid();
+        for (LockDO lockDO : convertToLockDO(rowLocks)) {
+            LockDO existed = codec.decode(factory.get(factory.getLock(), bytes(lockDO.getRowKey())), LockDO.class);
+            if (existed != null && !Objects.equals(existed.getXid(), xid)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private List<ReentrantLock> lockStripes(List<String> rowKeys) {
+        // taken in stripe order so that two branches never wait on each other
+        Set<Integer> indexes = new TreeSet<>();
+        for (String rowKey : rowKeys) {
+            indexes.add((rowKey.hashCode() & Integer.MAX_VALUE) % LOCK_STRIPES);
+        }
+        List<ReentrantLock> stripes = new ArrayList<>(indexes.size());
+        for (Integer index : indexes) {
+            ReentrantLock stripe = rowLocks[index];
+            stripe.lock();
+            stripes.add(stripe);
+        }
+        return stripes;
+    }
+
+    private static void unlockStripes(List<ReentrantLock> stripes) {
+        for (int i = stripes.size() - 1; i >= 0; i--) {
+            stripes.get(i).unlock();
+        }
+    }
+
+    private static byte[] getXidLockKey(String xid, byte[] rowKey) {
+        byte[] prefix = xidPrefix(xid);
+        return ByteBuffer.allocate(prefix.length + rowKey.length).put(prefix).put(rowKey).array();
+    }
+
+    private static byte[] toBytes(long value) {
+        return ByteBuffer.allocate(Long.BYTES).putLong(value).array();
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.seata.server.storage.rocksdb.session;
+
+import io.seata.common.loader.LoadLevel;
+import io.seata.common.loader.Scope;
+import io.seata.server.session.AbstractStoreSessionManager;
+import io.seata.server.storage.rocksdb.RocksDBFactory;
+import io.seata.server.storage.rocksdb.store.RocksDBTransactionStoreManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The session manager of the embedded rocksdb store.
+ */
+@LoadLevel(name = "rocksdb", scope = Scope.PROTOTYPE)
+public class RocksDBSessionManager extends AbstractStoreSessionManager {
+    /**
+     * The constant LOGGER.
+     */
+    protected static final Logger LOGGER = LoggerFactory.getLogger(RocksDBSessionManager.class);
+
+    /**
+     * Instantiates a new Rocks db session manager.
+     */
+    public RocksDBSessionManager() {
+        super();
+    }
+
+    /**
+     * Instantiates a new Rocks db session manager.
+     *
+     * @param name
+     *            the name
+     */
+    public RocksDBSessionManager(String name) {
+        super(name);
+    }
+
+    @Override
+    public void init() {
+        transactionStoreManager = RocksDBTransactionStoreManager.getInstance();
+    }
+
+    @Override
+    public void destroy() {
+        // the store is shared by all the managers and the lock manager, the root one closes it once the schedules
+        // and the remoting of the server are stopped
+        if (taskName == null) {
+            RocksDBFactory.shutdown();
+        }
+    }
+
+}
@@ -0,0 +1,473 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.seata.server.storage.rocksdb.store;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.seata.common.exception.StoreException;
+import io.seata.common.util.CollectionUtils;
+import io.seata.common.util.StringUtils;
+import io.seata.config.ConfigurationFactory;
+import io.seata.core.constants.ConfigurationKeys;
+import io.seata.core.model.BranchStatus;
+import io.seata.core.model.BranchType;
+import io.seata.core.model.GlobalStatus;
+import io.seata.core.store.BranchTransactionDO;
+import io.seata.core.store.GlobalTransactionDO;
+import io.seata.server.session.BranchSession;
+import io.seata.server.session.GlobalSession;
+import io.seata.server.session.SessionCondition;
+import io.seata.server.storage.redis.BinaryRedisValueCodec;
+import io.seata.server.storage.redis.RedisValueCodec;
+import io.seata.server.storage.rocksdb.RocksDBFactory;
+import io.seata.server.store.AbstractTransactionStoreManager;
+import io.seata.server.store.SessionStorable;
+import io.seata.server.store.TransactionStoreManager;
+import org.rocksdb.RocksDBException;
+import org.rocksdb.RocksIterator;
+import org.rocksdb.WriteBatch;
+
+import static io.seata.common.DefaultValues.DEFAULT_STORE_ROCKSDB_QUERY_LIMIT;
+import static io.seata.server.storage.rocksdb.RocksDBFactory.bytes;
+import static io.seata.server.storage.rocksdb.RocksDBFactory.startsWith;
+import static io.seata.server.storage.rocksdb.RocksDBFactory.xidPrefix;
+
+/**
+ * The transaction store manager of the embedded rocksdb store.
+ * <p>
+ * A global session write and its index updates are applied in one write batch. The status index is keyed by status,
+ * begin time and xid, so the sessions of a status are scanned oldest first without reading the others.
+ */
+public class RocksDBTransactionStoreManager extends AbstractTransactionStoreManager
+    implements TransactionStoreManager {
+
+    private static final int LOCK_STRIPES = 64;
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private static volatile RocksDBTransactionStoreManager instance;
+
+    private final RocksDBFactory factory;
+
+    /**
+     * The values are written with the compact binary codec of the redis store.
+     */
+    private final RedisValueCodec codec = new BinaryRedisValueCodec();
+
+    /**
+     * Serializes the read-modify-write of the status index of a xid.
+     */
+    private final Object[] globalLocks = new Object[LOCK_STRIPES];
+
+    private int logQueryLimit;
+
+    /**
+     * The positions of the status scans, keyed by the statuses read together.
+     */
+    private final Map<String, StatusCursor> statusCursors = new ConcurrentHashMap<>();
+
+    /**
+     * Get the instance.
+     *
+     * @return the instance
+     */
+    public static RocksDBTransactionStoreManager getInstance() {
+        if (instance == null) {
+            synchronized (RocksDBTransactionStoreManager.class) {
+                if (instance == null) {
+                    instance = new RocksDBTransactionStoreManager(RocksDBFactory.getInstance());
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Instantiates a new Rocks db transaction store manager.
+     *
+     * @param factory the factory of the store
+     */
+    public RocksDBTransactionStoreManager(RocksDBFactory factory) {
+        this.factory = factory;
+        this.logQueryLimit = ConfigurationFactory.getInstance().getInt(ConfigurationKeys.STORE_ROCKSDB_QUERY_LIMIT,
+            DEFAULT_STORE_ROCKSDB_QUERY_LIMIT);
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            globalLocks[i] = new Object();
+        }
+    }
+
+    @Override
+    public boolean writeSession(LogOperation logOperation, SessionStorable session) {
+        try {
+            if (LogOperation.GLOBAL_ADD.equals(logOperation)) {
+                return insertOrUpdateGlobalTransactionDO(convertGlobalTransactionDO(session));
+            } else if (LogOperation.GLOBAL_UPDATE.equals(logOperation)) {
+                return insertOrUpdateGlobalTransactionDO(convertGlobalTransactionDO(session));
+            } else if (LogOperation.GLOBAL_REMOVE.equals(logOperation)) {
+                return deleteGlobalTransactionDO(convertGlobalTransactionDO(session));
+            } else if (LogOperation.BRANCH_ADD.equals(logOperation)) {
+                return insertOrUpdateBranchTransactionDO(convertBranchTransactionDO(session));
+            } else if (LogOperation.BRANCH_UPDATE.equals(logOperation)) {
+                return insertOrUpdateBranchTransactionDO(convertBranchTransactionDO(session));
+            } else if (LogOperation.BRANCH_REMOVE.equals(logOperation)) {
+                return deleteBranchTransactionDO(convertBranchTransactionDO(session));
+            } else {
+                throw new StoreException("Unknown LogOperation:" + logOperation.name());
+            }
+        } catch (RocksDBException e) {
+            throw new StoreException(e);
+        }
+    }
+
+    private boolean insertOrUpdateGlobalTransactionDO(GlobalTransactionDO globalTransactionDO)
+        throws RocksDBException {
+        String xid = globalTransactionDO.getXid();
+        byte[] key = bytes(xid);
+        synchronized (globalLockOf(xid)) {
+            GlobalTransactionDO previous = codec.decode(factory.get(factory.getGlobal(), key),
+                GlobalTransactionDO.class);
+            try (WriteBatch batch = new WriteBatch()) {
+                if (previous != null) {
+                    batch.delete(factory.getStatus(), getStatusKey(previous.getStatus(), previous.getBeginTime(), key));
+                }
+                batch.put(factory.getGlobal(), key, codec.encode(globalTransactionDO));
+                batch.put(factory.getTransaction(), toBytes(globalTransactionDO.getTransactionId()), key);
+                batch.put(factory.getStatus(), getStatusKey(globalTransactionDO.getStatus(),
+                    globalTransactionDO.getBeginTime(), key), EMPTY);
+                factory.write(batch);
+            }
+        }
+        return true;
+    }
+
+    private boolean deleteGlobalTransactionDO(GlobalTransactionDO globalTransactionDO) throws RocksDBException {
+        String xid = globalTransactionDO.getXid();
+        byte[] key = bytes(xid);
+        synchronized (globalLockOf(xid)) {
+            GlobalTransactionDO previous = codec.decode(factory.get(factory.getGlobal(), key),
+                GlobalTransactionDO.class);
+            if (previous == null) {
+                return true;
+            }
+            byte[] branchPrefix = xidPrefix(xid);
+            byte[] branchEnd = Arrays.copyOf(branchPrefix, branchPrefix.length);
+            branchEnd[branchEnd.length - 1]++;
+            try (WriteBatch batch = new WriteBatch()) {
+                batch.delete(factory.getStatus(), getStatusKey(previous.getStatus(), previous.getBeginTime(), key));
+                batch.delete(factory.getTransaction(), toBytes(previous.getTransactionId()));
+                batch.delete(factory.getGlobal(), key);
+                batch.deleteRange(factory.getBranch(), branchPrefix, branchEnd);
+                factory.write(batch);
+            }
+        }
+        return true;
+    }
+
+    private boolean insertOrUpdateBranchTransactionDO(BranchTransactionDO branchTransactionDO)
+        throws RocksDBException {
+        try (WriteBatch batch = new WriteBatch()) {
+            batch.put(factory.getBranch(), getBranchKey(branchTransactionDO.getXid(),
+                branchTransactionDO.getBranchId()), codec.encode(branchTransactionDO));
+            factory.write(batch);
+        }
+        return true;
+    }
+
+    private boolean deleteBranchTransactionDO(BranchTransactionDO branchTransactionDO) throws RocksDBException {
+        try (WriteBatch batch = new WriteBatch()) {
+            batch.delete(factory.getBranch(), getBranchKey(branchTransactionDO.getXid(),
+                branchTransactionDO.getBranchId()));
+            factory.write(batch);
+        }
+        return true;
+    }
+
+    @Override
+    public GlobalSession readSession(String xid, boolean withBranchSessions) {
+        GlobalTransactionDO globalTransactionDO = codec.decode(factory.get(factory.getGlobal(), bytes(xid)),
+            GlobalTransactionDO.class);
+        if (globalTransactionDO == null) {
+            return null;
+        }
+        return getGlobalSession(globalTransactionDO,
+            withBranchSessions ? readBranchTransactionDOs(globalTransactionDO.getXid()) : null);
+    }
+
+    @Override
+    public GlobalSession readSession(String xid) {
+        return this.readSession(xid, true);
+    }
+
+    /**
+     * Read session list, at most the query limit of them, the oldest first. Each read resumes every status after the
+     * last session of it the previous read of the same statuses returned, so the sessions past the first page are
+     * reached too; a status starts over once it is read to its end.
+     *
+     * @param statuses the statuses
+     * @return the list
+     */
+    public List<GlobalSession> readSession(GlobalStatus[] statuses) {
+        StatusCursor cursor = statusCursors.computeIfAbsent(Arrays.toString(statuses),
+            k -> new StatusCursor(statuses.length));
+        List<StatusEntry> entries = new ArrayList<>();
+        synchronized (cursor) {
+            int[] scanned = new int[statuses.length];
+            for (int i = 0; i < statuses.length; i++) {
+                scanned[i] = scanStatus(statuses[i], i, cursor.lastKeys[i], entries);
+                if (scanned[i] == 0 && cursor.lastKeys[i] != null) {
+                    // the rest of the status is gone, start it over
+                    cursor.lastKeys[i] = null;
+                    scanned[i] = scanStatus(statuses[i], i, null, entries);
+                }
+            }
+            // the sort is stable, so the entries of a status stay in key order
+            entries.sort(Comparator.comparingLong(entry -> entry.globalTransactionDO.getBeginTime()));
+            if (entries.size() > logQueryLimit) {
+                entries = entries.subList(0, logQueryLimit);
+            }
+            int[] taken = new int[statuses.length];
+            for (StatusEntry entry : entries) {
+                taken[entry.index]++;
+                cursor.lastKeys[entry.index] = entry.key;
+            }
+            for (int i = 0; i < statuses.length; i++) {
+                if (scanned[i] < logQueryLimit && taken[i] == scanned[i]) {
+                    cursor.lastKeys[i] = null;
+                }
+            }
+        }
+        if (CollectionUtils.isEmpty(entries)) {
+            return null;
+        }
+        List<GlobalSession> globalSessions = new ArrayList<>(entries.size());
+        for (StatusEntry entry : entries) {
+            globalSessions.add(getGlobalSession(entry.globalTransactionDO,
+                readBranchTransactionDOs(entry.globalTransactionDO.getXid())));
+        }
+        return globalSessions;
+    }
+
+    /**
+     * Scan at most the query limit of the sessions of a status, in key order after a key.
+     *
+     * @return the count of the sessions scanned
+     */
+    private int scanStatus(GlobalStatus globalStatus, int index, byte[] after, List<StatusEntry> entries) {
+        byte[] prefix = new byte[] {(byte)globalStatus.getCode()};
+        int count = 0;
+        try (RocksIterator iterator = factory.getDb().newIterator(factory.getStatus())) {
+            iterator.seek(after != null ? after : prefix);
+            if (after != null && iterator.isValid() && Arrays.equals(iterator.key(), after)) {
+                iterator.next();
+            }
+            for (; iterator.isValid() && count < logQueryLimit; iterator.next()) {
+                byte[] key = iterator.key();
+                if (!startsWith(key, prefix)) {
+                    break;
+                }
+                byte[] xid = Arrays.copyOfRange(key, 1 + Long.BYTES, key.length);
+                GlobalTransactionDO globalTransactionDO = codec.decode(factory.get(factory.getGlobal(), xid),
+                    GlobalTransactionDO.class);
+                if (globalTransactionDO != null) {
+                    entries.add(new StatusEntry(index, key, globalTransactionDO));
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public List<GlobalSession> readSession(SessionCondition sessionCondition) {
+        if (StringUtils.isNotBlank(sessionCondition.getXid())) {
+            GlobalSession globalSession = readSession(sessionCondition.getXid());
+            if (globalSession != null) {
+                List<GlobalSession> globalSessions = new ArrayList<>();
+                globalSessions.add(globalSession);
+                return globalSessions;
+            }
+        } else if (sessionCondition.getTransactionId() != null) {
+            byte[] xid = factory.get(factory.getTransaction(), toBytes(sessionCondition.getTransactionId()));
+            GlobalSession globalSession = xid == null ? null : readSession(new String(xid, StandardCharsets.UTF_8));
+            if (globalSession != null) {
+                List<GlobalSession> globalSessions = new ArrayList<>();
+                globalSessions.add(globalSession);
+                return globalSessions;
+            }
+        } else if (CollectionUtils.isNotEmpty(sessionCondition.getStatuses())) {
+            return readSession(sessionCondition.getStatuses());
+        }
+        return null;
+    }
+
+    private List<BranchTransactionDO> readBranchTransactionDOs(String xid) {
+        List<BranchTransactionDO> branchTransactionDOs = new ArrayList<>();
+        byte[] prefix = xidPrefix(xid);
+        try (RocksIterator iterator = factory.getDb().newIterator(factory.getBranch())) {
+            for (iterator.seek(prefix); iterator.isValid(); iterator.next()) {
+                if (!startsWith(iterator.key(), prefix)) {
+                    break;
+                }
+                BranchTransactionDO branchTransactionDO = codec.decode(iterator.value(), BranchTransactionDO.class);
+                if (branchTransactionDO != null) {
+                    branchTransactionDOs.add(branchTransactionDO);
+                }
+            }
+        }
+        return branchTransactionDOs;
+    }
+
+    private GlobalTransactionDO convertGlobalTransactionDO(SessionStorable session) {
+        if (session == null || !(session instanceof GlobalSession)) {
+            throw new IllegalArgumentException(
+                "the parameter of SessionStorable is not available, SessionStorable:" + StringUtils.toString(session));
+        }
+        GlobalSession globalSession = (GlobalSession)session;
+
+        GlobalTransactionDO globalTransactionDO = new GlobalTransactionDO();
+        globalTransactionDO.setXid(globalSession.getXid());
+        globalTransactionDO.setStatus(globalSession.getStatus().getCode());
+        globalTransactionDO.setApplicationId(globalSession.getApplicationId());
+        globalTransactionDO.setBeginTime(globalSession.getBeginTime());
+        globalTransactionDO.setTimeout(globalSession.getTimeout());
+        globalTransactionDO.setTransactionId(globalSession.getTransactionId());
+        globalTransactionDO.setTransactionName(globalSession.getTransactionName());
+        globalTransactionDO.setTransactionServiceGroup(globalSession.getTransactionServiceGroup());
+        globalTransactionDO.setApplicationData(globalSession.getApplicationData());
+        return globalTransactionDO;
+    }
+
+    private BranchTransactionDO convertBranchTransactionDO(SessionStorable session) {
+        if (session == null || !(session instanceof BranchSession)) {
+            throw new IllegalArgumentException(
+                "the parameter of SessionStorable is not available, SessionStorable:" + StringUtils.toString(session));
+        }
+        BranchSession branchSession = (BranchSession)session;
+
+        BranchTransactionDO branchTransactionDO = new BranchTransactionDO();
+        branchTransactionDO.setXid(branchSession.getXid());
+        branchTransactionDO.setBranchId(branchSession.getBranchId());
+        branchTransactionDO.setBranchType(branchSession.getBranchType().name());
+        branchTransactionDO.setClientId(branchSession.getClientId());
+        branchTransactionDO.setResourceGroupId(branchSession.getResourceGroupId());
+        branchTransactionDO.setTransactionId(branchSession.getTransactionId());
+        branchTransactionDO.setApplicationData(branchSession.getApplicationData());
+        branchTransactionDO.setResourceId(branchSession.getResourceId());
+        branchTransactionDO.setStatus(branchSession.getStatus().getCode());
+        return branchTransactionDO;
+    }
+
+    private GlobalSession convertGlobalSession(GlobalTransactionDO globalTransactionDO) {
+        GlobalSession session =
+            new GlobalSession(globalTransactionDO.getApplicationId(), globalTransactionDO.getTransactionServiceGroup(),
+                globalTransactionDO.getTransactionName(), globalTransactionDO.getTimeout());
+        session.setTransactionId(globalTransactionDO.getTransactionId());
+        session.setXid(globalTransactionDO.getXid());
+        session.setStatus(GlobalStatus.get(globalTransactionDO.getStatus()));
+        session.setApplicationData(globalTransactionDO.getApplicationData());
+        session.setBeginTime(globalTransactionDO.getBeginTime());
+        return session;
+    }
+
+    private BranchSession convertBranchSession(BranchTransactionDO branchTransactionDO) {
+        BranchSession branchSession = new BranchSession();
+        branchSession.setXid(branchTransactionDO.getXid());
+        branchSession.setTransactionId(branchTransactionDO.getTransactionId());
+        branchSession.setApplicationData(branchTransactionDO.getApplicationData());
+        branchSession.setBranchId(branchTransactionDO.getBranchId());
+        branchSession.setBranchType(BranchType.valueOf(branchTransactionDO.getBranchType()));
+        branchSession.setResourceId(branchTransactionDO.getResourceId());
+        branchSession.setClientId(branchTransactionDO.getClientId());
+        branchSession.setResourceGroupId(branchTransactionDO.getResourceGroupId());
+        branchSession.setStatus(BranchStatus.get(branchTransactionDO.getStatus()));
+        return branchSession;
+    }
+
+    private GlobalSession getGlobalSession(GlobalTransactionDO globalTransactionDO,
+        List<BranchTransactionDO> branchTransactionDOs) {
+        GlobalSession globalSession = convertGlobalSession(globalTransactionDO);
+        // branch transactions
+        if (CollectionUtils.isNotEmpty(branchTransactionDOs)) {
+            for (BranchTransactionDO branchTransactionDO : branchTransactionDOs) {
+                globalSession.add(convertBranchSession(branchTransactionDO));
+            }
+        }
+        return globalSession;
+    }
+
+    private Object globalLockOf(String xid) {
+        return globalLocks[(xid.hashCode() & Integer.MAX_VALUE) % LOCK_STRIPES];
+    }
+
+    private static byte[] getStatusKey(int status, long beginTime, byte[] xid) {
+        return ByteBuffer.allocate(1 + Long.BYTES + xid.length).put((byte)status).putLong(beginTime).put(xid).array();
+    }
+
+    private static byte[] getBranchKey(String xid, long branchId) {
+        byte[] prefix = xidPrefix(xid);
+        return ByteBuffer.allocate(prefix.length + Long.BYTES).put(prefix).putLong(branchId).array();
+    }
+
+    private static byte[] toBytes(long value) {
+        return ByteBuffer.allocate(Long.BYTES).putLong(value).array();
+    }
+
+    /**
+     * The position of a status scan, the status index key of the last session returned of each status.
+     */
+    private static class StatusCursor {
+
+        private final byte[][] lastKeys;
+
+        StatusCursor(int statusCount) {
+            lastKeys = new byte[statusCount][];
+        }
+    }
+
+    /**
+     * A session scanned through the status index.
+     */
+    private static class StatusEntry {
+
+        private final int index;
+
+        private final byte[] key;
+
+        private final GlobalTransactionDO globalTransactionDO;
+
+        StatusEntry(int index, byte[] key, GlobalTransactionDO globalTransactionDO) {
+            this.index = index;
+            this.key = key;
+            this.globalTransactionDO = globalTransactionDO;
+        }
+    }
+
+    /**
+     * Sets log query limit.
+     *
+     * @param logQueryLimit the log query limit
+     */
+    public void setLogQueryLimit(int logQueryLimit) {
+        this.logQueryLimit = logQueryLimit;
+    }
+}
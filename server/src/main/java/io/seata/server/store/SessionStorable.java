@@ -15,6 +15,8 @@
  */
 package io.seata.server.store;
 
+import java.nio.ByteBuffer;
+
 /**
  * The interface Session storable.
  *
@@ -29,10 +31,63 @@ public interface SessionStorable {
      */
     byte[] encode();
 
+    /**
+     * Take the fields to encode at once. The size of the returned encoding and the bytes it writes come from the
+     * same reads of the fields, so they agree even if the session changes in between.
+     *
+     * @return the encoding
+     */
+    default Encoding encoding() {
+        byte[] bytes = encode();
+        return new Encoding() {
+            @Override
+            public int size() {
+                return bytes.length;
+            }
+
+            @Override
+            public void encodeTo(ByteBuffer byteBuffer) {
+                byteBuffer.put(bytes);
+            }
+        };
+    }
+
     /**
      * Decode.
      *
      * @param src the src
      */
     void decode(byte[] src);
+
+    /**
+     * Decode from the remaining bytes of the byte buffer.
+     *
+     * @param byteBuffer the byte buffer
+     */
+    default void decode(ByteBuffer byteBuffer) {
+        byte[] src = new byte[byteBuffer.remaining()];
+        byteBuffer.get(src);
+        decode(src);
+    }
+
+    /**
+     * The encoding of a session storable taken at one point.
+     */
+    interface Encoding {
+
+        /**
+         * Encoded size int.
+         *
+         * @return the size of the encoded bytes
+         */
+        int size();
+
+        /**
+         * Encode into the byte buffer from its position, the buffer should have at least {@link #size()} bytes
+         * remaining.
+         *
+         * @param byteBuffer the byte buffer
+         */
+        void encodeTo(ByteBuffer byteBuffer);
+    }
 }
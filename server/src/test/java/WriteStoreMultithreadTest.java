@@ -99,6 +99,11 @@ public class WriteStoreMultithreadTest {
                         return null;
                     }
 
+                    @Override
+                    public List<GlobalSession> findTimeoutSessions(long now) {
+                        return null;
+                    }
+
                     @Override
                     public List<GlobalSession> findGlobalSessions(SessionCondition condition) {
                         List<GlobalSession> globalSessions = new ArrayList<>();
@@ -115,6 +115,11 @@ public class WriteStoreTest {
                     return null;
                 }
 
+                @Override
+                public List<GlobalSession> findTimeoutSessions(long now) {
+                    return null;
+                }
+
                 @Override
                 public List<GlobalSession> findGlobalSessions(SessionCondition condition) {
                     List<GlobalSession> globalSessions = new ArrayList<>();
@@ -42,6 +42,7 @@ import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.time.Duration;
 import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -273,6 +274,17 @@ public class DefaultCoordinatorTest {
             }
         }
 
+        @Override
+        public CompletableFuture<Object> sendAsyncRequest(String resourceId, String clientId, Object message) {
+            try {
+                return CompletableFuture.completedFuture(sendSyncRequest(resourceId, clientId, message));
+            } catch (TimeoutException e) {
+                CompletableFuture<Object> future = new CompletableFuture<>();
+                future.completeExceptionally(e);
+                return future;
+            }
+        }
+
         @Override
         public Object sendSyncRequest(Channel clientChannel, Object message) throws TimeoutException {
             return null;
@@ -16,6 +16,9 @@
 package io.seata.server.coordinator;
 
 import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Stream;
 
 import io.seata.core.exception.TransactionException;
@@ -289,6 +292,146 @@ public class DefaultCoreTest {
         Assertions.assertEquals(globalSession.getStatus(), GlobalStatus.RollbackRetrying);
     }
 
+    /**
+     * Do global commit in parallel test.
+     *
+     * @param xid the xid
+     * @throws Exception the exception
+     */
+    @ParameterizedTest
+    @MethodSource("xidProvider")
+    public void doParallelGlobalCommitTest(String xid) throws Exception {
+        globalSession = SessionHolder.findGlobalSession(xid);
+        for (int i = 0; i < 3; i++) {
+            BranchSession branchSession = SessionHelper.newBranchByGlobal(globalSession, BranchType.XA, resourceId + i,
+                applicationData, "t1:" + i, clientId);
+            globalSession.addBranch(branchSession);
+            globalSession.changeBranchStatus(branchSession, BranchStatus.PhaseOne_Done);
+        }
+        core.mockCore(BranchType.XA,
+            new MockCore(BranchStatus.PhaseTwo_Committed, BranchStatus.PhaseOne_Done));
+        core.mockParallelPhaseTwo(true);
+        try {
+            Assertions.assertTrue(core.doGlobalCommit(globalSession, false));
+        } finally {
+            core.mockParallelPhaseTwo(false);
+        }
+        Assertions.assertEquals(globalSession.getStatus(), GlobalStatus.Committed);
+        Assertions.assertFalse(globalSession.hasBranch());
+    }
+
+    /**
+     * Do global commit in parallel without waiting for the branches test.
+     *
+     * @param xid the xid
+     * @throws Exception the exception
+     */
+    @ParameterizedTest
+    @MethodSource("xidProvider")
+    public void doParallelGlobalCommitAsyncTest(String xid) throws Exception {
+        globalSession = SessionHolder.findGlobalSession(xid);
+        for (int i = 0; i < 3; i++) {
+            BranchSession branchSession = SessionHelper.newBranchByGlobal(globalSession, BranchType.XA, resourceId + i,
+                applicationData, "t1:" + i, clientId);
+            globalSession.addBranch(branchSession);
+            globalSession.changeBranchStatus(branchSession, BranchStatus.PhaseOne_Done);
+        }
+        CompletableFuture<BranchStatus> response = new CompletableFuture<>();
+        core.mockCore(BranchType.XA, new MockCore(BranchStatus.PhaseTwo_Committed, BranchStatus.PhaseOne_Done) {
+            @Override
+            public CompletableFuture<BranchStatus> branchCommitAsync(GlobalSession globalSession,
+                                                                     BranchSession branchSession) {
+                return response;
+            }
+        });
+        core.mockParallelPhaseTwo(true);
+        CompletableFuture<Boolean> committed;
+        try {
+            committed = core.doGlobalCommitAsync(globalSession, false);
+        } finally {
+            core.mockParallelPhaseTwo(false);
+        }
+        // nothing waits for the branches, the global transaction is decided once they are answered
+        Assertions.assertFalse(committed.isDone());
+        Assertions.assertEquals(3, globalSession.getSortedBranches().size());
+        response.complete(BranchStatus.PhaseTwo_Committed);
+        Assertions.assertTrue(committed.get(3, TimeUnit.SECONDS));
+        Assertions.assertEquals(globalSession.getStatus(), GlobalStatus.Committed);
+        Assertions.assertFalse(globalSession.hasBranch());
+    }
+
+    /**
+     * Do global roll back in parallel test.
+     *
+     * @param xid the xid
+     * @throws Exception the exception
+     */
+    @ParameterizedTest
+    @MethodSource("xidProvider")
+    public void doParallelGlobalRollBackRetryableTest(String xid) throws Exception {
+        globalSession = SessionHolder.findGlobalSession(xid);
+        for (int i = 0; i < 3; i++) {
+            BranchSession branchSession = SessionHelper.newBranchByGlobal(globalSession, BranchType.AT, resourceId,
+                applicationData, "t1:" + i, clientId);
+            globalSession.addBranch(branchSession);
+            globalSession.changeBranchStatus(branchSession, BranchStatus.PhaseOne_Done);
+        }
+        core.mockCore(BranchType.AT, new MockCore(BranchStatus.PhaseTwo_Committed,
+            BranchStatus.PhaseTwo_RollbackFailed_Retryable));
+        core.mockParallelPhaseTwo(true);
+        try {
+            Assertions.assertFalse(core.doGlobalRollback(globalSession, false));
+        } finally {
+            core.mockParallelPhaseTwo(false);
+        }
+        Assertions.assertEquals(globalSession.getStatus(), GlobalStatus.RollbackRetrying);
+        Assertions.assertEquals(globalSession.getSortedBranches().size(), 3);
+    }
+
+    /**
+     * Do global roll back in parallel with a failed branch test.
+     *
+     * @param xid the xid
+     * @throws Exception the exception
+     */
+    @ParameterizedTest
+    @MethodSource("xidProvider")
+    public void doParallelGlobalRollBackPartiallyFailedTest(String xid) throws Exception {
+        globalSession = SessionHolder.findGlobalSession(xid);
+        // two branches of one resource and one of another
+        BranchSession[] branchSessions = new BranchSession[3];
+        for (int i = 0; i < 3; i++) {
+            branchSessions[i] = SessionHelper.newBranchByGlobal(globalSession, BranchType.AT,
+                i < 2 ? resourceId : resourceId + i, applicationData, "t1:" + i, clientId);
+            globalSession.addBranch(branchSessions[i]);
+            globalSession.changeBranchStatus(branchSessions[i], BranchStatus.PhaseOne_Done);
+        }
+        Collection<Long> rolledBack = new ConcurrentLinkedQueue<>();
+        core.mockCore(BranchType.AT, new MockCore(BranchStatus.PhaseTwo_Committed, BranchStatus.PhaseTwo_Rollbacked) {
+            @Override
+            public CompletableFuture<BranchStatus> branchRollbackAsync(GlobalSession globalSession,
+                                                                       BranchSession branchSession) {
+                rolledBack.add(branchSession.getBranchId());
+                return CompletableFuture.completedFuture(branchSession == branchSessions[1]
+                    ? BranchStatus.PhaseTwo_RollbackFailed_Retryable : BranchStatus.PhaseTwo_Rollbacked);
+            }
+        });
+        core.mockParallelPhaseTwo(true);
+        try {
+            Assertions.assertFalse(core.doGlobalRollback(globalSession, false));
+        } finally {
+            core.mockParallelPhaseTwo(false);
+        }
+        Assertions.assertEquals(GlobalStatus.RollbackRetrying, globalSession.getStatus());
+        // the branch of the other resource is rolled back, the one registered before the failed branch is left alone
+        Assertions.assertFalse(rolledBack.contains(branchSessions[0].getBranchId()));
+        Assertions.assertNull(globalSession.getBranch(branchSessions[2].getBranchId()));
+        Assertions.assertEquals(BranchStatus.PhaseOne_Done,
+            globalSession.getBranch(branchSessions[0].getBranchId()).getStatus());
+        Assertions.assertEquals(BranchStatus.PhaseOne_Done,
+            globalSession.getBranch(branchSessions[1].getBranchId()).getStatus());
+    }
+
     /**
      * Xid provider object [ ] [ ].
      *
@@ -363,6 +506,16 @@ public class DefaultCoreTest {
             return rollbackStatus;
         }
 
+        @Override
+        public CompletableFuture<BranchStatus> branchCommitAsync(GlobalSession globalSession, BranchSession branchSession) {
+            return CompletableFuture.completedFuture(commitStatus);
+        }
+
+        @Override
+        public CompletableFuture<BranchStatus> branchRollbackAsync(GlobalSession globalSession, BranchSession branchSession) {
+            return CompletableFuture.completedFuture(rollbackStatus);
+        }
+
         @Override
         public BranchType getHandleBranchType() {
             return BranchType.AT;
@@ -0,0 +1,103 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.seata.server.coordinator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.seata.server.session.GlobalSession;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The type Sharded retry executor test.
+ */
+public class ShardedRetryExecutorTest {
+
+    @Test
+    public void testExecuteAllShards() throws InterruptedException {
+        ShardedRetryExecutor executor = new ShardedRetryExecutor("ShardedRetryTest", 4, 1000, 1000L, 60000L);
+        try {
+            List<GlobalSession> sessions = newSessions(100);
+            Set<Long> handled = ConcurrentHashMap.newKeySet();
+            Set<String> threads = ConcurrentHashMap.newKeySet();
+            executor.execute(sessions, session -> {
+                handled.add(session.getTransactionId());
+                threads.add(Thread.currentThread().getName());
+                return true;
+            });
+            Assertions.assertEquals(sessions.size(), handled.size());
+            Assertions.assertTrue(threads.size() > 1);
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void testShardCapacity() {
+        ShardedRetryExecutor executor = new ShardedRetryExecutor("ShardedRetryTest", 1, 2, 1000L, 60000L);
+        AtomicInteger handled = new AtomicInteger();
+        executor.execute(newSessions(5), session -> {
+            handled.incrementAndGet();
+            return true;
+        });
+        Assertions.assertEquals(2, handled.get());
+    }
+
+    @Test
+    public void testRetryBackoff() throws InterruptedException {
+        ShardedRetryExecutor executor = new ShardedRetryExecutor("ShardedRetryTest", 1, 1000, 100L, 60000L);
+        List<GlobalSession> sessions = newSessions(1);
+        AtomicInteger attempts = new AtomicInteger();
+        ShardedRetryExecutor.RetryHandler failing = session -> {
+            attempts.incrementAndGet();
+            return false;
+        };
+        executor.execute(sessions, failing);
+        executor.execute(sessions, failing);
+        Assertions.assertEquals(1, attempts.get());
+
+        TimeUnit.MILLISECONDS.sleep(150);
+        executor.execute(sessions, failing);
+        Assertions.assertEquals(2, attempts.get());
+
+        // the second failure doubles the delay
+        TimeUnit.MILLISECONDS.sleep(150);
+        executor.execute(sessions, failing);
+        Assertions.assertEquals(2, attempts.get());
+        TimeUnit.MILLISECONDS.sleep(100);
+        executor.execute(sessions, session -> {
+            attempts.incrementAndGet();
+            return true;
+        });
+        Assertions.assertEquals(3, attempts.get());
+        executor.execute(sessions, failing);
+        Assertions.assertEquals(4, attempts.get());
+    }
+
+    private static List<GlobalSession> newSessions(int size) {
+        List<GlobalSession> sessions = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            sessions.add(new GlobalSession("demo-app", "my_test_tx_group", "test", 6000));
+        }
+        return sessions;
+    }
+}
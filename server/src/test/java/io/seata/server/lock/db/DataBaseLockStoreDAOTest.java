@@ -271,6 +271,65 @@ public class DataBaseLockStoreDAOTest {
 
     }
 
+    @Test
+    public void test_acquireLocksIgnoreDuplicate() throws SQLException {
+        BasicDataSource mysqlDataSource = new BasicDataSource();
+        mysqlDataSource.setDriverClassName("org.h2.Driver");
+        mysqlDataSource.setUrl("jdbc:h2:./db_store/lock_mysql;MODE=MySQL");
+        mysqlDataSource.setUsername("sa");
+        mysqlDataSource.setPassword("");
+        prepareTable(mysqlDataSource);
+        LockStoreDataBaseDAO mysqlLockStoreDAO = new LockStoreDataBaseDAO(mysqlDataSource);
+        mysqlLockStoreDAO.setDbType("mysql");
+        mysqlLockStoreDAO.setLockTable("lock_table");
+        try {
+            Assertions.assertTrue(mysqlLockStoreDAO.acquireLock(buildLockDOs("abc-123:444", 444L, 0, 2)));
+            // the rows owned already are left as they are
+            Assertions.assertTrue(mysqlLockStoreDAO.acquireLock(buildLockDOs("abc-123:444", 444L, 1, 3)));
+            Assertions.assertEquals(3, countLocks(mysqlDataSource, "abc-123:444"));
+
+            // a row owned by another transaction fails the whole statement
+            Assertions.assertFalse(mysqlLockStoreDAO.acquireLock(buildLockDOs("abc-123:555", 555L, 2, 4)));
+            Assertions.assertEquals(0, countLocks(mysqlDataSource, "abc-123:555"));
+            Assertions.assertEquals(3, countLocks(mysqlDataSource, "abc-123:444"));
+
+            Assertions.assertTrue(mysqlLockStoreDAO.unLock(buildLockDOs("abc-123:444", 444L, 0, 3)));
+            Assertions.assertTrue(mysqlLockStoreDAO.acquireLock(buildLockDOs("abc-123:555", 555L, 2, 4)));
+            Assertions.assertEquals(2, countLocks(mysqlDataSource, "abc-123:555"));
+        } finally {
+            mysqlDataSource.close();
+        }
+    }
+
+    private static List<LockDO> buildLockDOs(String xid, long transactionId, int from, int to) {
+        List<LockDO> lockDOs = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            LockDO lock = new LockDO();
+            lock.setResourceId("abc");
+            lock.setXid(xid);
+            lock.setTransactionId(transactionId);
+            lock.setBranchId((long) i);
+            lock.setRowKey("abc-" + i);
+            lock.setPk(String.valueOf(i));
+            lock.setTableName("t");
+            lockDOs.add(lock);
+        }
+        return lockDOs;
+    }
+
+    private static int countLocks(BasicDataSource dataSource, String xid) throws SQLException {
+        Connection conn = null;
+        try {
+            conn = dataSource.getConnection();
+            ResultSet rs = conn.createStatement().executeQuery(
+                "select count(1) from lock_table where xid = '" + xid + "'");
+            rs.next();
+            return rs.getInt(1);
+        } finally {
+            IOUtil.close(conn);
+        }
+    }
+
     @AfterAll
     public static void clearStoreDB(){
         FileUtils.deleteRecursive("db_store", true);
@@ -71,6 +71,47 @@ public class FileLockManagerImplTest {
         Assertions.assertTrue(resultOne);
     }
 
+    /**
+     * Acquire and release many row locks test.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void acquireAndReleaseManyLocksTest() throws Exception {
+        StringBuilder lockKeys = new StringBuilder("tb_many:");
+        for (int i = 0; i < 1000; i++) {
+            // about half of these pks have negative hash codes
+            lockKeys.append(i == 0 ? "" : ",").append(i % 2 == 0 ? "pk" + i : "polygenelubricants" + i);
+        }
+        BranchSession branchSession1 = newBranchSession(UUIDGenerator.generateUUID(), lockKeys.toString());
+        BranchSession branchSession2 = newBranchSession(UUIDGenerator.generateUUID(), "tb_many:pk998");
+
+        Assertions.assertTrue(lockManager.acquireLock(branchSession1));
+        Assertions.assertEquals(1000, branchSession1.getLockHolder().size());
+        Assertions.assertFalse(lockManager.isLockable(branchSession2.getXid(), resourceId, "tb_many:polygenelubricants1"));
+        Assertions.assertFalse(lockManager.acquireLock(branchSession2));
+        Assertions.assertEquals(0, branchSession2.getLockHolder().size());
+
+        Assertions.assertTrue(lockManager.releaseLock(branchSession1));
+        Assertions.assertEquals(0, branchSession1.getLockHolder().size());
+        Assertions.assertTrue(lockManager.isLockable(branchSession2.getXid(), resourceId, "tb_many:polygenelubricants1"));
+        Assertions.assertTrue(lockManager.acquireLock(branchSession2));
+        Assertions.assertTrue(lockManager.releaseLock(branchSession2));
+    }
+
+    private static BranchSession newBranchSession(long transactionId, String lockKey) {
+        BranchSession branchSession = new BranchSession();
+        branchSession.setXid(XID.generateXID(transactionId));
+        branchSession.setBranchId(UUIDGenerator.generateUUID());
+        branchSession.setTransactionId(transactionId);
+        branchSession.setClientId("c1");
+        branchSession.setResourceGroupId("my_test_tx_group");
+        branchSession.setResourceId(resourceId);
+        branchSession.setLockKey(lockKey);
+        branchSession.setBranchType(BranchType.AT);
+        return branchSession;
+    }
+
     /**
      * Branch session provider object [ ] [ ].
      *
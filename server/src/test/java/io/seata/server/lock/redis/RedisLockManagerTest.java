@@ -95,7 +95,7 @@ public class RedisLockManagerTest {
     }
 
     @AfterAll
-    public static void after() {
+    public static void after() throws IOException {
         server.stop();
         server = null;
     }
@@ -0,0 +1,135 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.seata.server.lock.redis;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.github.fppt.jedismock.RedisServer;
+import io.seata.core.exception.TransactionException;
+import io.seata.core.lock.Locker;
+import io.seata.server.lock.LockManager;
+import io.seata.server.session.BranchSession;
+import io.seata.server.storage.file.lock.FileLockManager;
+import io.seata.server.storage.redis.JedisPooledFactory;
+import io.seata.server.storage.redis.lock.RedisLocker;
+import io.seata.server.storage.redis.lock.RedisLuaLocker;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPoolConfig;
+
+/**
+ * The lua locker against a redis mock that runs the scripts.
+ */
+public class RedisLuaLockerTest {
+    private static RedisServer server = null;
+    private static RedisLuaLocker luaLocker = null;
+    private static LockManager lockManager = null;
+    private static LockManager pipelineLockManager = null;
+
+    @BeforeAll
+    public static void start() throws IOException {
+        server = RedisServer.newRedisServer(6789);
+        server.start();
+        JedisPoolConfig poolConfig = new JedisPoolConfig();
+        poolConfig.setMinIdle(1);
+        poolConfig.setMaxIdle(10);
+        JedisPool jedisPool =
+            JedisPooledFactory.getJedisPoolInstance(new JedisPool(poolConfig, "127.0.0.1", 6789, 60000));
+        // the connections pooled by an earlier test class are still served by its stopped server, reconnect them
+        List<Jedis> idles = new ArrayList<>();
+        for (int i = jedisPool.getNumIdle(); i > 0; i--) {
+            idles.add(jedisPool.getResource());
+        }
+        for (Jedis jedis : idles) {
+            jedis.disconnect();
+            jedis.close();
+        }
+        luaLocker = new RedisLuaLocker();
+        lockManager = new LockManagerForTest(luaLocker);
+        pipelineLockManager = new LockManagerForTest(new RedisLocker());
+    }
+
+    @Test
+    public void acquireAndRelease() throws TransactionException {
+        BranchSession branchSession = newBranchSession("lua-123:1", 1L, 11L, "t1:1,2;t2:1");
+        Assertions.assertTrue(lockManager.acquireLock(branchSession));
+        // reentrant for the same xid
+        Assertions.assertTrue(lockManager.acquireLock(newBranchSession("lua-123:1", 1L, 12L, "t1:2,3")));
+
+        BranchSession other = newBranchSession("lua-123:2", 2L, 21L, "t1:2");
+        Assertions.assertFalse(lockManager.acquireLock(other));
+        Assertions.assertFalse(lockManager.isLockable(other.getXid(), other.getResourceId(), other.getLockKey()));
+        Assertions.assertTrue(lockManager.isLockable(other.getXid(), other.getResourceId(), "t1:4"));
+
+        Assertions.assertTrue(luaLocker.releaseLock("lua-123:1", Arrays.asList(11L, 12L)));
+        Assertions.assertTrue(lockManager.isLockable(other.getXid(), other.getResourceId(), other.getLockKey()));
+        Assertions.assertTrue(lockManager.acquireLock(other));
+        Assertions.assertTrue(luaLocker.releaseLock("lua-123:2", Arrays.asList(21L)));
+    }
+
+    @Test
+    public void readLocksOfPipelineType() throws TransactionException {
+        // the string row lock of a server that still runs the pipeline type
+        Assertions.assertTrue(pipelineLockManager.acquireLock(newBranchSession("lua-456:1", 1L, 11L, "t3:1")));
+
+        Assertions.assertTrue(lockManager.acquireLock(newBranchSession("lua-456:1", 1L, 12L, "t3:1,2")));
+        BranchSession other = newBranchSession("lua-456:2", 2L, 21L, "t3:1");
+        Assertions.assertFalse(lockManager.acquireLock(other));
+        Assertions.assertFalse(lockManager.isLockable(other.getXid(), other.getResourceId(), other.getLockKey()));
+
+        Assertions.assertTrue(luaLocker.releaseLock("lua-456:1", Arrays.asList(11L, 12L)));
+        Assertions.assertTrue(lockManager.isLockable(other.getXid(), other.getResourceId(), "t3:1,2"));
+        Assertions.assertTrue(lockManager.acquireLock(other));
+        Assertions.assertTrue(luaLocker.releaseLock("lua-456:2", Arrays.asList(21L)));
+    }
+
+    private static BranchSession newBranchSession(String xid, long transactionId, long branchId, String lockKey) {
+        BranchSession branchSession = new BranchSession();
+        branchSession.setXid(xid);
+        branchSession.setTransactionId(transactionId);
+        branchSession.setBranchId(branchId);
+        branchSession.setResourceId("abcss");
+        branchSession.setLockKey(lockKey);
+        return branchSession;
+    }
+
+    @AfterAll
+    public static void after() throws IOException {
+        server.stop();
+        server = null;
+    }
+
+    public static class LockManagerForTest extends FileLockManager {
+
+        private final Locker locker;
+
+        public LockManagerForTest(Locker locker) {
+            this.locker = locker;
+        }
+
+        @Override
+        public Locker getLocker(BranchSession branchSession) {
+            return locker;
+        }
+    }
+}
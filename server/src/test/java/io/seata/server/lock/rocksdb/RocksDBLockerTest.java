@@ -0,0 +1,122 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.seata.server.lock.rocksdb;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import io.seata.core.lock.RowLock;
+import io.seata.server.storage.rocksdb.RocksDBFactory;
+import io.seata.server.storage.rocksdb.lock.RocksDBLocker;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * The type Rocks db locker test.
+ */
+public class RocksDBLockerTest {
+
+    @TempDir
+    Path dir;
+
+    private RocksDBFactory factory;
+
+    private RocksDBLocker locker;
+
+    @BeforeEach
+    public void open() {
+        factory = new RocksDBFactory(dir.toString(), false);
+        locker = new RocksDBLocker(factory);
+    }
+
+    @AfterEach
+    public void close() {
+        factory.close();
+    }
+
+    @Test
+    public void testAcquireAndConflict() {
+        List<RowLock> locks = rowLocks("abc-123:1", 1L, "1", "2");
+        Assertions.assertTrue(locker.acquireLock(locks));
+        // reentrant for the same transaction
+        Assertions.assertTrue(locker.acquireLock(rowLocks("abc-123:1", 2L, "2", "3")));
+
+        List<RowLock> conflicting = rowLocks("abc-123:2", 3L, "3", "4");
+        Assertions.assertFalse(locker.isLockable(conflicting));
+        Assertions.assertFalse(locker.acquireLock(conflicting));
+        // nothing of a failed acquire is kept
+        Assertions.assertTrue(locker.isLockable(rowLocks("abc-123:3", 4L, "4")));
+    }
+
+    @Test
+    public void testReleaseByBranch() {
+        Assertions.assertTrue(locker.acquireLock(rowLocks("abc-123:1", 1L, "1", "2")));
+        Assertions.assertTrue(locker.acquireLock(rowLocks("abc-123:1", 2L, "3")));
+
+        Assertions.assertTrue(locker.releaseLock("abc-123:1", 1L));
+        Assertions.assertTrue(locker.isLockable(rowLocks("abc-123:2", 3L, "1", "2")));
+        Assertions.assertFalse(locker.isLockable(rowLocks("abc-123:2", 3L, "3")));
+
+        Assertions.assertTrue(locker.releaseLock("abc-123:1", Arrays.asList(1L, 2L)));
+        Assertions.assertTrue(locker.acquireLock(rowLocks("abc-123:2", 3L, "1", "2", "3")));
+    }
+
+    @Test
+    public void testReleaseRows() {
+        List<RowLock> locks = rowLocks("abc-123:1", 1L, "1", "2");
+        Assertions.assertTrue(locker.acquireLock(locks));
+        Assertions.assertTrue(locker.releaseLock(locks));
+        Assertions.assertTrue(locker.acquireLock(rowLocks("abc-123:2", 2L, "1", "2")));
+        // the index entries of the released rows are gone as well
+        Assertions.assertTrue(locker.releaseLock("abc-123:1", 1L));
+        Assertions.assertFalse(locker.isLockable(rowLocks("abc-123:3", 3L, "1")));
+    }
+
+    @Test
+    public void testReleaseOnlyOwnedRows() {
+        Assertions.assertTrue(locker.acquireLock(rowLocks("abc-123:1", 1L, "1")));
+        Assertions.assertTrue(locker.acquireLock(rowLocks("abc-123:2", 2L, "2")));
+
+        // the rows of another transaction are left locked
+        Assertions.assertTrue(locker.releaseLock(rowLocks("abc-123:1", 1L, "1", "2")));
+        Assertions.assertTrue(locker.isLockable(rowLocks("abc-123:3", 3L, "1")));
+        Assertions.assertFalse(locker.isLockable(rowLocks("abc-123:3", 3L, "2")));
+        Assertions.assertTrue(locker.releaseLock(rowLocks("abc-123:3", 3L, "2")));
+        Assertions.assertFalse(locker.isLockable(rowLocks("abc-123:3", 3L, "2")));
+        Assertions.assertTrue(locker.releaseLock("abc-123:2", 2L));
+        Assertions.assertTrue(locker.isLockable(rowLocks("abc-123:3", 3L, "2")));
+    }
+
+    private static List<RowLock> rowLocks(String xid, long branchId, String... pks) {
+        List<RowLock> locks = new ArrayList<>();
+        for (String pk : pks) {
+            RowLock rowLock = new RowLock();
+            rowLock.setXid(xid);
+            rowLock.setTransactionId(123L);
+            rowLock.setBranchId(branchId);
+            rowLock.setResourceId("jdbc:mysql://127.0.0.1:3306/seata");
+            rowLock.setTableName("t_order");
+            rowLock.setPk(pk);
+            locks.add(rowLock);
+        }
+        return locks;
+    }
+}
@@ -17,11 +17,13 @@ package io.seata.server.session;
 
 import io.seata.core.model.BranchType;
 import io.seata.server.UUIDGenerator;
+import io.seata.server.store.SessionStorable;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 
+import java.nio.ByteBuffer;
 import java.util.stream.Stream;
 
 /**
@@ -53,6 +55,41 @@ public class BranchSessionTest {
 
     }
 
+    /**
+     * Codec with byte buffer test.
+     *
+     * @param branchSession the branch session
+     */
+    @ParameterizedTest
+    @MethodSource("branchSessionProvider")
+    public void codecByteBufferTest(BranchSession branchSession) {
+        String applicationData = branchSession.getApplicationData();
+        SessionStorable.Encoding encoding = branchSession.encoding();
+        ByteBuffer byteBuffer = ByteBuffer.allocateDirect(encoding.size() + 4);
+        byteBuffer.putInt(0);
+        // the encoding is taken before the change, so it still fits its size
+        branchSession.setApplicationData("{\"data\":\"changed before the bytes are written\"}");
+        encoding.encodeTo(byteBuffer);
+        Assertions.assertFalse(byteBuffer.hasRemaining());
+        byteBuffer.position(4);
+        BranchSession expected = new BranchSession();
+        expected.decode(byteBuffer);
+        Assertions.assertEquals(branchSession.getXid(), expected.getXid());
+        Assertions.assertEquals(branchSession.getResourceId(), expected.getResourceId());
+        Assertions.assertEquals(branchSession.getLockKey(), expected.getLockKey());
+        Assertions.assertEquals(applicationData, expected.getApplicationData());
+
+        branchSession.setApplicationData("{\"data\":\"changed\"}");
+        expected.decode(branchSession.encode());
+        Assertions.assertEquals("{\"data\":\"changed\"}", expected.getApplicationData());
+
+        branchSession.setLockKey("t_1:13,14");
+        branchSession.setClientId("storage-server:192.168.158.80:11934");
+        expected.decode(branchSession.encode());
+        Assertions.assertEquals("t_1:13,14", expected.getLockKey());
+        Assertions.assertEquals("storage-server:192.168.158.80:11934", expected.getClientId());
+    }
+
     /**
      * Branch session provider object [ ] [ ].
      *
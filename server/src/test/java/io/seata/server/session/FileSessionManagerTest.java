@@ -228,6 +228,42 @@ public class FileSessionManagerTest {
         }
     }
 
+    /**
+     * Find timeout sessions test.
+     *
+     * @param globalSessions the global sessions
+     * @throws Exception the exception
+     */
+    @ParameterizedTest
+    @MethodSource("globalSessionsProvider")
+    public void findTimeoutSessionsTest(List<GlobalSession> globalSessions) throws Exception {
+        long now = System.currentTimeMillis();
+        GlobalSession expired = globalSessions.get(0);
+        expired.setBeginTime(now - expired.getTimeout() - 1);
+        GlobalSession alive = globalSessions.get(1);
+        alive.setBeginTime(now);
+        for (SessionManager sessionManager : sessionManagerList) {
+            for (GlobalSession globalSession : globalSessions) {
+                sessionManager.addGlobalSession(globalSession);
+            }
+            List<GlobalSession> timeoutSessions = sessionManager.findTimeoutSessions(now);
+            Assertions.assertEquals(1, timeoutSessions.size());
+            Assertions.assertSame(expired, timeoutSessions.get(0));
+
+            expired.setStatus(GlobalStatus.TimeoutRollbacking);
+            sessionManager.updateGlobalSessionStatus(expired, GlobalStatus.TimeoutRollbacking);
+            Assertions.assertTrue(sessionManager.findTimeoutSessions(now).isEmpty());
+            timeoutSessions = sessionManager.findTimeoutSessions(now + alive.getTimeout() + 1);
+            Assertions.assertEquals(1, timeoutSessions.size());
+            Assertions.assertSame(alive, timeoutSessions.get(0));
+
+            for (GlobalSession globalSession : globalSessions) {
+                sessionManager.removeGlobalSession(globalSession);
+            }
+            expired.setStatus(GlobalStatus.Begin);
+        }
+    }
+
     /**
      * On begin test.
      *
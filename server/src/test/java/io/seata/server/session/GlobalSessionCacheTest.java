@@ -0,0 +1,109 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.seata.server.session;
+
+import java.util.concurrent.TimeUnit;
+
+import io.seata.core.model.BranchType;
+import io.seata.core.model.GlobalStatus;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The type Global session cache test.
+ */
+public class GlobalSessionCacheTest {
+
+    @Test
+    public void testWriteThrough() {
+        GlobalSessionCache cache = new GlobalSessionCache(true, 100, 60000L);
+        GlobalSession session = newSession();
+        cache.put(session);
+        Assertions.assertSame(session, cache.get(session.getXid()));
+
+        // a write through the cached instance keeps it
+        BranchSession branchSession = SessionHelper.newBranchByGlobal(session, BranchType.AT, "resource", "t:1",
+            "client");
+        session.add(branchSession);
+        cache.retain(session);
+        cache.retain(branchSession);
+        Assertions.assertSame(session, cache.get(session.getXid()));
+
+        // a write through another instance invalidates it
+        GlobalSession copy = copyOf(session);
+        cache.retain(copy);
+        Assertions.assertNull(cache.get(session.getXid()));
+    }
+
+    @Test
+    public void testInvalidateOnStatusChange() {
+        GlobalSessionCache cache = new GlobalSessionCache(true, 100, 60000L);
+        GlobalSession session = newSession();
+        cache.put(session);
+        session.setStatus(GlobalStatus.Committing);
+        cache.retain(session);
+        Assertions.assertNull(cache.get(session.getXid()));
+
+        // only active sessions are cached
+        cache.put(session);
+        Assertions.assertNull(cache.get(session.getXid()));
+    }
+
+    @Test
+    public void testLoad() {
+        GlobalSessionCache cache = new GlobalSessionCache(true, 100, 60000L);
+        GlobalSession session = newSession();
+        long stamp = cache.stamp(session.getXid());
+        Assertions.assertSame(session, cache.load(session, stamp));
+        Assertions.assertSame(session, cache.get(session.getXid()));
+
+        // the instance already cached wins
+        Assertions.assertSame(session, cache.load(copyOf(session), cache.stamp(session.getXid())));
+
+        // a read that raced with an invalidation is not cached
+        cache.invalidate(session.getXid());
+        stamp = cache.stamp(session.getXid());
+        cache.invalidate(session.getXid());
+        GlobalSession stale = copyOf(session);
+        Assertions.assertSame(stale, cache.load(stale, stamp));
+        Assertions.assertNull(cache.get(session.getXid()));
+    }
+
+    @Test
+    public void testExpireAndDisabled() throws InterruptedException {
+        GlobalSessionCache cache = new GlobalSessionCache(true, 100, 50L);
+        GlobalSession session = newSession();
+        cache.put(session);
+        TimeUnit.MILLISECONDS.sleep(100);
+        Assertions.assertNull(cache.get(session.getXid()));
+
+        GlobalSessionCache disabled = new GlobalSessionCache(false, 100, 60000L);
+        disabled.put(session);
+        Assertions.assertFalse(disabled.isEnabled());
+        Assertions.assertNull(disabled.get(session.getXid()));
+    }
+
+    private static GlobalSession newSession() {
+        return new GlobalSession("demo-app", "my_test_tx_group", "test", 6000);
+    }
+
+    private static GlobalSession copyOf(GlobalSession session) {
+        GlobalSession copy = new GlobalSession("demo-app", "my_test_tx_group", "test", 6000);
+        copy.setXid(session.getXid());
+        copy.setTransactionId(session.getTransactionId());
+        return copy;
+    }
+}
@@ -25,6 +25,8 @@ import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
 import java.util.stream.Stream;
 
 /**
@@ -134,6 +136,33 @@ public class GlobalSessionTest {
         globalSession.removeBranch(branchSession);
     }
 
+    /**
+     * Branch snapshot test.
+     *
+     * @param globalSession the global session
+     */
+    @ParameterizedTest
+    @MethodSource("globalSessionProvider")
+    public void branchSnapshotTest(GlobalSession globalSession) {
+        BranchSession first = SessionHelper.newBranch(BranchType.AT, globalSession.getXid(), 1L, "ta", "");
+        BranchSession second = SessionHelper.newBranch(BranchType.AT, globalSession.getXid(), 2L, "ta", "");
+        globalSession.add(first);
+        globalSession.add(second);
+        List<BranchSession> sorted = globalSession.getSortedBranches();
+        List<BranchSession> reversed = globalSession.getReverseSortedBranches();
+        Assertions.assertEquals(Arrays.asList(first, second), sorted);
+        Assertions.assertEquals(Arrays.asList(second, first), reversed);
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> sorted.add(first));
+
+        // a snapshot is not affected by later changes
+        Assertions.assertTrue(globalSession.remove(first));
+        Assertions.assertFalse(globalSession.remove(first));
+        Assertions.assertEquals(2, sorted.size());
+        Assertions.assertEquals(1, globalSession.getBranchSessions().size());
+        Assertions.assertSame(second, globalSession.getBranch(2L));
+        Assertions.assertNull(globalSession.getBranch(1L));
+    }
+
     /**
      * Codec test.
      *
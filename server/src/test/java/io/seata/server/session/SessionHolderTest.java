@@ -35,23 +35,26 @@ import static io.seata.server.session.SessionHolder.ROOT_SESSION_MANAGER_NAME;
 public class SessionHolderTest {
     private String pathname;
 
+    private String segmentPathname;
+
     @BeforeEach
     public void before() {
         String sessionStorePath = SessionHolder.CONFIG.getConfig(ConfigurationKeys.STORE_FILE_DIR);
         //delete file previously created
         pathname = sessionStorePath + File.separator + ROOT_SESSION_MANAGER_NAME;
+        segmentPathname = pathname + ".00000000000000000000";
     }
 
     @Test
     public void testInit() throws IOException {
-        File rootSessionFile = new File(pathname);
+        File rootSessionFile = new File(segmentPathname);
         if (rootSessionFile.exists()) {
             rootSessionFile.delete();
         }
         final String mode = StoreMode.FILE.getName();
         SessionHolder.init(mode);
         try {
-            final File actual = new File(pathname);
+            final File actual = new File(segmentPathname);
             Assertions.assertTrue(actual.exists());
             Assertions.assertTrue(actual.isFile());
         } finally {
@@ -65,5 +68,9 @@ public class SessionHolderTest {
         if (actual.exists()) {
             actual.delete();
         }
+        final File segment = new File(segmentPathname);
+        if (segment.exists()) {
+            segment.delete();
+        }
     }
 }
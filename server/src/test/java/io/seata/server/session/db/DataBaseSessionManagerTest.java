@@ -25,21 +25,30 @@ import io.seata.server.storage.db.store.LogStoreDataBaseDAO;
 import io.seata.server.UUIDGenerator;
 import io.seata.server.session.BranchSession;
 import io.seata.server.session.GlobalSession;
+import io.seata.server.session.GlobalSessionCache;
 import io.seata.server.session.SessionCondition;
+import io.seata.server.session.SessionHolder;
 import io.seata.server.session.SessionManager;
 import io.seata.server.storage.db.session.DataBaseSessionManager;
 import io.seata.server.storage.db.store.DataBaseTransactionStoreManager;
+import io.seata.server.store.TransactionStoreManager;
 import org.apache.commons.dbcp2.BasicDataSource;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.Assertions;
 
+import java.lang.reflect.Field;
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * The type Data base session manager test.
@@ -308,6 +317,71 @@ public class DataBaseSessionManagerTest {
     }
 
 
+    @Test
+    public void test_findGlobalSessionInStoreWhileCached() throws Exception {
+        Field cacheField = SessionHolder.class.getDeclaredField("GLOBAL_SESSION_CACHE");
+        Field rootField = SessionHolder.class.getDeclaredField("ROOT_SESSION_MANAGER");
+        cacheField.setAccessible(true);
+        rootField.setAccessible(true);
+        Object originalCache = cacheField.get(null);
+        Object originalRoot = rootField.get(null);
+        cacheField.set(null, new GlobalSessionCache(true, 100, 60000L));
+        rootField.set(null, sessionManager);
+
+        GlobalSession globalSession = GlobalSession.createGlobalSession("test",
+                "test", "test123", 100);
+        String xid = XID.generateXID(globalSession.getTransactionId());
+        globalSession.setXid(xid);
+        globalSession.setTransactionId(146757979);
+        globalSession.setBeginTime(System.currentTimeMillis());
+        globalSession.setStatus(GlobalStatus.Begin);
+        String delSql = "delete from branch_table where xid= '"+xid+"'" + ";" + "delete from global_table where xid= '"+xid+"'";
+        Connection conn = null;
+        try {
+            sessionManager.addGlobalSession(globalSession);
+            Assertions.assertSame(globalSession, SessionHolder.findGlobalSession(xid));
+
+            // another server of the cluster registers a branch, it writes to the store only
+            BranchSession branchSession = new BranchSession();
+            branchSession.setXid(xid);
+            branchSession.setTransactionId(globalSession.getTransactionId());
+            branchSession.setBranchId(2L);
+            branchSession.setResourceGroupId("my_test_tx_group");
+            branchSession.setResourceId("tb_1");
+            branchSession.setLockKey("t_1");
+            branchSession.setBranchType(BranchType.AT);
+            branchSession.setStatus(BranchStatus.Registered);
+            Assertions.assertTrue(DataBaseTransactionStoreManager.getInstance().writeSession(
+                TransactionStoreManager.LogOperation.BRANCH_ADD, branchSession));
+            Assertions.assertFalse(SessionHolder.findGlobalSession(xid).hasBranch());
+
+            // the second phase sees it
+            GlobalSession inStore = SessionHolder.findGlobalSessionInStore(xid);
+            Assertions.assertNotSame(globalSession, inStore);
+            Assertions.assertTrue(inStore.hasBranch());
+            Assertions.assertEquals(2L, inStore.getBranch(2L).getBranchId());
+
+            // another server commits it, a branch registration reads the status from the store
+            Assertions.assertSame(inStore, SessionHolder.findGlobalSession(xid));
+            GlobalSession committedElsewhere = DataBaseTransactionStoreManager.getInstance().readSession(xid, false);
+            committedElsewhere.setStatus(GlobalStatus.Committing);
+            Assertions.assertTrue(DataBaseTransactionStoreManager.getInstance().writeSession(
+                TransactionStoreManager.LogOperation.GLOBAL_UPDATE, committedElsewhere));
+            Assertions.assertEquals(GlobalStatus.Begin, SessionHolder.findGlobalSession(xid, false).getStatus());
+            Assertions.assertEquals(GlobalStatus.Committing,
+                SessionHolder.findGlobalSessionInStore(xid, false).getStatus());
+        } finally {
+            cacheField.set(null, originalCache);
+            rootField.set(null, originalRoot);
+            try {
+                conn = dataSource.getConnection();
+                conn.createStatement().execute(delSql);
+            } finally {
+                IOUtil.close(conn);
+            }
+        }
+    }
+
     @Test
     public void test_updateBranchSessionStatus() throws Exception {
         GlobalSession globalSession = GlobalSession.createGlobalSession("test",
@@ -556,6 +630,55 @@ public class DataBaseSessionManagerTest {
         }
     }
 
+    @Test
+    public void test_findGlobalSessionsByStatusBeyondQueryLimit() throws Exception {
+        DataBaseTransactionStoreManager transactionStoreManager = DataBaseTransactionStoreManager.getInstance();
+        int queryLimit = 5;
+        transactionStoreManager.setLogQueryLimit(queryLimit);
+        List<GlobalSession> sessions = new ArrayList<>();
+        try {
+            for (int i = 0; i < 12; i++) {
+                GlobalSession session = GlobalSession.createGlobalSession("test", "test", "test123", 100);
+                session.setXid(XID.generateXID(session.getTransactionId()));
+                session.setBeginTime(System.currentTimeMillis());
+                session.setStatus(GlobalStatus.TimeoutRollbackRetrying);
+                sessionManager.addGlobalSession(session);
+                sessions.add(session);
+            }
+            SessionCondition condition = new SessionCondition(new GlobalStatus[] {GlobalStatus.TimeoutRollbackRetrying});
+            List<String> first = xidsOf(sessionManager.findGlobalSessions(condition));
+            Assertions.assertEquals(queryLimit, first.size());
+
+            // another set of statuses is scanned with a cursor of its own, from the start
+            List<String> otherSet = xidsOf(sessionManager.findGlobalSessions(new SessionCondition(
+                new GlobalStatus[] {GlobalStatus.TimeoutRollbackRetrying, GlobalStatus.CommitRetrying})));
+            Assertions.assertEquals(first, otherSet);
+
+            // the pages go on after the previous one, not from the start again
+            List<String> second = xidsOf(sessionManager.findGlobalSessions(condition));
+            Assertions.assertEquals(queryLimit, second.size());
+            Assertions.assertTrue(Collections.disjoint(first, second));
+            List<String> third = xidsOf(sessionManager.findGlobalSessions(condition));
+            Assertions.assertEquals(2, third.size());
+            Set<String> found = new HashSet<>(first);
+            found.addAll(second);
+            found.addAll(third);
+            Assertions.assertEquals(sessions.stream().map(GlobalSession::getXid).collect(Collectors.toSet()), found);
+
+            // the short page was the end, the scan wraps around to the start
+            Assertions.assertEquals(first, xidsOf(sessionManager.findGlobalSessions(condition)));
+        } finally {
+            transactionStoreManager.setLogQueryLimit(100);
+            for (GlobalSession session : sessions) {
+                sessionManager.removeGlobalSession(session);
+            }
+        }
+    }
+
+    private static List<String> xidsOf(List<GlobalSession> sessions) {
+        return sessions.stream().map(GlobalSession::getXid).collect(Collectors.toList());
+    }
+
     @Test
     public void test_transactionNameGreaterDbSize() throws Exception {
 
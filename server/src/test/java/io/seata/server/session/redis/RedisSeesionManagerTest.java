@@ -17,6 +17,10 @@
 package io.seata.server.session.redis;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import com.github.fppt.jedismock.RedisServer;
 import io.seata.common.XID;
 import io.seata.core.exception.TransactionException;
@@ -26,13 +30,16 @@ import io.seata.core.model.GlobalStatus;
 import io.seata.server.UUIDGenerator;
 import io.seata.server.session.BranchSession;
 import io.seata.server.session.GlobalSession;
+import io.seata.server.session.SessionCondition;
 import io.seata.server.session.SessionManager;
 import io.seata.server.storage.redis.JedisPooledFactory;
 import io.seata.server.storage.redis.session.RedisSessionManager;
 import io.seata.server.storage.redis.store.RedisTransactionStoreManager;
 import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
+import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
 import redis.clients.jedis.JedisPoolConfig;
 
@@ -50,7 +57,17 @@ public class RedisSeesionManagerTest {
         JedisPoolConfig poolConfig = new JedisPoolConfig();
         poolConfig.setMinIdle(1);
         poolConfig.setMaxIdle(10);
-        JedisPooledFactory.getJedisPoolInstance(new JedisPool(poolConfig, "127.0.0.1", 6789, 60000));
+        JedisPool jedisPool =
+            JedisPooledFactory.getJedisPoolInstance(new JedisPool(poolConfig, "127.0.0.1", 6789, 60000));
+        // the connections pooled by an earlier test class are still served by its stopped server, reconnect them
+        List<Jedis> idles = new ArrayList<>();
+        for (int i = jedisPool.getNumIdle(); i > 0; i--) {
+            idles.add(jedisPool.getResource());
+        }
+        for (Jedis jedis : idles) {
+            jedis.disconnect();
+            jedis.close();
+        }
         RedisTransactionStoreManager transactionStoreManager = RedisTransactionStoreManager.getInstance();
         RedisSessionManager redisSessionManager = new RedisSessionManager();
         redisSessionManager.setTransactionStoreManager(transactionStoreManager);
@@ -158,8 +175,86 @@ public class RedisSeesionManagerTest {
         sessionManager.updateBranchSessionStatus(branchSession, BranchStatus.PhaseOne_Timeout);
     }
 
+    @Test
+    public void test_findGlobalSessionsByStatus() throws Exception {
+        GlobalSession session = GlobalSession.createGlobalSession("test", "test", "test123", 100);
+        String xid = XID.generateXID(session.getTransactionId());
+        session.setXid(xid);
+        session.setBeginTime(System.currentTimeMillis());
+        session.setApplicationData("abc=878s");
+        session.setStatus(GlobalStatus.Begin);
+        sessionManager.addGlobalSession(session);
+        Assertions.assertTrue(containsXid(sessionManager.findGlobalSessions(new SessionCondition(GlobalStatus.Begin)), xid));
+
+        session.setStatus(GlobalStatus.Committing);
+        sessionManager.updateGlobalSessionStatus(session, GlobalStatus.Committing);
+        try (Jedis jedis = JedisPooledFactory.getJedisInstance()) {
+            // moved out of the set of the previous status by the write itself
+            Assertions.assertNull(jedis.zscore("SEATA_STATUS_" + GlobalStatus.Begin.getCode(), xid));
+        }
+        Assertions.assertFalse(containsXid(sessionManager.findGlobalSessions(new SessionCondition(GlobalStatus.Begin)), xid));
+        Assertions.assertTrue(containsXid(sessionManager.findGlobalSessions(
+            new SessionCondition(new GlobalStatus[] {GlobalStatus.Begin, GlobalStatus.Committing})), xid));
+
+        sessionManager.removeGlobalSession(session);
+        Assertions.assertFalse(containsXid(sessionManager.findGlobalSessions(
+            new SessionCondition(GlobalStatus.Committing)), xid));
+    }
+
+    @Test
+    public void test_findGlobalSessionsByStatusBeyondQueryLimit() throws Exception {
+        RedisTransactionStoreManager transactionStoreManager = RedisTransactionStoreManager.getInstance();
+        int queryLimit = 5;
+        transactionStoreManager.setLogQueryLimit(queryLimit);
+        List<GlobalSession> sessions = new ArrayList<>();
+        try {
+            long beginTime = System.currentTimeMillis();
+            Set<String> retrying = new HashSet<>();
+            for (int i = 0; i < 14; i++) {
+                GlobalSession session = GlobalSession.createGlobalSession("test", "test", "test123", 100);
+                session.setXid(XID.generateXID(session.getTransactionId()));
+                // several sessions begin in the same millisecond
+                session.setBeginTime(beginTime + i / 3);
+                session.setStatus(i < 12 ? GlobalStatus.TimeoutRollbacking : GlobalStatus.CommitRetrying);
+                sessionManager.addGlobalSession(session);
+                sessions.add(session);
+                if (i >= 12) {
+                    retrying.add(session.getXid());
+                }
+            }
+            GlobalStatus[] statuses = new GlobalStatus[] {GlobalStatus.TimeoutRollbacking, GlobalStatus.CommitRetrying};
+            List<GlobalSession> first = sessionManager.findGlobalSessions(new SessionCondition(statuses));
+            Assertions.assertEquals(queryLimit, first.size());
+            // the full status set does not hide the other one
+            Assertions.assertTrue(first.stream().anyMatch(session -> retrying.contains(session.getXid())));
+
+            Set<String> found = new HashSet<>();
+            first.forEach(session -> found.add(session.getXid()));
+            // the retrying set is short and read again each time, so the other one advances by at least two
+            for (int i = 0; i < 4; i++) {
+                List<GlobalSession> page = sessionManager.findGlobalSessions(new SessionCondition(statuses));
+                Assertions.assertTrue(page.size() <= queryLimit);
+                page.forEach(session -> found.add(session.getXid()));
+            }
+            Assertions.assertEquals(sessions.size(), found.size());
+
+            // after the end of the sets the scan starts over
+            List<GlobalSession> again = sessionManager.findGlobalSessions(new SessionCondition(statuses));
+            Assertions.assertEquals(first.get(0).getXid(), again.get(0).getXid());
+        } finally {
+            transactionStoreManager.setLogQueryLimit(100);
+            for (GlobalSession session : sessions) {
+                sessionManager.removeGlobalSession(session);
+            }
+        }
+    }
+
+    private static boolean containsXid(List<GlobalSession> sessions, String xid) {
+        return sessions != null && sessions.stream().anyMatch(session -> xid.equals(session.getXid()));
+    }
+
     @AfterAll
-    public static void after() {
+    public static void after() throws IOException {
         server.stop();
         server = null;
     }
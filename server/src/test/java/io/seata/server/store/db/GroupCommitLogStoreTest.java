@@ -0,0 +1,168 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.seata.server.store.db;
+
+import java.lang.reflect.Field;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import io.seata.common.exception.StoreException;
+import io.seata.core.store.BranchTransactionDO;
+import io.seata.core.store.GlobalTransactionDO;
+import io.seata.server.storage.db.store.GroupCommitLogStore;
+import io.seata.server.storage.db.store.LogStoreDataBaseDAO;
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The type Group commit log store test.
+ */
+public class GroupCommitLogStoreTest {
+
+    private static BasicDataSource dataSource;
+
+    private static GroupCommitLogStore logStore;
+
+    private static ExecutorService executor;
+
+    @BeforeAll
+    public static void start() throws Exception {
+        dataSource = new BasicDataSource();
+        dataSource.setDriverClassName("org.h2.Driver");
+        dataSource.setUrl("jdbc:h2:./db_store/group_commit");
+        dataSource.setUsername("sa");
+        dataSource.setPassword("");
+        try (Connection conn = dataSource.getConnection(); Statement s = conn.createStatement()) {
+            s.execute("drop table if exists global_table");
+            s.execute("CREATE TABLE global_table ( xid varchar(96) primary key,  transaction_id long , STATUS int,  application_id varchar(32), transaction_service_group varchar(32) ,transaction_name varchar(128) ,timeout int,  begin_time long, application_data varchar(500), gmt_create TIMESTAMP(6) ,gmt_modified TIMESTAMP(6) ) ");
+            s.execute("drop table if exists branch_table");
+            s.execute("CREATE TABLE branch_table ( xid varchar(96),  transaction_id long , branch_id long primary key, resource_group_id varchar(32), resource_id varchar(32) ,lock_key varchar(64) ,branch_type varchar(32) ,  status int , client_id varchar(128),  application_data varchar(500),  gmt_create TIMESTAMP(6) ,gmt_modified TIMESTAMP(6) ) ");
+        }
+        LogStoreDataBaseDAO logStoreDataBaseDAO = new LogStoreDataBaseDAO(dataSource);
+        logStoreDataBaseDAO.setDbType("h2");
+        logStoreDataBaseDAO.setGlobalTable("global_table");
+        logStoreDataBaseDAO.setBranchTable("branch_table");
+        logStore = new GroupCommitLogStore(logStoreDataBaseDAO, dataSource, 128, 20);
+        executor = Executors.newFixedThreadPool(8);
+    }
+
+    @Test
+    public void testConcurrentWrites() throws Exception {
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < 32; i++) {
+            GlobalTransactionDO global = newGlobal("group-commit:" + i, i);
+            BranchTransactionDO branch = newBranch(global.getXid(), i);
+            results.add(executor.submit(() -> logStore.insertGlobalTransactionDO(global)
+                && logStore.insertBranchTransactionDO(branch)
+                && logStore.updateBranchTransactionDO(branch)));
+        }
+        for (Future<Boolean> result : results) {
+            Assertions.assertTrue(result.get());
+        }
+        for (int i = 0; i < 32; i++) {
+            Assertions.assertNotNull(logStore.queryGlobalTransactionDO("group-commit:" + i));
+            Assertions.assertEquals(1, logStore.queryBranchTransactionDO("group-commit:" + i).size());
+        }
+    }
+
+    @Test
+    public void testFailedWriteOnlyFailsItsCaller() throws Exception {
+        GlobalTransactionDO existing = newGlobal("group-commit:duplicate", 1000);
+        Assertions.assertTrue(logStore.insertGlobalTransactionDO(existing));
+
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            GlobalTransactionDO global = newGlobal("group-commit:single:" + i, 1001 + i);
+            results.add(executor.submit(() -> logStore.insertGlobalTransactionDO(global)));
+        }
+        Future<Boolean> duplicate = executor.submit(() -> logStore.insertGlobalTransactionDO(existing));
+        Future<Boolean> missing = executor.submit(
+            () -> logStore.updateGlobalTransactionDO(newGlobal("group-commit:missing", 2000)));
+        for (Future<Boolean> result : results) {
+            Assertions.assertTrue(result.get());
+        }
+        Assertions.assertFalse(missing.get());
+        try {
+            duplicate.get();
+            Assertions.fail("the duplicate insert should fail");
+        } catch (ExecutionException e) {
+            Assertions.assertTrue(e.getCause() instanceof StoreException);
+        }
+    }
+
+    @Test
+    public void testWritesFailOnceTheCommitterIsGone() throws Exception {
+        GroupCommitLogStore store = new GroupCommitLogStore(
+            new LogStoreDataBaseDAO(dataSource), dataSource, 128, 20);
+        Field committerField = GroupCommitLogStore.class.getDeclaredField("committer");
+        committerField.setAccessible(true);
+        Thread committer = (Thread) committerField.get(store);
+        committer.interrupt();
+        committer.join(3000);
+        Assertions.assertFalse(committer.isAlive());
+
+        // neither blocks forever on a write nobody will take
+        Future<Boolean> result = executor.submit(
+            () -> store.insertGlobalTransactionDO(newGlobal("group-commit:closed", 3000)));
+        try {
+            result.get(3, TimeUnit.SECONDS);
+            Assertions.fail("the write should fail");
+        } catch (ExecutionException e) {
+            Assertions.assertTrue(e.getCause() instanceof StoreException);
+        }
+        Assertions.assertNull(logStore.queryGlobalTransactionDO("group-commit:closed"));
+    }
+
+    private static GlobalTransactionDO newGlobal(String xid, long transactionId) {
+        GlobalTransactionDO globalTransactionDO = new GlobalTransactionDO();
+        globalTransactionDO.setXid(xid);
+        globalTransactionDO.setTransactionServiceGroup("abc");
+        globalTransactionDO.setTransactionName("test");
+        globalTransactionDO.setTransactionId(transactionId);
+        globalTransactionDO.setTimeout(20);
+        globalTransactionDO.setBeginTime(System.currentTimeMillis());
+        globalTransactionDO.setApplicationId("test");
+        globalTransactionDO.setStatus(1);
+        return globalTransactionDO;
+    }
+
+    private static BranchTransactionDO newBranch(String xid, long branchId) {
+        BranchTransactionDO branchTransactionDO = new BranchTransactionDO();
+        branchTransactionDO.setXid(xid);
+        branchTransactionDO.setTransactionId(branchId);
+        branchTransactionDO.setBranchId(branchId);
+        branchTransactionDO.setResourceId("abc");
+        branchTransactionDO.setBranchType("AT");
+        branchTransactionDO.setStatus(1);
+        return branchTransactionDO;
+    }
+
+    @AfterAll
+    public static void after() throws Exception {
+        executor.shutdown();
+        dataSource.close();
+    }
+}
@@ -32,7 +32,9 @@ import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 
 /**
@@ -242,6 +244,46 @@ public class LogStoreDataBaseDAOTest {
         }
     }
 
+    @Test
+    public void queryGlobalTransactionDO_by_statuses_after() throws SQLException {
+        long[] transactionIds = {3001, 3002, 3003};
+        for (long transactionId : transactionIds) {
+            GlobalTransactionDO globalTransactionDO = new GlobalTransactionDO();
+            globalTransactionDO.setXid("abc-123:" + transactionId);
+            globalTransactionDO.setApplicationData("abc=" + transactionId);
+            globalTransactionDO.setTransactionServiceGroup("abc");
+            globalTransactionDO.setTransactionName("test");
+            globalTransactionDO.setTransactionId(transactionId);
+            globalTransactionDO.setTimeout(20);
+            globalTransactionDO.setBeginTime(System.currentTimeMillis());
+            globalTransactionDO.setApplicationId("test");
+            globalTransactionDO.setStatus(5);
+
+            Assertions.assertTrue(logStoreDataBaseDAO.insertGlobalTransactionDO(globalTransactionDO));
+        }
+
+        List<GlobalTransactionDO> firstPage = logStoreDataBaseDAO.queryGlobalTransactionDO(new int[]{5}, null, 0L, 2);
+        Assertions.assertEquals(2, firstPage.size());
+        GlobalTransactionDO last = firstPage.get(1);
+        List<GlobalTransactionDO> secondPage = logStoreDataBaseDAO.queryGlobalTransactionDO(new int[]{5},
+            last.getGmtModified(), last.getTransactionId(), 2);
+        Assertions.assertEquals(1, secondPage.size());
+
+        Set<String> xids = new HashSet<>();
+        firstPage.forEach(globalTransactionDO -> xids.add(globalTransactionDO.getXid()));
+        secondPage.forEach(globalTransactionDO -> xids.add(globalTransactionDO.getXid()));
+        Assertions.assertEquals(3, xids.size());
+
+        String delSql = "delete from global_table where xid in ('abc-123:3001', 'abc-123:3002', 'abc-123:3003')";
+        Connection conn = null;
+        try {
+            conn = dataSource.getConnection();
+            conn.createStatement().execute(delSql);
+        } finally {
+            IOUtil.close(conn);
+        }
+    }
+
     @Test
     public void queryGlobalTransactionDO_by_statuses_limit() throws SQLException {
         {
@@ -20,6 +20,7 @@ import io.seata.server.session.BranchSession;
 import io.seata.server.session.GlobalSession;
 import io.seata.server.session.SessionManager;
 import io.seata.server.storage.file.session.FileSessionManager;
+import io.seata.server.store.SessionStorable;
 import io.seata.server.store.StoreConfig;
 import io.seata.server.store.TransactionStoreManager;
 import io.seata.server.storage.file.TransactionWriteStore;
@@ -30,11 +31,17 @@ import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
 import java.io.File;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * @author ggndnn
@@ -46,17 +53,9 @@ public class FileTransactionStoreManagerTest {
         FileTransactionStoreManager fileTransactionStoreManager = null;
         try {
             fileTransactionStoreManager = new FileTransactionStoreManager(seataFile.getAbsolutePath(), null);
-            BranchSession branchSessionA = Mockito.mock(BranchSession.class);
             GlobalSession global = new GlobalSession();
-            Mockito.when(branchSessionA.encode())
-                    .thenReturn(createBigBranchSessionData(global, (byte) 'A'));
-            Mockito.when(branchSessionA.getApplicationData())
-                    .thenReturn(new String(createBigApplicationData((byte) 'A')));
-            BranchSession branchSessionB = Mockito.mock(BranchSession.class);
-            Mockito.when(branchSessionB.encode())
-                    .thenReturn(createBigBranchSessionData(global, (byte) 'B'));
-            Mockito.when(branchSessionB.getApplicationData())
-                    .thenReturn(new String(createBigApplicationData((byte) 'B')));
+            BranchSession branchSessionA = mockBigBranchSession(global, (byte) 'A');
+            BranchSession branchSessionB = mockBigBranchSession(global, (byte) 'B');
             Assertions.assertTrue(fileTransactionStoreManager.writeSession(TransactionStoreManager.LogOperation.BRANCH_ADD, branchSessionA));
             Assertions.assertTrue(fileTransactionStoreManager.writeSession(TransactionStoreManager.LogOperation.BRANCH_ADD, branchSessionB));
             List<TransactionWriteStore> list = fileTransactionStoreManager.readWriteStore(2000, false);
@@ -70,46 +69,67 @@ public class FileTransactionStoreManagerTest {
             if (fileTransactionStoreManager != null) {
                 fileTransactionStoreManager.shutdown();
             }
-            Assertions.assertTrue(seataFile.delete());
+            deleteStoreFiles(seataFile);
         }
     }
 
     @Test
-    public void testFindTimeoutAndSave() throws Exception {
+    public void testConcurrentWrite() throws Exception {
         File seataFile = Files.newTemporaryFile();
-        Method findTimeoutAndSaveMethod = FileTransactionStoreManager.class.getDeclaredMethod("findTimeoutAndSave");
-        findTimeoutAndSaveMethod.setAccessible(true);
+        FileTransactionStoreManager fileTransactionStoreManager = null;
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        try {
+            FileTransactionStoreManager storeManager = new FileTransactionStoreManager(seataFile.getAbsolutePath(), null);
+            fileTransactionStoreManager = storeManager;
+            int writeNum = 1000;
+            List<Future<Boolean>> futures = new ArrayList<>(writeNum);
+            for (int i = 0; i < writeNum; i++) {
+                GlobalSession globalSession = new GlobalSession("demo-app", "my_test_tx_group", "test", 6000);
+                futures.add(executorService.submit(
+                    () -> storeManager.writeSession(TransactionStoreManager.LogOperation.GLOBAL_ADD, globalSession)));
+            }
+            for (Future<Boolean> future : futures) {
+                Assertions.assertTrue(future.get());
+            }
+            List<TransactionWriteStore> list = fileTransactionStoreManager.readWriteStore(writeNum * 2, false);
+            Assertions.assertNotNull(list);
+            Assertions.assertEquals(writeNum, list.size());
+        } finally {
+            executorService.shutdown();
+            if (fileTransactionStoreManager != null) {
+                fileTransactionStoreManager.shutdown();
+            }
+            deleteStoreFiles(seataFile);
+        }
+    }
+
+    @Test
+    public void testCheckpoint() throws Exception {
+        File seataFile = Files.newTemporaryFile();
+        Method snapshotMethod = FileTransactionStoreManager.class.getDeclaredMethod("snapshotFrames", Collection.class);
+        snapshotMethod.setAccessible(true);
+        Method checkpointMethod = FileTransactionStoreManager.class.getDeclaredMethod("checkpoint", List.class, long.class);
+        checkpointMethod.setAccessible(true);
         FileSessionManager sessionManager = null;
         FileTransactionStoreManager fileTransactionStoreManager = null;
         try {
-            List<GlobalSession> timeoutSessions = new ArrayList<>();
+            List<GlobalSession> liveSessions = new ArrayList<>();
             for (int i = 0; i < 100; i++) {
                 GlobalSession globalSession = new GlobalSession("", "", "", 60000);
-                BranchSession branchSessionA = Mockito.mock(BranchSession.class);
-                Mockito.when(branchSessionA.encode())
-                        .thenReturn(createBigBranchSessionData(globalSession, (byte) 'A'));
-                Mockito.when(branchSessionA.getApplicationData())
-                        .thenReturn(new String(createBigApplicationData((byte) 'A')));
-                globalSession.addBranch(branchSessionA);
-                BranchSession branchSessionB = Mockito.mock(BranchSession.class);
-                Mockito.when(branchSessionB.encode())
-                        .thenReturn(createBigBranchSessionData(globalSession, (byte) 'B'));
-                Mockito.when(branchSessionB.getApplicationData())
-                        .thenReturn(new String(createBigApplicationData((byte) 'B')));
-                globalSession.addBranch(branchSessionB);
-                timeoutSessions.add(globalSession);
+                globalSession.addBranch(mockBigBranchSession(globalSession, (byte) 'A'));
+                globalSession.addBranch(mockBigBranchSession(globalSession, (byte) 'B'));
+                liveSessions.add(globalSession);
             }
-            SessionManager sessionManagerMock = Mockito.mock(SessionManager.class);
-            Mockito.when(sessionManagerMock.findGlobalSessions(Mockito.any()))
-                    .thenReturn(timeoutSessions);
-            fileTransactionStoreManager = new FileTransactionStoreManager(
-                seataFile.getAbsolutePath(), sessionManagerMock);
-            Assertions.assertTrue((boolean) findTimeoutAndSaveMethod.invoke(fileTransactionStoreManager));
+            fileTransactionStoreManager = new FileTransactionStoreManager(seataFile.getAbsolutePath(), null);
+            Object frames = snapshotMethod.invoke(null, liveSessions);
+            Assertions.assertTrue((boolean) checkpointMethod.invoke(fileTransactionStoreManager, frames, 0L));
+            Assertions.assertTrue(new File(seataFile.getAbsolutePath() + ".checkpoint").exists());
 
             sessionManager = new FileSessionManager(seataFile.getName(), seataFile.getParent());
             sessionManager.reload();
             Collection<GlobalSession> globalSessions = sessionManager.allSessions();
             Assertions.assertNotNull(globalSessions);
+            Assertions.assertEquals(100, globalSessions.size());
             globalSessions.forEach(g -> {
                 Assertions.assertNotNull(g);
                 List<BranchSession> branches = g.getBranchSessions();
@@ -118,17 +138,155 @@ public class FileTransactionStoreManagerTest {
                 Assertions.assertEquals(new String(createBigApplicationData((byte) 'B')), branches.get(1).getApplicationData());
             });
         } finally {
-            findTimeoutAndSaveMethod.setAccessible(false);
+            snapshotMethod.setAccessible(false);
+            checkpointMethod.setAccessible(false);
+            if (fileTransactionStoreManager != null) {
+                fileTransactionStoreManager.shutdown();
+            }
+            if (sessionManager != null) {
+                sessionManager.destroy();
+            }
+            deleteStoreFiles(seataFile);
+        }
+    }
+
+    @Test
+    public void testRollSegmentWithManyLiveSessions() throws Exception {
+        File seataFile = Files.newTemporaryFile();
+        File checkpointFile = new File(seataFile.getAbsolutePath() + ".checkpoint");
+        CountDownLatch checkpointLatch = new CountDownLatch(1);
+        FileSessionManager sessionManager = null;
+        FileTransactionStoreManager fileTransactionStoreManager = null;
+        try {
+            int liveNum = 10000;
+            List<GlobalSession> liveSessions = new ArrayList<>(liveNum);
+            for (int i = 0; i < liveNum; i++) {
+                liveSessions.add(new GlobalSession("demo-app", "my_test_tx_group", "test", 60000));
+            }
+            GlobalSession lastSession = liveSessions.get(liveNum - 1);
+            lastSession.addBranch(mockBigBranchSession(lastSession, (byte) 'A'));
+            SessionManager sessionManagerMock = Mockito.mock(SessionManager.class);
+            Mockito.when(sessionManagerMock.allSessions()).thenReturn(liveSessions);
+            fileTransactionStoreManager = new FileTransactionStoreManager(
+                seataFile.getAbsolutePath(), sessionManagerMock);
+            // the checkpoint thread is held until the writes are done, the snapshot taken at the roll waits for it
+            Field checkpointExecutorField = FileTransactionStoreManager.class.getDeclaredField("checkpointExecutor");
+            checkpointExecutorField.setAccessible(true);
+            ((ExecutorService) checkpointExecutorField.get(fileTransactionStoreManager)).execute(() -> {
+                try {
+                    checkpointLatch.await();
+                } catch (InterruptedException ignore) {
+                }
+            });
+
+            // write past the end of the first segment, the writes after the roll go on while the checkpoint runs
+            GlobalSession firstSession = liveSessions.get(0);
+            BranchSession bigBranch = mockBigBranchSession(firstSession, (byte) 'B');
+            int writeNum = StoreConfig.getFileSegmentSize() / bigBranch.encoding().size() + 100;
+            for (int i = 0; i < writeNum; i++) {
+                Assertions.assertTrue(fileTransactionStoreManager.writeSession(
+                    TransactionStoreManager.LogOperation.BRANCH_ADD, bigBranch));
+            }
+            Assertions.assertTrue(new File(seataFile.getAbsolutePath() + ".00000000000000000001").exists());
+            Assertions.assertFalse(checkpointFile.exists());
+
+            checkpointLatch.countDown();
+            for (int i = 0; i < 100 && !checkpointFile.exists(); i++) {
+                Thread.sleep(100);
+            }
+            Assertions.assertTrue(checkpointFile.exists());
+            fileTransactionStoreManager.shutdown();
+            fileTransactionStoreManager = null;
+
+            sessionManager = new FileSessionManager(seataFile.getName(), seataFile.getParent());
+            sessionManager.reload();
+            Assertions.assertEquals(liveNum, sessionManager.allSessions().size());
+            Assertions.assertEquals(1, sessionManager.findGlobalSession(lastSession.getXid()).getBranchSessions().size());
+            // the same branch written over and over is replayed from the segments
+            Assertions.assertEquals(1, sessionManager.findGlobalSession(firstSession.getXid()).getBranchSessions().size());
+        } finally {
+            checkpointLatch.countDown();
             if (fileTransactionStoreManager != null) {
                 fileTransactionStoreManager.shutdown();
             }
             if (sessionManager != null) {
                 sessionManager.destroy();
             }
-            Assertions.assertTrue(seataFile.delete());
+            deleteStoreFiles(seataFile);
         }
     }
 
+    @Test
+    public void testIgnoreCorruptedRecord() throws Exception {
+        File seataFile = Files.newTemporaryFile();
+        FileTransactionStoreManager fileTransactionStoreManager = null;
+        try {
+            fileTransactionStoreManager = new FileTransactionStoreManager(seataFile.getAbsolutePath(), null);
+            GlobalSession globalSessionA = new GlobalSession("demo-app", "my_test_tx_group", "test", 6000);
+            GlobalSession globalSessionB = new GlobalSession("demo-app", "my_test_tx_group", "test", 6000);
+            Assertions.assertTrue(fileTransactionStoreManager.writeSession(TransactionStoreManager.LogOperation.GLOBAL_ADD, globalSessionA));
+            Assertions.assertTrue(fileTransactionStoreManager.writeSession(TransactionStoreManager.LogOperation.GLOBAL_ADD, globalSessionB));
+            fileTransactionStoreManager.shutdown();
+
+            // corrupt the last byte of the second record
+            long recordEnd = 8 + new TransactionWriteStore(globalSessionA, TransactionStoreManager.LogOperation.GLOBAL_ADD).encode().length
+                + 8 + new TransactionWriteStore(globalSessionB, TransactionStoreManager.LogOperation.GLOBAL_ADD).encode().length;
+            try (RandomAccessFile raf = new RandomAccessFile(seataFile.getAbsolutePath() + ".00000000000000000000", "rw")) {
+                raf.seek(recordEnd - 1);
+                byte last = raf.readByte();
+                raf.seek(recordEnd - 1);
+                raf.writeByte(last + 1);
+            }
+
+            fileTransactionStoreManager = new FileTransactionStoreManager(seataFile.getAbsolutePath(), null);
+            List<TransactionWriteStore> list = fileTransactionStoreManager.readWriteStore(2000, false);
+            Assertions.assertEquals(1, list.size());
+            Assertions.assertEquals(globalSessionA.getXid(), ((GlobalSession) list.get(0).getSessionRequest()).getXid());
+
+            // new records overwrite the corrupted one
+            Assertions.assertTrue(fileTransactionStoreManager.writeSession(TransactionStoreManager.LogOperation.GLOBAL_REMOVE, globalSessionA));
+            fileTransactionStoreManager.shutdown();
+            fileTransactionStoreManager = new FileTransactionStoreManager(seataFile.getAbsolutePath(), null);
+            list = fileTransactionStoreManager.readWriteStore(2000, false);
+            Assertions.assertEquals(2, list.size());
+            Assertions.assertEquals(TransactionStoreManager.LogOperation.GLOBAL_REMOVE, list.get(1).getOperate());
+        } finally {
+            if (fileTransactionStoreManager != null) {
+                fileTransactionStoreManager.shutdown();
+            }
+            deleteStoreFiles(seataFile);
+        }
+    }
+
+    private void deleteStoreFiles(File seataFile) {
+        File[] files = seataFile.getParentFile().listFiles((dir, name) -> name.startsWith(seataFile.getName()));
+        if (files != null) {
+            for (File file : files) {
+                Assertions.assertTrue(file.delete());
+            }
+        }
+    }
+
+    private BranchSession mockBigBranchSession(GlobalSession global, byte c) {
+        BranchSession branchSession = Mockito.mock(BranchSession.class);
+        byte[] data = createBigBranchSessionData(global, c);
+        Mockito.when(branchSession.encode()).thenReturn(data);
+        Mockito.when(branchSession.encoding()).thenAnswer(invocation -> new SessionStorable.Encoding() {
+            @Override
+            public int size() {
+                return data.length;
+            }
+
+            @Override
+            public void encodeTo(ByteBuffer byteBuffer) {
+                byteBuffer.put(data);
+            }
+        });
+        Mockito.when(branchSession.getApplicationData())
+                .thenReturn(new String(createBigApplicationData(c)));
+        return branchSession;
+    }
+
     private byte[] createBigBranchSessionData(GlobalSession global, byte c) {
         int bufferSize = StoreConfig.getFileWriteBufferCacheSize() // applicationDataBytes
                 + 8 // trascationId
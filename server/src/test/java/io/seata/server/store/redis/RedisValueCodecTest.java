@@ -0,0 +1,95 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.seata.server.store.redis;
+
+import java.util.Date;
+
+import com.alibaba.fastjson.JSON;
+import io.seata.core.model.BranchStatus;
+import io.seata.core.model.BranchType;
+import io.seata.core.model.GlobalStatus;
+import io.seata.core.store.BranchTransactionDO;
+import io.seata.core.store.GlobalTransactionDO;
+import io.seata.core.store.LockDO;
+import io.seata.server.storage.redis.BinaryRedisValueCodec;
+import io.seata.server.storage.redis.RedisValueCodec;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The type Redis value codec test.
+ */
+public class RedisValueCodecTest {
+
+    private final RedisValueCodec codec = new BinaryRedisValueCodec();
+
+    @Test
+    public void testGlobalTransactionDO() {
+        GlobalTransactionDO global = new GlobalTransactionDO();
+        global.setXid("127.0.0.1:8091:855188799829839872");
+        global.setTransactionId(855188799829839872L);
+        global.setStatus(GlobalStatus.Begin.getCode());
+        global.setApplicationId("demo-app");
+        global.setTransactionServiceGroup("my_test_tx_group");
+        global.setTransactionName("test");
+        global.setTimeout(60000);
+        global.setBeginTime(System.currentTimeMillis());
+        global.setGmtCreate(new Date());
+
+        byte[] bytes = codec.encode(global);
+        Assertions.assertTrue(bytes.length < JSON.toJSONBytes(global).length);
+        GlobalTransactionDO decoded = codec.decode(bytes, GlobalTransactionDO.class);
+        Assertions.assertEquals(JSON.toJSONString(global), JSON.toJSONString(decoded));
+        Assertions.assertNull(decoded.getApplicationData());
+        Assertions.assertNull(decoded.getGmtModified());
+    }
+
+    @Test
+    public void testBranchTransactionDOAndLockDO() {
+        BranchTransactionDO branch = new BranchTransactionDO();
+        branch.setXid("127.0.0.1:8091:855188799829839872");
+        branch.setTransactionId(855188799829839872L);
+        branch.setBranchId(-1L);
+        branch.setResourceId("jdbc:mysql://127.0.0.1:3306/seata");
+        branch.setBranchType(BranchType.AT.name());
+        branch.setStatus(BranchStatus.PhaseOne_Done.getCode());
+        branch.setApplicationData("{\"data\":\"中文\"}");
+        BranchTransactionDO decodedBranch = codec.decode(codec.encode(branch), BranchTransactionDO.class);
+        Assertions.assertEquals(JSON.toJSONString(branch), JSON.toJSONString(decodedBranch));
+
+        LockDO lock = new LockDO();
+        lock.setXid(branch.getXid());
+        lock.setTransactionId(branch.getTransactionId());
+        lock.setBranchId(branch.getBranchId());
+        lock.setResourceId(branch.getResourceId());
+        lock.setTableName("t_order");
+        lock.setPk("1");
+        lock.setRowKey("jdbc:mysql://127.0.0.1:3306/seata^^^t_order^^^1");
+        LockDO decodedLock = codec.decode(codec.encode(lock), LockDO.class);
+        Assertions.assertEquals(JSON.toJSONString(lock), JSON.toJSONString(decodedLock));
+    }
+
+    @Test
+    public void testDecodeJson() {
+        LockDO lock = new LockDO();
+        lock.setXid("127.0.0.1:8091:1");
+        lock.setRowKey("row");
+        LockDO decoded = codec.decode(JSON.toJSONBytes(lock), LockDO.class);
+        Assertions.assertEquals("127.0.0.1:8091:1", decoded.getXid());
+        Assertions.assertEquals("row", decoded.getRowKey());
+        Assertions.assertNull(codec.decode(null, LockDO.class));
+    }
+}
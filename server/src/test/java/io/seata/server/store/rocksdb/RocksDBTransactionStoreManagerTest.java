@@ -0,0 +1,152 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.seata.server.store.rocksdb;
+
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import io.seata.core.exception.TransactionException;
+import io.seata.core.model.BranchType;
+import io.seata.core.model.GlobalStatus;
+import io.seata.server.session.BranchSession;
+import io.seata.server.session.GlobalSession;
+import io.seata.server.session.SessionCondition;
+import io.seata.server.session.SessionHelper;
+import io.seata.server.storage.rocksdb.RocksDBFactory;
+import io.seata.server.storage.rocksdb.store.RocksDBTransactionStoreManager;
+import io.seata.server.store.TransactionStoreManager.LogOperation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * The type Rocks db transaction store manager test.
+ */
+public class RocksDBTransactionStoreManagerTest {
+
+    @TempDir
+    Path dir;
+
+    private RocksDBFactory factory;
+
+    private RocksDBTransactionStoreManager storeManager;
+
+    @BeforeEach
+    public void open() {
+        factory = new RocksDBFactory(dir.toString(), false);
+        storeManager = new RocksDBTransactionStoreManager(factory);
+    }
+
+    @AfterEach
+    public void close() {
+        factory.close();
+    }
+
+    @Test
+    public void testWriteAndRead() throws TransactionException {
+        GlobalSession globalSession = newSession();
+        Assertions.assertTrue(storeManager.writeSession(LogOperation.GLOBAL_ADD, globalSession));
+        BranchSession first = SessionHelper.newBranchByGlobal(globalSession, BranchType.AT, "resource", "t:1", "c");
+        BranchSession second = SessionHelper.newBranchByGlobal(globalSession, BranchType.AT, "resource", "t:2", "c");
+        Assertions.assertTrue(storeManager.writeSession(LogOperation.BRANCH_ADD, first));
+        Assertions.assertTrue(storeManager.writeSession(LogOperation.BRANCH_ADD, second));
+
+        GlobalSession read = storeManager.readSession(globalSession.getXid());
+        Assertions.assertNotNull(read);
+        Assertions.assertEquals(globalSession.getTransactionId(), read.getTransactionId());
+        Assertions.assertEquals(2, read.getBranchSessions().size());
+        Assertions.assertEquals(0, storeManager.readSession(globalSession.getXid(), false).getBranchSessions().size());
+
+        SessionCondition condition = new SessionCondition();
+        condition.setTransactionId(globalSession.getTransactionId());
+        Assertions.assertEquals(globalSession.getXid(), storeManager.readSession(condition).get(0).getXid());
+
+        Assertions.assertTrue(storeManager.writeSession(LogOperation.BRANCH_REMOVE, first));
+        Assertions.assertEquals(1, storeManager.readSession(globalSession.getXid()).getBranchSessions().size());
+
+        Assertions.assertTrue(storeManager.writeSession(LogOperation.GLOBAL_REMOVE, globalSession));
+        Assertions.assertNull(storeManager.readSession(globalSession.getXid()));
+        Assertions.assertNull(storeManager.readSession(condition));
+    }
+
+    @Test
+    public void testReadByStatus() throws TransactionException {
+        GlobalSession begin = newSession();
+        GlobalSession committing = newSession();
+        storeManager.writeSession(LogOperation.GLOBAL_ADD, begin);
+        storeManager.writeSession(LogOperation.GLOBAL_ADD, committing);
+        committing.setStatus(GlobalStatus.Committing);
+        storeManager.writeSession(LogOperation.GLOBAL_UPDATE, committing);
+
+        List<GlobalSession> sessions = storeManager.readSession(new GlobalStatus[] {GlobalStatus.Committing});
+        Assertions.assertEquals(1, sessions.size());
+        Assertions.assertEquals(committing.getXid(), sessions.get(0).getXid());
+        // the status index entry of the old status is gone
+        sessions = storeManager.readSession(new GlobalStatus[] {GlobalStatus.Begin});
+        Assertions.assertEquals(1, sessions.size());
+        Assertions.assertEquals(begin.getXid(), sessions.get(0).getXid());
+
+        storeManager.setLogQueryLimit(1);
+        committing.setStatus(GlobalStatus.Begin);
+        storeManager.writeSession(LogOperation.GLOBAL_UPDATE, committing);
+        Assertions.assertEquals(1, storeManager.readSession(new GlobalStatus[] {GlobalStatus.Begin}).size());
+        Assertions.assertNull(storeManager.readSession(new GlobalStatus[] {GlobalStatus.Committing}));
+    }
+
+    @Test
+    public void testReadByStatusBeyondQueryLimit() throws TransactionException {
+        Set<String> expected = new HashSet<>();
+        for (int i = 0; i < 12; i++) {
+            GlobalSession session = newSession();
+            session.setStatus(GlobalStatus.TimeoutRollbacking);
+            storeManager.writeSession(LogOperation.GLOBAL_ADD, session);
+            expected.add(session.getXid());
+        }
+        for (int i = 0; i < 2; i++) {
+            GlobalSession session = newSession();
+            session.setStatus(GlobalStatus.RollbackRetrying);
+            storeManager.writeSession(LogOperation.GLOBAL_ADD, session);
+            expected.add(session.getXid());
+        }
+        storeManager.setLogQueryLimit(5);
+        GlobalStatus[] statuses = new GlobalStatus[] {GlobalStatus.TimeoutRollbacking, GlobalStatus.RollbackRetrying};
+
+        // every read resumes after the previous one, so the sessions past the first page are read too
+        Set<String> read = new HashSet<>();
+        for (int size : new int[] {5, 5, 4}) {
+            List<GlobalSession> sessions = storeManager.readSession(statuses);
+            Assertions.assertEquals(size, sessions.size());
+            sessions.forEach(session -> read.add(session.getXid()));
+        }
+        Assertions.assertEquals(expected, read);
+
+        // the statuses read to their end start over
+        Assertions.assertEquals(5, storeManager.readSession(statuses).size());
+        // a set of statuses has a position of its own
+        Assertions.assertEquals(2, storeManager.readSession(new GlobalStatus[] {GlobalStatus.RollbackRetrying}).size());
+    }
+
+    private static GlobalSession newSession() throws TransactionException {
+        GlobalSession globalSession = new GlobalSession("demo-app", "my_test_tx_group", "test", 6000);
+        globalSession.setActive(true);
+        globalSession.begin();
+        return globalSession;
+    }
+}